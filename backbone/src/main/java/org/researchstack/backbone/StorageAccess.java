@@ -7,6 +7,7 @@ import android.os.Looper;
 import android.support.annotation.MainThread;
 
 import org.researchstack.backbone.storage.database.AppDatabase;
+import org.researchstack.backbone.storage.database.QueryableAppDatabase;
 import org.researchstack.backbone.storage.file.EncryptionProvider;
 import org.researchstack.backbone.storage.file.FileAccess;
 import org.researchstack.backbone.storage.file.PinCodeConfig;
@@ -107,6 +108,16 @@ public class StorageAccess {
         return appDatabase;
     }
 
+    /**
+     * Returns whether {@link #getFileAccess()} can be used to read and write, which is not the case
+     * while onboarding before the pin code is created, even if listeners were told data is ready.
+     *
+     * @return true if there is an encrypter for file access
+     */
+    public boolean isFileAccessReady() {
+        return encryptionProvider.getEncrypter() != null;
+    }
+
     /**
      * Returns the pin code configuration for the app
      *
@@ -150,7 +161,10 @@ public class StorageAccess {
         UiThreadContext.assertUiThread();
 
         if (encryptionProvider.needsAuth(context, pinCodeConfig)) {
-            // just need to re-auth
+            // just need to re-auth, and nothing decrypted should outlive the lock
+            if (appDatabase instanceof QueryableAppDatabase) {
+                ((QueryableAppDatabase) appDatabase).clearCache();
+            }
             notifySoftFail();
         } else {
             notifyReady();
@@ -1,5 +1,8 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import org.researchstack.backbone.ui.step.body.DateQuestionBody;
 import org.researchstack.backbone.ui.step.body.DecimalQuestionBody;
 import org.researchstack.backbone.ui.step.body.DurationQuestionBody;
@@ -21,8 +24,12 @@ import java.io.Serializable;
  * To use an answer format, instantiate the appropriate answer format subclass and attach it to a
  * question step or form item. Incorporate the resulting step into a task, and present the task with
  * a {@link org.researchstack.backbone.ui.ViewTaskActivity}.
+ * <p>
+ * Like steps, answer formats that add fields should override {@link #writeToParcel}, add a
+ * constructor that takes a {@link Parcel} and declare their own CREATOR, or they are passed to the
+ * ViewTaskActivity as a {@link Serializable}.
  */
-public abstract class AnswerFormat implements Serializable {
+public abstract class AnswerFormat implements Serializable, Parcelable {
     /**
      * Default constructor. The appropriate subclass of AnswerFormat should be used instead of this
      * directly.
@@ -30,6 +37,18 @@ public abstract class AnswerFormat implements Serializable {
     public AnswerFormat() {
     }
 
+    protected AnswerFormat(Parcel in) {
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+    }
+
     /**
      * Returns the QuestionType for this answer format. Implement this in your subclass.
      *
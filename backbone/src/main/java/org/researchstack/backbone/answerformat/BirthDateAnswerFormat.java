@@ -1,5 +1,7 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.ui.step.body.BodyAnswer;
 
@@ -7,6 +9,18 @@ import java.util.Calendar;
 import java.util.Date;
 
 public class BirthDateAnswerFormat extends DateAnswerFormat {
+    public static final Creator<BirthDateAnswerFormat> CREATOR = new Creator<BirthDateAnswerFormat>() {
+        @Override
+        public BirthDateAnswerFormat createFromParcel(Parcel in) {
+            return new BirthDateAnswerFormat(in);
+        }
+
+        @Override
+        public BirthDateAnswerFormat[] newArray(int size) {
+            return new BirthDateAnswerFormat[size];
+        }
+    };
+
     private final int minAge;
     private final int maxAge;
 
@@ -16,6 +30,19 @@ public class BirthDateAnswerFormat extends DateAnswerFormat {
         this.maxAge = maxAge;
     }
 
+    protected BirthDateAnswerFormat(Parcel in) {
+        super(in);
+        this.minAge = in.readInt();
+        this.maxAge = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeInt(minAge);
+        dest.writeInt(maxAge);
+    }
+
     private static Date dateFromAge(int age) {
         Calendar calendar = Calendar.getInstance();
         if (age != 0) {
@@ -1,5 +1,6 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
 
 import org.researchstack.backbone.model.Choice;
 
@@ -11,6 +12,17 @@ import org.researchstack.backbone.model.Choice;
  * always be true/false.
  */
 public class BooleanAnswerFormat extends ChoiceAnswerFormat {
+    public static final Creator<BooleanAnswerFormat> CREATOR = new Creator<BooleanAnswerFormat>() {
+        @Override
+        public BooleanAnswerFormat createFromParcel(Parcel in) {
+            return new BooleanAnswerFormat(in);
+        }
+
+        @Override
+        public BooleanAnswerFormat[] newArray(int size) {
+            return new BooleanAnswerFormat[size];
+        }
+    };
 
     /**
      * Constructs a single choice question with true/false values, using the specified strings to
@@ -25,6 +37,10 @@ public class BooleanAnswerFormat extends ChoiceAnswerFormat {
                 new Choice<>(falseString, false));
     }
 
+    protected BooleanAnswerFormat(Parcel in) {
+        super(in);
+    }
+
     @Override
     public QuestionType getQuestionType() {
         return Type.Boolean;
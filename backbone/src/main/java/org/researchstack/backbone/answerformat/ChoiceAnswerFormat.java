@@ -1,13 +1,27 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
 
 import org.researchstack.backbone.model.Choice;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 /**
  * The ChoiceAnswerFormat class represents an answer format that lets participants choose from a
  * fixed set of text choices in a multiple or single choice question.
  */
 public class ChoiceAnswerFormat extends AnswerFormat {
+    public static final Creator<ChoiceAnswerFormat> CREATOR = new Creator<ChoiceAnswerFormat>() {
+        @Override
+        public ChoiceAnswerFormat createFromParcel(Parcel in) {
+            return new ChoiceAnswerFormat(in);
+        }
+
+        @Override
+        public ChoiceAnswerFormat[] newArray(int size) {
+            return new ChoiceAnswerFormat[size];
+        }
+    };
+
     private AnswerFormat.ChoiceAnswerStyle answerStyle;
     private Choice[] choices;
 
@@ -23,6 +37,25 @@ public class ChoiceAnswerFormat extends AnswerFormat {
         this.choices = choices.clone();
     }
 
+    protected ChoiceAnswerFormat(Parcel in) {
+        super(in);
+        this.answerStyle = ParcelUtils.readEnum(in, ChoiceAnswerStyle.class);
+        this.choices = new Choice[in.readInt()];
+        for (int i = 0; i < choices.length; i++) {
+            choices[i] = ParcelUtils.readObject(in);
+        }
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeEnum(dest, answerStyle);
+        dest.writeInt(choices.length);
+        for (Choice choice : choices) {
+            ParcelUtils.writeObject(dest, choice, flags);
+        }
+    }
+
     /**
      * Returns a multiple choice or single choice question type, which will decide which {@link
      * org.researchstack.backbone.ui.step.body.StepBody} to use to display this question.
@@ -1,8 +1,11 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.ui.step.body.BodyAnswer;
 import org.researchstack.backbone.utils.FormatHelper;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 import java.util.Date;
 
@@ -11,6 +14,17 @@ import java.util.Date;
  * a date, or a date and time.
  */
 public class DateAnswerFormat extends AnswerFormat {
+    public static final Creator<DateAnswerFormat> CREATOR = new Creator<DateAnswerFormat>() {
+        @Override
+        public DateAnswerFormat createFromParcel(Parcel in) {
+            return new DateAnswerFormat(in);
+        }
+
+        @Override
+        public DateAnswerFormat[] newArray(int size) {
+            return new DateAnswerFormat[size];
+        }
+    };
 
     private DateAnswerStyle style;
 
@@ -31,6 +45,23 @@ public class DateAnswerFormat extends AnswerFormat {
         this.maximumDate = maximumDate;
     }
 
+    protected DateAnswerFormat(Parcel in) {
+        super(in);
+        this.style = ParcelUtils.readEnum(in, DateAnswerStyle.class);
+        this.defaultDate = ParcelUtils.readDate(in);
+        this.minimumDate = ParcelUtils.readDate(in);
+        this.maximumDate = ParcelUtils.readDate(in);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeEnum(dest, style);
+        ParcelUtils.writeDate(dest, defaultDate);
+        ParcelUtils.writeDate(dest, minimumDate);
+        ParcelUtils.writeDate(dest, maximumDate);
+    }
+
     /**
      * Returns the style of date entry.
      *
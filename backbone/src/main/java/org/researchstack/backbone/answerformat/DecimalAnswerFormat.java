@@ -1,5 +1,7 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.ui.step.body.BodyAnswer;
 import org.researchstack.backbone.utils.TextUtils;
@@ -13,6 +15,18 @@ import org.researchstack.backbone.utils.TextUtils;
  * within the valid range.
  */
 public class DecimalAnswerFormat extends AnswerFormat {
+    public static final Creator<DecimalAnswerFormat> CREATOR = new Creator<DecimalAnswerFormat>() {
+        @Override
+        public DecimalAnswerFormat createFromParcel(Parcel in) {
+            return new DecimalAnswerFormat(in);
+        }
+
+        @Override
+        public DecimalAnswerFormat[] newArray(int size) {
+            return new DecimalAnswerFormat[size];
+        }
+    };
+
     private float minValue;
     private float maxValue;
 
@@ -27,6 +41,19 @@ public class DecimalAnswerFormat extends AnswerFormat {
         this.maxValue = maxValue;
     }
 
+    protected DecimalAnswerFormat(Parcel in) {
+        super(in);
+        this.minValue = in.readFloat();
+        this.maxValue = in.readFloat();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeFloat(minValue);
+        dest.writeFloat(maxValue);
+    }
+
     @Override
     public QuestionType getQuestionType() {
         return Type.Decimal;
@@ -1,9 +1,23 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
 /**
  * Created by Dario Salvi on 29/04/2016.
  */
 public class DurationAnswerFormat extends AnswerFormat {
+    public static final Creator<DurationAnswerFormat> CREATOR = new Creator<DurationAnswerFormat>() {
+        @Override
+        public DurationAnswerFormat createFromParcel(Parcel in) {
+            return new DurationAnswerFormat(in);
+        }
+
+        @Override
+        public DurationAnswerFormat[] newArray(int size) {
+            return new DurationAnswerFormat[size];
+        }
+    };
+
     private String unit;
     private int step;
 
@@ -12,6 +26,19 @@ public class DurationAnswerFormat extends AnswerFormat {
         this.unit = unit;
     }
 
+    protected DurationAnswerFormat(Parcel in) {
+        super(in);
+        this.unit = in.readString();
+        this.step = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeString(unit);
+        dest.writeInt(step);
+    }
+
 
     @Override
     public QuestionType getQuestionType() {
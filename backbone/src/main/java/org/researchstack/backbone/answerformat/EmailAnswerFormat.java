@@ -1,15 +1,32 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
 
 import org.researchstack.backbone.utils.TextUtils;
 
 public class EmailAnswerFormat extends TextAnswerFormat {
+    public static final Creator<EmailAnswerFormat> CREATOR = new Creator<EmailAnswerFormat>() {
+        @Override
+        public EmailAnswerFormat createFromParcel(Parcel in) {
+            return new EmailAnswerFormat(in);
+        }
+
+        @Override
+        public EmailAnswerFormat[] newArray(int size) {
+            return new EmailAnswerFormat[size];
+        }
+    };
+
     private static final int MAX_EMAIL_LENGTH = 255;
 
     public EmailAnswerFormat() {
         super(MAX_EMAIL_LENGTH);
     }
 
+    protected EmailAnswerFormat(Parcel in) {
+        super(in);
+    }
+
     @Override
     public boolean isAnswerValid(String text) {
         return super.isAnswerValid(text) && TextUtils.isValidEmail(text);
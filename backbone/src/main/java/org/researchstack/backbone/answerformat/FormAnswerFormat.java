@@ -1,17 +1,35 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
 /**
  * AnswerFormat indicating that the QuestionStep is a form step. This lets the layout know that it
  * needs to use the individual QuestionSteps inside the form step to build the ui and validate
  * answers.
  */
 public class FormAnswerFormat extends AnswerFormat {
+    public static final Creator<FormAnswerFormat> CREATOR = new Creator<FormAnswerFormat>() {
+        @Override
+        public FormAnswerFormat createFromParcel(Parcel in) {
+            return new FormAnswerFormat(in);
+        }
+
+        @Override
+        public FormAnswerFormat[] newArray(int size) {
+            return new FormAnswerFormat[size];
+        }
+    };
+
     /**
      * Default constructor
      */
     public FormAnswerFormat() {
     }
 
+    protected FormAnswerFormat(Parcel in) {
+        super(in);
+    }
+
     @Override
     public QuestionType getQuestionType() {
         return Type.Form;
@@ -1,5 +1,7 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.ui.step.body.BodyAnswer;
 import org.researchstack.backbone.utils.TextUtils;
@@ -13,6 +15,18 @@ import org.researchstack.backbone.utils.TextUtils;
  * until the participant provides a value that is within the valid range.
  */
 public class IntegerAnswerFormat extends AnswerFormat {
+    public static final Creator<IntegerAnswerFormat> CREATOR = new Creator<IntegerAnswerFormat>() {
+        @Override
+        public IntegerAnswerFormat createFromParcel(Parcel in) {
+            return new IntegerAnswerFormat(in);
+        }
+
+        @Override
+        public IntegerAnswerFormat[] newArray(int size) {
+            return new IntegerAnswerFormat[size];
+        }
+    };
+
     private int maxValue;
     private int minValue;
 
@@ -27,6 +41,19 @@ public class IntegerAnswerFormat extends AnswerFormat {
         this.maxValue = maxValue;
     }
 
+    protected IntegerAnswerFormat(Parcel in) {
+        super(in);
+        this.maxValue = in.readInt();
+        this.minValue = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeInt(maxValue);
+        dest.writeInt(minValue);
+    }
+
     @Override
     public QuestionType getQuestionType() {
         return Type.Integer;
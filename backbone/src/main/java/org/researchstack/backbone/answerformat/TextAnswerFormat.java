@@ -1,11 +1,26 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
+
+import org.researchstack.backbone.utils.ParcelUtils;
 
 /**
  * The TextAnswerFormat class represents the answer format for questions that collect a text
  * response from the user.
  */
 public class TextAnswerFormat extends AnswerFormat {
+    public static final Creator<TextAnswerFormat> CREATOR = new Creator<TextAnswerFormat>() {
+        @Override
+        public TextAnswerFormat createFromParcel(Parcel in) {
+            return new TextAnswerFormat(in);
+        }
+
+        @Override
+        public TextAnswerFormat[] newArray(int size) {
+            return new TextAnswerFormat[size];
+        }
+    };
+
     public static final int UNLIMITED_LENGTH = 0;
     private int maximumLength;
 
@@ -27,6 +42,19 @@ public class TextAnswerFormat extends AnswerFormat {
         this.maximumLength = maximumLength;
     }
 
+    protected TextAnswerFormat(Parcel in) {
+        super(in);
+        this.maximumLength = in.readInt();
+        this.isMultipleLines = ParcelUtils.readBoolean(in);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeInt(maximumLength);
+        ParcelUtils.writeBoolean(dest, isMultipleLines);
+    }
+
     /**
      * Returns the maximum length for the answer, <code>UNLIMITED_LENGTH</code> (0) if no maximum
      *
@@ -1,11 +1,28 @@
 package org.researchstack.backbone.answerformat;
 
+import android.os.Parcel;
 
 @Deprecated
 public class UnknownAnswerFormat extends AnswerFormat {
+    public static final Creator<UnknownAnswerFormat> CREATOR = new Creator<UnknownAnswerFormat>() {
+        @Override
+        public UnknownAnswerFormat createFromParcel(Parcel in) {
+            return new UnknownAnswerFormat(in);
+        }
+
+        @Override
+        public UnknownAnswerFormat[] newArray(int size) {
+            return new UnknownAnswerFormat[size];
+        }
+    };
+
     public UnknownAnswerFormat() {
     }
 
+    protected UnknownAnswerFormat(Parcel in) {
+        super(in);
+    }
+
     @Override
     public QuestionType getQuestionType() {
         return Type.None;
@@ -1,5 +1,10 @@
 package org.researchstack.backbone.model;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.researchstack.backbone.utils.ParcelUtils;
+
 import java.io.Serializable;
 
 /**
@@ -9,7 +14,19 @@ import java.io.Serializable;
  *
  * @param <T> the type of value for the choice, usually Integer or String
  */
-public class Choice<T> implements Serializable {
+public class Choice<T> implements Serializable, Parcelable {
+    public static final Creator<Choice> CREATOR = new Creator<Choice>() {
+        @Override
+        public Choice createFromParcel(Parcel in) {
+            return new Choice<>(in);
+        }
+
+        @Override
+        public Choice[] newArray(int size) {
+            return new Choice[size];
+        }
+    };
+
     private String text;
 
     private T value;
@@ -40,6 +57,25 @@ public class Choice<T> implements Serializable {
         this.detailText = detailText;
     }
 
+    @SuppressWarnings("unchecked")
+    protected Choice(Parcel in) {
+        this.text = in.readString();
+        this.value = (T) ParcelUtils.readValue(in);
+        this.detailText = in.readString();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(text);
+        ParcelUtils.writeValue(dest, value, flags);
+        dest.writeString(detailText);
+    }
+
     /**
      * Return the user-facing text for this choice
      *
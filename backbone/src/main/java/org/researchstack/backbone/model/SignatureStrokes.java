@@ -0,0 +1,582 @@
+package org.researchstack.backbone.model;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Vector form of a signature, the strokes as they were drawn, which is one to two orders of
+ * magnitude smaller than an image of it and can be rasterized at any resolution when needed.
+ * <p>
+ * Coordinates are quantized to 1/{@link #PRECISION} of the unit they are recorded in (dp for
+ * {@link org.researchstack.backbone.ui.views.SignatureView}) and kept in primitive arrays. Pressure
+ * and time since the first point can be recorded as well, pressure quantized to a byte.
+ * <p>
+ * {@link #encode()} writes a compact binary form: each point as the zigzag varint encoded
+ * difference to the previous one, which takes a byte or two for most points. {@link #toSvg} writes
+ * the same strokes as an SVG path.
+ */
+public class SignatureStrokes {
+    /**
+     * Number of quantization steps per coordinate unit
+     */
+    public static final int PRECISION = 8;
+
+    private static final int VERSION = 1;
+
+    private static final int FLAG_PRESSURE = 1;
+    private static final int FLAG_TIME = 2;
+
+    private static final int INITIAL_POINTS = 256;
+
+    private final boolean hasPressure;
+    private final boolean hasTime;
+
+    private int[] xs = new int[INITIAL_POINTS];
+    private int[] ys = new int[INITIAL_POINTS];
+    private byte[] pressures;
+    private int[] times;
+    private int pointCount;
+
+    /**
+     * Index of the first point of each stroke
+     */
+    private int[] strokeStarts = new int[16];
+    private int strokeCount;
+
+    private long startTime = -1;
+
+    private int strokeWidth = PRECISION;
+
+    /**
+     * Scratch space for {@link #simplifyLastStroke}, kept to avoid allocating for every stroke
+     */
+    private boolean[] keep = new boolean[0];
+    private int[] stack = new int[0];
+
+    /**
+     * @param hasPressure whether to record the pressure of each point
+     * @param hasTime     whether to record the time of each point
+     */
+    public SignatureStrokes(boolean hasPressure, boolean hasTime) {
+        this.hasPressure = hasPressure;
+        this.hasTime = hasTime;
+        if (hasPressure) {
+            pressures = new byte[INITIAL_POINTS];
+        }
+        if (hasTime) {
+            times = new int[INITIAL_POINTS];
+        }
+    }
+
+    /**
+     * Starts a new stroke at the given point.
+     *
+     * @param x        the x coordinate
+     * @param y        the y coordinate
+     * @param pressure the pressure, from 0 to 1, ignored if pressure isn't recorded
+     * @param time     the time in milliseconds, ignored if time isn't recorded
+     */
+    public void startStroke(float x, float y, float pressure, long time) {
+        if (strokeCount == strokeStarts.length) {
+            strokeStarts = Arrays.copyOf(strokeStarts, strokeCount * 2);
+        }
+        strokeStarts[strokeCount++] = pointCount;
+        addPoint(x, y, pressure, time);
+    }
+
+    /**
+     * Adds a point to the current stroke.
+     *
+     * @param x        the x coordinate
+     * @param y        the y coordinate
+     * @param pressure the pressure, from 0 to 1, ignored if pressure isn't recorded
+     * @param time     the time in milliseconds, ignored if time isn't recorded
+     */
+    public void addPoint(float x, float y, float pressure, long time) {
+        if (strokeCount == 0) {
+            throw new IllegalStateException("Call startStroke first");
+        }
+        ensureCapacity(pointCount + 1);
+        xs[pointCount] = Math.round(x * PRECISION);
+        ys[pointCount] = Math.round(y * PRECISION);
+        if (hasPressure) {
+            pressures[pointCount] = (byte) Math.round(Math.max(0, Math.min(1, pressure)) * 255);
+        }
+        if (hasTime) {
+            if (startTime < 0) {
+                startTime = time;
+            }
+            times[pointCount] = (int) (time - startTime);
+        }
+        pointCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= xs.length) {
+            return;
+        }
+        int size = Math.max(capacity, xs.length * 2);
+        xs = Arrays.copyOf(xs, size);
+        ys = Arrays.copyOf(ys, size);
+        if (hasPressure) {
+            pressures = Arrays.copyOf(pressures, size);
+        }
+        if (hasTime) {
+            times = Arrays.copyOf(times, size);
+        }
+    }
+
+    /**
+     * Simplifies the last stroke with the Ramer-Douglas-Peucker algorithm, dropping points that are
+     * closer than the tolerance to the line between the points kept around them. Meant to be called
+     * once a stroke is finished, a fast stroke often has many nearly collinear points.
+     *
+     * @param tolerance the largest distance a dropped point may have, in coordinate units
+     * @return the number of points dropped
+     */
+    public int simplifyLastStroke(float tolerance) {
+        if (strokeCount == 0) {
+            return 0;
+        }
+        int start = strokeStarts[strokeCount - 1];
+        int count = pointCount - start;
+        if (count <= 2) {
+            return 0;
+        }
+
+        if (keep.length < count) {
+            keep = new boolean[Math.max(count, keep.length * 2)];
+            stack = new int[keep.length * 2];
+        }
+        Arrays.fill(keep, 0, count, false);
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        double maxDistance = tolerance * PRECISION;
+        double maxDistanceSquared = maxDistance * maxDistance;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int farthest = -1;
+            double farthestDistance = maxDistanceSquared;
+            for (int i = first + 1; i < last; i++) {
+                double distance = distanceSquared(start + i, start + first, start + last);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        int kept = start;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                int from = start + i;
+                xs[kept] = xs[from];
+                ys[kept] = ys[from];
+                if (hasPressure) {
+                    pressures[kept] = pressures[from];
+                }
+                if (hasTime) {
+                    times[kept] = times[from];
+                }
+                kept++;
+            }
+        }
+        int dropped = pointCount - kept;
+        pointCount = kept;
+        return dropped;
+    }
+
+    /**
+     * Squared distance of a point to the segment between two others, in quantization steps
+     */
+    private double distanceSquared(int point, int first, int last) {
+        double dx = xs[last] - xs[first];
+        double dy = ys[last] - ys[first];
+        double px = xs[point] - xs[first];
+        double py = ys[point] - ys[first];
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return px * px + py * py;
+        }
+        double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    public void clear() {
+        pointCount = 0;
+        strokeCount = 0;
+        startTime = -1;
+    }
+
+    public boolean isEmpty() {
+        return pointCount == 0;
+    }
+
+    public boolean hasPressure() {
+        return hasPressure;
+    }
+
+    public boolean hasTime() {
+        return hasTime;
+    }
+
+    public int getStrokeCount() {
+        return strokeCount;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @param stroke the stroke index
+     * @return the index of the first point of the stroke
+     */
+    public int getStrokeStart(int stroke) {
+        return strokeStarts[stroke];
+    }
+
+    /**
+     * @param stroke the stroke index
+     * @return the index after the last point of the stroke
+     */
+    public int getStrokeEnd(int stroke) {
+        return stroke + 1 < strokeCount ? strokeStarts[stroke + 1] : pointCount;
+    }
+
+    public float getX(int point) {
+        return xs[point] / (float) PRECISION;
+    }
+
+    public float getY(int point) {
+        return ys[point] / (float) PRECISION;
+    }
+
+    /**
+     * @param point the point index
+     * @return the pressure from 0 to 1, or 1 if pressure isn't recorded
+     */
+    public float getPressure(int point) {
+        return hasPressure ? (pressures[point] & 0xFF) / 255f : 1;
+    }
+
+    /**
+     * @param point the point index
+     * @return milliseconds since the first point, or 0 if time isn't recorded
+     */
+    public int getTime(int point) {
+        return hasTime ? times[point] : 0;
+    }
+
+    /**
+     * Sets the width of the pen, in the same unit as the coordinates. Only kept so the signature
+     * can be rasterized or exported the way it was drawn.
+     *
+     * @param strokeWidth the stroke width
+     */
+    public void setStrokeWidth(float strokeWidth) {
+        this.strokeWidth = Math.max(1, Math.round(strokeWidth * PRECISION));
+    }
+
+    public float getStrokeWidth() {
+        return strokeWidth / (float) PRECISION;
+    }
+
+    /**
+     * Returns the bounds of all points, not including the stroke width.
+     *
+     * @return left, top, right and bottom, or null if there are no points
+     */
+    public float[] getBounds() {
+        if (pointCount == 0) {
+            return null;
+        }
+        int[] bounds = getQuantizedBounds();
+        return new float[] {
+                bounds[0] / (float) PRECISION,
+                bounds[1] / (float) PRECISION,
+                bounds[2] / (float) PRECISION,
+                bounds[3] / (float) PRECISION
+        };
+    }
+
+    private int[] getQuantizedBounds() {
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < pointCount; i++) {
+            left = Math.min(left, xs[i]);
+            top = Math.min(top, ys[i]);
+            right = Math.max(right, xs[i]);
+            bottom = Math.max(bottom, ys[i]);
+        }
+        return new int[] {left, top, right, bottom};
+    }
+
+    /**
+     * Writes the strokes in their compact binary form, read it back with {@link #decode}.
+     *
+     * @return the encoded strokes
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + pointCount * 3);
+        out.write(VERSION);
+        out.write((hasPressure ? FLAG_PRESSURE : 0) | (hasTime ? FLAG_TIME : 0));
+        writeVarint(out, strokeWidth);
+        writeVarint(out, strokeCount);
+        for (int stroke = 0; stroke < strokeCount; stroke++) {
+            writeVarint(out, getStrokeEnd(stroke) - getStrokeStart(stroke));
+        }
+
+        int lastX = 0;
+        int lastY = 0;
+        int lastTime = 0;
+        for (int i = 0; i < pointCount; i++) {
+            writeVarint(out, zigzag(xs[i] - lastX));
+            writeVarint(out, zigzag(ys[i] - lastY));
+            lastX = xs[i];
+            lastY = ys[i];
+            if (hasPressure) {
+                out.write(pressures[i]);
+            }
+            if (hasTime) {
+                writeVarint(out, zigzag(times[i] - lastTime));
+                lastTime = times[i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads strokes written by {@link #encode()}.
+     *
+     * @param data the encoded strokes
+     * @return the strokes
+     * @throws IllegalArgumentException if the data is not valid
+     */
+    public static SignatureStrokes decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown signature stroke version " + version);
+        }
+        int flags = in.readByte();
+        SignatureStrokes strokes = new SignatureStrokes((flags & FLAG_PRESSURE) != 0,
+                (flags & FLAG_TIME) != 0);
+        strokes.strokeWidth = in.readVarint();
+
+        int strokeCount = in.readVarint();
+        int[] strokeStarts = new int[Math.max(strokeCount, 1)];
+        int pointCount = 0;
+        for (int stroke = 0; stroke < strokeCount; stroke++) {
+            strokeStarts[stroke] = pointCount;
+            int points = in.readVarint();
+            if (points <= 0 || points > data.length) {
+                throw new IllegalArgumentException("Invalid stroke length " + points);
+            }
+            pointCount += points;
+        }
+        if (pointCount > data.length) {
+            throw new IllegalArgumentException("Invalid point count " + pointCount);
+        }
+
+        strokes.ensureCapacity(pointCount);
+        int x = 0;
+        int y = 0;
+        int time = 0;
+        for (int i = 0; i < pointCount; i++) {
+            x += unzigzag(in.readVarint());
+            y += unzigzag(in.readVarint());
+            strokes.xs[i] = x;
+            strokes.ys[i] = y;
+            if (strokes.hasPressure) {
+                strokes.pressures[i] = (byte) in.readByte();
+            }
+            if (strokes.hasTime) {
+                time += unzigzag(in.readVarint());
+                strokes.times[i] = time;
+            }
+        }
+        strokes.strokeStarts = strokeStarts;
+        strokes.strokeCount = strokeCount;
+        strokes.pointCount = pointCount;
+        return strokes;
+    }
+
+    /**
+     * Writes the strokes as an SVG image, cropped to the signature. Coordinates are written in
+     * quantization steps and scaled back by the view box.
+     *
+     * @param color the stroke color, like "#000000"
+     * @return the SVG document, or null if there are no points
+     */
+    public String toSvg(String color) {
+        if (pointCount == 0) {
+            return null;
+        }
+        int[] bounds = getQuantizedBounds();
+        int margin = (strokeWidth + 1) / 2;
+        int left = bounds[0] - margin;
+        int top = bounds[1] - margin;
+        int width = bounds[2] - bounds[0] + margin * 2;
+        int height = bounds[3] - bounds[1] + margin * 2;
+
+        StringBuilder svg = new StringBuilder(64 + pointCount * 8);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"")
+                .append(width / (float) PRECISION)
+                .append("\" height=\"")
+                .append(height / (float) PRECISION)
+                .append("\" viewBox=\"")
+                .append(left).append(' ').append(top).append(' ')
+                .append(width).append(' ').append(height)
+                .append("\"><path fill=\"none\" stroke=\"").append(color)
+                .append("\" stroke-width=\"").append(strokeWidth)
+                .append("\" stroke-linecap=\"round\" stroke-linejoin=\"round\" d=\"");
+        for (int stroke = 0; stroke < strokeCount; stroke++) {
+            int start = getStrokeStart(stroke);
+            int end = getStrokeEnd(stroke);
+            svg.append('M').append(xs[start]).append(' ').append(ys[start]).append('l');
+            if (end - start == 1) {
+                // a dot, the round cap draws it
+                svg.append("0 0");
+            }
+            for (int i = start + 1; i < end; i++) {
+                if (i > start + 1) {
+                    svg.append(' ');
+                }
+                svg.append(xs[i] - xs[i - 1]).append(' ').append(ys[i] - ys[i - 1]);
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString();
+    }
+
+    /**
+     * Builds a path of all strokes.
+     *
+     * @param scale   pixels per coordinate unit
+     * @param offsetX added to every x coordinate before scaling, usually the negated left bound
+     * @param offsetY added to every y coordinate before scaling, usually the negated top bound
+     * @param path    the path to add the strokes to
+     */
+    public void addToPath(float scale, float offsetX, float offsetY, Path path) {
+        for (int stroke = 0; stroke < strokeCount; stroke++) {
+            addStrokeToPath(stroke, scale, offsetX, offsetY, path);
+        }
+    }
+
+    /**
+     * Adds a single stroke to a path, see {@link #addToPath}.
+     *
+     * @param stroke  the index of the stroke
+     * @param scale   pixels per coordinate unit
+     * @param offsetX added to every x coordinate before scaling
+     * @param offsetY added to every y coordinate before scaling
+     * @param path    the path to add the stroke to
+     */
+    public void addStrokeToPath(int stroke, float scale, float offsetX, float offsetY, Path path) {
+        int start = getStrokeStart(stroke);
+        int end = getStrokeEnd(stroke);
+        path.moveTo((getX(start) + offsetX) * scale, (getY(start) + offsetY) * scale);
+        if (end - start == 1) {
+            path.lineTo((getX(start) + offsetX) * scale, (getY(start) + offsetY) * scale);
+        }
+        for (int i = start + 1; i < end; i++) {
+            path.lineTo((getX(i) + offsetX) * scale, (getY(i) + offsetY) * scale);
+        }
+    }
+
+    /**
+     * Rasterizes the signature, cropped to its bounds.
+     *
+     * @param scale pixels per coordinate unit, like the display density for strokes recorded in dp
+     * @param paint the paint to stroke with, its stroke width is set from the recorded one
+     * @return the bitmap, or null if there are no points
+     */
+    public Bitmap createBitmap(float scale, Paint paint) {
+        float[] bounds = getBounds();
+        if (bounds == null) {
+            return null;
+        }
+        float margin = getStrokeWidth() / 2;
+        int width = (int) Math.ceil((bounds[2] - bounds[0] + margin * 2) * scale);
+        int height = (int) Math.ceil((bounds[3] - bounds[1] + margin * 2) * scale);
+
+        Path path = new Path();
+        addToPath(scale, margin - bounds[0], margin - bounds[1], path);
+
+        Paint strokePaint = new Paint(paint);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        strokePaint.setStrokeWidth(getStrokeWidth() * scale);
+
+        Bitmap bitmap = Bitmap.createBitmap(Math.max(width, 1),
+                Math.max(height, 1),
+                Bitmap.Config.ARGB_4444);
+        new Canvas(bitmap).drawPath(path, strokePaint);
+        return bitmap;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Unexpected end of signature strokes");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in signature strokes");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import org.researchstack.backbone.step.Step;
+
+/**
+ * Step result for a boolean answer, kept as a primitive. See {@link SingleValueStepResult}.
+ */
+@JsonAdapter(SingleValueStepResult.GsonAdapterFactory.class)
+public class BooleanStepResult extends SingleValueStepResult<Boolean> {
+    public static final Creator<BooleanStepResult> CREATOR = new Creator<BooleanStepResult>() {
+        @Override
+        public BooleanStepResult createFromParcel(Parcel in) {
+            return new BooleanStepResult(in);
+        }
+
+        @Override
+        public BooleanStepResult[] newArray(int size) {
+            return new BooleanStepResult[size];
+        }
+    };
+
+    private boolean value;
+
+    public BooleanStepResult(Step step) {
+        super(step);
+    }
+
+    protected BooleanStepResult(Parcel in) {
+        super(in);
+    }
+
+    /**
+     * Returns the answer without boxing it, check {@link #hasResult()} first.
+     *
+     * @return the answer, or false if there is none
+     */
+    public boolean getBooleanResult() {
+        if (!hasResult()) {
+            return false;
+        }
+        return isSpilled() ? getResult() : value;
+    }
+
+    /**
+     * Sets the answer under the default key without boxing it.
+     *
+     * @param result the answer
+     */
+    public void setBooleanResult(boolean result) {
+        value = result;
+        onValueSet();
+    }
+
+    @Override
+    protected Boolean box() {
+        return value;
+    }
+
+    @Override
+    protected void unbox(Boolean value) {
+        this.value = value;
+    }
+}
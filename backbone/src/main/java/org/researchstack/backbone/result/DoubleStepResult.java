@@ -0,0 +1,67 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import org.researchstack.backbone.step.Step;
+
+/**
+ * Step result for a double answer, kept as a primitive. See {@link SingleValueStepResult}.
+ */
+@JsonAdapter(SingleValueStepResult.GsonAdapterFactory.class)
+public class DoubleStepResult extends SingleValueStepResult<Double> {
+    public static final Creator<DoubleStepResult> CREATOR = new Creator<DoubleStepResult>() {
+        @Override
+        public DoubleStepResult createFromParcel(Parcel in) {
+            return new DoubleStepResult(in);
+        }
+
+        @Override
+        public DoubleStepResult[] newArray(int size) {
+            return new DoubleStepResult[size];
+        }
+    };
+
+    private double value;
+
+    public DoubleStepResult(Step step) {
+        super(step);
+    }
+
+    protected DoubleStepResult(Parcel in) {
+        super(in);
+    }
+
+    /**
+     * Returns the answer without boxing it, check {@link #hasResult()} first.
+     *
+     * @return the answer, or 0 if there is none
+     */
+    public double getDoubleResult() {
+        if (!hasResult()) {
+            return 0;
+        }
+        return isSpilled() ? getResult() : value;
+    }
+
+    /**
+     * Sets the answer under the default key without boxing it.
+     *
+     * @param result the answer
+     */
+    public void setDoubleResult(double result) {
+        value = result;
+        onValueSet();
+    }
+
+    @Override
+    protected Double box() {
+        return value;
+    }
+
+    @Override
+    protected void unbox(Double value) {
+        this.value = value;
+    }
+}
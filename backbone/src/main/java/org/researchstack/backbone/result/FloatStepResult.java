@@ -0,0 +1,69 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import org.researchstack.backbone.step.Step;
+
+/**
+ * Step result for a float answer, like the ones of {@link
+ * org.researchstack.backbone.answerformat.DecimalAnswerFormat}, kept as a primitive. See {@link
+ * SingleValueStepResult}.
+ */
+@JsonAdapter(SingleValueStepResult.GsonAdapterFactory.class)
+public class FloatStepResult extends SingleValueStepResult<Float> {
+    public static final Creator<FloatStepResult> CREATOR = new Creator<FloatStepResult>() {
+        @Override
+        public FloatStepResult createFromParcel(Parcel in) {
+            return new FloatStepResult(in);
+        }
+
+        @Override
+        public FloatStepResult[] newArray(int size) {
+            return new FloatStepResult[size];
+        }
+    };
+
+    private float value;
+
+    public FloatStepResult(Step step) {
+        super(step);
+    }
+
+    protected FloatStepResult(Parcel in) {
+        super(in);
+    }
+
+    /**
+     * Returns the answer without boxing it, check {@link #hasResult()} first.
+     *
+     * @return the answer, or 0 if there is none
+     */
+    public float getFloatResult() {
+        if (!hasResult()) {
+            return 0;
+        }
+        return isSpilled() ? getResult() : value;
+    }
+
+    /**
+     * Sets the answer under the default key without boxing it.
+     *
+     * @param result the answer
+     */
+    public void setFloatResult(float result) {
+        value = result;
+        onValueSet();
+    }
+
+    @Override
+    protected Float box() {
+        return value;
+    }
+
+    @Override
+    protected void unbox(Float value) {
+        this.value = value;
+    }
+}
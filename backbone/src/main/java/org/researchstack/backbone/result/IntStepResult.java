@@ -0,0 +1,69 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import org.researchstack.backbone.step.Step;
+
+/**
+ * Step result for an integer answer, like the ones of {@link
+ * org.researchstack.backbone.answerformat.IntegerAnswerFormat}, kept as a primitive. See {@link
+ * SingleValueStepResult}.
+ */
+@JsonAdapter(SingleValueStepResult.GsonAdapterFactory.class)
+public class IntStepResult extends SingleValueStepResult<Integer> {
+    public static final Creator<IntStepResult> CREATOR = new Creator<IntStepResult>() {
+        @Override
+        public IntStepResult createFromParcel(Parcel in) {
+            return new IntStepResult(in);
+        }
+
+        @Override
+        public IntStepResult[] newArray(int size) {
+            return new IntStepResult[size];
+        }
+    };
+
+    private int value;
+
+    public IntStepResult(Step step) {
+        super(step);
+    }
+
+    protected IntStepResult(Parcel in) {
+        super(in);
+    }
+
+    /**
+     * Returns the answer without boxing it, check {@link #hasResult()} first.
+     *
+     * @return the answer, or 0 if there is none
+     */
+    public int getIntResult() {
+        if (!hasResult()) {
+            return 0;
+        }
+        return isSpilled() ? getResult() : value;
+    }
+
+    /**
+     * Sets the answer under the default key without boxing it.
+     *
+     * @param result the answer
+     */
+    public void setIntResult(int result) {
+        value = result;
+        onValueSet();
+    }
+
+    @Override
+    protected Integer box() {
+        return value;
+    }
+
+    @Override
+    protected void unbox(Integer value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,69 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import org.researchstack.backbone.step.Step;
+
+/**
+ * Step result for a long answer, like the time in millis of {@link
+ * org.researchstack.backbone.answerformat.DateAnswerFormat}, kept as a primitive. See {@link
+ * SingleValueStepResult}.
+ */
+@JsonAdapter(SingleValueStepResult.GsonAdapterFactory.class)
+public class LongStepResult extends SingleValueStepResult<Long> {
+    public static final Creator<LongStepResult> CREATOR = new Creator<LongStepResult>() {
+        @Override
+        public LongStepResult createFromParcel(Parcel in) {
+            return new LongStepResult(in);
+        }
+
+        @Override
+        public LongStepResult[] newArray(int size) {
+            return new LongStepResult[size];
+        }
+    };
+
+    private long value;
+
+    public LongStepResult(Step step) {
+        super(step);
+    }
+
+    protected LongStepResult(Parcel in) {
+        super(in);
+    }
+
+    /**
+     * Returns the answer without boxing it, check {@link #hasResult()} first.
+     *
+     * @return the answer, or 0 if there is none
+     */
+    public long getLongResult() {
+        if (!hasResult()) {
+            return 0;
+        }
+        return isSpilled() ? getResult() : value;
+    }
+
+    /**
+     * Sets the answer under the default key without boxing it.
+     *
+     * @param result the answer
+     */
+    public void setLongResult(long result) {
+        value = result;
+        onValueSet();
+    }
+
+    @Override
+    protected Long box() {
+        return value;
+    }
+
+    @Override
+    protected void unbox(Long value) {
+        this.value = value;
+    }
+}
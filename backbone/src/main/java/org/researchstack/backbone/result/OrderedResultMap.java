@@ -0,0 +1,323 @@
+package org.researchstack.backbone.result;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of results by identifier that iterates in insertion order, used by {@link TaskResult} so step
+ * results are serialized and saved in the order they were answered.
+ * <p>
+ * Keys and values are kept in two parallel arrays instead of one node per entry. Lookups go through
+ * an open addressing index of array positions with linear probing, so they stay O(1) without
+ * allocating. Replacing the value of a key keeps its position. Removing a key shifts the entries
+ * after it and rebuilds the index, which is O(n) but rare for results.
+ *
+ * @param <V> the type of the results
+ */
+public class OrderedResultMap<V> extends AbstractMap<String, V> implements Serializable {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private transient String[] keys;
+    private transient Object[] values;
+
+    /**
+     * Position + 1 of the entry for each slot, 0 for an empty slot. Always at least twice as large
+     * as the arrays so probes stay short.
+     */
+    private transient int[] index;
+
+    private transient int size;
+
+    private transient int modCount;
+
+    private transient EntrySet entrySet;
+
+    public OrderedResultMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of entries the map holds before growing
+     */
+    public OrderedResultMap(int capacity) {
+        init(Math.max(capacity, 1));
+    }
+
+    private void init(int capacity) {
+        keys = new String[capacity];
+        values = new Object[capacity];
+        index = new int[tableSize(capacity)];
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key == null || key instanceof String) && indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return null;
+        }
+        int position = indexOf(key);
+        return position < 0 ? null : (V) values[position];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        for (int entry; (entry = index[slot]) != 0; slot = (slot + 1) & mask) {
+            if (equal(key, keys[entry - 1])) {
+                V old = (V) values[entry - 1];
+                values[entry - 1] = value;
+                return old;
+            }
+        }
+
+        if (size == keys.length) {
+            grow();
+            // the table was rebuilt, find the free slot again
+            mask = index.length - 1;
+            slot = hash(key) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        keys[size] = key;
+        values[size] = value;
+        index[slot] = ++size;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return null;
+        }
+        int position = indexOf(key);
+        return position < 0 ? null : removeAt(position);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private int indexOf(Object key) {
+        int mask = index.length - 1;
+        for (int slot = hash(key) & mask, entry; (entry = index[slot]) != 0; slot = (slot + 1) & mask) {
+            if (equal(key, keys[entry - 1])) {
+                return entry - 1;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int position) {
+        V old = (V) values[position];
+        int moved = size - position - 1;
+        System.arraycopy(keys, position + 1, keys, position, moved);
+        System.arraycopy(values, position + 1, values, position, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        rebuildIndex();
+        modCount++;
+        return old;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        index = new int[tableSize(capacity)];
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(index, 0);
+        int mask = index.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        // spread the high bits, string hashes of similar ids differ mostly in the low ones
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeObject(keys[i]);
+            out.writeObject(values[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid size " + count);
+        }
+        init(Math.max(count, 1));
+        for (int i = 0; i < count; i++) {
+            put((String) in.readObject(), (V) in.readObject());
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<String, V>> {
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            OrderedResultMap.this.clear();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, V>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new MapEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Entry backed by an array position, valid until the map is structurally modified
+     */
+    private class MapEntry implements Entry<String, V> {
+        private final int position;
+
+        MapEntry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return keys[position];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) values[position];
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = getValue();
+            values[position] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return equal(getKey(), other.getKey()) && equal(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (getKey() == null ? 0 : getKey().hashCode()) ^
+                    (getValue() == null ? 0 : getValue().hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package org.researchstack.backbone.result;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.researchstack.backbone.utils.ParcelUtils;
+
 import java.io.Serializable;
 import java.util.Date;
 
@@ -21,7 +26,19 @@ import java.util.Date;
  * hold the type of result data the step can generate, unless it makes sense to use an existing
  * subclass.
  */
-public class Result implements Serializable {
+public class Result implements Serializable, Parcelable {
+    public static final Creator<Result> CREATOR = new Creator<Result>() {
+        @Override
+        public Result createFromParcel(Parcel in) {
+            return new Result(in);
+        }
+
+        @Override
+        public Result[] newArray(int size) {
+            return new Result[size];
+        }
+    };
+
     private String identifier;
 
     private Date startDate;
@@ -44,6 +61,24 @@ public class Result implements Serializable {
         this.identifier = identifier;
     }
 
+    protected Result(Parcel in) {
+        this.identifier = in.readString();
+        this.startDate = ParcelUtils.readDate(in);
+        this.endDate = ParcelUtils.readDate(in);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(identifier);
+        ParcelUtils.writeDate(dest, startDate);
+        ParcelUtils.writeDate(dest, endDate);
+    }
+
     /**
      * Returns a meaningful identifier for the result.
      * <p>
@@ -0,0 +1,349 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.utils.ParcelUtils;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Base class of the step results specialized for a single answer under {@link #DEFAULT_KEY}, like
+ * {@link IntStepResult}. The answer is kept in a primitive field of the subclass instead of a map
+ * entry holding a boxed value, {@link #getResults()} returns a view of it that is only created
+ * when asked for.
+ * <p>
+ * Storing a result under any other key moves the answer into a regular map, after which the
+ * result behaves exactly like a plain {@link StepResult}. Serialized with Gson, these results look
+ * the same as a plain StepResult. Parceled, the answer is written on its own rather than as a map.
+ *
+ * @param <T> the boxed type of the answer
+ */
+public abstract class SingleValueStepResult<T> extends StepResult<T> {
+    private static final byte ABSENT = 0;
+    private static final byte NULL = 1;
+    private static final byte SET = 2;
+
+    /**
+     * Whether the default key is missing, holds null or holds the value of the subclass
+     */
+    private byte state = ABSENT;
+
+    /**
+     * Set once a result was stored under another key, the results then live in the superclass map
+     */
+    private boolean spilled;
+
+    protected SingleValueStepResult(Step step) {
+        super(step, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected SingleValueStepResult(Parcel in) {
+        super(in, false);
+        if (ParcelUtils.readBoolean(in)) {
+            setResults(ParcelUtils.readMap(in, new HashMap<>()));
+        } else {
+            state = in.readByte();
+            if (state == SET) {
+                unbox((T) ParcelUtils.readValue(in));
+            }
+        }
+    }
+
+    /**
+     * @return the answer boxed, only called while one is set
+     */
+    protected abstract T box();
+
+    /**
+     * Stores the answer in the primitive field of the subclass.
+     *
+     * @param value the answer, never null
+     */
+    protected abstract void unbox(T value);
+
+    /**
+     * Returns whether there is a non-null answer under the default key.
+     *
+     * @return true if an answer is set
+     */
+    public boolean hasResult() {
+        return spilled ? super.getResultForIdentifier(DEFAULT_KEY) != null : state == SET;
+    }
+
+    /**
+     * Returns whether the results moved into a regular map, the typed getters of the subclasses
+     * then read the answer from there.
+     *
+     * @return true once a result was stored under another key
+     */
+    protected boolean isSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Called by the typed setters of the subclasses after they stored a new answer.
+     */
+    protected void onValueSet() {
+        if (spilled) {
+            super.setResultForIdentifier(DEFAULT_KEY, box());
+        } else {
+            state = SET;
+        }
+        setEndDate(new Date());
+    }
+
+    /**
+     * Returns a plain {@link StepResult} with a copy of the results in a regular map.
+     *
+     * @return the plain step result
+     */
+    public StepResult<T> toStepResult() {
+        StepResult<T> copy = new StepResult<>(getIdentifier(),
+                getAnswerFormat(),
+                new HashMap<>(getResults()));
+        copy.setStartDate(getStartDate());
+        copy.setEndDate(getEndDate());
+        return copy;
+    }
+
+    @Override
+    void writeResults(Parcel dest, int flags) {
+        ParcelUtils.writeBoolean(dest, spilled);
+        if (spilled) {
+            super.writeResults(dest, flags);
+        } else {
+            dest.writeByte(state);
+            if (state == SET) {
+                ParcelUtils.writeValue(dest, box(), flags);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, T> getResults() {
+        return spilled ? super.getResults() : new ResultsView();
+    }
+
+    @Override
+    public void setResults(Map<String, T> results) {
+        spilled = true;
+        state = ABSENT;
+        super.setResults(results);
+    }
+
+    @Override
+    public T getResultForIdentifier(String identifier) {
+        if (spilled) {
+            return super.getResultForIdentifier(identifier);
+        }
+        return state == SET && DEFAULT_KEY.equals(identifier) ? box() : null;
+    }
+
+    @Override
+    public void setResultForIdentifier(String identifier, T result) {
+        if (!spilled && DEFAULT_KEY.equals(identifier)) {
+            if (result == null) {
+                state = NULL;
+            } else {
+                unbox(result);
+                state = SET;
+            }
+            return;
+        }
+
+        spill();
+        super.setResultForIdentifier(identifier, result);
+    }
+
+    private void spill() {
+        if (spilled) {
+            return;
+        }
+        Map<String, T> results = new HashMap<>();
+        if (state != ABSENT) {
+            results.put(DEFAULT_KEY, state == SET ? box() : null);
+        }
+        setResults(results);
+    }
+
+    /**
+     * Map view of the single answer, writes go back to the step result
+     */
+    private class ResultsView extends AbstractMap<String, T> {
+        @Override
+        public Set<Entry<String, T>> entrySet() {
+            if (spilled) {
+                return SingleValueStepResult.super.getResults().entrySet();
+            }
+
+            return new AbstractSet<Entry<String, T>>() {
+                @Override
+                public Iterator<Entry<String, T>> iterator() {
+                    return new Iterator<Entry<String, T>>() {
+                        boolean next = state != ABSENT;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next;
+                        }
+
+                        @Override
+                        public Entry<String, T> next() {
+                            if (!next) {
+                                throw new NoSuchElementException();
+                            }
+                            next = false;
+                            return new SimpleImmutableEntry<>(DEFAULT_KEY,
+                                    state == SET ? box() : null);
+                        }
+
+                        @Override
+                        public void remove() {
+                            state = ABSENT;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return state == ABSENT ? 0 : 1;
+                }
+            };
+        }
+
+        @Override
+        public T get(Object key) {
+            return key instanceof String ? getResultForIdentifier((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (spilled) {
+                return SingleValueStepResult.super.getResults().containsKey(key);
+            }
+            return state != ABSENT && DEFAULT_KEY.equals(key);
+        }
+
+        @Override
+        public T put(String key, T value) {
+            T old = get(key);
+            setResultForIdentifier(key, value);
+            return old;
+        }
+
+        @Override
+        public T remove(Object key) {
+            if (spilled) {
+                return SingleValueStepResult.super.getResults().remove(key);
+            }
+            T old = get(key);
+            if (DEFAULT_KEY.equals(key)) {
+                state = ABSENT;
+            }
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            if (spilled) {
+                SingleValueStepResult.super.getResults().clear();
+            } else {
+                state = ABSENT;
+            }
+        }
+    }
+
+    /**
+     * Writes the specialized results with the regular {@link StepResult} adapter, so the JSON
+     * doesn't depend on how the answer is kept in memory. Registered on each subclass with
+     * {@link com.google.gson.annotations.JsonAdapter}.
+     * <p>
+     * Reading doesn't restore the answer format. It is written without its type, so a plain
+     * StepResult can't read it back either, it is skipped and {@link #getAnswerFormat()} returns
+     * null. Answers are read as the type of the subclass, so they are unboxed again.
+     */
+    static class GsonAdapterFactory implements TypeAdapterFactory {
+        private static final String KEY_RESULTS = "results";
+        private static final String KEY_ANSWER_FORMAT = "answerFormat";
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> type) {
+            TypeAdapter<StepResult> plain = gson.getAdapter(StepResult.class);
+            TypeAdapter<JsonElement> tree = gson.getAdapter(JsonElement.class);
+            Class<? super R> rawType = type.getRawType();
+            Type valueType = getValueType(rawType);
+
+            return new TypeAdapter<R>() {
+                @Override
+                public void write(JsonWriter out, R value) throws IOException {
+                    plain.write(out,
+                            value == null ? null : ((SingleValueStepResult) value).toStepResult());
+                }
+
+                @Override
+                public R read(JsonReader in) throws IOException {
+                    JsonElement element = tree.read(in);
+                    if (element == null || !element.isJsonObject()) {
+                        return null;
+                    }
+
+                    JsonObject json = element.getAsJsonObject();
+                    json.remove(KEY_ANSWER_FORMAT);
+                    JsonElement results = json.remove(KEY_RESULTS);
+                    StepResult<Object> read = plain.fromJsonTree(json);
+
+                    try {
+                        SingleValueStepResult<Object> result = (SingleValueStepResult<Object>) rawType
+                                .getConstructor(Step.class)
+                                .newInstance(new Step(read.getIdentifier()));
+                        if (results != null && results.isJsonObject()) {
+                            for (Map.Entry<String, JsonElement> entry : results.getAsJsonObject()
+                                    .entrySet()) {
+                                result.setResultForIdentifier(entry.getKey(),
+                                        gson.fromJson(entry.getValue(), valueType));
+                            }
+                        }
+                        result.setStartDate(read.getStartDate());
+                        result.setEndDate(read.getEndDate());
+                        return (R) result;
+                    } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                        throw new IOException(e);
+                    }
+                }
+            };
+        }
+
+        /**
+         * @return the type argument the subclass passes to SingleValueStepResult
+         */
+        private static Type getValueType(Class<?> type) {
+            while (type.getSuperclass() != SingleValueStepResult.class) {
+                type = type.getSuperclass();
+            }
+            return ((ParameterizedType) type.getGenericSuperclass()).getActualTypeArguments()[0];
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package org.researchstack.backbone.result;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.answerformat.AnswerFormat;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -20,6 +23,18 @@ import java.util.Map;
  * a child of the {@link StepResult} object.
  */
 public class StepResult<T> extends Result {
+    public static final Creator<StepResult> CREATOR = new Creator<StepResult>() {
+        @Override
+        public StepResult createFromParcel(Parcel in) {
+            return new StepResult<>(in);
+        }
+
+        @Override
+        public StepResult[] newArray(int size) {
+            return new StepResult[size];
+        }
+    };
+
     /**
      * When StepResult only has a single value, pair that value with the following key
      */
@@ -38,17 +53,62 @@ public class StepResult<T> extends Result {
      * @param step the step from which to create the StepResult
      */
     public StepResult(Step step) {
-        super(step.getIdentifier());
-        this.results = new HashMap<>();
+        this(step, new HashMap<>());
+    }
 
-        if (step instanceof QuestionStep) {
-            answerFormat = ((QuestionStep) step).getAnswerFormat();
-        }
+    /**
+     * For subclasses that keep their results somewhere else until {@link #getResults()} needs a
+     * map, see {@link SingleValueStepResult}.
+     *
+     * @param step    the step from which to create the StepResult
+     * @param results the map to keep results in, may be null if the subclass overrides every
+     *                results accessor
+     */
+    protected StepResult(Step step, Map<String, T> results) {
+        this(step.getIdentifier(),
+                step instanceof QuestionStep ? ((QuestionStep) step).getAnswerFormat() : null,
+                results);
+    }
+
+    StepResult(String identifier, AnswerFormat answerFormat, Map<String, T> results) {
+        super(identifier);
+        this.results = results;
+        this.answerFormat = answerFormat;
         setStartDate(new Date());
         // this will be updated when the result is set
         setEndDate(new Date());
     }
 
+    protected StepResult(Parcel in) {
+        this(in, true);
+    }
+
+    /**
+     * Reads the fields of the step result, except for the results when a subclass keeps them in
+     * another way.
+     */
+    StepResult(Parcel in, boolean readResults) {
+        super(in);
+        this.answerFormat = ParcelUtils.readObject(in);
+        if (readResults) {
+            this.results = ParcelUtils.readMap(in, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeObject(dest, answerFormat, flags);
+        writeResults(dest, flags);
+    }
+
+    /**
+     * Writes the results, overridden by subclasses that read them in another way.
+     */
+    void writeResults(Parcel dest, int flags) {
+        ParcelUtils.writeMap(dest, results, flags);
+    }
+
     public Map<String, T> getResults() {
         return results;
     }
@@ -0,0 +1,73 @@
+package org.researchstack.backbone.result;
+
+import android.os.Parcel;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import org.researchstack.backbone.step.Step;
+
+/**
+ * Step result for a text answer, like the ones of {@link
+ * org.researchstack.backbone.answerformat.TextAnswerFormat}. There is nothing to unbox, but the
+ * answer is kept in a field instead of a map. See {@link SingleValueStepResult}.
+ */
+@JsonAdapter(SingleValueStepResult.GsonAdapterFactory.class)
+public class StringStepResult extends SingleValueStepResult<String> {
+    public static final Creator<StringStepResult> CREATOR = new Creator<StringStepResult>() {
+        @Override
+        public StringStepResult createFromParcel(Parcel in) {
+            return new StringStepResult(in);
+        }
+
+        @Override
+        public StringStepResult[] newArray(int size) {
+            return new StringStepResult[size];
+        }
+    };
+
+    private String value;
+
+    public StringStepResult(Step step) {
+        super(step);
+    }
+
+    protected StringStepResult(Parcel in) {
+        super(in);
+    }
+
+    /**
+     * Returns the answer, like {@link #getResult()}.
+     *
+     * @return the answer, or null if there is none
+     */
+    public String getStringResult() {
+        if (!hasResult()) {
+            return null;
+        }
+        return isSpilled() ? getResult() : value;
+    }
+
+    /**
+     * Sets the answer under the default key, like {@link #setResult(Object)}.
+     *
+     * @param result the answer, null to clear it
+     */
+    public void setStringResult(String result) {
+        if (result == null) {
+            setResult(null);
+        } else {
+            value = result;
+            onValueSet();
+        }
+    }
+
+    @Override
+    protected String box() {
+        return value;
+    }
+
+    @Override
+    protected void unbox(String value) {
+        this.value = value;
+    }
+}
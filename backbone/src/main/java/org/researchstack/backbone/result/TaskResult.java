@@ -1,8 +1,10 @@
 package org.researchstack.backbone.result;
 
 import android.net.Uri;
+import android.os.Parcel;
+
+import org.researchstack.backbone.utils.ParcelUtils;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -18,6 +20,18 @@ import java.util.UUID;
  * The <code>results</code> property contains the step results for the task.
  */
 public class TaskResult extends Result {
+    public static final Creator<TaskResult> CREATOR = new Creator<TaskResult>() {
+        @Override
+        public TaskResult createFromParcel(Parcel in) {
+            return new TaskResult(in);
+        }
+
+        @Override
+        public TaskResult[] newArray(int size) {
+            return new TaskResult[size];
+        }
+    };
+
     private Map<String, StepResult> results;
 
     // unimplemented but exists in RK, implement or delete if not needed
@@ -28,11 +42,36 @@ public class TaskResult extends Result {
 
     public TaskResult(String identifier) {
         super(identifier);
-        this.results = new HashMap<>();
+        this.results = new OrderedResultMap<>();
+    }
+
+    protected TaskResult(Parcel in) {
+        super(in);
+        int size = in.readInt();
+        this.results = new OrderedResultMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String identifier = in.readString();
+            results.put(identifier, ParcelUtils.<StepResult>readObject(in));
+        }
+        String uuid = in.readString();
+        this.uuidTask = uuid == null ? null : UUID.fromString(uuid);
+        this.outputDirectory = in.readParcelable(Uri.class.getClassLoader());
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeInt(results.size());
+        for (Map.Entry<String, StepResult> entry : results.entrySet()) {
+            dest.writeString(entry.getKey());
+            ParcelUtils.writeObject(dest, entry.getValue(), flags);
+        }
+        dest.writeString(uuidTask == null ? null : uuidTask.toString());
+        dest.writeParcelable(outputDirectory, flags);
     }
 
     /**
-     * Returns a Map of all of the StepResults in the task.
+     * Returns a Map of all of the StepResults in the task, in the order they were first set.
      *
      * @return a Map of the StepResults
      */
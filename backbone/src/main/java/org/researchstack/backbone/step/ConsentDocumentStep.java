@@ -1,5 +1,7 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.ui.step.layout.ConsentDocumentStepLayout;
 
@@ -8,6 +10,18 @@ import org.researchstack.backbone.ui.step.layout.ConsentDocumentStepLayout;
  * whether they agree or disagree.
  */
 public class ConsentDocumentStep extends Step {
+    public static final Creator<ConsentDocumentStep> CREATOR = new Creator<ConsentDocumentStep>() {
+        @Override
+        public ConsentDocumentStep createFromParcel(Parcel in) {
+            return new ConsentDocumentStep(in);
+        }
+
+        @Override
+        public ConsentDocumentStep[] newArray(int size) {
+            return new ConsentDocumentStep[size];
+        }
+    };
+
     private String html;
 
     private String confirmMessage;
@@ -16,6 +30,19 @@ public class ConsentDocumentStep extends Step {
         super(identifier);
     }
 
+    protected ConsentDocumentStep(Parcel in) {
+        super(in);
+        this.html = in.readString();
+        this.confirmMessage = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeString(html);
+        dest.writeString(confirmMessage);
+    }
+
     @Override
     public int getStepTitle() {
         return R.string.rsb_consent;
@@ -1,5 +1,7 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.ui.step.body.SingleChoiceQuestionBody;
 
 /**
@@ -7,12 +9,27 @@ import org.researchstack.backbone.ui.step.body.SingleChoiceQuestionBody;
  * how much they're willing to allow data to be shared after collection.
  */
 public class ConsentSharingStep extends QuestionStep {
+    public static final Creator<ConsentSharingStep> CREATOR = new Creator<ConsentSharingStep>() {
+        @Override
+        public ConsentSharingStep createFromParcel(Parcel in) {
+            return new ConsentSharingStep(in);
+        }
+
+        @Override
+        public ConsentSharingStep[] newArray(int size) {
+            return new ConsentSharingStep[size];
+        }
+    };
 
     public ConsentSharingStep(String identifier) {
         super(identifier);
         setOptional(false);
     }
 
+    protected ConsentSharingStep(Parcel in) {
+        super(in);
+    }
+
     @Override
     public Class getStepBodyClass() {
         return SingleChoiceQuestionBody.class;
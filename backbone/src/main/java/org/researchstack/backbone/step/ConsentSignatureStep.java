@@ -1,10 +1,24 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 /**
  * This class represents the final step in the consent process, collecting the signature from the
  * study participant.
  */
 public class ConsentSignatureStep extends Step {
+    public static final Creator<ConsentSignatureStep> CREATOR = new Creator<ConsentSignatureStep>() {
+        @Override
+        public ConsentSignatureStep createFromParcel(Parcel in) {
+            return new ConsentSignatureStep(in);
+        }
+
+        @Override
+        public ConsentSignatureStep[] newArray(int size) {
+            return new ConsentSignatureStep[size];
+        }
+    };
+
     private String signatureDateFormat;
 
     public ConsentSignatureStep(String identifier) {
@@ -12,6 +26,17 @@ public class ConsentSignatureStep extends Step {
         setOptional(false);
     }
 
+    protected ConsentSignatureStep(Parcel in) {
+        super(in);
+        this.signatureDateFormat = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeString(signatureDateFormat);
+    }
+
     /**
      * Returns the date format string to be used when producing a date string for the PDF or consent
      * review.
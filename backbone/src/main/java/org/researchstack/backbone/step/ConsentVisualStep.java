@@ -1,7 +1,10 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.model.ConsentSection;
 import org.researchstack.backbone.ui.step.layout.ConsentVisualStepLayout;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 /**
  * The {@link ConsentVisualStep} class represents a step in the visual consent sequence.
@@ -10,6 +13,18 @@ import org.researchstack.backbone.ui.step.layout.ConsentVisualStepLayout;
  * graphic to help study participants understand the content of an informed consent document.
  */
 public class ConsentVisualStep extends Step {
+    public static final Creator<ConsentVisualStep> CREATOR = new Creator<ConsentVisualStep>() {
+        @Override
+        public ConsentVisualStep createFromParcel(Parcel in) {
+            return new ConsentVisualStep(in);
+        }
+
+        @Override
+        public ConsentVisualStep[] newArray(int size) {
+            return new ConsentVisualStep[size];
+        }
+    };
+
     private ConsentSection section;
 
     @Deprecated
@@ -19,6 +34,19 @@ public class ConsentVisualStep extends Step {
         super(identifier);
     }
 
+    protected ConsentVisualStep(Parcel in) {
+        super(in);
+        this.section = ParcelUtils.readObject(in);
+        this.nextButtonString = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeObject(dest, section, flags);
+        dest.writeString(nextButtonString);
+    }
+
     @Override
     public int getStepTitle() {
         return org.researchstack.backbone.R.string.rsb_consent;
@@ -1,6 +1,9 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.answerformat.FormAnswerFormat;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -16,6 +19,18 @@ import java.util.List;
  * includes a child StepResult object for each form item.
  */
 public class FormStep extends QuestionStep {
+    public static final Creator<FormStep> CREATOR = new Creator<FormStep>() {
+        @Override
+        public FormStep createFromParcel(Parcel in) {
+            return new FormStep(in);
+        }
+
+        @Override
+        public FormStep[] newArray(int size) {
+            return new FormStep[size];
+        }
+    };
+
     private List<QuestionStep> formSteps;
 
     public FormStep(String identifier, String title, String text) {
@@ -23,6 +38,17 @@ public class FormStep extends QuestionStep {
         setText(text);
     }
 
+    protected FormStep(Parcel in) {
+        super(in);
+        this.formSteps = ParcelUtils.readList(in);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeList(dest, formSteps, flags);
+    }
+
     /**
      * Returns the list of items in the form.
      *
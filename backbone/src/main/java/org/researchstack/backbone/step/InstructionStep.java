@@ -1,5 +1,7 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.ui.step.layout.InstructionStepLayout;
 
 /**
@@ -10,12 +12,28 @@ import org.researchstack.backbone.ui.step.layout.InstructionStepLayout;
  * of a task.
  */
 public class InstructionStep extends Step {
+    public static final Creator<InstructionStep> CREATOR = new Creator<InstructionStep>() {
+        @Override
+        public InstructionStep createFromParcel(Parcel in) {
+            return new InstructionStep(in);
+        }
+
+        @Override
+        public InstructionStep[] newArray(int size) {
+            return new InstructionStep[size];
+        }
+    };
+
     public InstructionStep(String identifier, String title, String detailText) {
         super(identifier, title);
         setText(detailText);
         setOptional(false);
     }
 
+    protected InstructionStep(Parcel in) {
+        super(in);
+    }
+
     @Override
     public Class getStepLayoutClass() {
         return InstructionStepLayout.class;
@@ -1,7 +1,10 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+
 import org.researchstack.backbone.answerformat.AnswerFormat;
 import org.researchstack.backbone.ui.step.layout.SurveyStepLayout;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 /**
  * The {@link QuestionStep} class is a concrete subclass of {@link Step} that represents a step in
@@ -21,6 +24,18 @@ import org.researchstack.backbone.ui.step.layout.SurveyStepLayout;
  * The result of a question step is an {@link org.researchstack.backbone.result.StepResult} object.
  */
 public class QuestionStep extends Step {
+    public static final Creator<QuestionStep> CREATOR = new Creator<QuestionStep>() {
+        @Override
+        public QuestionStep createFromParcel(Parcel in) {
+            return new QuestionStep(in);
+        }
+
+        @Override
+        public QuestionStep[] newArray(int size) {
+            return new QuestionStep[size];
+        }
+    };
+
     private AnswerFormat answerFormat;
 
     private String placeholder;
@@ -60,6 +75,19 @@ public class QuestionStep extends Step {
         this.answerFormat = format;
     }
 
+    protected QuestionStep(Parcel in) {
+        super(in);
+        this.answerFormat = ParcelUtils.readObject(in);
+        this.placeholder = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeObject(dest, answerFormat, flags);
+        dest.writeString(placeholder);
+    }
+
     /**
      * Returns a special {@link org.researchstack.backbone.ui.step.layout.StepLayout} that is used
      * for all question steps.
@@ -1,6 +1,10 @@
 package org.researchstack.backbone.step;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import org.researchstack.backbone.task.Task;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 import java.io.Serializable;
 
@@ -18,9 +22,23 @@ import java.io.Serializable;
  * using a ViewTaskActivity.
  * <p>
  * To implement a new type of step, subclass Step and add your additional properties. Separately,
- * subclass StepLayout and implement your user interface.
+ * subclass StepLayout and implement your user interface. A step that adds fields should also
+ * override {@link #writeToParcel}, add a constructor that takes a {@link Parcel} and declare its own
+ * CREATOR, or it is passed to the ViewTaskActivity as a {@link Serializable}.
  */
-public class Step implements Serializable {
+public class Step implements Serializable, Parcelable {
+    public static final Creator<Step> CREATOR = new Creator<Step>() {
+        @Override
+        public Step createFromParcel(Parcel in) {
+            return new Step(in);
+        }
+
+        @Override
+        public Step[] newArray(int size) {
+            return new Step[size];
+        }
+    };
+
     private String identifier;
 
     private Class stepLayoutClass;
@@ -62,6 +80,33 @@ public class Step implements Serializable {
         this.title = title;
     }
 
+    protected Step(Parcel in) {
+        this.identifier = in.readString();
+        this.stepLayoutClass = ParcelUtils.readClass(in);
+        this.stepTitle = in.readInt();
+        this.optional = ParcelUtils.readBoolean(in);
+        this.title = in.readString();
+        this.text = in.readString();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    /**
+     * Writes the step, leaving out the fields that are not implemented in ResearchStack.
+     */
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(identifier);
+        ParcelUtils.writeClass(dest, stepLayoutClass);
+        dest.writeInt(stepTitle);
+        ParcelUtils.writeBoolean(dest, optional);
+        dest.writeString(title);
+        dest.writeString(text);
+    }
+
     /**
      * A short string that uniquely identifies the step within the task.
      * <p>
@@ -0,0 +1,278 @@
+package org.researchstack.backbone.storage.database;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Statistics of a numeric answer grouped into time buckets, as returned by {@link
+ * QueryableAppDatabase#aggregate}. Values are kept in parallel primitive arrays, one entry per
+ * bucket that has at least one answer, ordered by time. Empty buckets are skipped.
+ * <p>
+ * Boolean answers count as 0 and 1, so the average of a boolean answer is the fraction of true
+ * answers.
+ */
+public class AnswerAggregate {
+    private final long[] bucketStarts;
+    private final int[] counts;
+    private final double[] minimums;
+    private final double[] maximums;
+    private final double[] sums;
+    private final double[] sumsOfSquares;
+
+    public AnswerAggregate(long[] bucketStarts, int[] counts, double[] minimums, double[] maximums, double[] sums, double[] sumsOfSquares) {
+        this.bucketStarts = bucketStarts;
+        this.counts = counts;
+        this.minimums = minimums;
+        this.maximums = maximums;
+        this.sums = sums;
+        this.sumsOfSquares = sumsOfSquares;
+    }
+
+    /**
+     * Returns the number of non-empty buckets.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+        return bucketStarts.length;
+    }
+
+    /**
+     * Returns the start of the bucket in millis since the epoch.
+     *
+     * @param index the bucket index
+     * @return the start time of the bucket
+     */
+    public long getBucketStart(int index) {
+        return bucketStarts[index];
+    }
+
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    public double getMin(int index) {
+        return minimums[index];
+    }
+
+    public double getMax(int index) {
+        return maximums[index];
+    }
+
+    public double getSum(int index) {
+        return sums[index];
+    }
+
+    public double getSumOfSquares(int index) {
+        return sumsOfSquares[index];
+    }
+
+    public double getAverage(int index) {
+        return sums[index] / counts[index];
+    }
+
+    /**
+     * Returns the population standard deviation of the answers in the bucket.
+     *
+     * @param index the bucket index
+     * @return the standard deviation
+     */
+    public double getStandardDeviation(int index) {
+        double mean = getAverage(index);
+        double variance = sumsOfSquares[index] / counts[index] - mean * mean;
+        return variance > 0 ? Math.sqrt(variance) : 0;
+    }
+
+    /**
+     * Combines aggregates of disjoint sets of answers, grouped into the same bucket size. Buckets
+     * with the same start are merged into one.
+     *
+     * @param aggregates the aggregates to combine
+     * @return the combined aggregate, in time order
+     */
+    public static AnswerAggregate merge(List<AnswerAggregate> aggregates) {
+        if (aggregates.size() == 1) {
+            return aggregates.get(0);
+        }
+
+        TreeMap<Long, Integer> indexes = new TreeMap<>();
+        for (AnswerAggregate aggregate : aggregates) {
+            for (long start : aggregate.bucketStarts) {
+                indexes.put(start, 0);
+            }
+        }
+
+        int size = 0;
+        for (Long start : indexes.keySet()) {
+            indexes.put(start, size++);
+        }
+
+        long[] bucketStarts = new long[size];
+        int[] counts = new int[size];
+        double[] minimums = new double[size];
+        double[] maximums = new double[size];
+        double[] sums = new double[size];
+        double[] sumsOfSquares = new double[size];
+        for (AnswerAggregate aggregate : aggregates) {
+            for (int i = 0; i < aggregate.size(); i++) {
+                int index = indexes.get(aggregate.bucketStarts[i]);
+                boolean first = counts[index] == 0;
+                bucketStarts[index] = aggregate.bucketStarts[i];
+                counts[index] += aggregate.counts[i];
+                minimums[index] = first ? aggregate.minimums[i] : Math.min(minimums[index], aggregate.minimums[i]);
+                maximums[index] = first ? aggregate.maximums[i] : Math.max(maximums[index], aggregate.maximums[i]);
+                sums[index] += aggregate.sums[i];
+                sumsOfSquares[index] += aggregate.sumsOfSquares[i];
+            }
+        }
+        return new AnswerAggregate(bucketStarts, counts, minimums, maximums, sums, sumsOfSquares);
+    }
+
+    /**
+     * The size of the time buckets answers are grouped into. Day and week buckets start at local
+     * midnight, using the time zone offset in effect at each answer's time, so a range across a
+     * daylight saving change still splits on midnight. Weeks start on the first day of the week for
+     * the default locale. Hour buckets use the offset at the start of the range.
+     */
+    public enum Bucket {
+        HOUR(60L * 60 * 1000),
+        DAY(24L * 60 * 60 * 1000),
+        WEEK(7L * 24 * 60 * 60 * 1000);
+
+        private final long millis;
+
+        Bucket(long millis) {
+            this.millis = millis;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * Returns how far times have to be shifted so that bucket boundaries fall on local midnight
+         * (and, for weeks, on the first day of the week) for the given time.
+         *
+         * @param time the time, used to find the time zone offset
+         * @return the shift in millis to add to a time before dividing by the bucket size
+         */
+        public long getShift(long time) {
+            return TimeZone.getDefault().getOffset(time) + getLocalShift();
+        }
+
+        /**
+         * Returns how far local times have to be shifted so that bucket boundaries fall on the
+         * first day of the week for weeks, 0 for other buckets.
+         *
+         * @return the shift in millis to add to a local time before dividing by the bucket size
+         */
+        public long getLocalShift() {
+            if (this != WEEK) {
+                return 0;
+            }
+            // the epoch was a thursday, move the origin to the first day of the week
+            int daysFromThursday = (Calendar.getInstance().getFirstDayOfWeek() -
+                    Calendar.THURSDAY + 7) % 7;
+            return -daysFromThursday * DAY.millis;
+        }
+
+        /**
+         * Returns the index of the bucket a time falls in.
+         *
+         * @param time the time in millis since the epoch
+         * @param from the start of the range being aggregated
+         * @return the bucket index
+         */
+        public long getIndex(long time, long from) {
+            long shift = this == HOUR ? getShift(from) : getShift(time);
+            return (time + shift) / millis;
+        }
+
+        /**
+         * Returns an SQL expression computing the same index as {@link #getIndex} for a time
+         * column. Rows are expected to fall between from and to, outside of it they use the offset
+         * of the closest end.
+         *
+         * @param column the column holding times in millis since the epoch
+         * @param from   the start of the range being aggregated
+         * @param to     the end of the range being aggregated
+         * @return the SQL expression
+         */
+        public String getIndexSql(String column, long from, long to) {
+            if (this == HOUR) {
+                return "(" + column + " + " + getShift(from) + ") / " + millis;
+            }
+            return "(" + column + " + " + getOffsetSql(column, from, to) + " + " +
+                    getLocalShift() + ") / " + millis;
+        }
+
+        /**
+         * Returns the start of a bucket.
+         *
+         * @param index the bucket index, see {@link #getIndex}
+         * @param from  the start of the range being aggregated
+         * @return the start of the bucket in millis since the epoch
+         */
+        public long getStart(long index, long from) {
+            if (this == HOUR) {
+                return index * millis - getShift(from);
+            }
+            return toUtc(index * millis - getLocalShift());
+        }
+
+        /**
+         * Returns an SQL expression for the time zone offset in effect at the time in a column,
+         * as a CASE over the offset changes between from and to.
+         *
+         * @param column the column holding times in millis since the epoch
+         * @param from   the earliest time expected in the column
+         * @param to     the latest time expected in the column
+         * @return the SQL expression
+         */
+        public static String getOffsetSql(String column, long from, long to) {
+            TimeZone timeZone = TimeZone.getDefault();
+            int offset = timeZone.getOffset(from);
+            StringBuilder sql = new StringBuilder();
+            // offsets change at most every few months, so stepping a day at a time can't miss one
+            for (long day = from; day < to; day += DAY.millis) {
+                long next = Math.min(day + DAY.millis, to);
+                if (timeZone.getOffset(next) == offset) {
+                    continue;
+                }
+
+                long low = day;
+                long high = next;
+                while (high - low > 1) {
+                    long middle = (low + high) >>> 1;
+                    if (timeZone.getOffset(middle) == offset) {
+                        low = middle;
+                    } else {
+                        high = middle;
+                    }
+                }
+                sql.append(sql.length() == 0 ? "CASE" : "")
+                        .append(" WHEN ")
+                        .append(column)
+                        .append(" < ")
+                        .append(high)
+                        .append(" THEN ")
+                        .append(offset);
+                offset = timeZone.getOffset(high);
+            }
+            return sql.length() == 0
+                    ? String.valueOf(offset)
+                    : sql.append(" ELSE ").append(offset).append(" END").toString();
+        }
+
+        /**
+         * Returns the time a local time of the default time zone happens at.
+         */
+        private static long toUtc(long localTime) {
+            TimeZone timeZone = TimeZone.getDefault();
+            long time = localTime - timeZone.getOffset(localTime);
+            return localTime - timeZone.getOffset(time);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.researchstack.backbone.storage.database;
+
+import org.researchstack.backbone.result.StepResult;
+
+/**
+ * A comparison against a single scalar answer of a step, used with {@link
+ * QueryableAppDatabase#queryStepResults} to filter results in the database instead of loading and
+ * parsing every stored result.
+ * <p>
+ * Only scalar answers (integers, decimals, booleans and short strings) are indexed. Numbers and
+ * booleans are compared numerically, strings are compared as text.
+ */
+public class AnswerPredicate {
+    private final String resultKey;
+
+    private final Operator operator;
+
+    private final Object value;
+
+    /**
+     * Creates a predicate comparing the answer stored under the given key.
+     *
+     * @param resultKey the key of the answer inside the step result, {@link StepResult#DEFAULT_KEY}
+     *                  for single answer steps, or the question identifier for a form step
+     * @param operator  the comparison to apply
+     * @param value     a {@link Number}, {@link Boolean} or {@link String} to compare against
+     */
+    public AnswerPredicate(String resultKey, Operator operator, Object value) {
+        if (resultKey == null || operator == null) {
+            throw new IllegalArgumentException("resultKey and operator must not be null");
+        }
+
+        if (!(value instanceof Number || value instanceof Boolean || value instanceof String)) {
+            throw new IllegalArgumentException("Only Number, Boolean, and String values can be compared");
+        }
+
+        this.resultKey = resultKey;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    /**
+     * Creates a predicate comparing the answer stored under {@link StepResult#DEFAULT_KEY}.
+     *
+     * @param operator the comparison to apply
+     * @param value    a {@link Number}, {@link Boolean} or {@link String} to compare against
+     * @return the predicate
+     */
+    public static AnswerPredicate answer(Operator operator, Object value) {
+        return new AnswerPredicate(StepResult.DEFAULT_KEY, operator, value);
+    }
+
+    public String getResultKey() {
+        return resultKey;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns true if this predicate compares against the text column rather than the numeric one.
+     *
+     * @return whether the value is a string
+     */
+    public boolean isTextComparison() {
+        return value instanceof String;
+    }
+
+    /**
+     * Returns the value in the form it is bound to the query.
+     *
+     * @return the value as a query argument
+     */
+    public String getSqlArgument() {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        return String.valueOf(value);
+    }
+
+    public enum Operator {
+        EQUAL("="),
+        NOT_EQUAL("<>"),
+        LESS_THAN("<"),
+        LESS_THAN_OR_EQUAL("<="),
+        GREATER_THAN(">"),
+        GREATER_THAN_OR_EQUAL(">=");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+}
@@ -9,6 +9,9 @@ import java.util.List;
  * Whatever database implementation you use should implement these methods for basic saving of
  * {@link TaskResult} and {@link StepResult}. It also provides a method for setting the encryption
  * key of the database, for encrypted databases (do nothing if your database is not encrypted).
+ * <p>
+ * Databases that can also query, aggregate, search, export and track uploads of results implement
+ * {@link QueryableAppDatabase}, callers check for it before using those features.
  */
 public interface AppDatabase {
     /**
@@ -22,7 +25,8 @@ public interface AppDatabase {
      * Loads the latest task result for the given task identifier.
      * <p>
      * This can be used to see when the user last answered the survey, or to get their most recent
-     * answer to a survey question.
+     * answer to a survey question. The caller owns the returned result and may modify it,
+     * implementations that cache results must return a copy.
      *
      * @param taskIdentifier the task identifier
      * @return the latest TaskResult for the given identifier, or none
@@ -0,0 +1,550 @@
+package org.researchstack.backbone.storage.database;
+
+import com.google.gson.Gson;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.step.Step;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact, type-tagged binary encoding of a results map. Unlike JSON, values come back with the
+ * type they were saved with: every boxed primitive keeps its type, object and primitive arrays stay
+ * arrays of the same component type, and the child results of a form step come back as {@link
+ * StepResult}s.
+ * <p>
+ * Integers and dates are written as zig-zag varints, strings as length-prefixed UTF-8. Payloads
+ * larger than {@link #DEFLATE_THRESHOLD} bytes are deflated when that makes them smaller. Values
+ * of any other type fall back to an embedded Gson string, and come back as whatever Gson makes of
+ * it, numbers as Double, objects as Map and collections as List.
+ */
+public class BinaryResultCodec implements ResultCodec {
+    public static final int FORMAT = 1;
+
+    /**
+     * Payloads smaller than this are never deflated, the zlib overhead isn't worth it
+     */
+    public static final int DEFLATE_THRESHOLD = 128;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int VERSION = 1;
+    private static final int FLAG_DEFLATED = 0x80;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_STRING = 7;
+    private static final int TAG_DATE = 8;
+    private static final int TAG_ARRAY = 9;
+    private static final int TAG_LIST = 10;
+    private static final int TAG_MAP = 11;
+    private static final int TAG_STEP_RESULT = 12;
+    private static final int TAG_JSON = 13;
+    private static final int TAG_SHORT = 14;
+    private static final int TAG_BYTE = 15;
+    private static final int TAG_CHAR = 16;
+    /**
+     * Followed by the tag of the component type, {@link #TAG_TRUE} for booleans, and the length
+     */
+    private static final int TAG_PRIMITIVE_ARRAY = 17;
+
+    private static final Gson GSON = new Gson();
+
+    private final boolean deflate;
+
+    /**
+     * Creates a codec that deflates large payloads
+     */
+    public BinaryResultCodec() {
+        this(true);
+    }
+
+    /**
+     * @param deflate whether payloads over {@link #DEFLATE_THRESHOLD} bytes should be deflated
+     */
+    public BinaryResultCodec(boolean deflate) {
+        this.deflate = deflate;
+    }
+
+    @Override
+    public int getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(Map<String, ?> results) {
+        Writer writer = new Writer();
+        writer.writeByte(VERSION);
+        writer.writeMap(results);
+
+        if (deflate && writer.size() > DEFLATE_THRESHOLD) {
+            byte[] deflated = deflate(writer.buffer, 1, writer.size() - 1);
+            if (deflated.length + 1 < writer.size()) {
+                byte[] data = new byte[deflated.length + 1];
+                data[0] = (byte) (VERSION | FLAG_DEFLATED);
+                System.arraycopy(deflated, 0, data, 1, deflated.length);
+                return data;
+            }
+        }
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decode(byte[] data) {
+        int header = data[0] & 0xFF;
+        if ((header & ~FLAG_DEFLATED) != VERSION) {
+            throw new IllegalArgumentException("Unknown binary result version: " + header);
+        }
+
+        Reader reader = (header & FLAG_DEFLATED) != 0
+                ? new Reader(inflate(data, 1, data.length - 1), 0)
+                : new Reader(data, 1);
+        return reader.readMap();
+    }
+
+    private static byte[] deflate(byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+            byte[] chunk = new byte[Math.max(64, length)];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                out.write(chunk, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+            byte[] chunk = new byte[Math.max(256, length * 2)];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(chunk);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated binary result");
+                }
+                out.write(chunk, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class Writer {
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        int size() {
+            return position;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed(long value, int bytes) {
+            ensureCapacity(bytes);
+            for (int i = 0; i < bytes; i++) {
+                buffer[position++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeDate(Date date) {
+            if (date == null) {
+                writeByte(TAG_NULL);
+            } else {
+                writeByte(TAG_DATE);
+                writeSignedVarLong(date.getTime());
+            }
+        }
+
+        void writeMap(Map<String, ?> map) {
+            writeVarLong(map.size());
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void writeValue(Object value) {
+            if (value == null) {
+                writeByte(TAG_NULL);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Integer) {
+                writeByte(TAG_INT);
+                writeSignedVarLong((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(TAG_LONG);
+                writeSignedVarLong((Long) value);
+            } else if (value instanceof Short) {
+                writeByte(TAG_SHORT);
+                writeSignedVarLong((Short) value);
+            } else if (value instanceof Byte) {
+                writeByte(TAG_BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Character) {
+                writeByte(TAG_CHAR);
+                writeVarLong((Character) value);
+            } else if (value instanceof Float) {
+                writeByte(TAG_FLOAT);
+                writeFixed(Float.floatToIntBits((Float) value), 4);
+            } else if (value instanceof Double) {
+                writeByte(TAG_DOUBLE);
+                writeFixed(Double.doubleToLongBits((Double) value), 8);
+            } else if (value instanceof String) {
+                writeByte(TAG_STRING);
+                writeString((String) value);
+            } else if (value instanceof Date) {
+                writeDate((Date) value);
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                writeByte(TAG_ARRAY);
+                writeVarLong(array.length);
+                for (Object item : array) {
+                    writeValue(item);
+                }
+            } else if (value.getClass().isArray()) {
+                writePrimitiveArray(value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                writeByte(TAG_LIST);
+                writeVarLong(list.size());
+                for (Object item : list) {
+                    writeValue(item);
+                }
+            } else if (value instanceof Map) {
+                writeByte(TAG_MAP);
+                writeMap((Map<String, ?>) value);
+            } else if (value instanceof StepResult) {
+                StepResult<?> stepResult = (StepResult<?>) value;
+                writeByte(TAG_STEP_RESULT);
+                writeString(stepResult.getIdentifier());
+                writeDate(stepResult.getStartDate());
+                writeDate(stepResult.getEndDate());
+                writeMap(stepResult.getResults());
+            } else {
+                writeByte(TAG_JSON);
+                writeString(GSON.toJson(value));
+            }
+        }
+
+        void writePrimitiveArray(Object array) {
+            writeByte(TAG_PRIMITIVE_ARRAY);
+            if (array instanceof int[]) {
+                int[] values = (int[]) array;
+                writeByte(TAG_INT);
+                writeVarLong(values.length);
+                for (int item : values) {
+                    writeSignedVarLong(item);
+                }
+            } else if (array instanceof long[]) {
+                long[] values = (long[]) array;
+                writeByte(TAG_LONG);
+                writeVarLong(values.length);
+                for (long item : values) {
+                    writeSignedVarLong(item);
+                }
+            } else if (array instanceof short[]) {
+                short[] values = (short[]) array;
+                writeByte(TAG_SHORT);
+                writeVarLong(values.length);
+                for (short item : values) {
+                    writeSignedVarLong(item);
+                }
+            } else if (array instanceof byte[]) {
+                byte[] values = (byte[]) array;
+                writeByte(TAG_BYTE);
+                writeVarLong(values.length);
+                ensureCapacity(values.length);
+                System.arraycopy(values, 0, buffer, position, values.length);
+                position += values.length;
+            } else if (array instanceof char[]) {
+                char[] values = (char[]) array;
+                writeByte(TAG_CHAR);
+                writeVarLong(values.length);
+                for (char item : values) {
+                    writeVarLong(item);
+                }
+            } else if (array instanceof float[]) {
+                float[] values = (float[]) array;
+                writeByte(TAG_FLOAT);
+                writeVarLong(values.length);
+                for (float item : values) {
+                    writeFixed(Float.floatToIntBits(item), 4);
+                }
+            } else if (array instanceof double[]) {
+                double[] values = (double[]) array;
+                writeByte(TAG_DOUBLE);
+                writeVarLong(values.length);
+                for (double item : values) {
+                    writeFixed(Double.doubleToLongBits(item), 8);
+                }
+            } else {
+                boolean[] values = (boolean[]) array;
+                writeByte(TAG_TRUE);
+                writeVarLong(values.length);
+                for (boolean item : values) {
+                    writeByte(item ? 1 : 0);
+                }
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated binary result");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readFixed(int bytes) {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value |= (long) readByte() << (8 * i);
+            }
+            return value;
+        }
+
+        int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid length in binary result: " + length);
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(buffer, position, length, UTF_8);
+            position += length;
+            return value;
+        }
+
+        Date readDate() {
+            Object value = readValue();
+            return value instanceof Date ? (Date) value : null;
+        }
+
+        Map<String, Object> readMap() {
+            int size = readLength();
+            Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object readValue() {
+            int tag = readByte();
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_INT:
+                    return (int) readSignedVarLong();
+                case TAG_LONG:
+                    return readSignedVarLong();
+                case TAG_SHORT:
+                    return (short) readSignedVarLong();
+                case TAG_BYTE:
+                    return (byte) readByte();
+                case TAG_CHAR:
+                    return (char) readVarLong();
+                case TAG_FLOAT:
+                    return Float.intBitsToFloat((int) readFixed(4));
+                case TAG_DOUBLE:
+                    return Double.longBitsToDouble(readFixed(8));
+                case TAG_STRING:
+                    return readString();
+                case TAG_DATE:
+                    return new Date(readSignedVarLong());
+                case TAG_ARRAY: {
+                    Object[] array = new Object[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readValue();
+                    }
+                    return array;
+                }
+                case TAG_LIST: {
+                    int size = readLength();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                case TAG_MAP:
+                    return readMap();
+                case TAG_STEP_RESULT: {
+                    StepResult stepResult = new StepResult(new Step(readString()));
+                    stepResult.setStartDate(readDate());
+                    stepResult.setEndDate(readDate());
+                    stepResult.setResults(readMap());
+                    return stepResult;
+                }
+                case TAG_PRIMITIVE_ARRAY:
+                    return readPrimitiveArray();
+                case TAG_JSON:
+                    return GSON.fromJson(readString(), Object.class);
+                default:
+                    throw new IllegalArgumentException("Unknown tag in binary result: " + tag);
+            }
+        }
+
+        Object readPrimitiveArray() {
+            int type = readByte();
+            int length = readLength();
+            switch (type) {
+                case TAG_INT: {
+                    int[] array = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = (int) readSignedVarLong();
+                    }
+                    return array;
+                }
+                case TAG_LONG: {
+                    long[] array = new long[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readSignedVarLong();
+                    }
+                    return array;
+                }
+                case TAG_SHORT: {
+                    short[] array = new short[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = (short) readSignedVarLong();
+                    }
+                    return array;
+                }
+                case TAG_BYTE: {
+                    byte[] array = Arrays.copyOfRange(buffer, position, position + length);
+                    position += length;
+                    return array;
+                }
+                case TAG_CHAR: {
+                    char[] array = new char[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = (char) readVarLong();
+                    }
+                    return array;
+                }
+                case TAG_FLOAT: {
+                    float[] array = new float[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = Float.intBitsToFloat((int) readFixed(4));
+                    }
+                    return array;
+                }
+                case TAG_DOUBLE: {
+                    double[] array = new double[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = Double.longBitsToDouble(readFixed(8));
+                    }
+                    return array;
+                }
+                case TAG_TRUE: {
+                    boolean[] array = new boolean[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readByte() != 0;
+                    }
+                    return array;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown array type in binary result: " +
+                            type);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.researchstack.backbone.storage.database;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * One decoded chunk written by {@link ColumnarChunkWriter}, one row per answer. Values are kept in
+ * parallel primitive arrays the same way {@link AnswerAggregate} does, read the value of a row
+ * with the getter for its {@link #getValueType type}.
+ */
+public class ColumnarChunk {
+    public static final int TYPE_NULL = 0;
+    public static final int TYPE_LONG = 1;
+    public static final int TYPE_DOUBLE = 2;
+    public static final int TYPE_BOOLEAN = 3;
+    public static final int TYPE_STRING = 4;
+    /**
+     * Any other value, serialized as JSON in the string column
+     */
+    public static final int TYPE_JSON = 5;
+
+    private final int[] taskRecordIds;
+    private final String[] taskIds;
+    private final String[] stepIds;
+    private final String[] resultKeys;
+    private final long[] completed;
+    private final boolean[] hasCompleted;
+    private final byte[] types;
+    private final long[] longs;
+    private final double[] doubles;
+    private final String[] strings;
+
+    private ColumnarChunk(int rows) {
+        taskRecordIds = new int[rows];
+        taskIds = new String[rows];
+        stepIds = new String[rows];
+        resultKeys = new String[rows];
+        completed = new long[rows];
+        hasCompleted = new boolean[rows];
+        types = new byte[rows];
+        longs = new long[rows];
+        doubles = new double[rows];
+        strings = new String[rows];
+    }
+
+    /**
+     * Decodes a chunk returned by {@link ColumnarChunkWriter#finish()}.
+     *
+     * @param data the chunk
+     * @return the decoded rows
+     */
+    public static ColumnarChunk decode(byte[] data) {
+        if (data.length == 0 || (data[0] & 0xFF) != ColumnarChunkWriter.VERSION) {
+            throw new IllegalArgumentException("Unknown columnar chunk version");
+        }
+        Reader header = new Reader(data, 1, data.length);
+        int size = header.readLength(Integer.MAX_VALUE);
+        Reader payload = new Reader(inflate(data, header.position, size), 0, size);
+
+        int rows = payload.readLength(Integer.MAX_VALUE);
+        ColumnarChunk chunk = new ColumnarChunk(rows);
+
+        Reader column = payload.readColumn();
+        long taskRecordId = 0;
+        for (int i = 0; i < rows; i++) {
+            taskRecordId += column.readSignedVarLong();
+            chunk.taskRecordIds[i] = (int) taskRecordId;
+        }
+
+        payload.readDictionary(chunk.taskIds);
+        payload.readDictionary(chunk.stepIds);
+        payload.readDictionary(chunk.resultKeys);
+
+        column = payload.readColumn();
+        long time = 0;
+        for (int i = 0; i < rows; i++) {
+            long value = column.readVarLong();
+            if (value != 0) {
+                value--;
+                time += (value >>> 1) ^ -(value & 1);
+                chunk.completed[i] = time;
+                chunk.hasCompleted[i] = true;
+            }
+        }
+
+        Reader typeColumn = payload.readColumn();
+        Reader longColumn = payload.readColumn();
+        Reader doubleColumn = payload.readColumn();
+        Reader stringColumn = payload.readColumn();
+        for (int i = 0; i < rows; i++) {
+            int type = typeColumn.readByte();
+            chunk.types[i] = (byte) type;
+            switch (type) {
+                case TYPE_NULL:
+                    break;
+                case TYPE_BOOLEAN:
+                    chunk.longs[i] = longColumn.readVarLong();
+                    break;
+                case TYPE_LONG:
+                    chunk.longs[i] = longColumn.readSignedVarLong();
+                    break;
+                case TYPE_DOUBLE:
+                    chunk.doubles[i] = Double.longBitsToDouble(doubleColumn.readFixed(8));
+                    break;
+                case TYPE_STRING:
+                case TYPE_JSON:
+                    chunk.strings[i] = stringColumn.readString();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown value type in columnar chunk: " + type);
+            }
+        }
+        return chunk;
+    }
+
+    public int getRowCount() {
+        return types.length;
+    }
+
+    public int getTaskRecordId(int row) {
+        return taskRecordIds[row];
+    }
+
+    public String getTaskId(int row) {
+        return taskIds[row];
+    }
+
+    public String getStepId(int row) {
+        return stepIds[row];
+    }
+
+    public String getResultKey(int row) {
+        return resultKeys[row];
+    }
+
+    public boolean hasCompleted(int row) {
+        return hasCompleted[row];
+    }
+
+    /**
+     * @param row the row index
+     * @return the time the step completed in millis since the epoch, 0 if {@link #hasCompleted} is
+     * false
+     */
+    public long getCompleted(int row) {
+        return completed[row];
+    }
+
+    /**
+     * @param row the row index
+     * @return one of the TYPE constants
+     */
+    public int getValueType(int row) {
+        return types[row];
+    }
+
+    public long getLong(int row) {
+        return longs[row];
+    }
+
+    public boolean getBoolean(int row) {
+        return longs[row] != 0;
+    }
+
+    public double getDouble(int row) {
+        return doubles[row];
+    }
+
+    /**
+     * @param row the row index
+     * @return the string of a {@link #TYPE_STRING} row or the JSON of a {@link #TYPE_JSON} row
+     */
+    public String getString(int row) {
+        return strings[row];
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int size) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated columnar chunk");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buffer;
+        private final int end;
+        private int position;
+
+        Reader(byte[] buffer, int position, int end) {
+            this.buffer = buffer;
+            this.position = position;
+            this.end = end;
+        }
+
+        int readByte() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Truncated columnar chunk");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readFixed(int bytes) {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value |= (long) readByte() << (8 * i);
+            }
+            return value;
+        }
+
+        int readLength(int max) {
+            long length = readVarLong();
+            if (length < 0 || length > max) {
+                throw new IllegalArgumentException("Invalid length in columnar chunk: " + length);
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength(end - position);
+            String value = new String(buffer, position, length, ColumnarChunkWriter.UTF_8);
+            position += length;
+            return value;
+        }
+
+        Reader readColumn() {
+            int length = readLength(end - position);
+            Reader column = new Reader(buffer, position, position + length);
+            position += length;
+            return column;
+        }
+
+        void readDictionary(String[] rows) {
+            String[] dictionary = new String[readLength(end - position)];
+            Reader values = readColumn();
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = values.readString();
+            }
+
+            Reader indexes = readColumn();
+            for (int i = 0; i < rows.length; i++) {
+                int index = indexes.readLength(dictionary.length - 1);
+                rows[i] = dictionary[index];
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package org.researchstack.backbone.storage.database;
+
+import com.google.gson.Gson;
+
+import org.researchstack.backbone.result.StepResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the answers of step records as column chunks for bulk ingestion, see {@link ColumnarChunk}
+ * for reading them back. Records are added one at a time, straight from {@link
+ * QueryableAppDatabase#forEachStepRecord}, so no {@link
+ * org.researchstack.backbone.result.TaskResult} is ever built.
+ * <p>
+ * Each answer is one row. Within a chunk the task, step and result key columns are dictionary
+ * encoded, task record ids and completion times are delta encoded varints, and values are split by
+ * type into a long, a double and a string column. The chunk is then deflated as a whole. Every
+ * chunk carries its own dictionaries, so any chunk can be decoded without the others.
+ */
+public class ColumnarChunkWriter {
+    public static final int DEFAULT_CHUNK_ROWS = 4096;
+
+    static final int VERSION = 1;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Gson GSON = new Gson();
+
+    private final int chunkRows;
+
+    private int rows;
+
+    private final DictionaryColumn taskIds = new DictionaryColumn();
+    private final DictionaryColumn stepIds = new DictionaryColumn();
+    private final DictionaryColumn resultKeys = new DictionaryColumn();
+    private final Column taskRecordIds = new Column();
+    private final Column completed = new Column();
+    private final Column types = new Column();
+    private final Column longs = new Column();
+    private final Column doubles = new Column();
+    private final Column strings = new Column();
+
+    private long lastTaskRecordId;
+    private long lastCompleted;
+
+    public ColumnarChunkWriter() {
+        this(DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * @param chunkRows the number of rows after which {@link #isFull()} returns true
+     */
+    public ColumnarChunkWriter(int chunkRows) {
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Adds a row for every answer of the step record. A record is never split between chunks, so a
+     * chunk can end up a few rows over the limit.
+     *
+     * @param record the step record
+     */
+    public void add(StepRecord record) {
+        Map<String, Object> results = record.getResults();
+        if (results == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Object> entry : results.entrySet()) {
+            taskIds.add(record.taskId);
+            stepIds.add(record.stepId);
+            resultKeys.add(entry.getKey());
+
+            taskRecordIds.writeSignedVarLong(record.taskRecordId - lastTaskRecordId);
+            lastTaskRecordId = record.taskRecordId;
+
+            // 0 marks a missing time, times are shifted by one so a delta of 0 still fits
+            if (record.completed == null) {
+                completed.writeVarLong(0);
+            } else {
+                long time = record.completed.getTime();
+                completed.writeVarLong(1 + zigZag(time - lastCompleted));
+                lastCompleted = time;
+            }
+
+            writeValue(entry.getValue());
+            rows++;
+        }
+    }
+
+    /**
+     * @return true once the chunk has reached its row limit and should be finished
+     */
+    public boolean isFull() {
+        return rows >= chunkRows;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Encodes and deflates the rows added so far and starts a new, empty chunk.
+     *
+     * @return the chunk, or null if no rows were added
+     */
+    public byte[] finish() {
+        if (rows == 0) {
+            return null;
+        }
+
+        Column payload = new Column();
+        payload.writeVarLong(rows);
+        payload.writeColumn(taskRecordIds);
+        taskIds.writeTo(payload);
+        stepIds.writeTo(payload);
+        resultKeys.writeTo(payload);
+        payload.writeColumn(completed);
+        payload.writeColumn(types);
+        payload.writeColumn(longs);
+        payload.writeColumn(doubles);
+        payload.writeColumn(strings);
+
+        Column chunk = new Column();
+        chunk.write(VERSION);
+        chunk.writeVarLong(payload.size());
+        byte[] deflated = deflate(payload.toByteArray());
+        chunk.write(deflated, 0, deflated.length);
+
+        reset();
+        return chunk.toByteArray();
+    }
+
+    private void writeValue(Object value) {
+        if (value instanceof StepResult) {
+            // form steps store each question as a child step result
+            value = ((StepResult) value).getResult();
+        }
+
+        if (value == null) {
+            types.write(ColumnarChunk.TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            types.write(ColumnarChunk.TYPE_BOOLEAN);
+            longs.writeVarLong((Boolean) value ? 1 : 0);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            types.write(ColumnarChunk.TYPE_LONG);
+            longs.writeVarLong(zigZag(((Number) value).longValue()));
+        } else if (value instanceof Number) {
+            types.write(ColumnarChunk.TYPE_DOUBLE);
+            doubles.writeFixed(Double.doubleToLongBits(((Number) value).doubleValue()), 8);
+        } else if (value instanceof String) {
+            types.write(ColumnarChunk.TYPE_STRING);
+            strings.writeString((String) value);
+        } else {
+            types.write(ColumnarChunk.TYPE_JSON);
+            strings.writeString(GSON.toJson(value));
+        }
+    }
+
+    private void reset() {
+        rows = 0;
+        lastTaskRecordId = 0;
+        lastCompleted = 0;
+        taskIds.reset();
+        stepIds.reset();
+        resultKeys.reset();
+        taskRecordIds.reset();
+        completed.reset();
+        types.reset();
+        longs.reset();
+        doubles.reset();
+        strings.reset();
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static class Column extends ByteArrayOutputStream {
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong(zigZag(value));
+        }
+
+        void writeFixed(long value, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeColumn(Column column) {
+            writeVarLong(column.size());
+            write(column.buf, 0, column.size());
+        }
+    }
+
+    private static class DictionaryColumn {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final Column values = new Column();
+        private final Column rows = new Column();
+
+        void add(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = indexes.size();
+                indexes.put(value, index);
+                values.writeString(value);
+            }
+            rows.writeVarLong(index);
+        }
+
+        void writeTo(Column payload) {
+            payload.writeVarLong(indexes.size());
+            payload.writeColumn(values);
+            payload.writeColumn(rows);
+        }
+
+        void reset() {
+            indexes.clear();
+            values.reset();
+            rows.reset();
+        }
+    }
+}
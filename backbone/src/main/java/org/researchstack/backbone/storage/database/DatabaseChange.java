@@ -0,0 +1,64 @@
+package org.researchstack.backbone.storage.database;
+
+/**
+ * Something that changed in an {@link AppDatabase}, emitted by {@link
+ * QueryableAppDatabase#changes()} after the change has been committed.
+ */
+public class DatabaseChange {
+    public enum Kind {
+        /**
+         * A task result was saved
+         */
+        SAVED,
+        /**
+         * A saved task result was marked as uploaded
+         */
+        UPLOADED,
+        /**
+         * An upload of a saved task result failed, it will be retried
+         */
+        UPLOAD_FAILED,
+        /**
+         * A task result was moved out of the live tables into the result archive
+         */
+        ARCHIVED
+    }
+
+    private final Kind kind;
+
+    private final String taskIdentifier;
+
+    private final int taskRecordId;
+
+    public DatabaseChange(Kind kind, String taskIdentifier, int taskRecordId) {
+        this.kind = kind;
+        this.taskIdentifier = taskIdentifier;
+        this.taskRecordId = taskRecordId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the identifier of the task whose result changed. Upload changes only know the task
+     * record id, this is null for those.
+     *
+     * @return the task identifier, or null
+     */
+    public String getTaskIdentifier() {
+        return taskIdentifier;
+    }
+
+    /**
+     * @return the id of the task record, as in {@link PendingUpload#getTaskRecordId()}
+     */
+    public int getTaskRecordId() {
+        return taskRecordId;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + taskIdentifier + " #" + taskRecordId;
+    }
+}
@@ -0,0 +1,88 @@
+package org.researchstack.backbone.storage.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.subjects.PublishSubject;
+import rx.subjects.SerializedSubject;
+import rx.subjects.Subject;
+
+/**
+ * Publishes the changes of an {@link AppDatabase} implementation as the stream returned from {@link
+ * QueryableAppDatabase#changes()}. Changes published in a burst, like a batch save followed by its
+ * upload, are coalesced into one list that is emitted once the database has been quiet for {@link
+ * #DEFAULT_QUIET_MILLIS}. A database that never goes quiet, like during a long import, still emits
+ * what it has every {@link #DEFAULT_MAX_LATENCY_MILLIS}.
+ */
+public class DatabaseChangeNotifier {
+    public static final long DEFAULT_QUIET_MILLIS = 100;
+    public static final long DEFAULT_MAX_LATENCY_MILLIS = 1000;
+
+    private final Subject<DatabaseChange, DatabaseChange> subject = new SerializedSubject<>(
+            PublishSubject.create());
+
+    private final Observable<List<DatabaseChange>> changes;
+
+    public DatabaseChangeNotifier() {
+        this(DEFAULT_QUIET_MILLIS, DEFAULT_MAX_LATENCY_MILLIS);
+    }
+
+    /**
+     * @param quietMillis      how long the database must be quiet before a burst of changes is
+     *                         emitted
+     * @param maxLatencyMillis the longest a change waits for the database to go quiet
+     */
+    public DatabaseChangeNotifier(long quietMillis, long maxLatencyMillis) {
+        // each buffer closes on whichever comes first, the quiet period or the latency cap
+        this.changes = subject.onBackpressureBuffer()
+                .publish(shared -> shared.buffer(() -> Observable.amb(shared.debounce(quietMillis,
+                        TimeUnit.MILLISECONDS), Observable.timer(maxLatencyMillis,
+                        TimeUnit.MILLISECONDS))))
+                .filter(list -> !list.isEmpty())
+                .share();
+    }
+
+    /**
+     * Publishes changes that have been committed. Call this after the transaction ends, never from
+     * inside it, subscribers may query the database right away.
+     *
+     * @param changes the committed changes
+     */
+    public void publish(List<DatabaseChange> changes) {
+        if (!subject.hasObservers()) {
+            return;
+        }
+        for (DatabaseChange change : changes) {
+            subject.onNext(change);
+        }
+    }
+
+    /**
+     * Publishes a change of the same kind for each of the task records, for changes where only the
+     * record ids are known.
+     *
+     * @param kind          the kind of change
+     * @param taskRecordIds the changed task records
+     */
+    public void publish(DatabaseChange.Kind kind, List<Integer> taskRecordIds) {
+        if (!subject.hasObservers()) {
+            return;
+        }
+        List<DatabaseChange> changes = new ArrayList<>(taskRecordIds.size());
+        for (Integer taskRecordId : taskRecordIds) {
+            changes.add(new DatabaseChange(kind, null, taskRecordId));
+        }
+        publish(changes);
+    }
+
+    /**
+     * Returns the coalesced changes, emitted on a computation thread.
+     *
+     * @return an Observable of change bursts, which never completes
+     */
+    public Observable<List<DatabaseChange>> changes() {
+        return changes;
+    }
+}
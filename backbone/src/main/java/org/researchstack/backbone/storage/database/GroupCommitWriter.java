@@ -0,0 +1,229 @@
+package org.researchstack.backbone.storage.database;
+
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.utils.LogExt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.subjects.AsyncSubject;
+
+/**
+ * Optional asynchronous writer in front of a {@link QueryableAppDatabase} for bursts of saves, like
+ * bulk imports or replaying an offline backlog. Results saved from any thread are gathered for up
+ * to <code>windowMillis</code>, or until <code>maxBatchSize</code> are waiting, and committed
+ * together with {@link QueryableAppDatabase#saveTaskResults}, paying for one transaction instead of
+ * one each.
+ * <p>
+ * If a batch fails, its results are retried one by one so a single bad result only fails its own
+ * save. Results a {@link PartialSaveException} reports as committed are not retried.
+ */
+public class GroupCommitWriter {
+    public static final long DEFAULT_WINDOW_MILLIS = 50;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private final QueryableAppDatabase database;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private final Thread thread;
+
+    private volatile boolean shutdown;
+
+    private long commitCount;
+
+    private long committedResultCount;
+
+    private long totalCommitMillis;
+
+    private long maxCommitMillis;
+
+    public GroupCommitWriter(QueryableAppDatabase database) {
+        this(database, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param database     the database to save to
+     * @param windowMillis how long to wait for more results after the first one of a batch
+     * @param maxBatchSize the most results to commit in one transaction
+     */
+    public GroupCommitWriter(QueryableAppDatabase database, long windowMillis, int maxBatchSize) {
+        this.database = database;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.thread = new Thread(this::run, "GroupCommitWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the result to be saved with the next batch.
+     *
+     * @param result the task result to save
+     * @return an Observable that emits the result and completes once it has been committed, or
+     * errors if it couldn't be saved
+     */
+    public Observable<TaskResult> save(TaskResult result) {
+        AsyncSubject<TaskResult> subject = AsyncSubject.create();
+        synchronized (queue) {
+            if (shutdown) {
+                throw new IllegalStateException("GroupCommitWriter has been shut down");
+            }
+            queue.add(new PendingWrite(result, subject));
+        }
+        return subject.asObservable();
+    }
+
+    /**
+     * Stops accepting new results. Results that are already queued are still committed.
+     */
+    public void shutdown() {
+        synchronized (queue) {
+            shutdown = true;
+        }
+        thread.interrupt();
+    }
+
+    /**
+     * Returns the number of results waiting to be committed.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getCommitCount() {
+        return commitCount;
+    }
+
+    public synchronized long getCommittedResultCount() {
+        return committedResultCount;
+    }
+
+    /**
+     * Returns the average time spent in {@link QueryableAppDatabase#saveTaskResults} per commit.
+     *
+     * @return the average commit latency in millis, 0 before the first commit
+     */
+    public synchronized double getAverageCommitMillis() {
+        return commitCount == 0 ? 0 : (double) totalCommitMillis / commitCount;
+    }
+
+    public synchronized long getMaxCommitMillis() {
+        return maxCommitMillis;
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (!shutdown || !queue.isEmpty()) {
+            try {
+                PendingWrite first = shutdown ? queue.poll() : queue.take();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 && !shutdown
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutdown, commit what we have and drain the rest without waiting
+            }
+
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<TaskResult> results = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            results.add(write.result);
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            database.saveTaskResults(results);
+        } catch (PartialSaveException e) {
+            LogExt.e(getClass(),
+                    "Batch of " + batch.size() + " partly failed, saving the rest one by one",
+                    e);
+            Set<TaskResult> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+            saved.addAll(e.getSavedResults());
+            for (PendingWrite write : batch) {
+                if (saved.contains(write.result)) {
+                    write.complete();
+                } else {
+                    commitOne(write);
+                }
+            }
+            return;
+        } catch (RuntimeException e) {
+            LogExt.e(getClass(), "Batch of " + batch.size() + " failed, saving one by one", e);
+            for (PendingWrite write : batch) {
+                commitOne(write);
+            }
+            return;
+        }
+        recordCommit(batch.size(), System.currentTimeMillis() - start);
+
+        for (PendingWrite write : batch) {
+            write.complete();
+        }
+    }
+
+    private void commitOne(PendingWrite write) {
+        long start = System.currentTimeMillis();
+        try {
+            database.saveTaskResults(Collections.singletonList(write.result));
+        } catch (RuntimeException e) {
+            write.subject.onError(e);
+            return;
+        }
+        recordCommit(1, System.currentTimeMillis() - start);
+        write.complete();
+    }
+
+    private synchronized void recordCommit(int size, long millis) {
+        commitCount++;
+        committedResultCount += size;
+        totalCommitMillis += millis;
+        maxCommitMillis = Math.max(maxCommitMillis, millis);
+    }
+
+    private static class PendingWrite {
+        final TaskResult result;
+        final AsyncSubject<TaskResult> subject;
+
+        PendingWrite(TaskResult result, AsyncSubject<TaskResult> subject) {
+            this.result = result;
+            this.subject = subject;
+        }
+
+        void complete() {
+            subject.onNext(result);
+            subject.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.researchstack.backbone.storage.database;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.researchstack.backbone.utils.FormatHelper;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * The original storage format, the results map serialized by Gson. Records in this format keep
+ * their results in the {@link StepRecord#result} text column.
+ * <p>
+ * Numbers are decoded as Double and arrays as List, as Gson has no type information to go on.
+ */
+public class JsonResultCodec implements ResultCodec {
+    public static final int FORMAT = 0;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Gson GSON = new GsonBuilder().setDateFormat(FormatHelper.DATE_FORMAT_ISO_8601)
+            .create();
+
+    @Override
+    public int getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(Map<String, ?> results) {
+        return toJson(results).getBytes(UTF_8);
+    }
+
+    @Override
+    public Map<String, Object> decode(byte[] data) {
+        return fromJson(new String(data, UTF_8));
+    }
+
+    public String toJson(Map<String, ?> results) {
+        return GSON.toJson(results);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> fromJson(String json) {
+        return GSON.fromJson(json, Map.class);
+    }
+}
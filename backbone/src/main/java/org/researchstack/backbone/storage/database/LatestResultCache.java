@@ -0,0 +1,189 @@
+package org.researchstack.backbone.storage.database;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.utils.LogExt;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least recently used cache of the latest {@link TaskResult} per task identifier, for
+ * {@link AppDatabase#loadLatestTaskResult}. Tasks without any result are cached too, which is the
+ * common case for the onboarding checks done on every start.
+ * <p>
+ * Results are kept as snapshots encoded with a {@link BinaryResultCodec}, the same way the step
+ * records themselves can be stored, and every hit decodes a new copy. Callers can modify what they
+ * get, or keep modifying a result after saving it, without changing what the cache serves. A copy
+ * holds what a load from the database would, answer values that the codec only stores as JSON come
+ * back as Gson types. Results that can't be encoded are not cached.
+ */
+public class LatestResultCache {
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    /**
+     * Stands in for "this task has no results" so it can be told apart from a miss
+     */
+    private static final Snapshot NONE = new Snapshot(null, null, null, null);
+
+    /**
+     * Snapshots are small and short lived, deflating them isn't worth it
+     */
+    private static final ResultCodec CODEC = new BinaryResultCodec(false);
+
+    private final Map<String, Snapshot> results;
+
+    /**
+     * Bumped by every save and clear, so a load that raced with one isn't cached
+     */
+    private int generation;
+
+    private int hitCount;
+
+    private int missCount;
+
+    public LatestResultCache(int maxSize) {
+        this.results = new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the latest result of the task from the cache, or from the loader on a miss. The
+     * loader runs without holding the cache lock.
+     *
+     * @param taskIdentifier the task identifier
+     * @param loader         loads the latest result from the database
+     * @return a copy of the latest result, or null if the task has no results
+     */
+    public TaskResult get(String taskIdentifier, Loader loader) {
+        int loadGeneration;
+        Snapshot cached;
+        synchronized (this) {
+            cached = results.get(taskIdentifier);
+            if (cached != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            loadGeneration = generation;
+        }
+
+        if (cached != null) {
+            return cached == NONE ? null : cached.restore();
+        }
+
+        TaskResult result = loader.loadLatestTaskResult(taskIdentifier);
+        Snapshot snapshot = result == null ? NONE : Snapshot.of(result);
+
+        synchronized (this) {
+            if (loadGeneration == generation && snapshot != null) {
+                results.put(taskIdentifier, snapshot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Updates the cache with a result that was just saved. The cached result is only replaced if
+     * the saved one completed at the same time or later, the same order the database sorts by.
+     * Nothing is cached for tasks that haven't been loaded yet.
+     *
+     * @param result the saved task result
+     */
+    public synchronized void onSaved(TaskResult result) {
+        generation++;
+        Snapshot cached = results.get(result.getIdentifier());
+        if (cached == null) {
+            return;
+        }
+
+        Date saved = result.getEndDate();
+        Date latest = cached.endDate;
+        if (cached == NONE || latest == null || (saved != null && !saved.before(latest))) {
+            Snapshot snapshot = Snapshot.of(result);
+            if (snapshot != null) {
+                results.put(result.getIdentifier(), snapshot);
+            } else {
+                results.remove(result.getIdentifier());
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result, for when the data is locked again and nothing decrypted should
+     * stay in memory.
+     */
+    public synchronized void clear() {
+        generation++;
+        results.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public interface Loader {
+        TaskResult loadLatestTaskResult(String taskIdentifier);
+    }
+
+    private static class Snapshot {
+        private final String identifier;
+
+        private final Date startDate;
+
+        private final Date endDate;
+
+        private final byte[] stepResults;
+
+        private Snapshot(String identifier, Date startDate, Date endDate, byte[] stepResults) {
+            this.identifier = identifier;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.stepResults = stepResults;
+        }
+
+        /**
+         * @return the snapshot, or null if the result can't be encoded
+         */
+        static Snapshot of(TaskResult result) {
+            try {
+                return new Snapshot(result.getIdentifier(),
+                        copy(result.getStartDate()),
+                        copy(result.getEndDate()),
+                        CODEC.encode(result.getResults()));
+            } catch (RuntimeException e) {
+                LogExt.w(LatestResultCache.class,
+                        "Not caching " + result.getIdentifier() + ", it can't be encoded");
+                return null;
+            }
+        }
+
+        TaskResult restore() {
+            TaskResult result = new TaskResult(identifier);
+            result.setStartDate(copy(startDate));
+            result.setEndDate(copy(endDate));
+            for (Map.Entry<String, Object> entry : CODEC.decode(stepResults).entrySet()) {
+                result.setStepResultForStepIdentifier(entry.getKey(),
+                        (StepResult) entry.getValue());
+            }
+            return result;
+        }
+
+        private static Date copy(Date date) {
+            return date == null ? null : new Date(date.getTime());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.researchstack.backbone.storage.database;
+
+import org.researchstack.backbone.result.TaskResult;
+
+import java.util.List;
+
+/**
+ * Thrown by {@link QueryableAppDatabase#saveTaskResults} implementations that can't commit a batch
+ * in one transaction, when part of the batch was committed before another part failed. Retrying
+ * the whole batch would save the committed results twice, only the rest should be retried.
+ */
+public class PartialSaveException extends RuntimeException {
+    private final List<TaskResult> savedResults;
+
+    public PartialSaveException(List<TaskResult> savedResults, Throwable cause) {
+        super(savedResults.size() + " results were saved before the batch failed", cause);
+        this.savedResults = savedResults;
+    }
+
+    /**
+     * @return the results of the batch that were committed, the same instances that were passed in
+     */
+    public List<TaskResult> getSavedResults() {
+        return savedResults;
+    }
+}
@@ -0,0 +1,40 @@
+package org.researchstack.backbone.storage.database;
+
+import org.researchstack.backbone.result.TaskResult;
+
+/**
+ * A saved task result waiting to be uploaded, as returned by {@link
+ * QueryableAppDatabase#loadPendingUploads}. Pass the task record id back to {@link
+ * QueryableAppDatabase#markUploaded} or {@link QueryableAppDatabase#markUploadFailed} once the
+ * upload is done.
+ */
+public class PendingUpload {
+    private final int taskRecordId;
+
+    private final int attempts;
+
+    private final TaskResult taskResult;
+
+    public PendingUpload(int taskRecordId, int attempts, TaskResult taskResult) {
+        this.taskRecordId = taskRecordId;
+        this.attempts = attempts;
+        this.taskResult = taskResult;
+    }
+
+    public int getTaskRecordId() {
+        return taskRecordId;
+    }
+
+    /**
+     * Returns how many times this result has been handed out for upload, including this time.
+     *
+     * @return the number of upload attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public TaskResult getTaskResult() {
+        return taskResult;
+    }
+}
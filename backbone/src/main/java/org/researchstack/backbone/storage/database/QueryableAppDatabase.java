@@ -0,0 +1,130 @@
+package org.researchstack.backbone.storage.database;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+
+import java.util.Date;
+import java.util.List;
+
+import rx.Observable;
+
+/**
+ * An {@link AppDatabase} that stores answers in a form the database can query, and keeps track of
+ * what was uploaded. The databases in the sqlite package implement it. It is a separate interface
+ * so that apps with their own AppDatabase keep working, features that need these methods check for
+ * it with <code>instanceof</code> and are skipped or fall back otherwise.
+ * <p>
+ * Results moved to a {@link ResultArchive} are still returned by the {@link AppDatabase} load
+ * methods and counted by {@link #aggregate}, but {@link #queryStepResults}, {@link
+ * #forEachStepRecord} and {@link #searchAnswers} only see the live tables.
+ */
+public interface QueryableAppDatabase extends AppDatabase {
+    /**
+     * Saves all of the TaskResults in a single transaction, either all of them are saved or none
+     * are. Much cheaper than saving them one by one when there are many.
+     * <p>
+     * Implementations that spread a batch over several transactions throw a {@link
+     * PartialSaveException} listing what was committed when a later part fails.
+     *
+     * @param results the task results to save
+     */
+    void saveTaskResults(List<TaskResult> results);
+
+    /**
+     * Returns the StepResults for the given step identifier whose answers match all of the
+     * predicates. The comparisons are done by the database, only matching results are loaded.
+     * Archived results are not included.
+     *
+     * @param stepIdentifier the step identifier
+     * @param predicates     one or more comparisons that must all match
+     * @return a list of the matching StepResults, in the order they were saved
+     */
+    List<StepResult> queryStepResults(String stepIdentifier, AnswerPredicate... predicates);
+
+    /**
+     * Computes count, min, max and average of a numeric answer grouped into time buckets, by the
+     * time each step was completed. The grouping is done by the database, which is much cheaper
+     * than loading every StepResult for the step when drawing a chart. Archived results are
+     * included.
+     *
+     * @param stepIdentifier the step identifier
+     * @param resultKey      the key of the answer inside the step result, {@link
+     *                       StepResult#DEFAULT_KEY} for a single answer step
+     * @param bucket         the size of the time buckets
+     * @param from           start of the time range, inclusive
+     * @param to             end of the time range, exclusive
+     * @return the statistics of each bucket in the range that has answers
+     */
+    AnswerAggregate aggregate(String stepIdentifier, String resultKey, AnswerAggregate.Bucket bucket, Date from, Date to);
+
+    /**
+     * Returns the number of saved step records, for reporting progress of {@link
+     * #forEachStepRecord}.
+     *
+     * @return the number of step records
+     */
+    int countStepRecords();
+
+    /**
+     * Walks every saved step record in the order they were saved. Records are read a page at a
+     * time, so memory use doesn't grow with the number of records, which makes this the way to
+     * export or upload everything that is still live. Archived results are not visited.
+     *
+     * @param visitor called for each record, on the calling thread
+     * @return true if every record was visited, false if the visitor stopped early
+     */
+    boolean forEachStepRecord(StepRecordVisitor visitor);
+
+    /**
+     * Searches the text answers of every saved step result. Each word of the query must appear in
+     * the answers, as a whole word or the start of one, case insensitive for ASCII letters.
+     * Archived results are not searched.
+     *
+     * @param query the words to search for, as typed by the user
+     * @param limit the maximum number of hits to return
+     * @return the matching step results, best match first
+     */
+    List<SearchHit> searchAnswers(String query, int limit);
+
+    /**
+     * Returns up to <code>limit</code> saved task results that haven't been uploaded yet, oldest
+     * and least attempted first, and marks them as in flight so that other workers don't pick them
+     * up. Each one must be followed by either {@link #markUploaded} or {@link #markUploadFailed}.
+     * Results left in flight by a previous process are handed out again.
+     *
+     * @param limit the maximum number of results to return
+     * @return the pending uploads, empty if there are none
+     */
+    List<PendingUpload> loadPendingUploads(int limit);
+
+    /**
+     * Marks the task records as uploaded, in a single transaction.
+     *
+     * @param taskRecordIds the ids from {@link PendingUpload#getTaskRecordId()}
+     */
+    void markUploaded(List<Integer> taskRecordIds);
+
+    /**
+     * Marks the task records as failed, they will be returned by {@link #loadPendingUploads} again
+     * after the records that have been attempted fewer times.
+     *
+     * @param taskRecordIds the ids from {@link PendingUpload#getTaskRecordId()}
+     */
+    void markUploadFailed(List<Integer> taskRecordIds);
+
+    /**
+     * Returns the changes made to the database, emitted after they have been committed. Bursts of
+     * changes are coalesced into one list, so observers can update what changed instead of
+     * reloading everything. See {@link DatabaseChangeNotifier}.
+     *
+     * @return an Observable of change bursts, which never completes
+     */
+    Observable<List<DatabaseChange>> changes();
+
+    /**
+     * Drops anything read from the database that is kept in memory, called when the app locks
+     * itself after the pin timeout. If your database doesn't cache results, make this a no-op.
+     */
+    void clearCache();
+
+}
@@ -0,0 +1,194 @@
+package org.researchstack.backbone.storage.database;
+
+import android.content.Context;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.storage.file.FileAccess;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Monthly archive files of task results that have been moved out of the live database by a
+ * retention run. Each file holds the results that completed in one month, encoded with {@link
+ * BinaryResultCodec} (which deflates them) and encrypted by the {@link FileAccess} on the way to
+ * disk.
+ * <p>
+ * Each batch archived into a month is written as a new segment next to the month's file, so
+ * archiving never rewrites what's already on disk. An interrupted retention run can simply be
+ * repeated, results that end up in more than one segment are only read once.
+ */
+public class ResultArchive {
+    public static final String DIRECTORY = "/result_archive/";
+
+    private static final String KEY_TASKS = "tasks";
+    private static final String KEY_RECORD_ID = "recordId";
+    private static final String KEY_TASK_ID = "taskId";
+    private static final String KEY_STARTED = "started";
+    private static final String KEY_COMPLETED = "completed";
+    private static final String KEY_STEPS = "steps";
+
+    private final Context context;
+
+    private final FileAccess fileAccess;
+
+    private final BinaryResultCodec codec = new BinaryResultCodec();
+
+    /**
+     * Number of segments per archive file, filled in as files are used
+     */
+    private final Map<String, Integer> segmentCounts = new HashMap<>();
+
+    public ResultArchive(Context context, FileAccess fileAccess) {
+        this.context = context.getApplicationContext();
+        this.fileAccess = fileAccess;
+    }
+
+    /**
+     * Returns the archive file for results that completed at the given time.
+     *
+     * @param completed the time a task completed
+     * @return the path of the archive file, relative to the file access root
+     */
+    public static String getPath(Date completed) {
+        return DIRECTORY + new SimpleDateFormat("yyyy-MM", Locale.US).format(completed) + ".bin";
+    }
+
+    /**
+     * Adds the results to the archive file as a new segment.
+     *
+     * @param path    the archive file from {@link #getPath(Date)}
+     * @param results the task results to add, by the id of their task record
+     */
+    public synchronized void append(String path, Map<Integer, TaskResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> tasks = new ArrayList<>(results.size());
+        for (Map.Entry<Integer, TaskResult> entry : results.entrySet()) {
+            TaskResult result = entry.getValue();
+            Map<String, Object> task = new HashMap<>();
+            task.put(KEY_RECORD_ID, entry.getKey());
+            task.put(KEY_TASK_ID, result.getIdentifier());
+            task.put(KEY_STARTED, result.getStartDate());
+            task.put(KEY_COMPLETED, result.getEndDate());
+            List<StepResult> steps = new ArrayList<>();
+            for (StepResult stepResult : result.getResults().values()) {
+                if (stepResult != null) {
+                    steps.add(stepResult);
+                }
+            }
+            task.put(KEY_STEPS, steps);
+            tasks.add(task);
+        }
+
+        Map<String, Object> file = new HashMap<>();
+        file.put(KEY_TASKS, tasks);
+        int segment = getSegmentCount(path);
+        fileAccess.writeData(context, getSegmentPath(path, segment), codec.encode(file));
+        segmentCounts.put(path, segment + 1);
+    }
+
+    /**
+     * Reads every task result in the archive file.
+     *
+     * @param path the archive file
+     * @return the archived task results, in the order they were archived
+     */
+    public synchronized List<TaskResult> read(String path) {
+        return new ArrayList<>(readRecords(path).values());
+    }
+
+    /**
+     * Reads the results of one task from the archive files.
+     *
+     * @param paths          the archive files to read, oldest first
+     * @param taskIdentifier the task identifier
+     * @return the archived results of the task, oldest file first
+     */
+    public List<TaskResult> readTaskResults(List<String> paths, String taskIdentifier) {
+        List<TaskResult> results = new ArrayList<>();
+        for (String path : paths) {
+            for (TaskResult result : read(path)) {
+                if (taskIdentifier.equals(result.getIdentifier())) {
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads the results of one step from the archive files.
+     *
+     * @param paths          the archive files to read, oldest first
+     * @param stepIdentifier the step identifier
+     * @return the archived results of the step, oldest file first
+     */
+    public List<StepResult> readStepResults(List<String> paths, String stepIdentifier) {
+        List<StepResult> results = new ArrayList<>();
+        for (String path : paths) {
+            for (TaskResult result : read(path)) {
+                StepResult stepResult = result.getStepResult(stepIdentifier);
+                if (stepResult != null) {
+                    results.add(stepResult);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The first segment is the archive file itself, later ones get the segment number appended.
+     */
+    private static String getSegmentPath(String path, int segment) {
+        return segment == 0 ? path : path + "." + segment;
+    }
+
+    private int getSegmentCount(String path) {
+        Integer count = segmentCounts.get(path);
+        if (count == null) {
+            count = 0;
+            while (fileAccess.dataExists(context, getSegmentPath(path, count))) {
+                count++;
+            }
+            segmentCounts.put(path, count);
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, TaskResult> readRecords(String path) {
+        Map<Integer, TaskResult> results = new LinkedHashMap<>();
+        int segments = getSegmentCount(path);
+        for (int segment = 0; segment < segments; segment++) {
+            Map<String, Object> file = codec.decode(fileAccess.readData(context,
+                    getSegmentPath(path, segment)));
+            for (Map<String, Object> task : (List<Map<String, Object>>) file.get(KEY_TASKS)) {
+                Integer recordId = (Integer) task.get(KEY_RECORD_ID);
+                if (results.containsKey(recordId)) {
+                    // archived again by a run that was interrupted before its delete committed
+                    continue;
+                }
+
+                TaskResult result = new TaskResult((String) task.get(KEY_TASK_ID));
+                result.setStartDate((Date) task.get(KEY_STARTED));
+                result.setEndDate((Date) task.get(KEY_COMPLETED));
+                for (StepResult stepResult : (List<StepResult>) task.get(KEY_STEPS)) {
+                    result.setStepResultForStepIdentifier(stepResult.getIdentifier(),
+                            stepResult);
+                }
+                results.put(recordId, result);
+            }
+        }
+        return results;
+    }
+}
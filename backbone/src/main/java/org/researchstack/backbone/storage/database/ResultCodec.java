@@ -0,0 +1,37 @@
+package org.researchstack.backbone.storage.database;
+
+import java.util.Map;
+
+/**
+ * Encodes and decodes the results map of a {@link org.researchstack.backbone.result.StepResult}
+ * for storage in a {@link StepRecord}.
+ * <p>
+ * Each codec has a format id that is saved with the record, so that rows written with one codec
+ * stay readable after the app switches to another. Register custom codecs with {@link
+ * ResultCodecs#register} before loading any rows written with them.
+ */
+public interface ResultCodec {
+    /**
+     * Returns the id saved alongside each record written by this codec. Ids below 16 are reserved
+     * for the codecs in this package.
+     *
+     * @return the format id of this codec
+     */
+    int getFormat();
+
+    /**
+     * Encodes the results map of a step result.
+     *
+     * @param results the step result's results map
+     * @return the encoded results
+     */
+    byte[] encode(Map<String, ?> results);
+
+    /**
+     * Decodes a results map previously encoded by {@link #encode}.
+     *
+     * @param data the encoded results
+     * @return the decoded results map
+     */
+    Map<String, Object> decode(byte[] data);
+}
@@ -0,0 +1,53 @@
+package org.researchstack.backbone.storage.database;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the {@link ResultCodec}s that can be used to read {@link StepRecord}s, keyed by
+ * their format id.
+ */
+public class ResultCodecs {
+    private static final Map<Integer, ResultCodec> CODECS = new HashMap<>();
+
+    static {
+        register(new JsonResultCodec());
+        register(new BinaryResultCodec());
+    }
+
+    private ResultCodecs() {
+    }
+
+    /**
+     * Registers a codec so that records written with its format can be decoded.
+     *
+     * @param codec the codec to register
+     */
+    public static synchronized void register(ResultCodec codec) {
+        CODECS.put(codec.getFormat(), codec);
+    }
+
+    /**
+     * Returns the codec for the format id saved with a record.
+     *
+     * @param format the format id
+     * @return the codec
+     * @throws IllegalStateException if no codec has been registered for the format
+     */
+    public static synchronized ResultCodec forFormat(int format) {
+        ResultCodec codec = CODECS.get(format);
+        if (codec == null) {
+            throw new IllegalStateException("No ResultCodec registered for format " + format);
+        }
+        return codec;
+    }
+
+    /**
+     * Returns the codec used for new records unless another one is set on the database.
+     *
+     * @return the default codec
+     */
+    public static ResultCodec getDefault() {
+        return forFormat(BinaryResultCodec.FORMAT);
+    }
+}
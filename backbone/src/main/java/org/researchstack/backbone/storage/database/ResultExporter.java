@@ -0,0 +1,365 @@
+package org.researchstack.backbone.storage.database;
+
+import android.content.Context;
+import android.support.annotation.WorkerThread;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import org.researchstack.backbone.storage.file.FileAccess;
+import org.researchstack.backbone.utils.FormatHelper;
+import org.researchstack.backbone.utils.LogExt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports every live step record as newline delimited JSON, CSV or column chunks, reading them
+ * from the database a page at a time with {@link QueryableAppDatabase#forEachStepRecord} instead of
+ * loading every {@link org.researchstack.backbone.result.TaskResult} first.
+ * <p>
+ * {@link FileAccess} encrypts whole byte arrays, so the export is written as numbered part files of
+ * about {@link #DEFAULT_PART_SIZE} bytes each, before encryption. Memory use is bounded by the part
+ * size no matter how many records there are. Every part is complete on its own: it is separately
+ * gzipped when compression is on, and each CSV part starts with the header row.
+ * <p>
+ * Results that were moved to a {@link ResultArchive} are not exported, the archive files already
+ * hold them.
+ */
+public class ResultExporter {
+    public static final int DEFAULT_PART_SIZE = 1024 * 1024;
+
+    public static final String[] CSV_COLUMNS = {
+            "taskRecordId", "taskId", "stepId", "started", "completed", "resultKey", "value"
+    };
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Gson GSON = new GsonBuilder().setDateFormat(FormatHelper.DATE_FORMAT_ISO_8601)
+            .create();
+
+    public enum Format {
+        /**
+         * One JSON object per step record and line, with the results map as a nested object
+         */
+        NDJSON(".ndjson"),
+        /**
+         * One row per answer, see {@link #CSV_COLUMNS}. Answers that aren't a string, number or
+         * boolean are written as JSON.
+         */
+        CSV(".csv"),
+        /**
+         * Length prefixed chunks from {@link ColumnarChunkWriter}, for bulk ingestion. Chunks are
+         * already deflated, so these parts are never gzipped.
+         * <p>
+         * This is an export format only, the upload queue from {@link
+         * QueryableAppDatabase#loadPendingUploads} still hands out task results. Apps that ingest
+         * columnar data send the exported parts with their own client.
+         */
+        COLUMNAR(".rscol");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Reports how far an export has come, called on the exporting thread.
+     */
+    public interface ProgressListener {
+        /**
+         * @param exported the number of step records exported so far
+         * @param total    the number of step records when the export started
+         */
+        void onProgress(int exported, int total);
+    }
+
+    private final Context context;
+
+    private final FileAccess fileAccess;
+
+    private final QueryableAppDatabase database;
+
+    private boolean compressed = true;
+
+    private int partSize = DEFAULT_PART_SIZE;
+
+    private volatile boolean cancelled;
+
+    public ResultExporter(Context context,
+            FileAccess fileAccess,
+            QueryableAppDatabase database) {
+        this.context = context.getApplicationContext();
+        this.fileAccess = fileAccess;
+        this.database = database;
+    }
+
+    /**
+     * Sets whether the parts are gzipped, on by default.
+     *
+     * @param compressed true to gzip each part
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Sets the size of each part as written, after compression. This is also about the most memory
+     * an export holds at once.
+     *
+     * @param partSize the part size in bytes
+     */
+    public void setPartSize(int partSize) {
+        this.partSize = partSize;
+    }
+
+    /**
+     * Stops a running export from any thread. The export deletes the parts it has written and
+     * returns an empty list.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Exports every saved step record into part files in the directory, replacing any part files
+     * of an earlier export to the same directory.
+     *
+     * @param directory the directory, relative to the file access root, starting and ending with '/'
+     * @param format    the output format
+     * @param listener  notified every 500 records and at the end, may be null
+     * @return the paths of the part files in order, empty if the export was cancelled
+     */
+    @WorkerThread
+    public List<String> export(String directory, Format format, ProgressListener listener) {
+        cancelled = false;
+        int total = database.countStepRecords();
+        PartWriter writer = new PartWriter(directory, format);
+
+        boolean finished = database.forEachStepRecord(record -> {
+            if (cancelled) {
+                return false;
+            }
+            writer.write(record);
+            if (listener != null && writer.count % 500 == 0) {
+                listener.onProgress(writer.count, total);
+            }
+            return true;
+        });
+
+        if (!finished) {
+            LogExt.d(getClass(), "Export cancelled after " + writer.count + " records");
+            for (String path : writer.paths) {
+                fileAccess.clearData(context, path);
+            }
+            return new ArrayList<>();
+        }
+
+        writer.finish();
+        if (listener != null) {
+            listener.onProgress(writer.count, total);
+        }
+        clearStaleParts(directory, format, writer.paths.size());
+        return writer.paths;
+    }
+
+    private void clearStaleParts(String directory, Format format, int from) {
+        for (int i = from; fileAccess.dataExists(context, partPath(directory, format, i)); i++) {
+            fileAccess.clearData(context, partPath(directory, format, i));
+        }
+    }
+
+    private String partPath(String directory, Format format, int part) {
+        return String.format(Locale.US, "%spart-%05d%s%s", directory, part, format.extension,
+                isGzipped(format) ? ".gz" : "");
+    }
+
+    private boolean isGzipped(Format format) {
+        return compressed && format != Format.COLUMNAR;
+    }
+
+    /**
+     * Serializes records into an in memory part and hands full parts to the file access.
+     */
+    private class PartWriter {
+        final String directory;
+        final Format format;
+        final List<String> paths = new ArrayList<>();
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(FormatHelper.DATE_FORMAT_ISO_8601,
+                Locale.US);
+
+        ByteArrayOutputStream buffer;
+        OutputStream stream;
+        Writer writer;
+        ColumnarChunkWriter columnar;
+        int count;
+
+        PartWriter(String directory, Format format) {
+            this.directory = directory;
+            this.format = format;
+        }
+
+        void write(StepRecord record) {
+            try {
+                if (writer == null) {
+                    start();
+                }
+
+                if (format == Format.NDJSON) {
+                    writeJson(record);
+                } else if (format == Format.CSV) {
+                    writeCsv(record);
+                } else {
+                    columnar.add(record);
+                    if (columnar.isFull()) {
+                        writeChunk();
+                    }
+                }
+                count++;
+
+                // lags behind by what the writer and deflater still buffer, a few KB at most
+                if (buffer.size() >= partSize) {
+                    finish();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void finish() {
+            if (writer == null) {
+                return;
+            }
+
+            try {
+                if (columnar != null) {
+                    writeChunk();
+                }
+                writer.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            String path = partPath(directory, format, paths.size());
+            fileAccess.writeData(context, path, buffer.toByteArray());
+            paths.add(path);
+            writer = null;
+            stream = null;
+            buffer = null;
+        }
+
+        private void start() throws IOException {
+            buffer = new ByteArrayOutputStream(partSize / 4);
+            stream = isGzipped(format) ? new GZIPOutputStream(buffer) : buffer;
+            writer = new OutputStreamWriter(stream, UTF_8);
+            if (format == Format.COLUMNAR && columnar == null) {
+                columnar = new ColumnarChunkWriter();
+            }
+            if (format == Format.CSV) {
+                for (int i = 0; i < CSV_COLUMNS.length; i++) {
+                    writer.write(i == 0 ? "" : ",");
+                    writer.write(CSV_COLUMNS[i]);
+                }
+                writer.write('\n');
+            }
+        }
+
+        private void writeChunk() throws IOException {
+            byte[] chunk = columnar.finish();
+            if (chunk == null) {
+                return;
+            }
+            for (long length = chunk.length; ; length >>>= 7) {
+                if ((length & ~0x7FL) == 0) {
+                    stream.write((int) length);
+                    break;
+                }
+                stream.write((int) ((length & 0x7F) | 0x80));
+            }
+            stream.write(chunk);
+        }
+
+        private void writeJson(StepRecord record) throws IOException {
+            JsonWriter json = new JsonWriter(writer);
+            json.beginObject();
+            json.name("taskRecordId").value(record.taskRecordId);
+            json.name("taskId").value(record.taskId);
+            json.name("stepId").value(record.stepId);
+            json.name("started").value(formatDate(record.started));
+            json.name("completed").value(formatDate(record.completed));
+            json.name("results");
+            Map<String, Object> results = record.getResults();
+            if (results == null) {
+                json.nullValue();
+            } else {
+                GSON.toJson(results, Map.class, json);
+            }
+            json.endObject();
+            writer.write('\n');
+        }
+
+        private void writeCsv(StepRecord record) throws IOException {
+            Map<String, Object> results = record.getResults();
+            if (results == null) {
+                return;
+            }
+
+            for (Map.Entry<String, Object> entry : results.entrySet()) {
+                Object value = entry.getValue();
+                writeCsvValue(String.valueOf(record.taskRecordId), true);
+                writeCsvValue(record.taskId, false);
+                writeCsvValue(record.stepId, false);
+                writeCsvValue(formatDate(record.started), false);
+                writeCsvValue(formatDate(record.completed), false);
+                writeCsvValue(entry.getKey(), false);
+                if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+                    writeCsvValue(value == null ? null : String.valueOf(value), false);
+                } else if (value instanceof Date) {
+                    writeCsvValue(formatDate((Date) value), false);
+                } else {
+                    writeCsvValue(GSON.toJson(value), false);
+                }
+                writer.write('\n');
+            }
+        }
+
+        private void writeCsvValue(String value, boolean first) throws IOException {
+            if (!first) {
+                writer.write(',');
+            }
+            if (value == null) {
+                return;
+            }
+
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+
+        private String formatDate(Date date) {
+            return date == null ? null : dateFormat.format(date);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.researchstack.backbone.storage.database;
+
+import java.util.Date;
+
+/**
+ * A step result whose text answers matched a search, as returned by {@link
+ * QueryableAppDatabase#searchAnswers}. Hits are ordered by score, highest first.
+ */
+public class SearchHit {
+    private final int stepRecordId;
+
+    private final String taskIdentifier;
+
+    private final String stepIdentifier;
+
+    private final Date completed;
+
+    private final double score;
+
+    public SearchHit(int stepRecordId, String taskIdentifier, String stepIdentifier, Date completed, double score) {
+        this.stepRecordId = stepRecordId;
+        this.taskIdentifier = taskIdentifier;
+        this.stepIdentifier = stepIdentifier;
+        this.completed = completed;
+        this.score = score;
+    }
+
+    /**
+     * Returns the id of the saved step record that matched.
+     *
+     * @return the step record id
+     */
+    public int getStepRecordId() {
+        return stepRecordId;
+    }
+
+    public String getTaskIdentifier() {
+        return taskIdentifier;
+    }
+
+    public String getStepIdentifier() {
+        return stepIdentifier;
+    }
+
+    public Date getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns how well the answers matched, higher is better. Scores are only comparable between
+     * hits of the same search.
+     *
+     * @return the relevance score
+     */
+    public double getScore() {
+        return score;
+    }
+}
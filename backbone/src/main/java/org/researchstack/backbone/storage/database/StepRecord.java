@@ -1,11 +1,7 @@
 package org.researchstack.backbone.storage.database;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.Step;
-import org.researchstack.backbone.utils.FormatHelper;
 import org.researchstack.backbone.utils.TextUtils;
 
 import java.util.Date;
@@ -18,8 +14,9 @@ import co.touchlab.squeaky.table.DatabaseTable;
 public class StepRecord {
     public static final String TASK_RECORD_ID = "taskRecordId";
     public static final String STEP_ID = "stepId";
-    private static final Gson GSON = new GsonBuilder().setDateFormat(FormatHelper.DATE_FORMAT_ISO_8601)
-            .create();
+    public static final String RESULT_DATA = "resultData";
+    public static final String RESULT_FORMAT = "resultFormat";
+
     @DatabaseField(generatedId = true)
     public int id;
 
@@ -38,15 +35,60 @@ public class StepRecord {
     @DatabaseField
     public Date completed;
 
+    /**
+     * Results saved with {@link JsonResultCodec}, the original format
+     */
     @DatabaseField
     public String result;
 
+    /**
+     * Results saved with any other {@link ResultCodec}, see {@link #resultFormat}
+     */
+    @DatabaseField(columnName = StepRecord.RESULT_DATA)
+    public byte[] resultData;
+
+    @DatabaseField(columnName = StepRecord.RESULT_FORMAT)
+    public int resultFormat;
+
+    /**
+     * Encodes the results with the given codec and stores them in the column for its format.
+     *
+     * @param codec   the codec to encode with
+     * @param results the results map of the step result
+     */
+    public void setResults(ResultCodec codec, Map<String, ?> results) {
+        resultFormat = codec.getFormat();
+        if (codec instanceof JsonResultCodec) {
+            result = ((JsonResultCodec) codec).toJson(results);
+            resultData = null;
+        } else {
+            result = null;
+            resultData = codec.encode(results);
+        }
+    }
+
+    /**
+     * Decodes the saved results with the codec they were written with.
+     *
+     * @return the results map, or null if the record has no results
+     */
+    public Map<String, Object> getResults() {
+        if (resultData != null) {
+            return ResultCodecs.forFormat(resultFormat).decode(resultData);
+        } else if (!TextUtils.isEmpty(result)) {
+            return ((JsonResultCodec) ResultCodecs.forFormat(JsonResultCodec.FORMAT)).fromJson(
+                    result);
+        }
+        return null;
+    }
+
     public static StepResult toStepResult(StepRecord record) {
         StepResult result = new StepResult(new Step(record.stepId));
         result.setStartDate(record.started);
         result.setEndDate(record.completed);
-        if (!TextUtils.isEmpty(record.result)) {
-            result.setResults(GSON.fromJson(record.result, Map.class));
+        Map<String, Object> results = record.getResults();
+        if (results != null) {
+            result.setResults(results);
         }
 
         return result;
@@ -0,0 +1,12 @@
+package org.researchstack.backbone.storage.database;
+
+/**
+ * Called for each saved step record by {@link QueryableAppDatabase#forEachStepRecord}.
+ */
+public interface StepRecordVisitor {
+    /**
+     * @param record the step record, only valid until this returns
+     * @return true to continue with the next record, false to stop
+     */
+    boolean visit(StepRecord record);
+}
@@ -13,6 +13,35 @@ import co.touchlab.squeaky.table.DatabaseTable;
 public class TaskRecord {
     public static final String TASK_ID = "taskId";
     public static final String COMPLETED = "completed";
+    public static final String UPLOADED = "uploaded";
+    public static final String UPLOAD_STATE = "uploadState";
+    public static final String UPLOAD_ATTEMPTS = "uploadAttempts";
+
+    /**
+     * Saved and waiting to be uploaded
+     */
+    public static final int UPLOAD_PENDING = 0;
+
+    /**
+     * Handed to an upload worker by {@link QueryableAppDatabase#loadPendingUploads}
+     */
+    public static final int UPLOAD_IN_FLIGHT = 1;
+
+    /**
+     * Uploaded, see {@link #uploaded} for when
+     */
+    public static final int UPLOAD_DONE = 2;
+
+    /**
+     * The last upload attempt failed, it will be handed out again
+     */
+    public static final int UPLOAD_FAILED = 3;
+
+    /**
+     * Saved before upload state was tracked. Those uploads weren't checked, so it isn't known
+     * whether it reached the server. It is neither handed out for upload nor archived.
+     */
+    public static final int UPLOAD_LEGACY = 4;
 
     @DatabaseField(generatedId = true)
     public int id;
@@ -26,9 +55,15 @@ public class TaskRecord {
     @DatabaseField(columnName = COMPLETED)
     public Date completed;
 
-    @DatabaseField
+    @DatabaseField(columnName = UPLOADED)
     public Date uploaded;
 
+    @DatabaseField(canBeNull = false, columnName = UPLOAD_STATE)
+    public int uploadState;
+
+    @DatabaseField(canBeNull = false, columnName = UPLOAD_ATTEMPTS)
+    public int uploadAttempts;
+
     public static TaskResult toTaskResult(TaskRecord taskRecord, List<StepRecord> stepRecords) {
         TaskResult taskResult = new TaskResult(taskRecord.taskId);
         taskResult.setStartDate(taskRecord.started);
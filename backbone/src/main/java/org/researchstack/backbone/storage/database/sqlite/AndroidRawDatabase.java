@@ -0,0 +1,45 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * {@link RawDatabase} backed by the framework's {@link SQLiteDatabase}.
+ */
+class AndroidRawDatabase implements RawDatabase {
+    private final SQLiteDatabase database;
+
+    AndroidRawDatabase(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public void execSQL(String sql) {
+        database.execSQL(sql);
+    }
+
+    @Override
+    public void execSQL(String sql, Object[] bindArgs) {
+        database.execSQL(sql, bindArgs);
+    }
+
+    @Override
+    public Cursor rawQuery(String sql, String[] selectionArgs) {
+        return database.rawQuery(sql, selectionArgs);
+    }
+
+    @Override
+    public void beginTransaction() {
+        database.beginTransaction();
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        database.setTransactionSuccessful();
+    }
+
+    @Override
+    public void endTransaction() {
+        database.endTransaction();
+    }
+}
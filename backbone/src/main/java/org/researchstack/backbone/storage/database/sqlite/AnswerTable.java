@@ -0,0 +1,322 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.storage.database.AnswerAggregate;
+import org.researchstack.backbone.storage.database.AnswerPredicate;
+import org.researchstack.backbone.storage.database.StepRecord;
+import org.researchstack.backbone.utils.FormatHelper;
+import org.researchstack.backbone.utils.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index table holding a typed copy of every scalar answer saved in a {@link StepRecord}, so that
+ * answer values can be filtered and aggregated in SQL without parsing the serialized result.
+ * <p>
+ * Integers, decimals and booleans go to {@link #NUMBER_VALUE}, strings up to {@link
+ * #MAX_TEXT_LENGTH} characters go to {@link #TEXT_VALUE}. Anything else is only kept in the step
+ * record itself.
+ */
+final class AnswerTable {
+    static final String TABLE = "StepAnswer";
+    static final String STEP_RECORD_ID = "stepRecordId";
+    static final String TASK_RECORD_ID = "taskRecordId";
+    static final String TASK_ID = "taskId";
+    static final String STEP_ID = "stepId";
+    static final String RESULT_KEY = "resultKey";
+    static final String VALUE_TYPE = "valueType";
+    static final String NUMBER_VALUE = "numberValue";
+    static final String TEXT_VALUE = "textValue";
+    static final String COMPLETED = "completed";
+
+    static final int TYPE_INTEGER = 1;
+    static final int TYPE_DECIMAL = 2;
+    static final int TYPE_BOOLEAN = 3;
+    static final int TYPE_TEXT = 4;
+
+    static final int MAX_TEXT_LENGTH = 256;
+
+    private static final String INSERT = "INSERT INTO " + TABLE + " (" + STEP_RECORD_ID + ", " +
+            TASK_RECORD_ID + ", " + TASK_ID + ", " + STEP_ID + ", " + RESULT_KEY + ", " + VALUE_TYPE +
+            ", " + NUMBER_VALUE + ", " + TEXT_VALUE + ", " + COMPLETED + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private AnswerTable() {
+    }
+
+    static void create(RawDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "id INTEGER PRIMARY KEY, " +
+                STEP_RECORD_ID + " INTEGER NOT NULL, " +
+                TASK_RECORD_ID + " INTEGER NOT NULL, " +
+                TASK_ID + " TEXT NOT NULL, " +
+                STEP_ID + " TEXT NOT NULL, " +
+                RESULT_KEY + " TEXT NOT NULL, " +
+                VALUE_TYPE + " INTEGER NOT NULL, " +
+                NUMBER_VALUE + " REAL, " +
+                TEXT_VALUE + " TEXT, " +
+                COMPLETED + " INTEGER)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE + "_number ON " + TABLE + " (" + STEP_ID +
+                ", " + RESULT_KEY + ", " + NUMBER_VALUE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE + "_text ON " + TABLE + " (" + STEP_ID +
+                ", " + RESULT_KEY + ", " + TEXT_VALUE + ")");
+        createTimeIndex(db);
+    }
+
+    /**
+     * Covering index for {@link #aggregate}, so time range scans never touch the table itself.
+     */
+    static void createTimeIndex(RawDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE + "_time ON " + TABLE + " (" + STEP_ID +
+                ", " + RESULT_KEY + ", " + COMPLETED + ", " + NUMBER_VALUE + ")");
+    }
+
+    /**
+     * Writes the scalar answers of a step record. Must be called after the record has been created
+     * so that its generated id is set.
+     *
+     * @param db        the writable database
+     * @param record    the saved step record
+     * @param results   the results map of the step result
+     * @param summarize whether numeric answers should also be added to the {@link SummaryTable},
+     *                  if not the summaries are marked as out of date
+     */
+    static void insert(RawDatabase db, StepRecord record, Map<String, ?> results, boolean summarize) {
+        if (insertAnswers(db, record, results, summarize)) {
+            SummaryTable.markStale(db);
+        }
+    }
+
+    /**
+     * @return true if there were numeric answers that were not added to the summaries
+     */
+    private static boolean insertAnswers(RawDatabase db, StepRecord record, Map<String, ?> results, boolean summarize) {
+        boolean skippedSummaries = false;
+        Long completed = record.completed == null ? null : record.completed.getTime();
+
+        for (Map.Entry<String, ?> entry : results.entrySet()) {
+            Object value = unwrap(entry.getValue());
+            int type = typeOf(value);
+            if (type == 0) {
+                continue;
+            }
+
+            Object number = null;
+            String text = null;
+            switch (type) {
+                case TYPE_INTEGER:
+                    number = ((Number) value).longValue();
+                    break;
+                case TYPE_DECIMAL:
+                    number = ((Number) value).doubleValue();
+                    break;
+                case TYPE_BOOLEAN:
+                    number = (Boolean) value ? 1L : 0L;
+                    break;
+                case TYPE_TEXT:
+                    text = (String) value;
+                    break;
+            }
+
+            db.execSQL(INSERT, new Object[] {
+                    record.id,
+                    record.taskRecordId,
+                    record.taskId,
+                    record.stepId,
+                    entry.getKey(),
+                    type,
+                    number,
+                    text,
+                    completed
+            });
+
+            if (number != null && completed != null) {
+                if (summarize) {
+                    SummaryTable.add(db, record.stepId, entry.getKey(), completed, ((Number) number).doubleValue());
+                } else {
+                    skippedSummaries = true;
+                }
+            }
+        }
+        return skippedSummaries;
+    }
+
+    /**
+     * Loads the step records for the step whose answers match all of the predicates, in the order
+     * they were saved. Runs as a single query, so it can be used on a connection that Squeaky
+     * doesn't know about.
+     *
+     * @param db             a readable database
+     * @param stepIdentifier the step identifier
+     * @param predicates     the comparisons that must all match
+     * @return the matching step records
+     */
+    static List<StepRecord> queryStepRecords(RawDatabase db, String stepIdentifier, AnswerPredicate... predicates) {
+        if (predicates.length == 0) {
+            throw new IllegalArgumentException("At least one predicate is required");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(RecordReader.STEP_RECORD_COLUMNS)
+                .append(" FROM StepRecord WHERE id IN (");
+        String[] args = new String[predicates.length * 3];
+        for (int i = 0; i < predicates.length; i++) {
+            AnswerPredicate predicate = predicates[i];
+            if (i > 0) {
+                sql.append(" INTERSECT ");
+            }
+            sql.append("SELECT ")
+                    .append(STEP_RECORD_ID)
+                    .append(" FROM ")
+                    .append(TABLE)
+                    .append(" WHERE ")
+                    .append(STEP_ID)
+                    .append(" = ? AND ")
+                    .append(RESULT_KEY)
+                    .append(" = ? AND ")
+                    .append(predicate.isTextComparison() ? TEXT_VALUE : NUMBER_VALUE)
+                    .append(' ')
+                    .append(predicate.getOperator().getSql())
+                    .append(" ?");
+
+            args[i * 3] = stepIdentifier;
+            args[i * 3 + 1] = predicate.getResultKey();
+            args[i * 3 + 2] = predicate.getSqlArgument();
+        }
+        sql.append(") ORDER BY id");
+
+        List<StepRecord> records = new ArrayList<>();
+        Cursor cursor = db.rawQuery(sql.toString(), args);
+        try {
+            while (cursor.moveToNext()) {
+                records.add(RecordReader.readStepRecord(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    /**
+     * Computes count, min, max, sum and sum of squares of a numeric answer per time bucket.
+     *
+     * @param db             a readable database
+     * @param stepIdentifier the step identifier
+     * @param resultKey      the key of the answer inside the step result
+     * @param bucket         the size of the time buckets
+     * @param from           start of the time range, inclusive
+     * @param to             end of the time range, exclusive
+     * @return the statistics of the non-empty buckets, in time order
+     */
+    static AnswerAggregate aggregate(RawDatabase db, String stepIdentifier, String resultKey, AnswerAggregate.Bucket bucket, long from, long to) {
+        String value = NUMBER_VALUE;
+
+        Cursor cursor = db.rawQuery("SELECT " + bucket.getIndexSql(COMPLETED, from, to) +
+                " AS bucket, COUNT(" + value + "), MIN(" + value + "), MAX(" + value + "), SUM(" +
+                value + "), SUM(" + value + " * " + value + ") FROM " + TABLE + " WHERE " + STEP_ID +
+                " = ? AND " + RESULT_KEY + " = ? AND " + COMPLETED + " >= ? AND " + COMPLETED +
+                " < ? AND " + value + " IS NOT NULL GROUP BY bucket ORDER BY bucket", new String[] {
+                stepIdentifier, resultKey, String.valueOf(from), String.valueOf(to)
+        });
+
+        return readAggregate(cursor, bucket, from);
+    }
+
+    /**
+     * Reads the rows of an aggregate query into an {@link AnswerAggregate} and closes the cursor.
+     * The columns must be bucket index, count, min, max, sum and sum of squares.
+     */
+    static AnswerAggregate readAggregate(Cursor cursor, AnswerAggregate.Bucket bucket, long from) {
+        try {
+            int count = cursor.getCount();
+            long[] bucketStarts = new long[count];
+            int[] counts = new int[count];
+            double[] minimums = new double[count];
+            double[] maximums = new double[count];
+            double[] sums = new double[count];
+            double[] sumsOfSquares = new double[count];
+
+            for (int i = 0; cursor.moveToNext(); i++) {
+                bucketStarts[i] = bucket.getStart(cursor.getLong(0), from);
+                counts[i] = cursor.getInt(1);
+                minimums[i] = cursor.getDouble(2);
+                maximums[i] = cursor.getDouble(3);
+                sums[i] = cursor.getDouble(4);
+                sumsOfSquares[i] = cursor.getDouble(5);
+            }
+
+            return new AnswerAggregate(bucketStarts, counts, minimums, maximums, sums, sumsOfSquares);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Indexes the answers of step records saved before this table existed.
+     *
+     * @param db the writable database, inside of the upgrade transaction
+     */
+    static void backfill(RawDatabase db) {
+        Gson gson = new GsonBuilder().setDateFormat(FormatHelper.DATE_FORMAT_ISO_8601).create();
+        Cursor cursor = db.rawQuery("SELECT id, " + StepRecord.TASK_RECORD_ID + ", " + TASK_ID +
+                ", " + StepRecord.STEP_ID + ", completed, result FROM StepRecord", null);
+        try {
+            while (cursor.moveToNext()) {
+                if (cursor.isNull(5) || TextUtils.isEmpty(cursor.getString(5))) {
+                    continue;
+                }
+
+                StepRecord record = new StepRecord();
+                record.id = cursor.getInt(0);
+                record.taskRecordId = cursor.getInt(1);
+                record.taskId = cursor.getString(2);
+                record.stepId = cursor.getString(3);
+                // Squeaky persists dates as epoch millis
+                record.completed = cursor.isNull(4) ? null : new Date(cursor.getLong(4));
+                // the summary state doesn't exist yet, it is set up from the backfilled answers
+                insertAnswers(db, record, gson.fromJson(cursor.getString(5), Map.class), false);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns the answer itself for answers that are wrapped in a child step result.
+     */
+    static Object unwrap(Object value) {
+        // form steps store each question as a child step result
+        if (value instanceof StepResult) {
+            return ((StepResult) value).getResult();
+        }
+
+        // child step results that have been through json come back as maps
+        if (value instanceof Map) {
+            Object results = ((Map) value).get("results");
+            if (results instanceof Map) {
+                return ((Map) results).get(StepResult.DEFAULT_KEY);
+            }
+        }
+        return value;
+    }
+
+    private static int typeOf(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return TYPE_INTEGER;
+        } else if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            return Double.isNaN(number) || Double.isInfinite(number) ? 0 : TYPE_DECIMAL;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        } else if (value instanceof String && ((String) value).length() <= MAX_TEXT_LENGTH) {
+            return TYPE_TEXT;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,254 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.storage.database.DatabaseChange;
+import org.researchstack.backbone.storage.database.ResultArchive;
+import org.researchstack.backbone.storage.database.StepRecord;
+import org.researchstack.backbone.storage.database.TaskRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves old, uploaded results from the live tables into a {@link ResultArchive}, and remembers
+ * which archive files hold which tasks and steps so they can still be loaded.
+ * <p>
+ * The answer index rows of archived records are kept, so aggregates and {@link
+ * SummaryTable#rebuild} still cover archived days. Answer predicates return step records and so
+ * only match live results, the search index of archived records is deleted.
+ */
+final class ArchiveTable {
+    static final String TABLE = "ResultArchive";
+    static final String PATH = "path";
+    static final String TASK_ID = "taskId";
+    static final String STEP_ID = "stepId";
+
+    /**
+     * Task records moved per transaction, bounds memory and how long the writer is held
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * Pages freed per incremental vacuum step, 1000 pages is about 1MB with the default page size
+     */
+    private static final int VACUUM_PAGES = 1000;
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private static final String INSERT = "INSERT OR IGNORE INTO " + TABLE + " (" + PATH + ", " +
+            TASK_ID + ", " + STEP_ID + ") VALUES (?, ?, ?)";
+
+    private ArchiveTable() {
+    }
+
+    static void create(RawDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                PATH + " TEXT NOT NULL, " +
+                TASK_ID + " TEXT NOT NULL, " +
+                STEP_ID + " TEXT NOT NULL, " +
+                "PRIMARY KEY (" + TASK_ID + ", " + STEP_ID + ", " + PATH + "))");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE + "_step ON " + TABLE + " (" + STEP_ID +
+                ")");
+        // archiving loads and deletes step records by their task record
+        db.execSQL("CREATE INDEX IF NOT EXISTS StepRecord_task ON StepRecord (" +
+                StepRecord.TASK_RECORD_ID + ")");
+    }
+
+    /**
+     * Archives every uploaded task record that completed before the cutoff, then frees the pages
+     * they used. The first run on a database that was upgraded from before archiving existed does
+     * one full vacuum to switch it to incremental auto vacuum.
+     *
+     * @param db      the writable database
+     * @param archive the archive to move the results into
+     * @param before  the cutoff, in millis since the epoch
+     * @param changes gets an {@link DatabaseChange.Kind#ARCHIVED} change per archived record, to
+     *                publish once this returns
+     * @return the number of task records archived
+     */
+    static int archive(RawDatabase db, ResultArchive archive, long before, List<DatabaseChange> changes) {
+        int archived = 0;
+        List<TaskRecord> taskRecords;
+        while (!(taskRecords = loadExpired(db, before)).isEmpty()) {
+            Map<String, Map<Integer, TaskResult>> byPath = new LinkedHashMap<>();
+            List<Integer> ids = new ArrayList<>(taskRecords.size());
+
+            for (TaskRecord taskRecord : taskRecords) {
+                String path = ResultArchive.getPath(taskRecord.completed);
+                Map<Integer, TaskResult> results = byPath.get(path);
+                if (results == null) {
+                    results = new LinkedHashMap<>();
+                    byPath.put(path, results);
+                }
+                results.put(taskRecord.id,
+                        TaskRecord.toTaskResult(taskRecord, loadStepRecords(db, taskRecord.id)));
+                ids.add(taskRecord.id);
+            }
+
+            // files first, if we die before the delete commits the next run archives them again
+            for (Map.Entry<String, Map<Integer, TaskResult>> entry : byPath.entrySet()) {
+                archive.append(entry.getKey(), entry.getValue());
+            }
+
+            db.beginTransaction();
+            try {
+                for (Map.Entry<String, Map<Integer, TaskResult>> entry : byPath.entrySet()) {
+                    for (TaskResult result : entry.getValue().values()) {
+                        for (String stepId : result.getResults().keySet()) {
+                            db.execSQL(INSERT, new Object[] {
+                                    entry.getKey(), result.getIdentifier(), stepId
+                            });
+                        }
+                    }
+                }
+                deleteRecords(db, ids);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            for (TaskRecord taskRecord : taskRecords) {
+                changes.add(new DatabaseChange(DatabaseChange.Kind.ARCHIVED,
+                        taskRecord.taskId,
+                        taskRecord.id));
+            }
+            archived += ids.size();
+        }
+
+        if (archived > 0) {
+            // databases created before archiving existed switch modes here, off the main thread
+            enableIncrementalVacuum(db);
+            vacuum(db);
+        }
+        return archived;
+    }
+
+    /**
+     * Returns the archive files that hold results of the task, oldest first.
+     */
+    static List<String> pathsForTask(RawDatabase db, String taskIdentifier) {
+        return queryPaths(db, TASK_ID, taskIdentifier);
+    }
+
+    /**
+     * Returns the archive files that hold results of the step, oldest first.
+     */
+    static List<String> pathsForStep(RawDatabase db, String stepIdentifier) {
+        return queryPaths(db, STEP_ID, stepIdentifier);
+    }
+
+    /**
+     * Switches the database to incremental auto vacuum, so {@link #vacuum} can free pages a chunk
+     * at a time. The mode only changes with a full vacuum, which is quick on a new database. Older
+     * databases are switched by the first {@link #archive} that frees pages, never when opening.
+     *
+     * @param db the writable database, outside of a transaction
+     */
+    static void enableIncrementalVacuum(RawDatabase db) {
+        if (autoVacuumMode(db) != AUTO_VACUUM_INCREMENTAL) {
+            db.execSQL("PRAGMA auto_vacuum = " + AUTO_VACUUM_INCREMENTAL);
+            db.execSQL("VACUUM");
+        }
+    }
+
+    /**
+     * Frees unused pages a chunk at a time, so the writer is never held for a full vacuum.
+     *
+     * @param db the writable database, outside of a transaction
+     */
+    static void vacuum(RawDatabase db) {
+        if (autoVacuumMode(db) != AUTO_VACUUM_INCREMENTAL) {
+            // incremental_vacuum is a no-op in the other modes
+            return;
+        }
+
+        while (freelistCount(db) > 0) {
+            Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")", null);
+            try {
+                cursor.moveToFirst();
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+
+    private static int autoVacuumMode(RawDatabase db) {
+        Cursor cursor = db.rawQuery("PRAGMA auto_vacuum", null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static int freelistCount(RawDatabase db) {
+        Cursor cursor = db.rawQuery("PRAGMA freelist_count", null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static List<TaskRecord> loadExpired(RawDatabase db, long before) {
+        List<TaskRecord> records = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + RecordReader.TASK_RECORD_COLUMNS + " FROM TaskRecord WHERE " +
+                TaskRecord.UPLOAD_STATE + " = " + TaskRecord.UPLOAD_DONE + " AND " +
+                TaskRecord.COMPLETED + " < ? ORDER BY id LIMIT " + BATCH_SIZE, new String[] {
+                String.valueOf(before)
+        });
+        try {
+            while (cursor.moveToNext()) {
+                records.add(RecordReader.readTaskRecord(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    private static List<StepRecord> loadStepRecords(RawDatabase db, int taskRecordId) {
+        List<StepRecord> records = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + RecordReader.STEP_RECORD_COLUMNS + " FROM StepRecord WHERE " +
+                StepRecord.TASK_RECORD_ID + " = ?", new String[] {String.valueOf(taskRecordId)});
+        try {
+            while (cursor.moveToNext()) {
+                records.add(RecordReader.readStepRecord(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    private static void deleteRecords(RawDatabase db, List<Integer> ids) {
+        StringBuilder in = new StringBuilder();
+        for (Integer id : ids) {
+            in.append(in.length() == 0 ? "" : ", ").append(id);
+        }
+        SearchTable.deleteForTaskRecords(db, in.toString());
+        db.execSQL("DELETE FROM StepRecord WHERE " + StepRecord.TASK_RECORD_ID + " IN (" + in + ")");
+        db.execSQL("DELETE FROM TaskRecord WHERE id IN (" + in + ")");
+    }
+
+    private static List<String> queryPaths(RawDatabase db, String column, String identifier) {
+        List<String> paths = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT DISTINCT " + PATH + " FROM " + TABLE + " WHERE " +
+                column + " = ?", new String[] {identifier});
+        try {
+            while (cursor.moveToNext()) {
+                paths.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        // yyyy-MM file names sort by time
+        Collections.sort(paths);
+        return paths;
+    }
+}
@@ -0,0 +1,84 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import org.researchstack.backbone.utils.LogExt;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+
+/**
+ * Checkpoints the write-ahead log once the database has gone a while without writes. SQLite's own
+ * auto-checkpoint runs inside whichever write happens to cross the page threshold, this moves most
+ * of that work to a background thread while nobody is saving, and keeps the log short for readers.
+ */
+final class CheckpointScheduler {
+    static final long DEFAULT_IDLE_MILLIS = 30 * 1000;
+
+    private final long idleMillis;
+
+    private final Action0 checkpoint;
+
+    private Scheduler.Worker pending;
+
+    /**
+     * @param idleMillis how long after the last write to wait before checkpointing
+     * @param checkpoint runs the checkpoint, usually through {@link #checkpoint(RawDatabase)}
+     */
+    CheckpointScheduler(long idleMillis, Action0 checkpoint) {
+        this.idleMillis = idleMillis;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Pushes the checkpoint back to <code>idleMillis</code> from now.
+     */
+    synchronized void onWrite() {
+        cancel();
+        Scheduler.Worker worker = Schedulers.io().createWorker();
+        worker.schedule(() -> run(worker), idleMillis, TimeUnit.MILLISECONDS);
+        pending = worker;
+    }
+
+    synchronized void cancel() {
+        if (pending != null) {
+            pending.unsubscribe();
+            pending = null;
+        }
+    }
+
+    private void run(Scheduler.Worker worker) {
+        synchronized (this) {
+            if (pending != worker) {
+                return;
+            }
+            pending = null;
+        }
+
+        try {
+            checkpoint.call();
+        } catch (RuntimeException e) {
+            LogExt.e(getClass(), "Idle checkpoint failed", e);
+        } finally {
+            worker.unsubscribe();
+        }
+    }
+
+    /**
+     * Runs a passive checkpoint, which copies as much of the log as it can without waiting on
+     * readers or writers.
+     *
+     * @param db the writable database
+     */
+    static void checkpoint(RawDatabase db) {
+        Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(PASSIVE)", null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import net.sqlcipher.database.SQLiteDatabase;
+import net.sqlcipher.database.SQLiteDatabaseHook;
+import net.sqlcipher.database.SQLiteException;
+
+import org.researchstack.backbone.utils.LogExt;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Key derivation and file migration for {@link CipherSettings}.
+ */
+final class CipherKeys {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String RAW_KEY_CONTEXT = "org.researchstack.backbone.storage.database";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CipherKeys() {
+    }
+
+    /**
+     * Derives a 256-bit raw key from the key, in the <code>x'...'</code> form SqlCipher takes as a
+     * raw key instead of a passphrase.
+     *
+     * @param key the key handed to the database, already derived from the user's pin
+     * @return the raw SqlCipher key
+     */
+    static String deriveRawKey(String key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key.getBytes(UTF_8), "HmacSHA256"));
+            byte[] raw = mac.doFinal(RAW_KEY_CONTEXT.getBytes(UTF_8));
+
+            char[] hex = new char[raw.length * 2];
+            for (int i = 0; i < raw.length; i++) {
+                hex[i * 2] = HEX[(raw[i] >> 4) & 0x0F];
+                hex[i * 2 + 1] = HEX[raw[i] & 0x0F];
+            }
+            return "x'" + new String(hex) + "'";
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sets the page size and iteration count SqlCipher uses for every database opened afterwards.
+     * These are process wide, the helper opens its file through Squeaky, which gives no other way to
+     * set them before the key is used.
+     *
+     * @param settings the settings to apply
+     */
+    static void applyDefaults(CipherSettings settings) {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(":memory:", "", null);
+        try {
+            db.rawExecSQL("PRAGMA cipher_default_page_size = " + settings.getPageSize());
+            db.rawExecSQL("PRAGMA cipher_default_kdf_iter = " + settings.getKdfIterations());
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Makes sure the file opens with the new key and settings, re-encrypting it from the legacy
+     * passphrase and settings if it doesn't. The file must not be open. {@link
+     * #applyDefaults(CipherSettings)} must have been called first.
+     *
+     * @param file             the database file
+     * @param legacyPassphrase the passphrase the file was keyed with before
+     * @param key              the passphrase or raw key to use from now on
+     * @param settings         the settings to use from now on
+     */
+    static void migrate(File file, String legacyPassphrase, String key, CipherSettings settings) {
+        if (!file.exists() || opens(file, key)) {
+            return;
+        }
+
+        LogExt.i(CipherKeys.class, "Re-encrypting " + file.getName() + " with new cipher settings");
+        long start = System.currentTimeMillis();
+
+        File migrated = new File(file.getPath() + "-migrated");
+        deleteIfExists(migrated);
+
+        SQLiteDatabase legacy = SQLiteDatabase.openDatabase(file.getPath(),
+                legacyPassphrase,
+                null,
+                SQLiteDatabase.OPEN_READWRITE,
+                new LegacyHook());
+        try {
+            legacy.rawExecSQL("ATTACH DATABASE " + quote(migrated.getPath()) + " AS migrated KEY " +
+                    quote(key));
+            legacy.rawExecSQL("PRAGMA migrated.cipher_page_size = " + settings.getPageSize());
+            if (!settings.isRawKey()) {
+                legacy.rawExecSQL("PRAGMA migrated.kdf_iter = " + settings.getKdfIterations());
+            }
+            legacy.rawExecSQL("SELECT sqlcipher_export('migrated')");
+            // the schema version decides which migrations Squeaky runs, keep it
+            legacy.rawExecSQL("PRAGMA migrated.user_version = " + legacy.getVersion());
+            legacy.rawExecSQL("DETACH DATABASE migrated");
+        } finally {
+            legacy.close();
+        }
+
+        // the export read through the log, a leftover one must not be applied to the new file
+        deleteIfExists(new File(file.getPath() + "-wal"));
+        deleteIfExists(new File(file.getPath() + "-shm"));
+        if (!migrated.renameTo(file)) {
+            throw new RuntimeException("Could not replace " + file + " with " + migrated);
+        }
+
+        LogExt.i(CipherKeys.class,
+                "Re-encrypted in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private static boolean opens(File file, String key) {
+        SQLiteDatabase db = null;
+        try {
+            db = SQLiteDatabase.openDatabase(file.getPath(), key, null, SQLiteDatabase.OPEN_READONLY);
+            // the key is only checked once a page is read
+            Cursor cursor = db.rawQuery("SELECT count(*) FROM sqlite_master", null);
+            try {
+                cursor.moveToFirst();
+            } finally {
+                cursor.close();
+            }
+            return true;
+        } catch (SQLiteException e) {
+            return false;
+        } finally {
+            if (db != null) {
+                db.close();
+            }
+        }
+    }
+
+    private static void deleteIfExists(File file) {
+        if (file.exists() && !file.delete()) {
+            throw new RuntimeException("Could not delete " + file);
+        }
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    /**
+     * Opens files that were created before {@link CipherSettings}, whatever the defaults are now
+     */
+    private static class LegacyHook implements SQLiteDatabaseHook {
+        @Override
+        public void preKey(SQLiteDatabase database) {
+        }
+
+        @Override
+        public void postKey(SQLiteDatabase database) {
+            database.rawExecSQL("PRAGMA cipher_page_size = " + CipherSettings.LEGACY_PAGE_SIZE);
+            database.rawExecSQL("PRAGMA kdf_iter = " + CipherSettings.LEGACY_KDF_ITERATIONS);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import net.sqlcipher.database.SQLiteDatabase;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small pool of read-only SqlCipher connections. SqlCipher's {@link SQLiteDatabase} is a single
+ * connection guarded by a lock, so without this every query waits for whatever transaction the
+ * writer has open. With the database in WAL mode, readers on their own connections see the last
+ * committed state and never block on the writer.
+ */
+final class CipherReadPool {
+    interface ConnectionFactory {
+        SQLiteDatabase open();
+    }
+
+    interface Query<T> {
+        T run(RawDatabase db);
+    }
+
+    private final int size;
+
+    private final ConnectionFactory factory;
+
+    private final ArrayDeque<SQLiteDatabase> idle = new ArrayDeque<>();
+
+    private int open;
+
+    private int generation;
+
+    CipherReadPool(int size, ConnectionFactory factory) {
+        this.size = size;
+        this.factory = factory;
+    }
+
+    /**
+     * Runs the query on a pooled connection, waiting for one to become free if all of them are in
+     * use.
+     *
+     * @param query the query to run, must not keep the database or any cursor past returning
+     * @return the result of the query
+     */
+    <T> T query(Query<T> query) {
+        int acquiredGeneration;
+        SQLiteDatabase connection;
+        synchronized (this) {
+            acquiredGeneration = generation;
+            connection = acquire();
+        }
+
+        if (connection == null) {
+            // opening runs the key derivation, don't hold up other threads while it does
+            try {
+                connection = factory.open();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    open--;
+                    notifyAll();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            return query.run(new CipherRawDatabase(connection));
+        } finally {
+            release(connection, acquiredGeneration);
+        }
+    }
+
+    /**
+     * Closes the idle connections. Connections that are in use are closed when they are released.
+     * The pool opens new connections as they are needed, so this is also how to make it pick up a
+     * new key.
+     */
+    synchronized void close() {
+        generation++;
+        while (!idle.isEmpty()) {
+            idle.pop().close();
+            open--;
+        }
+    }
+
+    private SQLiteDatabase acquire() {
+        while (idle.isEmpty() && open >= size) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        if (!idle.isEmpty()) {
+            return idle.pop();
+        }
+
+        // reserve a slot, the caller opens the connection
+        open++;
+        return null;
+    }
+
+    private synchronized void release(SQLiteDatabase connection, int acquiredGeneration) {
+        if (acquiredGeneration == generation && connection.isOpen()) {
+            idle.push(connection);
+        } else {
+            connection.close();
+            open--;
+        }
+        notifyAll();
+    }
+}
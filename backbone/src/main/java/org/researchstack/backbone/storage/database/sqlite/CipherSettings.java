@@ -0,0 +1,83 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+/**
+ * How {@link SqlCipherDatabaseHelper} keys and lays out the database file.
+ * <p>
+ * With a raw key, the key handed to {@link SqlCipherDatabaseHelper#setEncryptionKey} is turned
+ * into a 256-bit SqlCipher key with a single HMAC instead of SqlCipher running PBKDF2 over it on
+ * every open. The key we get is already derived from the user's pin, so the extra stretching only
+ * costs startup time. The iteration count only matters when raw keys are off.
+ * <p>
+ * Existing files are migrated to new settings the first time the key is set.
+ */
+public class CipherSettings {
+    /**
+     * The page size SqlCipher 3 creates files with
+     */
+    public static final int LEGACY_PAGE_SIZE = 1024;
+
+    /**
+     * The PBKDF2 iterations SqlCipher 3 runs on a passphrase
+     */
+    public static final int LEGACY_KDF_ITERATIONS = 64000;
+
+    /**
+     * SQLite's default page cache size, in pages
+     */
+    public static final int DEFAULT_CACHE_SIZE = 2000;
+
+    private final boolean rawKey;
+
+    private final int pageSize;
+
+    private final int kdfIterations;
+
+    private final int cacheSize;
+
+    /**
+     * @param rawKey        whether to key the database with a raw key instead of a passphrase
+     * @param pageSize      the cipher page size, a power of two from 512 to 65536
+     * @param kdfIterations the PBKDF2 iterations for a passphrase, ignored with a raw key
+     * @param cacheSize     the page cache size of each connection, in pages
+     */
+    public CipherSettings(boolean rawKey, int pageSize, int kdfIterations, int cacheSize) {
+        if (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two from 512 to 65536");
+        }
+
+        this.rawKey = rawKey;
+        this.pageSize = pageSize;
+        this.kdfIterations = kdfIterations;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the settings databases were created with before these settings existed, which
+     * leaves existing files untouched.
+     *
+     * @return the SqlCipher 3 defaults, keyed with a passphrase
+     */
+    public static CipherSettings legacy() {
+        return new CipherSettings(false, LEGACY_PAGE_SIZE, LEGACY_KDF_ITERATIONS, DEFAULT_CACHE_SIZE);
+    }
+
+    public boolean isRawKey() {
+        return rawKey;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getKdfIterations() {
+        return kdfIterations;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    boolean isLegacy() {
+        return !rawKey && pageSize == LEGACY_PAGE_SIZE && kdfIterations == LEGACY_KDF_ITERATIONS;
+    }
+}
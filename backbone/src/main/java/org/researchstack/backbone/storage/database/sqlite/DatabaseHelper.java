@@ -3,25 +3,37 @@ package org.researchstack.backbone.storage.database.sqlite;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.storage.database.AnswerAggregate;
+import org.researchstack.backbone.storage.database.AnswerPredicate;
 import org.researchstack.backbone.storage.database.AppDatabase;
+import org.researchstack.backbone.storage.database.DatabaseChange;
+import org.researchstack.backbone.storage.database.DatabaseChangeNotifier;
+import org.researchstack.backbone.storage.database.LatestResultCache;
+import org.researchstack.backbone.storage.database.PendingUpload;
+import org.researchstack.backbone.storage.database.QueryableAppDatabase;
+import org.researchstack.backbone.storage.database.ResultArchive;
+import org.researchstack.backbone.storage.database.ResultCodec;
+import org.researchstack.backbone.storage.database.ResultCodecs;
+import org.researchstack.backbone.storage.database.SearchHit;
 import org.researchstack.backbone.storage.database.StepRecord;
+import org.researchstack.backbone.storage.database.StepRecordVisitor;
 import org.researchstack.backbone.storage.database.TaskRecord;
-import org.researchstack.backbone.utils.FormatHelper;
 import org.researchstack.backbone.utils.LogExt;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import co.touchlab.squeaky.dao.Dao;
 import co.touchlab.squeaky.db.sqlite.SQLiteDatabaseImpl;
 import co.touchlab.squeaky.db.sqlite.SqueakyOpenHelper;
 import co.touchlab.squeaky.table.TableUtils;
+import rx.Observable;
 
 /**
  * A simple database implementation of {@link AppDatabase} the has no encryption and only has tables
@@ -35,12 +47,33 @@ import co.touchlab.squeaky.table.TableUtils;
  * 'co.touchlab.squeaky:squeaky-processor:0.4.0'` to your dependencies and add android-apt:
  * https://bitbucket.org/hvisser/android-apt)
  */
-public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
+public class DatabaseHelper extends SqueakyOpenHelper implements QueryableAppDatabase {
     public static final String DEFAULT_NAME = "appdb";
-    public static final int DEFAULT_VERSION = 1;
+    public static final int DEFAULT_VERSION = 11;
+
+    private ResultCodec resultCodec = ResultCodecs.getDefault();
+
+    private volatile boolean summariesEnabled;
+
+    private boolean inFlightUploadsReleased;
+
+    private boolean enableIncrementalVacuum;
+
+    private ResultArchive resultArchive;
+
+    private final DatabaseChangeNotifier changeNotifier = new DatabaseChangeNotifier();
+
+    private final LatestResultCache latestResults = new LatestResultCache(
+            LatestResultCache.DEFAULT_MAX_SIZE);
+
+    private final CheckpointScheduler checkpointScheduler = new CheckpointScheduler(
+            CheckpointScheduler.DEFAULT_IDLE_MILLIS,
+            () -> CheckpointScheduler.checkpoint(new AndroidRawDatabase(getWritableDatabase())));
 
     public DatabaseHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version) {
         super(context, name, factory, version);
+        // lets Android's connection pool run queries on other connections while a save is running
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -52,11 +85,101 @@ public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+
+        RawDatabase db = new AndroidRawDatabase(sqLiteDatabase);
+        AnswerTable.create(db);
+        SummaryTable.create(db);
+        UploadQueue.createIndex(db);
+        ArchiveTable.create(db);
+        SearchTable.create(db);
+        enableIncrementalVacuum = true;
     }
 
     @Override
-    public void onUpgrade(android.database.sqlite.SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        // handle future db upgrades here
+    public void onUpgrade(android.database.sqlite.SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        SchemaMigrations.upgrade(new AndroidRawDatabase(sqLiteDatabase), oldVersion);
+    }
+
+    @Override
+    public void onOpen(android.database.sqlite.SQLiteDatabase sqLiteDatabase) {
+        super.onOpen(sqLiteDatabase);
+        if (enableIncrementalVacuum) {
+            // VACUUM can't run in the transaction onCreate is called in, upgraded databases are
+            // switched by archiveResults instead
+            ArchiveTable.enableIncrementalVacuum(new AndroidRawDatabase(sqLiteDatabase));
+            enableIncrementalVacuum = false;
+        }
+    }
+
+    /**
+     * Sets the codec used to encode the results of newly saved steps. Records that were saved with
+     * another codec stay readable as long as it is registered with {@link ResultCodecs}.
+     *
+     * @param resultCodec the codec for new records
+     */
+    public void setResultCodec(ResultCodec resultCodec) {
+        ResultCodecs.register(resultCodec);
+        this.resultCodec = resultCodec;
+    }
+
+    /**
+     * Turns on the daily summary table. While enabled, numeric answers are added to the summary of
+     * their day as results are saved, and {@link #aggregate} reads day and week buckets from the
+     * summaries instead of scanning every answer when the range starts and ends on local midnight.
+     * The summaries are rebuilt from the saved answers when they are enabled after results were
+     * saved without them, even in an earlier process.
+     *
+     * @param summariesEnabled whether summaries should be maintained and read
+     */
+    public void setSummariesEnabled(boolean summariesEnabled) {
+        if (summariesEnabled && SummaryTable.needsRebuild(readableDatabase())) {
+            rebuildSummaries();
+        }
+        this.summariesEnabled = summariesEnabled;
+    }
+
+    /**
+     * Recomputes the daily summaries from the saved answers. Needed after results were saved while
+     * summaries were disabled.
+     */
+    public void rebuildSummaries() {
+        LogExt.d(getClass(), "rebuildSummaries()");
+        SummaryTable.rebuild(writableDatabase());
+        checkpointScheduler.onWrite();
+    }
+
+    /**
+     * Sets where {@link #archiveResults} moves old results. Once set, archived results are
+     * included again when loading task and step results.
+     *
+     * @param resultArchive the archive, or null to only load live results
+     */
+    public void setResultArchive(ResultArchive resultArchive) {
+        this.resultArchive = resultArchive;
+    }
+
+    /**
+     * Applies the retention policy: results that completed more than <code>retentionDays</code>
+     * ago and have been uploaded are moved into the {@link ResultArchive} and deleted from the live
+     * tables, then the freed pages are vacuumed a chunk at a time. Their numeric answers stay in
+     * the answer index, so {@link #aggregate} still covers them. Meant to run from a background
+     * job.
+     *
+     * @param retentionDays how many days of results to keep in the live tables
+     * @return the number of task results archived
+     */
+    public int archiveResults(int retentionDays) {
+        if (resultArchive == null) {
+            throw new IllegalStateException("A ResultArchive must be set before archiving");
+        }
+
+        LogExt.d(getClass(), "archiveResults() retentionDays: " + retentionDays);
+        long before = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+        List<DatabaseChange> changes = new ArrayList<>();
+        int archived = ArchiveTable.archive(writableDatabase(), resultArchive, before, changes);
+        checkpointScheduler.onWrite();
+        changeNotifier.publish(changes);
+        return archived;
     }
 
     //*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-
@@ -65,39 +188,67 @@ public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
 
     @Override
     public void saveTaskResult(TaskResult taskResult) {
-        LogExt.d(getClass(), "saveTaskResult() id: " + taskResult.getIdentifier());
+        saveTaskResults(Collections.singletonList(taskResult));
+    }
 
-        try {
-            TaskRecord taskRecord = new TaskRecord();
-            taskRecord.taskId = taskResult.getIdentifier();
-            taskRecord.started = taskResult.getStartDate();
-            taskRecord.completed = taskResult.getEndDate();
-            getDao(TaskRecord.class).create(taskRecord);
+    @Override
+    public void saveTaskResults(List<TaskResult> taskResults) {
+        LogExt.d(getClass(), "saveTaskResults() count: " + taskResults.size());
 
-            Gson gson = new GsonBuilder().setDateFormat(FormatHelper.DATE_FORMAT_ISO_8601).create();
+        List<DatabaseChange> changes = new ArrayList<>(taskResults.size());
+        RawDatabase db = writableDatabase();
+        db.beginTransaction();
+        try {
+            Dao<TaskRecord> taskRecordDao = getDao(TaskRecord.class);
             Dao<StepRecord> stepResultDao = getDao(StepRecord.class);
 
-            for (StepResult stepResult : taskResult.getResults().values()) {
-                if (stepResult != null) {
-                    StepRecord stepRecord = new StepRecord();
-                    stepRecord.taskRecordId = taskRecord.id;
-                    stepRecord.taskId = taskResult.getIdentifier();
-                    stepRecord.stepId = stepResult.getIdentifier();
-                    stepRecord.completed = stepResult.getEndDate();
-                    if (!stepResult.getResults().isEmpty()) {
-                        stepRecord.result = gson.toJson(stepResult.getResults());
-                    }
+            for (TaskResult taskResult : taskResults) {
+                TaskRecord taskRecord = new TaskRecord();
+                taskRecord.taskId = taskResult.getIdentifier();
+                taskRecord.started = taskResult.getStartDate();
+                taskRecord.completed = taskResult.getEndDate();
+                taskRecordDao.create(taskRecord);
+                changes.add(new DatabaseChange(DatabaseChange.Kind.SAVED,
+                        taskRecord.taskId,
+                        taskRecord.id));
+
+                for (StepResult stepResult : taskResult.getResults().values()) {
+                    if (stepResult != null) {
+                        StepRecord stepRecord = new StepRecord();
+                        stepRecord.taskRecordId = taskRecord.id;
+                        stepRecord.taskId = taskResult.getIdentifier();
+                        stepRecord.stepId = stepResult.getIdentifier();
+                        stepRecord.completed = stepResult.getEndDate();
+                        if (!stepResult.getResults().isEmpty()) {
+                            stepRecord.setResults(resultCodec, stepResult.getResults());
+                        }
 
-                    stepResultDao.createOrUpdate(stepRecord);
+                        stepResultDao.createOrUpdate(stepRecord);
+                        AnswerTable.insert(db, stepRecord, stepResult.getResults(), summariesEnabled);
+                        SearchTable.insert(db, stepRecord, stepResult.getResults());
+                    }
                 }
             }
+            db.setTransactionSuccessful();
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            db.endTransaction();
         }
+        checkpointScheduler.onWrite();
+
+        for (TaskResult taskResult : taskResults) {
+            latestResults.onSaved(taskResult);
+        }
+        changeNotifier.publish(changes);
     }
 
     @Override
     public TaskResult loadLatestTaskResult(String taskIdentifier) {
+        return latestResults.get(taskIdentifier, this::queryLatestTaskResult);
+    }
+
+    private TaskResult queryLatestTaskResult(String taskIdentifier) {
         LogExt.d(getClass(), "loadTaskResults() id: " + taskIdentifier);
 
         try {
@@ -105,7 +256,7 @@ public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
                     taskIdentifier).orderBy(TaskRecord.COMPLETED + " DESC").limit(1).list();
 
             if (taskRecords.isEmpty()) {
-                return null;
+                return loadLatestArchivedTaskResult(taskIdentifier);
             }
 
             TaskRecord record = taskRecords.get(0);
@@ -122,7 +273,7 @@ public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
         LogExt.d(getClass(), "loadTaskResults() id: " + taskIdentifier);
 
         try {
-            List<TaskResult> results = new ArrayList<>();
+            List<TaskResult> results = loadArchivedTaskResults(taskIdentifier);
             List<TaskRecord> taskRecords = getDao(TaskRecord.class).queryForEq(TaskRecord.TASK_ID,
                     taskIdentifier).list();
 
@@ -144,7 +295,7 @@ public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
         LogExt.d(getClass(), "loadStepResults() id: " + stepIdentifier);
 
         try {
-            List<StepResult> results = new ArrayList<>();
+            List<StepResult> results = loadArchivedStepResults(stepIdentifier);
             List<StepRecord> stepRecords = getDao(StepRecord.class).queryForEq(StepRecord.STEP_ID,
                     stepIdentifier).list();
 
@@ -159,9 +310,187 @@ public class DatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
         }
     }
 
+    @Override
+    public List<StepResult> queryStepResults(String stepIdentifier, AnswerPredicate... predicates) {
+        LogExt.d(getClass(), "queryStepResults() id: " + stepIdentifier);
+
+        List<StepResult> results = new ArrayList<>();
+        for (StepRecord stepRecord : AnswerTable.queryStepRecords(readableDatabase(), stepIdentifier, predicates)) {
+            results.add(StepRecord.toStepResult(stepRecord));
+        }
+        return results;
+    }
+
+    @Override
+    public AnswerAggregate aggregate(String stepIdentifier, String resultKey, AnswerAggregate.Bucket bucket, Date from, Date to) {
+        LogExt.d(getClass(), "aggregate() id: " + stepIdentifier + ", key: " + resultKey);
+
+        // summaries only hold whole days, partial days are read from the answers
+        if (summariesEnabled && bucket != AnswerAggregate.Bucket.HOUR &&
+                SummaryTable.covers(from.getTime(), to.getTime())) {
+            return SummaryTable.aggregate(readableDatabase(),
+                    stepIdentifier,
+                    resultKey,
+                    bucket,
+                    from.getTime(),
+                    to.getTime());
+        }
+
+        return AnswerTable.aggregate(readableDatabase(),
+                stepIdentifier,
+                resultKey,
+                bucket,
+                from.getTime(),
+                to.getTime());
+    }
+
+    @Override
+    public int countStepRecords() {
+        return RecordReader.countStepRecords(readableDatabase());
+    }
+
+    @Override
+    public boolean forEachStepRecord(StepRecordVisitor visitor) {
+        LogExt.d(getClass(), "forEachStepRecord()");
+
+        int afterId = 0;
+        List<StepRecord> page;
+        do {
+            page = RecordReader.loadStepRecordPage(readableDatabase(), afterId);
+            for (StepRecord stepRecord : page) {
+                if (!visitor.visit(stepRecord)) {
+                    return false;
+                }
+                afterId = stepRecord.id;
+            }
+        } while (!page.isEmpty());
+        return true;
+    }
+
+    @Override
+    public List<SearchHit> searchAnswers(String query, int limit) {
+        LogExt.d(getClass(), "searchAnswers() limit: " + limit);
+
+        return SearchTable.search(readableDatabase(), query, limit);
+    }
+
+    @Override
+    public synchronized List<PendingUpload> loadPendingUploads(int limit) {
+        LogExt.d(getClass(), "loadPendingUploads() limit: " + limit);
+
+        RawDatabase db = writableDatabase();
+        if (!inFlightUploadsReleased) {
+            // anything still in flight at this point was claimed by a process that has since died
+            UploadQueue.releaseInFlight(db);
+            inFlightUploadsReleased = true;
+        }
+
+        try {
+            List<PendingUpload> uploads = new ArrayList<>();
+            Dao<TaskRecord> taskRecordDao = getDao(TaskRecord.class);
+            Dao<StepRecord> stepRecordDao = getDao(StepRecord.class);
+
+            for (Integer id : UploadQueue.claim(db, limit)) {
+                TaskRecord record = taskRecordDao.queryForId(id);
+                List<StepRecord> stepRecords = stepRecordDao.queryForEq(StepRecord.TASK_RECORD_ID,
+                        record.id).list();
+                uploads.add(new PendingUpload(record.id,
+                        record.uploadAttempts,
+                        TaskRecord.toTaskResult(record, stepRecords)));
+            }
+            checkpointScheduler.onWrite();
+
+            return uploads;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void markUploaded(List<Integer> taskRecordIds) {
+        LogExt.d(getClass(), "markUploaded() count: " + taskRecordIds.size());
+
+        UploadQueue.markUploaded(writableDatabase(), taskRecordIds, System.currentTimeMillis());
+        checkpointScheduler.onWrite();
+        changeNotifier.publish(DatabaseChange.Kind.UPLOADED, taskRecordIds);
+    }
+
+    @Override
+    public void markUploadFailed(List<Integer> taskRecordIds) {
+        LogExt.d(getClass(), "markUploadFailed() count: " + taskRecordIds.size());
+
+        UploadQueue.markFailed(writableDatabase(), taskRecordIds);
+        checkpointScheduler.onWrite();
+        changeNotifier.publish(DatabaseChange.Kind.UPLOAD_FAILED, taskRecordIds);
+    }
+
+    @Override
+    public Observable<List<DatabaseChange>> changes() {
+        return changeNotifier.changes();
+    }
+
+    @Override
+    public void clearCache() {
+        latestResults.clear();
+    }
+
+    /**
+     * Returns the cache behind {@link #loadLatestTaskResult}, for its hit and miss counts.
+     *
+     * @return the latest result cache
+     */
+    public LatestResultCache getLatestResultCache() {
+        return latestResults;
+    }
+
     @Override
     public void setEncryptionKey(String key) {
         LogExt.w(getClass(), "No-op, this db implementation is not encrypted");
     }
 
+    @Override
+    public synchronized void close() {
+        checkpointScheduler.cancel();
+        super.close();
+    }
+
+    private List<TaskResult> loadArchivedTaskResults(String taskIdentifier) {
+        if (resultArchive == null) {
+            return new ArrayList<>();
+        }
+        List<String> paths = ArchiveTable.pathsForTask(readableDatabase(), taskIdentifier);
+        return resultArchive.readTaskResults(paths, taskIdentifier);
+    }
+
+    private List<StepResult> loadArchivedStepResults(String stepIdentifier) {
+        if (resultArchive == null) {
+            return new ArrayList<>();
+        }
+        List<String> paths = ArchiveTable.pathsForStep(readableDatabase(), stepIdentifier);
+        return resultArchive.readStepResults(paths, stepIdentifier);
+    }
+
+    private TaskResult loadLatestArchivedTaskResult(String taskIdentifier) {
+        TaskResult latest = null;
+        for (TaskResult result : loadArchivedTaskResults(taskIdentifier)) {
+            // results without an end date sort before every completed one
+            if (latest == null || result.getEndDate() != null && (latest.getEndDate() == null ||
+                    result.getEndDate().after(latest.getEndDate()))) {
+                latest = result;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Returns the writable connection. Writes must call {@link CheckpointScheduler#onWrite()} once
+     * they are committed, so the idle checkpoint doesn't start before their pages are in the log.
+     */
+    private RawDatabase writableDatabase() {
+        return new AndroidRawDatabase(getWritableDatabase());
+    }
+
+    private RawDatabase readableDatabase() {
+        return new AndroidRawDatabase(getReadableDatabase());
+    }
 }
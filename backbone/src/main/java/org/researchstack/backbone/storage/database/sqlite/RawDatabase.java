@@ -0,0 +1,22 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+/**
+ * Thin wrapper over the raw SQLite connection used by the database helpers, so that queries that
+ * go around Squeaky (index tables, aggregates) can be written once and shared between {@link
+ * DatabaseHelper} and {@link SqlCipherDatabaseHelper}.
+ */
+interface RawDatabase {
+    void execSQL(String sql);
+
+    void execSQL(String sql, Object[] bindArgs);
+
+    Cursor rawQuery(String sql, String[] selectionArgs);
+
+    void beginTransaction();
+
+    void setTransactionSuccessful();
+
+    void endTransaction();
+}
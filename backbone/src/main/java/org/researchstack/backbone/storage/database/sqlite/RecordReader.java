@@ -0,0 +1,145 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import org.researchstack.backbone.storage.database.StepRecord;
+import org.researchstack.backbone.storage.database.TaskRecord;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reads {@link TaskRecord}s and {@link StepRecord}s from raw queries, for connections Squeaky
+ * doesn't know about. Select {@link #TASK_RECORD_COLUMNS} or {@link #STEP_RECORD_COLUMNS} first.
+ */
+final class RecordReader {
+    static final String TASK_RECORD_COLUMNS = "id, " + TaskRecord.TASK_ID + ", started, " +
+            TaskRecord.COMPLETED;
+
+    static final String STEP_RECORD_COLUMNS = "id, " + StepRecord.TASK_RECORD_ID + ", " +
+            TaskRecord.TASK_ID + ", " + StepRecord.STEP_ID + ", started, completed, result, " +
+            StepRecord.RESULT_DATA + ", " + StepRecord.RESULT_FORMAT;
+
+    /**
+     * Step records per page when walking every record, bounds memory for results of any size
+     */
+    static final int PAGE_SIZE = 500;
+
+    private RecordReader() {
+    }
+
+    static int countStepRecords(RawDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM StepRecord", null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Loads the next page of step records by id. Paging on the id keeps every page an index seek,
+     * where an offset would rescan all the rows before it.
+     *
+     * @param db      a readable database
+     * @param afterId the id of the last record of the previous page, 0 for the first page
+     * @return up to {@link #PAGE_SIZE} records, empty after the last page
+     */
+    static List<StepRecord> loadStepRecordPage(RawDatabase db, int afterId) {
+        List<StepRecord> records = new ArrayList<>(PAGE_SIZE);
+        Cursor cursor = db.rawQuery("SELECT " + STEP_RECORD_COLUMNS + " FROM StepRecord WHERE id > ? " +
+                "ORDER BY id LIMIT " + PAGE_SIZE, new String[] {String.valueOf(afterId)});
+        try {
+            while (cursor.moveToNext()) {
+                records.add(readStepRecord(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    /**
+     * Loads the task record of a task that completed last.
+     *
+     * @param db     a readable database
+     * @param taskId the task identifier
+     * @return the record, or null if the task has no records
+     */
+    static TaskRecord loadLatestTaskRecord(RawDatabase db, String taskId) {
+        Cursor cursor = db.rawQuery("SELECT " + TASK_RECORD_COLUMNS + " FROM TaskRecord WHERE " +
+                TaskRecord.TASK_ID + " = ? ORDER BY " + TaskRecord.COMPLETED + " DESC LIMIT 1",
+                new String[] {taskId});
+        try {
+            return cursor.moveToFirst() ? readTaskRecord(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    static List<TaskRecord> loadTaskRecords(RawDatabase db, String taskId) {
+        List<TaskRecord> records = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + TASK_RECORD_COLUMNS + " FROM TaskRecord WHERE " +
+                TaskRecord.TASK_ID + " = ? ORDER BY id", new String[] {taskId});
+        try {
+            while (cursor.moveToNext()) {
+                records.add(readTaskRecord(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    /**
+     * Loads the step records where a column equals a value, in the order they were saved.
+     *
+     * @param db     a readable database
+     * @param column the column, like {@link StepRecord#TASK_RECORD_ID} or {@link
+     *               StepRecord#STEP_ID}
+     * @param value  the value
+     * @return the records
+     */
+    static List<StepRecord> loadStepRecords(RawDatabase db, String column, Object value) {
+        List<StepRecord> records = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + STEP_RECORD_COLUMNS + " FROM StepRecord WHERE " +
+                column + " = ? ORDER BY id", new String[] {String.valueOf(value)});
+        try {
+            while (cursor.moveToNext()) {
+                records.add(readStepRecord(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return records;
+    }
+
+    static TaskRecord readTaskRecord(Cursor cursor) {
+        TaskRecord record = new TaskRecord();
+        record.id = cursor.getInt(0);
+        record.taskId = cursor.getString(1);
+        record.started = readDate(cursor, 2);
+        record.completed = readDate(cursor, 3);
+        return record;
+    }
+
+    static StepRecord readStepRecord(Cursor cursor) {
+        StepRecord record = new StepRecord();
+        record.id = cursor.getInt(0);
+        record.taskRecordId = cursor.getInt(1);
+        record.taskId = cursor.getString(2);
+        record.stepId = cursor.getString(3);
+        record.started = readDate(cursor, 4);
+        record.completed = readDate(cursor, 5);
+        record.result = cursor.getString(6);
+        record.resultData = cursor.getBlob(7);
+        record.resultFormat = cursor.getInt(8);
+        return record;
+    }
+
+    private static Date readDate(Cursor cursor, int column) {
+        // Squeaky persists dates as epoch millis
+        return cursor.isNull(column) ? null : new Date(cursor.getLong(column));
+    }
+}
@@ -0,0 +1,65 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import org.researchstack.backbone.storage.database.StepRecord;
+import org.researchstack.backbone.storage.database.TaskRecord;
+
+/**
+ * Schema upgrades shared by {@link DatabaseHelper} and {@link SqlCipherDatabaseHelper}. Fresh
+ * databases get the current schema from their onCreate, this only brings older files up to date.
+ */
+final class SchemaMigrations {
+    private SchemaMigrations() {
+    }
+
+    static void upgrade(RawDatabase db, int oldVersion) {
+        if (oldVersion < 2) {
+            AnswerTable.create(db);
+            AnswerTable.backfill(db);
+        }
+
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE StepRecord ADD COLUMN " + StepRecord.RESULT_DATA + " BLOB");
+            db.execSQL("ALTER TABLE StepRecord ADD COLUMN " + StepRecord.RESULT_FORMAT +
+                    " INTEGER NOT NULL DEFAULT 0");
+        }
+
+        if (oldVersion < 4) {
+            AnswerTable.createTimeIndex(db);
+        }
+
+        if (oldVersion < 5) {
+            SummaryTable.create(db);
+        }
+
+        if (oldVersion < 6) {
+            db.execSQL("ALTER TABLE TaskRecord ADD COLUMN " + TaskRecord.UPLOAD_STATE +
+                    " INTEGER NOT NULL DEFAULT " + TaskRecord.UPLOAD_PENDING);
+            db.execSQL("ALTER TABLE TaskRecord ADD COLUMN " + TaskRecord.UPLOAD_ATTEMPTS +
+                    " INTEGER NOT NULL DEFAULT 0");
+            // results saved before upload tracking may or may not have been uploaded
+            db.execSQL("UPDATE TaskRecord SET " + TaskRecord.UPLOAD_STATE + " = " +
+                    TaskRecord.UPLOAD_LEGACY);
+            UploadQueue.createIndex(db);
+        }
+
+        if (oldVersion < 7) {
+            ArchiveTable.create(db);
+        }
+
+        if (oldVersion < 8) {
+            SearchTable.create(db);
+            SearchTable.backfill(db);
+        }
+
+        if (oldVersion < 9) {
+            SummaryTable.createState(db);
+        }
+
+        if (oldVersion < 10 && oldVersion >= 6) {
+            // version 6 used to mark legacy results as uploaded, only real uploads have a date
+            db.execSQL("UPDATE TaskRecord SET " + TaskRecord.UPLOAD_STATE + " = " +
+                    TaskRecord.UPLOAD_LEGACY + " WHERE " + TaskRecord.UPLOAD_STATE + " = " +
+                    TaskRecord.UPLOAD_DONE + " AND " + TaskRecord.UPLOADED + " IS NULL");
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import org.researchstack.backbone.storage.database.SearchHit;
+import org.researchstack.backbone.storage.database.StepRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Full text index over the text answers of every {@link StepRecord}, one FTS4 document per step
+ * record with the step record id as its docid.
+ * <p>
+ * FTS4 on the platform sqlite has no ranking function, hits are scored here from matchinfo with
+ * BM25 term weights, leaving out document length.
+ */
+final class SearchTable {
+    static final String TABLE = "AnswerSearch";
+    static final String TEXT = "text";
+
+    /**
+     * BM25 term frequency saturation
+     */
+    private static final double K1 = 1.2;
+
+    private static final String INSERT = "INSERT OR REPLACE INTO " + TABLE + " (docid, " + TEXT +
+            ") VALUES (?, ?)";
+
+    private SearchTable() {
+    }
+
+    static void create(RawDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE + " USING fts4(" + TEXT + ")");
+    }
+
+    /**
+     * Indexes the text answers of a step record. Must be called after the record has been created
+     * so that its generated id is set.
+     *
+     * @param db      the writable database
+     * @param record  the saved step record
+     * @param results the results map of the step result
+     */
+    static void insert(RawDatabase db, StepRecord record, Map<String, ?> results) {
+        StringBuilder text = new StringBuilder();
+        for (Object value : results.values()) {
+            value = AnswerTable.unwrap(value);
+            if (value instanceof String) {
+                text.append(text.length() == 0 ? "" : "\n").append(value);
+            }
+        }
+
+        if (text.length() > 0) {
+            db.execSQL(INSERT, new Object[] {record.id, text.toString()});
+        }
+    }
+
+    /**
+     * Removes the step records of the task records from the index.
+     *
+     * @param db  the writable database
+     * @param ids comma separated task record ids
+     */
+    static void deleteForTaskRecords(RawDatabase db, String ids) {
+        db.execSQL("DELETE FROM " + TABLE + " WHERE docid IN (SELECT id FROM StepRecord WHERE " +
+                StepRecord.TASK_RECORD_ID + " IN (" + ids + "))");
+    }
+
+    /**
+     * Finds the step records whose text answers contain every word of the query, as a prefix.
+     *
+     * @param db    a readable database
+     * @param query the words to search for, as typed by the user
+     * @param limit the maximum number of hits
+     * @return the hits, best first
+     */
+    static List<SearchHit> search(RawDatabase db, String query, int limit) {
+        String match = toMatchExpression(query);
+        TopHits hits = new TopHits(limit);
+        if (match.isEmpty()) {
+            return hits.toList();
+        }
+
+        Cursor cursor = db.rawQuery("SELECT s.docid, matchinfo(" + TABLE + ", 'pcnx'), r." +
+                StepRecord.STEP_ID + ", r.taskId, r.completed FROM " + TABLE + " s JOIN StepRecord r " +
+                "ON r.id = s.docid WHERE " + TABLE + " MATCH ?", new String[] {match});
+        try {
+            while (cursor.moveToNext()) {
+                double score = score(cursor.getBlob(1));
+                int id = cursor.getInt(0);
+                // most rows of a common word lose, they are dropped before reading the rest
+                if (hits.accepts(score, id)) {
+                    hits.add(new SearchHit(id,
+                            cursor.getString(3),
+                            cursor.getString(2),
+                            cursor.isNull(4) ? null : new Date(cursor.getLong(4)),
+                            score));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return hits.toList();
+    }
+
+    /**
+     * Indexes the text answers of step records saved before this table existed.
+     *
+     * @param db the writable database, inside of the upgrade transaction
+     */
+    static void backfill(RawDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT " + RecordReader.STEP_RECORD_COLUMNS + " FROM StepRecord",
+                null);
+        try {
+            while (cursor.moveToNext()) {
+                StepRecord record = RecordReader.readStepRecord(cursor);
+                Map<String, Object> results = record.getResults();
+                if (results != null) {
+                    insert(db, record, results);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Orders hits by score, best first, and equal scores by step record id.
+     */
+    static final Comparator<SearchHit> BEST_FIRST = (a, b) -> {
+        int byScore = Double.compare(b.getScore(), a.getScore());
+        return byScore != 0 ? byScore : compareIds(a.getStepRecordId(), b.getStepRecordId());
+    };
+
+    private static int compareIds(int a, int b) {
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /**
+     * Keeps the best <code>limit</code> hits in a heap with the worst of them on top, so a query
+     * matching many records costs O(n log limit) and only <code>limit</code> hits are held,
+     * instead of sorting every match.
+     */
+    static final class TopHits {
+        private final int limit;
+        private final PriorityQueue<SearchHit> heap;
+
+        TopHits(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(limit, 64)),
+                    Collections.reverseOrder(BEST_FIRST));
+        }
+
+        /**
+         * @return whether a hit with this score and id would be kept, checked before creating it
+         */
+        boolean accepts(double score, int stepRecordId) {
+            if (heap.size() < limit) {
+                return true;
+            }
+            if (limit <= 0) {
+                return false;
+            }
+            SearchHit worst = heap.peek();
+            int byScore = Double.compare(score, worst.getScore());
+            return byScore > 0 || byScore == 0 && stepRecordId < worst.getStepRecordId();
+        }
+
+        void add(SearchHit hit) {
+            heap.add(hit);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        /**
+         * @return the kept hits, best first
+         */
+        List<SearchHit> toList() {
+            List<SearchHit> hits = new ArrayList<>(heap);
+            Collections.sort(hits, BEST_FIRST);
+            return hits;
+        }
+    }
+
+    /**
+     * Quotes every word so that FTS operators typed by the user are matched as text instead of
+     * failing the query, and makes each word a prefix.
+     */
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.replace("\"", " ").trim().split("\\s+")) {
+            if (!word.isEmpty()) {
+                match.append(match.length() == 0 ? "" : " ").append('"').append(word).append("*\"");
+            }
+        }
+        return match.toString();
+    }
+
+    /**
+     * Scores a hit from its 'pcnx' matchinfo: the number of phrases and columns, the number of
+     * documents, then hits in this row, hits in all rows and rows with hits for every phrase and
+     * column.
+     */
+    static double score(byte[] matchinfo) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt();
+        int columns = buffer.getInt();
+        int documents = buffer.getInt();
+
+        double score = 0;
+        for (int i = 0; i < phrases * columns; i++) {
+            int hits = buffer.getInt();
+            buffer.getInt();
+            int documentsWithHits = buffer.getInt();
+            if (hits > 0) {
+                double idf = Math.log(1 + (documents - documentsWithHits + 0.5) /
+                        (documentsWithHits + 0.5));
+                score += idf * hits * (K1 + 1) / (hits + K1);
+            }
+        }
+        return score;
+    }
+}
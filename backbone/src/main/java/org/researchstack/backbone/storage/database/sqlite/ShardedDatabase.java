@@ -0,0 +1,539 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.content.Context;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.storage.database.AnswerAggregate;
+import org.researchstack.backbone.storage.database.AnswerPredicate;
+import org.researchstack.backbone.storage.database.AppDatabase;
+import org.researchstack.backbone.storage.database.DatabaseChange;
+import org.researchstack.backbone.storage.database.PartialSaveException;
+import org.researchstack.backbone.storage.database.PendingUpload;
+import org.researchstack.backbone.storage.database.QueryableAppDatabase;
+import org.researchstack.backbone.storage.database.SearchHit;
+import org.researchstack.backbone.storage.database.StepRecordVisitor;
+import org.researchstack.backbone.utils.LogExt;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.subjects.PublishSubject;
+import rx.subjects.SerializedSubject;
+import rx.subjects.Subject;
+
+/**
+ * A {@link QueryableAppDatabase} that keeps results in one database file per month, by the time
+ * each task completed. Saves go to the shard of their month, queries over a time range only open
+ * the shards that overlap it, and an old month can be closed, copied or dropped as a whole file
+ * without touching the others.
+ * <p>
+ * Shards are named <code>&lt;name&gt;-yyyy-MM</code>, found on disk when the database is created
+ * and opened lazily by the {@link ShardFactory}.
+ * <p>
+ * Unlike a single database, {@link #saveTaskResults} is atomic per shard only, a batch spanning
+ * several months can be partly saved if one of the shards fails. The results that were saved are
+ * then reported with a {@link PartialSaveException}. Task record ids returned from
+ * {@link #loadPendingUploads} and {@link #changes()} and step record ids returned from {@link
+ * #searchAnswers} encode the shard they belong to and are only meaningful to this database.
+ * <p>
+ * Encoded ids are ints like the ids of a single database, which limits each shard to about two
+ * million records and shards to the months from January 2000 up to April 2085. Results outside
+ * of those months can't be saved, and once a shard has handed out its last id further saves to it
+ * fail. Records saved past the last id before that was noticed are left out of search hits and are
+ * never uploaded, changes to them are published with {@link #NO_ID}.
+ */
+public class ShardedDatabase implements QueryableAppDatabase {
+    /**
+     * Task record id of changes to records whose id doesn't fit a sharded id
+     */
+    public static final int NO_ID = -1;
+
+    /**
+     * Low bits of a sharded task record id hold the id inside its shard, the high bits hold the
+     * month of the shard
+     */
+    private static final int LOCAL_ID_BITS = 21;
+    private static final int LOCAL_ID_MASK = (1 << LOCAL_ID_BITS) - 1;
+
+    /**
+     * Shard months are counted from January 2000, which leaves room for 1024 months of shards
+     */
+    private static final int FIRST_MONTH = 2000 * 12;
+    private static final int MONTH_COUNT = 1 << (31 - LOCAL_ID_BITS);
+
+    private final Context context;
+
+    private final String name;
+
+    private final ShardFactory shardFactory;
+
+    private final Pattern shardName;
+
+    private final NavigableSet<Integer> months = new TreeSet<>();
+
+    private final Map<Integer, QueryableAppDatabase> shards = new TreeMap<>();
+
+    private final Map<Integer, Subscription> shardChanges = new TreeMap<>();
+
+    /**
+     * Months of shards that saved a record whose id doesn't fit a sharded id
+     */
+    private final Set<Integer> fullMonths = Collections.synchronizedSet(new TreeSet<>());
+
+    /**
+     * Shards coalesce their own changes, the bursts are passed on with sharded record ids
+     */
+    private final Subject<List<DatabaseChange>, List<DatabaseChange>> changes = new SerializedSubject<>(
+            PublishSubject.create());
+
+    private String encryptionKey;
+
+    public ShardedDatabase(Context context, String name, ShardFactory shardFactory) {
+        this.context = context.getApplicationContext();
+        this.name = name;
+        this.shardFactory = shardFactory;
+        this.shardName = Pattern.compile(Pattern.quote(name) + "-(\\d{4})-(\\d{2})");
+
+        for (String database : this.context.databaseList()) {
+            Matcher matcher = shardName.matcher(database);
+            if (matcher.matches()) {
+                months.add(Integer.parseInt(matcher.group(1)) * 12 +
+                        Integer.parseInt(matcher.group(2)) - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns a factory that opens each shard as a plain {@link DatabaseHelper}.
+     *
+     * @param context the context used to open the shards
+     * @return the shard factory
+     */
+    public static ShardFactory databaseHelperFactory(Context context) {
+        return new ShardFactory() {
+            @Override
+            public QueryableAppDatabase openShard(String shardName) {
+                return new DatabaseHelper(context,
+                        shardName,
+                        null,
+                        DatabaseHelper.DEFAULT_VERSION);
+            }
+
+            @Override
+            public void closeShard(AppDatabase shard) {
+                ((DatabaseHelper) shard).close();
+            }
+        };
+    }
+
+    @Override
+    public void saveTaskResult(TaskResult taskResult) {
+        int month = monthOf(completed(taskResult));
+        checkCanSave(month);
+        getShard(month, true).saveTaskResult(taskResult);
+    }
+
+    @Override
+    public void saveTaskResults(List<TaskResult> taskResults) {
+        Map<Integer, List<TaskResult>> byMonth = new TreeMap<>();
+        for (TaskResult taskResult : taskResults) {
+            int month = monthOf(completed(taskResult));
+            // before anything is saved, so the batch fails as a whole
+            checkCanSave(month);
+            List<TaskResult> results = byMonth.get(month);
+            if (results == null) {
+                results = new ArrayList<>();
+                byMonth.put(month, results);
+            }
+            results.add(taskResult);
+        }
+
+        List<TaskResult> saved = new ArrayList<>(taskResults.size());
+        for (Map.Entry<Integer, List<TaskResult>> entry : byMonth.entrySet()) {
+            try {
+                getShard(entry.getKey(), true).saveTaskResults(entry.getValue());
+            } catch (RuntimeException e) {
+                if (saved.isEmpty()) {
+                    throw e;
+                }
+                throw new PartialSaveException(saved, e);
+            }
+            saved.addAll(entry.getValue());
+        }
+    }
+
+    @Override
+    public TaskResult loadLatestTaskResult(String taskIdentifier) {
+        // shards are split by completion time, the newest shard with a result has the latest one
+        for (int month : getShardMonths(true)) {
+            TaskResult result = getShard(month, false).loadLatestTaskResult(taskIdentifier);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<TaskResult> loadTaskResults(String taskIdentifier) {
+        List<TaskResult> results = new ArrayList<>();
+        for (int month : getShardMonths(false)) {
+            results.addAll(getShard(month, false).loadTaskResults(taskIdentifier));
+        }
+        return results;
+    }
+
+    @Override
+    public List<StepResult> loadStepResults(String stepIdentifier) {
+        List<StepResult> results = new ArrayList<>();
+        for (int month : getShardMonths(false)) {
+            results.addAll(getShard(month, false).loadStepResults(stepIdentifier));
+        }
+        return results;
+    }
+
+    @Override
+    public List<StepResult> queryStepResults(String stepIdentifier, AnswerPredicate... predicates) {
+        List<StepResult> results = new ArrayList<>();
+        for (int month : getShardMonths(false)) {
+            results.addAll(getShard(month, false).queryStepResults(stepIdentifier, predicates));
+        }
+        return results;
+    }
+
+    @Override
+    public AnswerAggregate aggregate(String stepIdentifier, String resultKey, AnswerAggregate.Bucket bucket, Date from, Date to) {
+        List<AnswerAggregate> aggregates = new ArrayList<>();
+        for (int month : getShardMonths(from, to)) {
+            aggregates.add(getShard(month, false).aggregate(stepIdentifier,
+                    resultKey,
+                    bucket,
+                    from,
+                    to));
+        }
+
+        if (aggregates.isEmpty()) {
+            return new AnswerAggregate(new long[0],
+                    new int[0],
+                    new double[0],
+                    new double[0],
+                    new double[0],
+                    new double[0]);
+        }
+        // a week can start in one shard and end in the next, merge joins those buckets back up
+        return AnswerAggregate.merge(aggregates);
+    }
+
+    @Override
+    public int countStepRecords() {
+        int count = 0;
+        for (int month : getShardMonths(false)) {
+            count += getShard(month, false).countStepRecords();
+        }
+        return count;
+    }
+
+    @Override
+    public boolean forEachStepRecord(StepRecordVisitor visitor) {
+        for (int month : getShardMonths(false)) {
+            if (!getShard(month, false).forEachStepRecord(visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<SearchHit> searchAnswers(String query, int limit) {
+        // each shard scores against its own documents, close enough to rank across shards
+        SearchTable.TopHits hits = new SearchTable.TopHits(limit);
+        for (int month : getShardMonths(false)) {
+            for (SearchHit hit : getShard(month, false).searchAnswers(query, limit)) {
+                int id = encodeId(month, hit.getStepRecordId());
+                if (id == NO_ID) {
+                    LogExt.w(getClass(), "Skipping search hit " + hit.getStepRecordId() +
+                            " of " + shardName(month) + ", its id doesn't fit a sharded id");
+                    continue;
+                }
+                if (hits.accepts(hit.getScore(), id)) {
+                    hits.add(new SearchHit(id,
+                            hit.getTaskIdentifier(),
+                            hit.getStepIdentifier(),
+                            hit.getCompleted(),
+                            hit.getScore()));
+                }
+            }
+        }
+        return hits.toList();
+    }
+
+    @Override
+    public List<PendingUpload> loadPendingUploads(int limit) {
+        List<PendingUpload> uploads = new ArrayList<>();
+        for (int month : getShardMonths(false)) {
+            if (uploads.size() >= limit) {
+                break;
+            }
+            for (PendingUpload upload : getShard(month, false).loadPendingUploads(
+                    limit - uploads.size())) {
+                int id = encodeId(month, upload.getTaskRecordId());
+                if (id == NO_ID) {
+                    // the shard claimed it, hand it back so it isn't left in flight, it sorts
+                    // after the records that were attempted fewer times
+                    LogExt.e(getClass(), "Can't upload task record " + upload.getTaskRecordId() +
+                            " of " + shardName(month) + ", its id doesn't fit a sharded id");
+                    getShard(month, false).markUploadFailed(Collections.singletonList(
+                            upload.getTaskRecordId()));
+                    continue;
+                }
+                uploads.add(new PendingUpload(id,
+                        upload.getAttempts(),
+                        upload.getTaskResult()));
+            }
+        }
+        return uploads;
+    }
+
+    @Override
+    public void markUploaded(List<Integer> taskRecordIds) {
+        for (Map.Entry<Integer, List<Integer>> entry : decodeIds(taskRecordIds).entrySet()) {
+            getShard(entry.getKey(), false).markUploaded(entry.getValue());
+        }
+    }
+
+    @Override
+    public void markUploadFailed(List<Integer> taskRecordIds) {
+        for (Map.Entry<Integer, List<Integer>> entry : decodeIds(taskRecordIds).entrySet()) {
+            getShard(entry.getKey(), false).markUploadFailed(entry.getValue());
+        }
+    }
+
+    @Override
+    public Observable<List<DatabaseChange>> changes() {
+        return changes.asObservable();
+    }
+
+    @Override
+    public synchronized void clearCache() {
+        for (QueryableAppDatabase shard : shards.values()) {
+            shard.clearCache();
+        }
+    }
+
+    @Override
+    public synchronized void setEncryptionKey(String key) {
+        encryptionKey = key;
+        for (QueryableAppDatabase shard : shards.values()) {
+            shard.setEncryptionKey(key);
+        }
+    }
+
+    /**
+     * Returns the months that have a shard, oldest first.
+     *
+     * @return the shard months, as dates at the start of each month
+     */
+    public synchronized List<Date> getShardMonths() {
+        List<Date> dates = new ArrayList<>(months.size());
+        for (int month : months) {
+            dates.add(startOf(month));
+        }
+        return dates;
+    }
+
+    /**
+     * Returns the database file of the shard that holds the given time, for copying it somewhere
+     * else. Close the shard first so the file is complete.
+     *
+     * @param date any time in the month of the shard
+     * @return the database file, which may not exist
+     */
+    public File getShardFile(Date date) {
+        return context.getDatabasePath(shardName(monthOf(date)));
+    }
+
+    /**
+     * Closes the shard that holds the given time, if it's open. It is opened again on the next
+     * query that needs it.
+     *
+     * @param date any time in the month of the shard
+     */
+    public synchronized void closeShard(Date date) {
+        int month = monthOf(date);
+        QueryableAppDatabase shard = shards.remove(month);
+        if (shard != null) {
+            shardChanges.remove(month).unsubscribe();
+            shardFactory.closeShard(shard);
+        }
+    }
+
+    /**
+     * Closes the shard that holds the given time and deletes its database file, along with every
+     * result saved in that month.
+     *
+     * @param date any time in the month of the shard
+     * @return true if the shard was deleted
+     */
+    public synchronized boolean dropShard(Date date) {
+        closeShard(date);
+        int month = monthOf(date);
+        months.remove(month);
+        boolean deleted = context.deleteDatabase(shardName(month));
+        LogExt.d(getClass(), "Dropped shard " + shardName(month) + ": " + deleted);
+        return deleted;
+    }
+
+    /**
+     * Closes every open shard.
+     */
+    public synchronized void close() {
+        for (Subscription subscription : shardChanges.values()) {
+            subscription.unsubscribe();
+        }
+        shardChanges.clear();
+        for (QueryableAppDatabase shard : shards.values()) {
+            shardFactory.closeShard(shard);
+        }
+        shards.clear();
+    }
+
+    private synchronized QueryableAppDatabase getShard(int month, boolean create) {
+        QueryableAppDatabase shard = shards.get(month);
+        if (shard != null) {
+            return shard;
+        }
+        if (!create && !months.contains(month)) {
+            throw new IllegalArgumentException("No shard for " + shardName(month));
+        }
+
+        shard = shardFactory.openShard(shardName(month));
+        if (encryptionKey != null) {
+            shard.setEncryptionKey(encryptionKey);
+        }
+        shards.put(month, shard);
+        months.add(month);
+        shardChanges.put(month, shard.changes().subscribe(shardBurst -> {
+            List<DatabaseChange> burst = new ArrayList<>(shardBurst.size());
+            for (DatabaseChange change : shardBurst) {
+                int id = encodeId(month, change.getTaskRecordId());
+                if (id == NO_ID && fullMonths.add(month)) {
+                    LogExt.e(getClass(), shardName(month) + " is out of sharded ids, " +
+                            "no more results can be saved to it");
+                }
+                burst.add(new DatabaseChange(change.getKind(), change.getTaskIdentifier(), id));
+            }
+            changes.onNext(burst);
+        }));
+        return shard;
+    }
+
+    /**
+     * Fails a save whose records could never get a sharded id.
+     */
+    private void checkCanSave(int month) {
+        if (month < FIRST_MONTH || month >= FIRST_MONTH + MONTH_COUNT) {
+            throw new IllegalArgumentException("Results completed in " + shardName(month) +
+                    " can't be sharded");
+        }
+        if (fullMonths.contains(month)) {
+            throw new IllegalStateException(shardName(month) + " is out of sharded ids");
+        }
+    }
+
+    private synchronized List<Integer> getShardMonths(boolean newestFirst) {
+        return new ArrayList<>(newestFirst ? months.descendingSet() : months);
+    }
+
+    private synchronized List<Integer> getShardMonths(Date from, Date to) {
+        int first = monthOf(from);
+        // the range is exclusive at the end
+        int last = monthOf(new Date(to.getTime() - 1));
+        if (last < first) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(months.subSet(first, true, last, true));
+    }
+
+    private String shardName(int month) {
+        return String.format(Locale.US, "%s-%04d-%02d", name, month / 12, month % 12 + 1);
+    }
+
+    private static Date completed(TaskResult taskResult) {
+        return taskResult.getEndDate() == null ? new Date() : taskResult.getEndDate();
+    }
+
+    private static int monthOf(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        return calendar.get(Calendar.YEAR) * 12 + calendar.get(Calendar.MONTH);
+    }
+
+    private static Date startOf(int month) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(month / 12, month % 12, 1);
+        return calendar.getTime();
+    }
+
+    /**
+     * @param month   the month of the shard, as years * 12 + month of the year
+     * @param localId the id of the record inside the shard
+     * @return the sharded id, or {@link #NO_ID} if the month or local id is out of range
+     */
+    static int encodeId(int month, int localId) {
+        if (localId < 0 || localId > LOCAL_ID_MASK || month < FIRST_MONTH ||
+                month >= FIRST_MONTH + MONTH_COUNT) {
+            return NO_ID;
+        }
+        return ((month - FIRST_MONTH) << LOCAL_ID_BITS) | localId;
+    }
+
+    /**
+     * Groups sharded ids by the month of their shard, ignoring {@link #NO_ID}.
+     *
+     * @param ids ids from {@link #encodeId}
+     * @return the local ids, by month
+     */
+    static Map<Integer, List<Integer>> decodeIds(List<Integer> ids) {
+        Map<Integer, List<Integer>> byMonth = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            if (id < 0) {
+                continue;
+            }
+            int month = FIRST_MONTH + (id >>> LOCAL_ID_BITS);
+            List<Integer> localIds = byMonth.get(month);
+            if (localIds == null) {
+                localIds = new ArrayList<>();
+                byMonth.put(month, localIds);
+            }
+            localIds.add(id & LOCAL_ID_MASK);
+        }
+        return byMonth;
+    }
+
+    /**
+     * Opens and closes the database of each shard, so shards can be plain or encrypted helpers or
+     * any other {@link AppDatabase}.
+     */
+    public interface ShardFactory {
+        QueryableAppDatabase openShard(String shardName);
+
+        void closeShard(AppDatabase shard);
+    }
+}
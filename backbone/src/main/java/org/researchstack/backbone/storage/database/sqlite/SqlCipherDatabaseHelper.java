@@ -2,27 +2,40 @@ package org.researchstack.backbone.storage.database.sqlite;
 
 import android.content.Context;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
 import net.sqlcipher.database.SQLiteDatabase;
 
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.storage.database.AnswerAggregate;
+import org.researchstack.backbone.storage.database.AnswerPredicate;
 import org.researchstack.backbone.storage.database.AppDatabase;
+import org.researchstack.backbone.storage.database.DatabaseChange;
+import org.researchstack.backbone.storage.database.DatabaseChangeNotifier;
+import org.researchstack.backbone.storage.database.LatestResultCache;
+import org.researchstack.backbone.storage.database.PendingUpload;
+import org.researchstack.backbone.storage.database.QueryableAppDatabase;
+import org.researchstack.backbone.storage.database.ResultArchive;
+import org.researchstack.backbone.storage.database.ResultCodec;
+import org.researchstack.backbone.storage.database.ResultCodecs;
+import org.researchstack.backbone.storage.database.SearchHit;
 import org.researchstack.backbone.storage.database.StepRecord;
+import org.researchstack.backbone.storage.database.StepRecordVisitor;
 import org.researchstack.backbone.storage.database.TaskRecord;
-import org.researchstack.backbone.utils.FormatHelper;
 import org.researchstack.backbone.utils.LogExt;
 
+import java.io.File;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import co.touchlab.squeaky.dao.Dao;
 import co.touchlab.squeaky.db.sqlcipher.SQLiteDatabaseImpl;
 import co.touchlab.squeaky.db.sqlcipher.SqueakyOpenHelper;
 import co.touchlab.squeaky.table.TableUtils;
+import rx.Observable;
 
 /**
  * A simple database implementation of {@link AppDatabase} that uses SqlCipher for encryption and
@@ -36,15 +49,46 @@ import co.touchlab.squeaky.table.TableUtils;
  * 'co.touchlab.squeaky:squeaky-processor:0.4.0'` to your dependencies and add android-apt:
  * https://bitbucket.org/hvisser/android-apt)
  */
-public class SqlCipherDatabaseHelper extends SqueakyOpenHelper implements AppDatabase {
+public class SqlCipherDatabaseHelper extends SqueakyOpenHelper implements QueryableAppDatabase {
     public static final String DEFAULT_NAME = "appdb";
-    public static final int DEFAULT_VERSION = 1;
+    public static final int DEFAULT_VERSION = 11;
+
+    private static final int READ_POOL_SIZE = 3;
 
     private final UpdatablePassphraseProvider passphraseProvider;
 
+    private ResultCodec resultCodec = ResultCodecs.getDefault();
+
+    private volatile boolean summariesEnabled;
+
+    private boolean inFlightUploadsReleased;
+
+    private boolean enableIncrementalVacuum;
+
+    private ResultArchive resultArchive;
+
+    private final DatabaseChangeNotifier changeNotifier = new DatabaseChangeNotifier();
+
+    private final LatestResultCache latestResults = new LatestResultCache(
+            LatestResultCache.DEFAULT_MAX_SIZE);
+
+    private final String databasePath;
+
+    private CipherSettings cipherSettings = CipherSettings.legacy();
+
+    private boolean cipherSettingsApplied;
+
+    private final CipherReadPool readPool = new CipherReadPool(READ_POOL_SIZE,
+            this::openReadConnection);
+
+    private final CheckpointScheduler checkpointScheduler = new CheckpointScheduler(
+            CheckpointScheduler.DEFAULT_IDLE_MILLIS,
+            () -> CheckpointScheduler.checkpoint(writableDatabase()));
+
     public SqlCipherDatabaseHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version, UpdatablePassphraseProvider passphraseProvider) {
         super(context, name, factory, version, passphraseProvider);
         this.passphraseProvider = passphraseProvider;
+        this.databasePath = context.getDatabasePath(name).getPath();
     }
 
     @Override
@@ -56,11 +100,119 @@ public class SqlCipherDatabaseHelper extends SqueakyOpenHelper implements AppDat
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+
+        RawDatabase db = new CipherRawDatabase(sqLiteDatabase);
+        AnswerTable.create(db);
+        SummaryTable.create(db);
+        UploadQueue.createIndex(db);
+        ArchiveTable.create(db);
+        SearchTable.create(db);
+        enableIncrementalVacuum = true;
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        SchemaMigrations.upgrade(new CipherRawDatabase(sqLiteDatabase), oldVersion);
     }
 
     @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        // handle future db upgrades here
+    public void onOpen(SQLiteDatabase sqLiteDatabase) {
+        super.onOpen(sqLiteDatabase);
+        // lets the read pool query while a save is running, the mode is stored in the file
+        sqLiteDatabase.rawExecSQL("PRAGMA journal_mode = WAL");
+        sqLiteDatabase.rawExecSQL("PRAGMA cache_size = " + cipherSettings.getCacheSize());
+        if (enableIncrementalVacuum) {
+            // VACUUM can't run in the transaction onCreate is called in, upgraded databases are
+            // switched by archiveResults instead
+            ArchiveTable.enableIncrementalVacuum(new CipherRawDatabase(sqLiteDatabase));
+            enableIncrementalVacuum = false;
+        }
+    }
+
+    /**
+     * Sets how the database file is keyed and laid out. Must be called before the first call to
+     * {@link #setEncryptionKey}, which re-encrypts an existing file with these settings if needed.
+     * Since SqlCipher's page size and iteration count defaults are process wide, they also apply
+     * to any other SqlCipher database the app opens afterwards.
+     *
+     * @param cipherSettings the settings to use, {@link CipherSettings#legacy()} by default
+     */
+    public synchronized void setCipherSettings(CipherSettings cipherSettings) {
+        if (cipherSettingsApplied) {
+            throw new IllegalStateException("Cipher settings must be set before the encryption key");
+        }
+        this.cipherSettings = cipherSettings;
+    }
+
+    /**
+     * Sets the codec used to encode the results of newly saved steps. Records that were saved with
+     * another codec stay readable as long as it is registered with {@link ResultCodecs}.
+     *
+     * @param resultCodec the codec for new records
+     */
+    public void setResultCodec(ResultCodec resultCodec) {
+        ResultCodecs.register(resultCodec);
+        this.resultCodec = resultCodec;
+    }
+
+    /**
+     * Turns on the daily summary table. While enabled, numeric answers are added to the summary of
+     * their day as results are saved, and {@link #aggregate} reads day and week buckets from the
+     * summaries instead of scanning every answer when the range starts and ends on local midnight.
+     * The summaries are rebuilt from the saved answers when they are enabled after results were
+     * saved without them, even in an earlier process.
+     *
+     * @param summariesEnabled whether summaries should be maintained and read
+     */
+    public void setSummariesEnabled(boolean summariesEnabled) {
+        if (summariesEnabled && readPool.query(SummaryTable::needsRebuild)) {
+            rebuildSummaries();
+        }
+        this.summariesEnabled = summariesEnabled;
+    }
+
+    /**
+     * Recomputes the daily summaries from the saved answers. Needed after results were saved while
+     * summaries were disabled.
+     */
+    public void rebuildSummaries() {
+        LogExt.d(getClass(), "rebuildSummaries()");
+        SummaryTable.rebuild(writableDatabase());
+        checkpointScheduler.onWrite();
+    }
+
+    /**
+     * Sets where {@link #archiveResults} moves old results. Once set, archived results are
+     * included again when loading task and step results.
+     *
+     * @param resultArchive the archive, or null to only load live results
+     */
+    public void setResultArchive(ResultArchive resultArchive) {
+        this.resultArchive = resultArchive;
+    }
+
+    /**
+     * Applies the retention policy: results that completed more than <code>retentionDays</code>
+     * ago and have been uploaded are moved into the {@link ResultArchive} and deleted from the live
+     * tables, then the freed pages are vacuumed a chunk at a time. Their numeric answers stay in
+     * the answer index, so {@link #aggregate} still covers them. Meant to run from a background
+     * job.
+     *
+     * @param retentionDays how many days of results to keep in the live tables
+     * @return the number of task results archived
+     */
+    public int archiveResults(int retentionDays) {
+        if (resultArchive == null) {
+            throw new IllegalStateException("A ResultArchive must be set before archiving");
+        }
+
+        LogExt.d(getClass(), "archiveResults() retentionDays: " + retentionDays);
+        long before = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+        List<DatabaseChange> changes = new ArrayList<>();
+        int archived = ArchiveTable.archive(writableDatabase(), resultArchive, before, changes);
+        checkpointScheduler.onWrite();
+        changeNotifier.publish(changes);
+        return archived;
     }
 
     //*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-
@@ -69,108 +221,321 @@ public class SqlCipherDatabaseHelper extends SqueakyOpenHelper implements AppDat
 
     @Override
     public void saveTaskResult(TaskResult taskResult) {
-        LogExt.d(getClass(), "saveTaskResult() id: " + taskResult.getIdentifier());
+        saveTaskResults(Collections.singletonList(taskResult));
+    }
 
-        try {
-            TaskRecord taskRecord = new TaskRecord();
-            taskRecord.taskId = taskResult.getIdentifier();
-            taskRecord.started = taskResult.getStartDate();
-            taskRecord.completed = taskResult.getEndDate();
-            getDao(TaskRecord.class).create(taskRecord);
+    @Override
+    public void saveTaskResults(List<TaskResult> taskResults) {
+        LogExt.d(getClass(), "saveTaskResults() count: " + taskResults.size());
 
-            Gson gson = new GsonBuilder().setDateFormat(FormatHelper.DATE_FORMAT_ISO_8601).create();
+        List<DatabaseChange> changes = new ArrayList<>(taskResults.size());
+        RawDatabase db = writableDatabase();
+        db.beginTransaction();
+        try {
+            Dao<TaskRecord> taskRecordDao = getDao(TaskRecord.class);
             Dao<StepRecord> stepResultDao = getDao(StepRecord.class);
 
-            for (StepResult stepResult : taskResult.getResults().values()) {
-                if (stepResult != null) {
-                    StepRecord stepRecord = new StepRecord();
-                    stepRecord.taskRecordId = taskRecord.id;
-                    stepRecord.taskId = taskResult.getIdentifier();
-                    stepRecord.stepId = stepResult.getIdentifier();
-                    stepRecord.completed = stepResult.getEndDate();
-                    if (!stepResult.getResults().isEmpty()) {
-                        stepRecord.result = gson.toJson(stepResult.getResults());
+            for (TaskResult taskResult : taskResults) {
+                TaskRecord taskRecord = new TaskRecord();
+                taskRecord.taskId = taskResult.getIdentifier();
+                taskRecord.started = taskResult.getStartDate();
+                taskRecord.completed = taskResult.getEndDate();
+                taskRecordDao.create(taskRecord);
+                changes.add(new DatabaseChange(DatabaseChange.Kind.SAVED,
+                        taskRecord.taskId,
+                        taskRecord.id));
+
+                for (StepResult stepResult : taskResult.getResults().values()) {
+                    if (stepResult != null) {
+                        StepRecord stepRecord = new StepRecord();
+                        stepRecord.taskRecordId = taskRecord.id;
+                        stepRecord.taskId = taskResult.getIdentifier();
+                        stepRecord.stepId = stepResult.getIdentifier();
+                        stepRecord.completed = stepResult.getEndDate();
+                        if (!stepResult.getResults().isEmpty()) {
+                            stepRecord.setResults(resultCodec, stepResult.getResults());
+                        }
+
+                        stepResultDao.createOrUpdate(stepRecord);
+                        AnswerTable.insert(db, stepRecord, stepResult.getResults(), summariesEnabled);
+                        SearchTable.insert(db, stepRecord, stepResult.getResults());
                     }
-
-                    stepResultDao.createOrUpdate(stepRecord);
                 }
             }
+            db.setTransactionSuccessful();
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            db.endTransaction();
         }
+        checkpointScheduler.onWrite();
+
+        for (TaskResult taskResult : taskResults) {
+            latestResults.onSaved(taskResult);
+        }
+        changeNotifier.publish(changes);
     }
 
     @Override
     public TaskResult loadLatestTaskResult(String taskIdentifier) {
-        LogExt.d(getClass(), "loadTaskResults() id: " + taskIdentifier);
-
-        try {
-            List<TaskRecord> taskRecords = getDao(TaskRecord.class).queryForEq(TaskRecord.TASK_ID,
-                    taskIdentifier).orderBy(TaskRecord.COMPLETED + " DESC").limit(1).list();
+        return latestResults.get(taskIdentifier, this::queryLatestTaskResult);
+    }
 
-            if (taskRecords.isEmpty()) {
-                return null;
-            }
+    private TaskResult queryLatestTaskResult(String taskIdentifier) {
+        LogExt.d(getClass(), "loadTaskResults() id: " + taskIdentifier);
 
-            TaskRecord record = taskRecords.get(0);
-            List<StepRecord> stepRecords = getDao(StepRecord.class).queryForEq(StepRecord.TASK_RECORD_ID,
-                    record.id).list();
-            return TaskRecord.toTaskResult(record, stepRecords);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        TaskResult result = readPool.query(db -> {
+            TaskRecord record = RecordReader.loadLatestTaskRecord(db, taskIdentifier);
+            return record == null
+                    ? null
+                    : TaskRecord.toTaskResult(record,
+                            RecordReader.loadStepRecords(db, StepRecord.TASK_RECORD_ID, record.id));
+        });
+        return result != null ? result : loadLatestArchivedTaskResult(taskIdentifier);
     }
 
     @Override
     public List<TaskResult> loadTaskResults(String taskIdentifier) {
         LogExt.d(getClass(), "loadTaskResults() id: " + taskIdentifier);
 
-        try {
-            List<TaskResult> results = new ArrayList<>();
-            List<TaskRecord> taskRecords = getDao(TaskRecord.class).queryForEq(TaskRecord.TASK_ID,
-                    taskIdentifier).list();
+        List<TaskResult> results = loadArchivedTaskResults(taskIdentifier);
+        results.addAll(readPool.query(db -> {
+            List<TaskResult> liveResults = new ArrayList<>();
+            for (TaskRecord record : RecordReader.loadTaskRecords(db, taskIdentifier)) {
+                liveResults.add(TaskRecord.toTaskResult(record,
+                        RecordReader.loadStepRecords(db, StepRecord.TASK_RECORD_ID, record.id)));
+            }
+            return liveResults;
+        }));
+        return results;
+    }
 
-            for (TaskRecord record : taskRecords) {
-                List<StepRecord> stepRecords = getDao(StepRecord.class).queryForEq(StepRecord.TASK_RECORD_ID,
-                        record.id).list();
-                TaskResult result = TaskRecord.toTaskResult(record, stepRecords);
-                results.add(result);
+    @Override
+    public List<StepResult> loadStepResults(String stepIdentifier) {
+        LogExt.d(getClass(), "loadStepResults() id: " + stepIdentifier);
+
+        List<StepResult> results = loadArchivedStepResults(stepIdentifier);
+        results.addAll(readPool.query(db -> {
+            List<StepResult> liveResults = new ArrayList<>();
+            for (StepRecord stepRecord : RecordReader.loadStepRecords(db,
+                    StepRecord.STEP_ID,
+                    stepIdentifier)) {
+                liveResults.add(StepRecord.toStepResult(stepRecord));
             }
+            return liveResults;
+        }));
+        return results;
+    }
 
+    @Override
+    public List<StepResult> queryStepResults(String stepIdentifier, AnswerPredicate... predicates) {
+        LogExt.d(getClass(), "queryStepResults() id: " + stepIdentifier);
+
+        return readPool.query(db -> {
+            List<StepResult> results = new ArrayList<>();
+            for (StepRecord stepRecord : AnswerTable.queryStepRecords(db, stepIdentifier, predicates)) {
+                results.add(StepRecord.toStepResult(stepRecord));
+            }
             return results;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        });
+    }
+
+    @Override
+    public AnswerAggregate aggregate(String stepIdentifier, String resultKey, AnswerAggregate.Bucket bucket, Date from, Date to) {
+        LogExt.d(getClass(), "aggregate() id: " + stepIdentifier + ", key: " + resultKey);
+
+        // summaries only hold whole days, partial days are read from the answers
+        if (summariesEnabled && bucket != AnswerAggregate.Bucket.HOUR &&
+                SummaryTable.covers(from.getTime(), to.getTime())) {
+            return readPool.query(db -> SummaryTable.aggregate(db,
+                    stepIdentifier,
+                    resultKey,
+                    bucket,
+                    from.getTime(),
+                    to.getTime()));
         }
+
+        return readPool.query(db -> AnswerTable.aggregate(db,
+                stepIdentifier,
+                resultKey,
+                bucket,
+                from.getTime(),
+                to.getTime()));
     }
 
     @Override
-    public List<StepResult> loadStepResults(String stepIdentifier) {
-        LogExt.d(getClass(), "loadStepResults() id: " + stepIdentifier);
+    public int countStepRecords() {
+        return readPool.query(RecordReader::countStepRecords);
+    }
+
+    @Override
+    public boolean forEachStepRecord(StepRecordVisitor visitor) {
+        LogExt.d(getClass(), "forEachStepRecord()");
+
+        int afterId = 0;
+        List<StepRecord> page;
+        do {
+            int lastId = afterId;
+            page = readPool.query(db -> RecordReader.loadStepRecordPage(db, lastId));
+            for (StepRecord stepRecord : page) {
+                if (!visitor.visit(stepRecord)) {
+                    return false;
+                }
+                afterId = stepRecord.id;
+            }
+        } while (!page.isEmpty());
+        return true;
+    }
+
+    @Override
+    public List<SearchHit> searchAnswers(String query, int limit) {
+        LogExt.d(getClass(), "searchAnswers() limit: " + limit);
+
+        return readPool.query(db -> SearchTable.search(db, query, limit));
+    }
+
+    @Override
+    public <D extends Dao<T>, T> D getDao(Class<T> clazz) {
+        return super.getDao(clazz);
+    }
+
+    @Override
+    public synchronized List<PendingUpload> loadPendingUploads(int limit) {
+        LogExt.d(getClass(), "loadPendingUploads() limit: " + limit);
+
+        RawDatabase db = writableDatabase();
+        if (!inFlightUploadsReleased) {
+            // anything still in flight at this point was claimed by a process that has since died
+            UploadQueue.releaseInFlight(db);
+            inFlightUploadsReleased = true;
+        }
 
         try {
-            List<StepResult> results = new ArrayList<>();
-            List<StepRecord> stepRecords = getDao(StepRecord.class).queryForEq(StepRecord.STEP_ID,
-                    stepIdentifier).list();
+            List<PendingUpload> uploads = new ArrayList<>();
+            Dao<TaskRecord> taskRecordDao = getDao(TaskRecord.class);
+            Dao<StepRecord> stepRecordDao = getDao(StepRecord.class);
 
-            for (StepRecord stepRecord : stepRecords) {
-                StepResult result = StepRecord.toStepResult(stepRecord);
-                results.add(result);
+            for (Integer id : UploadQueue.claim(db, limit)) {
+                TaskRecord record = taskRecordDao.queryForId(id);
+                List<StepRecord> stepRecords = stepRecordDao.queryForEq(StepRecord.TASK_RECORD_ID,
+                        record.id).list();
+                uploads.add(new PendingUpload(record.id,
+                        record.uploadAttempts,
+                        TaskRecord.toTaskResult(record, stepRecords)));
             }
+            checkpointScheduler.onWrite();
 
-            return results;
+            return uploads;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public <D extends Dao<T>, T> D getDao(Class<T> clazz) {
-        return super.getDao(clazz);
+    public void markUploaded(List<Integer> taskRecordIds) {
+        LogExt.d(getClass(), "markUploaded() count: " + taskRecordIds.size());
+
+        UploadQueue.markUploaded(writableDatabase(), taskRecordIds, System.currentTimeMillis());
+        checkpointScheduler.onWrite();
+        changeNotifier.publish(DatabaseChange.Kind.UPLOADED, taskRecordIds);
     }
 
     @Override
-    public void setEncryptionKey(String key) {
-        passphraseProvider.setPassphrase(key);
+    public void markUploadFailed(List<Integer> taskRecordIds) {
+        LogExt.d(getClass(), "markUploadFailed() count: " + taskRecordIds.size());
+
+        UploadQueue.markFailed(writableDatabase(), taskRecordIds);
+        checkpointScheduler.onWrite();
+        changeNotifier.publish(DatabaseChange.Kind.UPLOAD_FAILED, taskRecordIds);
+    }
+
+    @Override
+    public Observable<List<DatabaseChange>> changes() {
+        return changeNotifier.changes();
+    }
+
+    @Override
+    public void clearCache() {
+        latestResults.clear();
+    }
+
+    /**
+     * Returns the cache behind {@link #loadLatestTaskResult}, for its hit and miss counts.
+     *
+     * @return the latest result cache
+     */
+    public LatestResultCache getLatestResultCache() {
+        return latestResults;
+    }
+
+    @Override
+    public synchronized void setEncryptionKey(String key) {
+        String passphrase = cipherSettings.isRawKey() ? CipherKeys.deriveRawKey(key) : key;
+
+        if (!cipherSettingsApplied) {
+            if (!cipherSettings.isLegacy()) {
+                CipherKeys.applyDefaults(cipherSettings);
+                CipherKeys.migrate(new File(databasePath), key, passphrase, cipherSettings);
+            }
+            cipherSettingsApplied = true;
+        }
+
+        passphraseProvider.setPassphrase(passphrase);
+        readPool.close();
     }
 
+    @Override
+    public synchronized void close() {
+        checkpointScheduler.cancel();
+        readPool.close();
+        super.close();
+    }
+
+    private List<TaskResult> loadArchivedTaskResults(String taskIdentifier) {
+        if (resultArchive == null) {
+            return new ArrayList<>();
+        }
+        List<String> paths = readPool.query(db -> ArchiveTable.pathsForTask(db, taskIdentifier));
+        return resultArchive.readTaskResults(paths, taskIdentifier);
+    }
+
+    private List<StepResult> loadArchivedStepResults(String stepIdentifier) {
+        if (resultArchive == null) {
+            return new ArrayList<>();
+        }
+        List<String> paths = readPool.query(db -> ArchiveTable.pathsForStep(db, stepIdentifier));
+        return resultArchive.readStepResults(paths, stepIdentifier);
+    }
+
+    private TaskResult loadLatestArchivedTaskResult(String taskIdentifier) {
+        TaskResult latest = null;
+        for (TaskResult result : loadArchivedTaskResults(taskIdentifier)) {
+            // results without an end date sort before every completed one
+            if (latest == null || result.getEndDate() != null && (latest.getEndDate() == null ||
+                    result.getEndDate().after(latest.getEndDate()))) {
+                latest = result;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Returns the writable connection. Writes must call {@link CheckpointScheduler#onWrite()} once
+     * they are committed, so the idle checkpoint doesn't start before their pages are in the log.
+     */
+    private RawDatabase writableDatabase() {
+        return new CipherRawDatabase(getWritableDatabase(passphraseProvider.getPassphrase()));
+    }
+
+    private SQLiteDatabase openReadConnection() {
+        String passphrase = passphraseProvider.getPassphrase();
+        // creates or upgrades the file if nobody has opened it yet
+        getWritableDatabase(passphrase);
+        SQLiteDatabase connection = SQLiteDatabase.openDatabase(databasePath,
+                passphrase,
+                null,
+                SQLiteDatabase.OPEN_READONLY);
+        connection.rawExecSQL("PRAGMA cache_size = " + cipherSettings.getCacheSize());
+        return connection;
+    }
 }
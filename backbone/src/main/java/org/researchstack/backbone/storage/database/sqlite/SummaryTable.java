@@ -0,0 +1,223 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import org.researchstack.backbone.storage.database.AnswerAggregate;
+
+/**
+ * Per-step, per-day running statistics of numeric answers, kept up to date as results are saved.
+ * Aggregating from this table costs one row per day instead of one row per answer, which matters
+ * for dashboards over years of data.
+ * <p>
+ * Days are numbered from the epoch in the local time zone at the time the answer was saved.
+ * <p>
+ * Whether the summaries include every indexed answer is kept in {@link #STATE_TABLE}, so answers
+ * saved while summaries were turned off are noticed across restarts.
+ */
+final class SummaryTable {
+    static final String TABLE = "AnswerSummary";
+    static final String STEP_ID = "stepId";
+    static final String RESULT_KEY = "resultKey";
+    static final String DAY = "day";
+    static final String ANSWER_COUNT = "answerCount";
+    static final String VALUE_SUM = "valueSum";
+    static final String VALUE_SUM_OF_SQUARES = "valueSumOfSquares";
+    static final String MIN_VALUE = "minValue";
+    static final String MAX_VALUE = "maxValue";
+
+    static final String STATE_TABLE = "AnswerSummaryState";
+    static final String UP_TO_DATE = "upToDate";
+
+    private static final long DAY_MILLIS = AnswerAggregate.Bucket.DAY.getMillis();
+
+    private static final String INSERT_EMPTY = "INSERT OR IGNORE INTO " + TABLE + " (" + STEP_ID +
+            ", " + RESULT_KEY + ", " + DAY + ", " + ANSWER_COUNT + ", " + VALUE_SUM + ", " +
+            VALUE_SUM_OF_SQUARES + ") VALUES (?, ?, ?, 0, 0, 0)";
+
+    private static final String UPDATE = "UPDATE " + TABLE + " SET " +
+            ANSWER_COUNT + " = " + ANSWER_COUNT + " + 1, " +
+            VALUE_SUM + " = " + VALUE_SUM + " + ?, " +
+            VALUE_SUM_OF_SQUARES + " = " + VALUE_SUM_OF_SQUARES + " + ?, " +
+            MIN_VALUE + " = MIN(COALESCE(" + MIN_VALUE + ", ?), ?), " +
+            MAX_VALUE + " = MAX(COALESCE(" + MAX_VALUE + ", ?), ?) WHERE " +
+            STEP_ID + " = ? AND " + RESULT_KEY + " = ? AND " + DAY + " = ?";
+
+    private SummaryTable() {
+    }
+
+    static void create(RawDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                STEP_ID + " TEXT NOT NULL, " +
+                RESULT_KEY + " TEXT NOT NULL, " +
+                DAY + " INTEGER NOT NULL, " +
+                ANSWER_COUNT + " INTEGER NOT NULL, " +
+                VALUE_SUM + " REAL NOT NULL, " +
+                VALUE_SUM_OF_SQUARES + " REAL NOT NULL, " +
+                MIN_VALUE + " REAL, " +
+                MAX_VALUE + " REAL, " +
+                "PRIMARY KEY (" + STEP_ID + ", " + RESULT_KEY + ", " + DAY + "))");
+        createState(db);
+    }
+
+    /**
+     * Creates the single row table holding whether the summaries are up to date. A new state is
+     * only up to date if no numeric answers have been indexed yet.
+     */
+    static void createState(RawDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + STATE_TABLE + " (id INTEGER PRIMARY KEY, " +
+                UP_TO_DATE + " INTEGER NOT NULL)");
+        db.execSQL("INSERT OR IGNORE INTO " + STATE_TABLE + " (id, " + UP_TO_DATE +
+                ") SELECT 0, NOT EXISTS (SELECT 1 FROM " + AnswerTable.TABLE + " WHERE " +
+                AnswerTable.NUMBER_VALUE + " IS NOT NULL)");
+    }
+
+    /**
+     * Marks the summaries as missing answers, for when answers are saved while summaries are
+     * turned off. Must be called inside the transaction that saves the answers.
+     *
+     * @param db the writable database
+     */
+    static void markStale(RawDatabase db) {
+        db.execSQL("UPDATE " + STATE_TABLE + " SET " + UP_TO_DATE + " = 0 WHERE " + UP_TO_DATE +
+                " != 0");
+    }
+
+    /**
+     * Adds a single answer to the statistics of its day. Must be called inside the transaction
+     * that saves the answer.
+     *
+     * @param db        the writable database
+     * @param stepId    the step identifier
+     * @param resultKey the key of the answer inside the step result
+     * @param completed the time the step was completed
+     * @param value     the numeric value of the answer
+     */
+    static void add(RawDatabase db, String stepId, String resultKey, long completed, double value) {
+        long day = AnswerAggregate.Bucket.DAY.getIndex(completed, completed);
+        db.execSQL(INSERT_EMPTY, new Object[] {stepId, resultKey, day});
+        db.execSQL(UPDATE, new Object[] {
+                value, value * value, value, value, value, value, stepId, resultKey, day
+        });
+    }
+
+    /**
+     * Recomputes all statistics from the answer index, for when summaries are turned on for a
+     * database that already has results.
+     *
+     * @param db the writable database
+     */
+    static void rebuild(RawDatabase db) {
+        String value = AnswerTable.NUMBER_VALUE;
+
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM " + TABLE);
+            long[] range = completedRange(db);
+            if (range != null) {
+                // the same local day as add() computes for each answer
+                String day = AnswerAggregate.Bucket.DAY.getIndexSql(AnswerTable.COMPLETED,
+                        range[0],
+                        range[1]);
+                db.execSQL("INSERT INTO " + TABLE + " (" + STEP_ID + ", " + RESULT_KEY + ", " + DAY +
+                        ", " + ANSWER_COUNT + ", " + VALUE_SUM + ", " + VALUE_SUM_OF_SQUARES + ", " +
+                        MIN_VALUE + ", " + MAX_VALUE + ") SELECT " + AnswerTable.STEP_ID + ", " +
+                        AnswerTable.RESULT_KEY + ", " + day + " AS d, COUNT(" + value + "), SUM(" +
+                        value + "), SUM(" + value + " * " + value + "), MIN(" + value + "), MAX(" +
+                        value + ") FROM " + AnswerTable.TABLE + " WHERE " + value +
+                        " IS NOT NULL AND " + AnswerTable.COMPLETED + " IS NOT NULL GROUP BY " +
+                        AnswerTable.STEP_ID + ", " + AnswerTable.RESULT_KEY + ", d");
+            }
+            db.execSQL("UPDATE " + STATE_TABLE + " SET " + UP_TO_DATE + " = 1");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return the first and last completion time of the numeric answers, or null if there are none
+     */
+    private static long[] completedRange(RawDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT MIN(" + AnswerTable.COMPLETED + "), MAX(" +
+                AnswerTable.COMPLETED + ") FROM " + AnswerTable.TABLE + " WHERE " +
+                AnswerTable.NUMBER_VALUE + " IS NOT NULL", null);
+        try {
+            if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                return null;
+            }
+            return new long[] {cursor.getLong(0), cursor.getLong(1)};
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns true if answers were saved while summaries were turned off, or the summaries were
+     * never built for the answers already in the database.
+     *
+     * @param db a readable database
+     * @return whether the summaries need a {@link #rebuild}
+     */
+    static boolean needsRebuild(RawDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT " + UP_TO_DATE + " FROM " + STATE_TABLE, null);
+        try {
+            return !cursor.moveToFirst() || cursor.getInt(0) == 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns true if the summaries can answer an aggregate over a time range, which is the case
+     * when both ends fall on the start of a local day. Partial days have to be read from the
+     * answers.
+     *
+     * @param from start of the time range, inclusive
+     * @param to   end of the time range, exclusive
+     * @return whether {@link #aggregate} gives the same result as {@link AnswerTable#aggregate}
+     */
+    static boolean covers(long from, long to) {
+        return isStartOfDay(from) && isStartOfDay(to);
+    }
+
+    private static boolean isStartOfDay(long time) {
+        AnswerAggregate.Bucket day = AnswerAggregate.Bucket.DAY;
+        return day.getStart(day.getIndex(time, time), time) == time;
+    }
+
+    /**
+     * Same as {@link AnswerTable#aggregate}, but reads the daily summaries instead of the answers.
+     * Only whole days can be read, so buckets must be at least a day long and the range must be
+     * one the summaries {@link #covers}.
+     *
+     * @param db             a readable database
+     * @param stepIdentifier the step identifier
+     * @param resultKey      the key of the answer inside the step result
+     * @param bucket         the size of the time buckets, DAY or larger
+     * @param from           start of the time range, inclusive, the start of a local day
+     * @param to             end of the time range, exclusive, the start of a local day
+     * @return the statistics of the non-empty buckets, in time order
+     */
+    static AnswerAggregate aggregate(RawDatabase db, String stepIdentifier, String resultKey, AnswerAggregate.Bucket bucket, long from, long to) {
+        if (bucket.getMillis() < DAY_MILLIS) {
+            throw new IllegalArgumentException("Summaries can't be aggregated into buckets smaller than a day");
+        }
+        if (!covers(from, to)) {
+            throw new IllegalArgumentException("Summaries can only be aggregated over whole days");
+        }
+
+        // days are already local, only weeks need to be moved to the first day of the week
+        long size = bucket.getMillis();
+        long fromDay = AnswerAggregate.Bucket.DAY.getIndex(from, from);
+        long toDay = AnswerAggregate.Bucket.DAY.getIndex(to, to);
+
+        Cursor cursor = db.rawQuery("SELECT (" + DAY + " * " + DAY_MILLIS + " + " +
+                bucket.getLocalShift() + ") / " + size + " AS bucket, SUM(" + ANSWER_COUNT +
+                "), MIN(" + MIN_VALUE + "), MAX(" + MAX_VALUE + "), SUM(" + VALUE_SUM + "), SUM(" +
+                VALUE_SUM_OF_SQUARES + ") FROM " + TABLE + " WHERE " + STEP_ID + " = ? AND " +
+                RESULT_KEY + " = ? AND " + DAY + " >= " + fromDay + " AND " + DAY + " < " + toDay +
+                " GROUP BY bucket ORDER BY bucket", new String[] {stepIdentifier, resultKey});
+
+        return AnswerTable.readAggregate(cursor, bucket, from);
+    }
+}
@@ -0,0 +1,108 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import android.database.Cursor;
+
+import org.researchstack.backbone.storage.database.TaskRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upload state transitions of {@link TaskRecord}s, done in SQL so that a worker can claim and
+ * settle a whole batch of records in a couple of statements.
+ */
+final class UploadQueue {
+    private static final String TABLE = "TaskRecord";
+
+    /**
+     * Keep well under SQLite's default limit of 999 bound arguments
+     */
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    private UploadQueue() {
+    }
+
+    static void createIndex(RawDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE + "_upload ON " + TABLE + " (" +
+                TaskRecord.UPLOAD_STATE + ", " + TaskRecord.UPLOAD_ATTEMPTS + ", id)");
+    }
+
+    /**
+     * Finds up to <code>limit</code> pending or failed records, marks them as in flight and counts
+     * the attempt.
+     *
+     * @param db    the writable database
+     * @param limit the maximum number of records to claim
+     * @return the ids of the claimed records, least attempted and oldest first
+     */
+    static List<Integer> claim(RawDatabase db, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.rawQuery("SELECT id FROM " + TABLE + " WHERE " +
+                    TaskRecord.UPLOAD_STATE + " IN (" + TaskRecord.UPLOAD_PENDING + ", " +
+                    TaskRecord.UPLOAD_FAILED + ") ORDER BY " + TaskRecord.UPLOAD_ATTEMPTS +
+                    ", id LIMIT " + limit, null);
+            try {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            update(db, TaskRecord.UPLOAD_STATE + " = " + TaskRecord.UPLOAD_IN_FLIGHT + ", " +
+                    TaskRecord.UPLOAD_ATTEMPTS + " = " + TaskRecord.UPLOAD_ATTEMPTS + " + 1", ids);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return ids;
+    }
+
+    static void markUploaded(RawDatabase db, List<Integer> ids, long uploaded) {
+        settle(db, TaskRecord.UPLOAD_STATE + " = " + TaskRecord.UPLOAD_DONE + ", " +
+                TaskRecord.UPLOADED + " = " + uploaded, ids);
+    }
+
+    static void markFailed(RawDatabase db, List<Integer> ids) {
+        settle(db, TaskRecord.UPLOAD_STATE + " = " + TaskRecord.UPLOAD_FAILED, ids);
+    }
+
+    /**
+     * Moves records that were left in flight, by a process that died mid upload, back to failed so
+     * they get handed out again.
+     *
+     * @param db the writable database
+     */
+    static void releaseInFlight(RawDatabase db) {
+        db.execSQL("UPDATE " + TABLE + " SET " + TaskRecord.UPLOAD_STATE + " = " +
+                TaskRecord.UPLOAD_FAILED + " WHERE " + TaskRecord.UPLOAD_STATE + " = " +
+                TaskRecord.UPLOAD_IN_FLIGHT);
+    }
+
+    private static void settle(RawDatabase db, String assignments, List<Integer> ids) {
+        db.beginTransaction();
+        try {
+            update(db, assignments, ids);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void update(RawDatabase db, String assignments, List<Integer> ids) {
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_STATEMENT) {
+            List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IDS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("UPDATE ").append(TABLE)
+                    .append(" SET ")
+                    .append(assignments)
+                    .append(" WHERE id IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            db.execSQL(sql.toString(), chunk.toArray());
+        }
+    }
+}
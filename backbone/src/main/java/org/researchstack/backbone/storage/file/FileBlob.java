@@ -0,0 +1,140 @@
+package org.researchstack.backbone.storage.file;
+
+import android.content.Context;
+import android.support.annotation.WorkerThread;
+
+import org.researchstack.backbone.StorageAccess;
+import org.researchstack.backbone.utils.FileUtils;
+
+import java.io.Serializable;
+
+import rx.Observable;
+
+/**
+ * Reference to binary data written through {@link FileAccess}, like a signature image, so results
+ * only need to carry its path and hash instead of the data itself.
+ * <p>
+ * Blobs are named by the SHA-1 hash of their content, which makes writing the same data twice free
+ * and lets {@link #read} check that the data wasn't changed or swapped. Use {@link #toString()}
+ * and {@link #fromString(String)} to keep a reference in a string result.
+ */
+public class FileBlob implements Serializable {
+    private static final char SEPARATOR = '#';
+
+    private final String path;
+
+    private final String hash;
+
+    public FileBlob(String path, String hash) {
+        this.path = path;
+        this.hash = hash;
+    }
+
+    /**
+     * Writes the data unless a blob with the same content already exists.
+     *
+     * @param context   the context
+     * @param directory the directory to write to, must start with '/'
+     * @param extension the file extension, like ".png", may be empty
+     * @param data      the data
+     * @return the reference to the written blob
+     */
+    @WorkerThread
+    public static FileBlob write(Context context, String directory, String extension, byte[] data) {
+        String hash = FileUtils.sha1Hex(data);
+        FileBlob blob = new FileBlob(directory + "/" + hash + extension, hash);
+        FileAccess fileAccess = StorageAccess.getInstance().getFileAccess();
+        if (!fileAccess.dataExists(context, blob.path)) {
+            fileAccess.writeData(context, blob.path, data);
+        }
+        return blob;
+    }
+
+    /**
+     * Parses a reference created by {@link #toString()}.
+     *
+     * @param reference the reference, may be null
+     * @return the blob, or null if the string is not a blob reference
+     */
+    public static FileBlob fromString(String reference) {
+        if (reference == null || !reference.startsWith("/")) {
+            return null;
+        }
+        int separator = reference.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            return null;
+        }
+        return new FileBlob(reference.substring(0, separator), reference.substring(separator + 1));
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Reads the data and checks it against the hash.
+     *
+     * @param context the context
+     * @return the data
+     * @throws StorageAccessException if the blob can't be read or its content doesn't match the
+     *                                hash
+     */
+    @WorkerThread
+    public byte[] read(Context context) {
+        byte[] data = StorageAccess.getInstance().getFileAccess().readData(context, path);
+        if (!hash.equals(FileUtils.sha1Hex(data))) {
+            throw new StorageAccessException("Content of " + path + " doesn't match its hash");
+        }
+        return data;
+    }
+
+    /**
+     * Returns an observable that reads the data when subscribed to, see {@link #read(Context)}.
+     *
+     * @param context the context
+     * @return an observable emitting the data
+     */
+    public Observable<byte[]> load(Context context) {
+        Context appContext = context.getApplicationContext();
+        return Observable.fromCallable(() -> read(appContext));
+    }
+
+    @WorkerThread
+    public boolean exists(Context context) {
+        return StorageAccess.getInstance().getFileAccess().dataExists(context, path);
+    }
+
+    @WorkerThread
+    public void delete(Context context) {
+        StorageAccess.getInstance().getFileAccess().clearData(context, path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FileBlob)) {
+            return false;
+        }
+        FileBlob other = (FileBlob) o;
+        return path.equals(other.path) && hash.equals(other.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * path.hashCode() + hash.hashCode();
+    }
+
+    /**
+     * Returns the compact string form of this reference, the path and hash separated by '#'.
+     */
+    @Override
+    public String toString() {
+        return path + SEPARATOR + hash;
+    }
+}
@@ -0,0 +1,220 @@
+package org.researchstack.backbone.storage.file;
+
+import android.content.Context;
+import android.support.annotation.WorkerThread;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.utils.LogExt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+/**
+ * Autosave journal of a task in progress, so the answers survive the process being killed even
+ * when there is no saved instance state to restore them from.
+ * <p>
+ * The journal starts with a snapshot of the whole {@link TaskResult}, followed by one small delta
+ * per saved step result, each written through {@link FileAccess} as its own file so it is
+ * encrypted like any other data and either fully written or not at all. Saving a step costs the
+ * same no matter how many steps were answered before it. Every {@link #MAX_DELTAS} deltas the
+ * journal is compacted into a new snapshot, which keeps replaying it cheap.
+ * <p>
+ * Files are written in order on a single background thread, deltas are serialized on the calling
+ * thread so the result can keep changing meanwhile. Each snapshot starts a new generation, and
+ * deltas are only replayed if they belong to the generation of the snapshot, so deltas left behind
+ * by an interrupted compaction or clear are never applied to a later result.
+ */
+public class TaskResultJournal {
+    private static final String DIRECTORY = "/task_journal/";
+
+    private static final String SNAPSHOT = "snapshot";
+
+    /**
+     * Number of deltas written after a snapshot before the journal is compacted
+     */
+    static final int MAX_DELTAS = 32;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor();
+
+    private final FileAccess fileAccess;
+
+    private final String directory;
+
+    private volatile boolean started;
+
+    private volatile int deltas;
+
+    private volatile long generation;
+
+    /**
+     * @param fileAccess the file access to write the journal with
+     * @param key        identifies the task, must be safe to use as a file name
+     */
+    public TaskResultJournal(FileAccess fileAccess, String key) {
+        this.fileAccess = fileAccess;
+        this.directory = DIRECTORY + key + "/";
+    }
+
+    /**
+     * Replays the journal left by an earlier session of the same task on the journal's writer
+     * thread, after the writes still queued by this process. Nothing must be appended until the
+     * result was delivered.
+     *
+     * @param context the context
+     * @return an Observable of the restored task result, which is null if there is no journal or
+     * it can't be read
+     */
+    public Observable<TaskResult> restore(Context context) {
+        Context appContext = context.getApplicationContext();
+        return Observable.fromCallable(() -> replay(appContext)).subscribeOn(Schedulers.from(WRITER));
+    }
+
+    @WorkerThread
+    private TaskResult replay(Context context) {
+        started = false;
+        deltas = 0;
+        if (!fileAccess.dataExists(context, directory + SNAPSHOT)) {
+            return null;
+        }
+
+        try {
+            ObjectInputStream snapshot = read(fileAccess.readData(context, directory + SNAPSHOT));
+            long snapshotGeneration = snapshot.readLong();
+            TaskResult result = (TaskResult) snapshot.readObject();
+            int count = 0;
+            while (fileAccess.dataExists(context, directory + count)) {
+                ObjectInputStream in = read(fileAccess.readData(context, directory + count));
+                if (in.readLong() != snapshotGeneration) {
+                    break;
+                }
+                String identifier = in.readUTF();
+                result.setStepResultForStepIdentifier(identifier, (StepResult) in.readObject());
+                count++;
+            }
+            generation = snapshotGeneration;
+            deltas = count;
+            started = true;
+            return result;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LogExt.e(getClass(), "Could not replay task journal " + directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * Records a step result that was just set on the task result. Must be called on the same
+     * thread that changes the task result.
+     *
+     * @param context    the context
+     * @param result     the task result, already containing the step result
+     * @param identifier the step identifier
+     * @param stepResult the step result, may be null
+     */
+    public void append(Context context, TaskResult result, String identifier, StepResult stepResult) {
+        Context appContext = context.getApplicationContext();
+        if (!started || deltas >= MAX_DELTAS) {
+            generation = System.nanoTime();
+            byte[] snapshot = serializeSnapshot(generation, result);
+            int written = started ? deltas : 0;
+            started = true;
+            deltas = 0;
+            WRITER.execute(() -> writeSnapshot(appContext, snapshot, written));
+        } else {
+            byte[] delta = serializeDelta(generation, identifier, stepResult);
+            String path = directory + deltas++;
+            WRITER.execute(() -> write(appContext, path, delta));
+        }
+    }
+
+    /**
+     * Deletes the journal, once the task was completed or abandoned.
+     *
+     * @param context the context
+     */
+    public void clear(Context context) {
+        Context appContext = context.getApplicationContext();
+        int written = started ? deltas : 0;
+        started = false;
+        deltas = 0;
+        WRITER.execute(() -> {
+            try {
+                // without the snapshot nothing is replayed, whatever deltas are left
+                fileAccess.clearData(appContext, directory + SNAPSHOT);
+                deleteDeltas(appContext, written);
+            } catch (RuntimeException e) {
+                LogExt.e(getClass(), "Could not clear task journal " + directory, e);
+            }
+        });
+    }
+
+    private void writeSnapshot(Context context, byte[] snapshot, int written) {
+        // the snapshot contains every delta, so replaying one that survives a crash is harmless
+        if (write(context, directory + SNAPSHOT, snapshot)) {
+            try {
+                deleteDeltas(context, written);
+            } catch (RuntimeException e) {
+                LogExt.e(getClass(), "Could not compact task journal " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes from the first delta up, so if this is interrupted replay stops at the gap instead of
+     * applying the deltas that are left
+     */
+    private void deleteDeltas(Context context, int written) {
+        for (int i = 0; i < written; i++) {
+            fileAccess.clearData(context, directory + i);
+        }
+    }
+
+    private boolean write(Context context, String path, byte[] data) {
+        try {
+            fileAccess.writeData(context, path, data);
+            return true;
+        } catch (RuntimeException e) {
+            LogExt.e(getClass(), "Could not write task journal " + path, e);
+            return false;
+        }
+    }
+
+    private static byte[] serializeSnapshot(long generation, TaskResult result) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeLong(generation);
+            out.writeObject(result);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] serializeDelta(long generation, String identifier, StepResult stepResult) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeLong(generation);
+            out.writeUTF(identifier);
+            out.writeObject(stepResult);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ObjectInputStream read(byte[] data) throws IOException {
+        return new ObjectInputStream(new ByteArrayInputStream(data));
+    }
+}
@@ -1,17 +1,24 @@
 package org.researchstack.backbone.task;
 
 import android.content.Context;
+import android.os.Parcel;
 
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.result.TaskResult;
 import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.utils.ParcelUtils;
 import org.researchstack.backbone.utils.TextUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 
@@ -28,9 +35,37 @@ import java.util.Set;
  * {@link #getStepBeforeStep}, and call super for all other methods.
  */
 public class OrderedTask extends Task implements Serializable {
+    public static final Creator<OrderedTask> CREATOR = new Creator<OrderedTask>() {
+        @Override
+        public OrderedTask createFromParcel(Parcel in) {
+            return new OrderedTask(in);
+        }
+
+        @Override
+        public OrderedTask[] newArray(int size) {
+            return new OrderedTask[size];
+        }
+    };
 
     protected List<Step> steps;
 
+    /**
+     * Position of each step by identity, so navigation doesn't scan the list
+     */
+    private transient Map<Step, Integer> stepIndex;
+
+    /**
+     * Position of the first step with each identifier
+     */
+    private transient Map<String, Integer> identifierIndex;
+
+    /**
+     * The list and size the indexes were built for, to notice a subclass replacing or changing
+     * <code>steps</code>
+     */
+    private transient List<Step> indexedSteps;
+    private transient int indexedSize;
+
     /**
      * Returns an initialized ordered task using the specified identifier and array of steps.
      *
@@ -41,6 +76,7 @@ public class OrderedTask extends Task implements Serializable {
     public OrderedTask(String identifier, List<Step> steps) {
         super(identifier);
         this.steps = new ArrayList<>(steps);
+        buildIndex();
     }
 
     /**
@@ -53,6 +89,64 @@ public class OrderedTask extends Task implements Serializable {
         this(identifier, Arrays.asList(steps));
     }
 
+    protected OrderedTask(Parcel in) {
+        super(in);
+        this.steps = ParcelUtils.readList(in);
+        buildIndex();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        buildIndex();
+    }
+
+    private void buildIndex() {
+        int size = steps.size();
+        stepIndex = new IdentityHashMap<>(size);
+        identifierIndex = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Step step = steps.get(i);
+            if (!stepIndex.containsKey(step)) {
+                stepIndex.put(step, i);
+            }
+            String identifier = step.getIdentifier();
+            if (!identifierIndex.containsKey(identifier)) {
+                identifierIndex.put(identifier, i);
+            }
+        }
+        indexedSteps = steps;
+        indexedSize = size;
+    }
+
+    private void checkIndex() {
+        if (indexedSteps != steps || indexedSize != steps.size()) {
+            buildIndex();
+        }
+    }
+
+    /**
+     * Returns the position of the step, like <code>steps.indexOf(step)</code> but without scanning
+     * the list for steps of this task.
+     *
+     * @param step the step, may be null
+     * @return the position of the step, or -1 if it's not part of this task
+     */
+    protected int indexOfStep(Step step) {
+        checkIndex();
+        Integer index = stepIndex.get(step);
+        if (index != null) {
+            return index;
+        }
+        // a copy of a step, if the step class defines equality
+        return step == null ? -1 : steps.indexOf(step);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        ParcelUtils.writeList(dest, steps, flags);
+    }
+
     /**
      * Returns the next step immediately after the passed in step in the list of steps, or null
      *
@@ -66,7 +160,7 @@ public class OrderedTask extends Task implements Serializable {
             return steps.get(0);
         }
 
-        int nextIndex = steps.indexOf(step) + 1;
+        int nextIndex = indexOfStep(step) + 1;
 
         if (nextIndex < steps.size()) {
             return steps.get(nextIndex);
@@ -85,7 +179,7 @@ public class OrderedTask extends Task implements Serializable {
      */
     @Override
     public Step getStepBeforeStep(Step step, TaskResult result) {
-        int nextIndex = steps.indexOf(step) - 1;
+        int nextIndex = indexOfStep(step) - 1;
 
         if (nextIndex >= 0) {
             return steps.get(nextIndex);
@@ -96,17 +190,14 @@ public class OrderedTask extends Task implements Serializable {
 
     @Override
     public Step getStepWithIdentifier(String identifier) {
-        for (Step step : steps) {
-            if (identifier.equals(step.getIdentifier())) {
-                return step;
-            }
-        }
-        return null;
+        checkIndex();
+        Integer index = identifierIndex.get(identifier);
+        return index == null ? null : steps.get(index);
     }
 
     @Override
     public TaskProgress getProgressOfCurrentStep(Step step, TaskResult result) {
-        int current = step == null ? -1 : steps.indexOf(step);
+        int current = step == null ? -1 : indexOfStep(step);
         return new TaskProgress(current, steps.size());
     }
 
@@ -121,7 +212,7 @@ public class OrderedTask extends Task implements Serializable {
     public String getTitleForStep(Context context, Step step) {
         String title = super.getTitleForStep(context, step);
         if (TextUtils.isEmpty(title)) {
-            int currentIndex = steps.indexOf(step);
+            int currentIndex = indexOfStep(step);
             title = context.getString(R.string.rsb_format_step_title,
                     currentIndex + 1,
                     steps.size());
@@ -1,10 +1,13 @@
 package org.researchstack.backbone.task;
 
 import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
 
 import org.researchstack.backbone.result.TaskResult;
 import org.researchstack.backbone.step.Step;
 import org.researchstack.backbone.ui.ViewTaskActivity;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 import java.io.Serializable;
 
@@ -24,8 +27,12 @@ import java.io.Serializable;
  * to answer the question. Another example is {@link org.researchstack.backbone.step.FormStep},
  * which corresponds to a single screen that displays multiple questions or items for which
  * participants provide information, such as first name, last name, and birth date.
+ * <p>
+ * Tasks are passed to the ViewTaskActivity as a {@link Parcelable}. A subclass that adds fields
+ * should override {@link #writeToParcel}, add a constructor that takes a {@link Parcel} and declare
+ * its own CREATOR, otherwise it is passed as a {@link Serializable}, see {@link ParcelUtils}.
  */
-public abstract class Task implements Serializable {
+public abstract class Task implements Serializable, Parcelable {
     private String identifier;
 
     /**
@@ -37,6 +44,20 @@ public abstract class Task implements Serializable {
         this.identifier = identifier;
     }
 
+    protected Task(Parcel in) {
+        this.identifier = in.readString();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(identifier);
+    }
+
     /**
      * Gets the unique identifier for this task.
      * <p>
@@ -0,0 +1,351 @@
+package org.researchstack.backbone.task;
+
+import android.content.Context;
+import android.support.annotation.WorkerThread;
+
+import org.researchstack.backbone.StorageAccess;
+import org.researchstack.backbone.storage.file.FileAccess;
+import org.researchstack.backbone.utils.FileUtils;
+import org.researchstack.backbone.utils.LogExt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+/**
+ * Process wide registry of the tasks being shown, so a {@link
+ * org.researchstack.backbone.ui.ViewTaskActivity} only needs to be handed a task id and
+ * registration key instead of the whole task.
+ * <p>
+ * Keys are made of the task id and a registration number, so registering is cheap and the same task
+ * object always gets the same key. The definition of the task is written through {@link
+ * FileAccess} in the background, one file per task id, so the task can be rebuilt after the
+ * process was killed. Along with it the file keeps a content hash for each of the last {@link
+ * #MAX_KEYS} registrations of the task id, all computed in the background.
+ * <p>
+ * If the stored definition belongs to a later registration with the same content it is used as
+ * is. Otherwise the task is loaded again from the {@link TaskSource}, and rejected if its content
+ * differs from what was registered under the key. Tasks must not be changed after they are
+ * registered.
+ */
+public class TaskRegistry {
+    private static final String DIRECTORY = "/task_definitions/";
+
+    /**
+     * Number of tasks kept in memory, the others are read back from their stored definition
+     */
+    private static final int MAX_TASKS = 8;
+
+    /**
+     * Number of registrations per task id whose content hash is kept with the stored definition
+     */
+    private static final int MAX_KEYS = 8;
+
+    /**
+     * Definitions are read, merged and written in order on a single thread
+     */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final TaskRegistry instance = new TaskRegistry();
+
+    /**
+     * Loads tasks by id when their stored definition is missing, usually from the same place they
+     * were created from in the first place.
+     */
+    public interface TaskSource {
+        /**
+         * Called on a background thread.
+         *
+         * @param taskId the task id
+         * @return the task, or null if there is no task with that id
+         */
+        Task loadTask(String taskId);
+    }
+
+    /**
+     * Thrown by {@link #load} when a task can't be found in memory, on disk or in the task source,
+     * or the task source returned a task that differs from the one that was registered
+     */
+    public static class TaskNotFoundException extends RuntimeException {
+        public TaskNotFoundException(String detailMessage) {
+            super(detailMessage);
+        }
+    }
+
+    private final Map<String, Task> tasks = new LinkedHashMap<String, Task>(MAX_TASKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Task> eldest) {
+            return size() > MAX_TASKS;
+        }
+    };
+
+    private final Map<Task, String> keys = new WeakHashMap<>();
+
+    /**
+     * Makes keys of different processes differ, so a stored definition is never mistaken for
+     * another registration of the same task
+     */
+    private final String session = Long.toString(System.currentTimeMillis(), 36);
+
+    private int registrations;
+
+    private TaskSource taskSource;
+
+    TaskRegistry() {
+    }
+
+    /**
+     * Returns the singleton instance of this class.
+     *
+     * @return the singleton instance of this class
+     */
+    public static TaskRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets where tasks are loaded from when their stored definition is missing.
+     *
+     * @param taskSource the task source, may be null
+     */
+    public synchronized void setTaskSource(TaskSource taskSource) {
+        this.taskSource = taskSource;
+    }
+
+    /**
+     * Registers the task and returns its key, which together with the task id is what {@link
+     * #load} needs to find it again. The definition is stored in the background.
+     *
+     * @param context the context
+     * @param task    the task
+     * @return the key of the task
+     */
+    public synchronized String register(Context context, Task task) {
+        String key = keys.get(task);
+        if (key == null) {
+            key = task.getIdentifier() + "-" + session + "-" + ++registrations;
+            keys.put(task, key);
+            writeDefinition(context.getApplicationContext(), key, task);
+        }
+        tasks.put(key, task);
+        return key;
+    }
+
+    /**
+     * Returns the registered task if it's still in memory.
+     *
+     * @param key the key returned by {@link #register}
+     * @return the task, or null if it has to be loaded with {@link #load}
+     */
+    public synchronized Task get(String key) {
+        return tasks.get(key);
+    }
+
+    /**
+     * Returns the registered task, rebuilding it from its stored definition or from the task source
+     * on a background thread if it's no longer in memory. The stored definition is read through
+     * {@link FileAccess} after the definitions still being written, so this must only be used once
+     * file access is ready.
+     *
+     * @param context the context
+     * @param taskId  the task id
+     * @param key     the key returned by {@link #register}
+     * @return an Observable of the task, which fails with a {@link TaskNotFoundException} if the
+     * task can't be rebuilt
+     */
+    public Observable<Task> load(Context context, String taskId, String key) {
+        Task task = get(key);
+        if (task != null) {
+            return Observable.just(task);
+        }
+
+        Context appContext = context.getApplicationContext();
+        return Observable.fromCallable(() -> loadTask(appContext, taskId, key))
+                .subscribeOn(Schedulers.from(WRITER));
+    }
+
+    @WorkerThread
+    private Task loadTask(Context context, String taskId, String key) {
+        Definition definition = readDefinition(context, getPath(taskId));
+        String hash = definition == null ? null : definition.hashes.get(key);
+
+        Task task = null;
+        if (hash != null && hash.equals(definition.getHash())) {
+            // the same content, even if it was stored by a later registration
+            task = deserialize(definition.task);
+        }
+        if (task == null) {
+            task = loadFromSource(taskId, hash);
+        }
+        if (task == null) {
+            throw new TaskNotFoundException("Task " + taskId + " could not be rebuilt");
+        }
+
+        synchronized (this) {
+            keys.put(task, key);
+            tasks.put(key, task);
+        }
+        return task;
+    }
+
+    /**
+     * @param hash the content hash of the registered task, or null if it isn't known
+     */
+    @WorkerThread
+    private Task loadFromSource(String taskId, String hash) {
+        TaskSource source;
+        synchronized (this) {
+            source = taskSource;
+        }
+        Task task = source == null ? null : source.loadTask(taskId);
+        if (task == null) {
+            return null;
+        }
+
+        if (!taskId.equals(task.getIdentifier())) {
+            throw new TaskNotFoundException("Task source returned " + task.getIdentifier() +
+                    " for " + taskId);
+        }
+        if (hash == null) {
+            LogExt.w(getClass(), "No stored hash for task " + taskId + ", can't verify it");
+        } else if (!hash.equals(hash(task))) {
+            throw new TaskNotFoundException("Task " + taskId + " changed since it was registered");
+        }
+        return task;
+    }
+
+    private void writeDefinition(Context context, String key, Task task) {
+        Observable.fromCallable(() -> {
+            byte[] taskBytes = serialize(task);
+            String path = getPath(task.getIdentifier());
+
+            // newest first, earlier registrations are kept so they can still be verified
+            Map<String, String> hashes = new LinkedHashMap<>();
+            hashes.put(key, FileUtils.sha1Hex(taskBytes));
+            Definition previous = readDefinition(context, path);
+            if (previous != null) {
+                for (Map.Entry<String, String> entry : previous.hashes.entrySet()) {
+                    if (hashes.size() < MAX_KEYS && !hashes.containsKey(entry.getKey())) {
+                        hashes.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(hashes.size());
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+            out.writeInt(taskBytes.length);
+            out.write(taskBytes);
+            out.close();
+            StorageAccess.getInstance()
+                    .getFileAccess()
+                    .writeData(context, path, bytes.toByteArray());
+            return path;
+        }).subscribeOn(Schedulers.from(WRITER)).subscribe(path -> {
+            LogExt.d(getClass(), "Stored task definition " + path);
+        }, error -> {
+            LogExt.e(getClass(), "Could not store task definition", error);
+        });
+    }
+
+    @WorkerThread
+    private Definition readDefinition(Context context, String path) {
+        try {
+            FileAccess fileAccess = StorageAccess.getInstance().getFileAccess();
+            if (!fileAccess.dataExists(context, path)) {
+                return null;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(fileAccess.readData(
+                    context,
+                    path)));
+            Map<String, String> hashes = new LinkedHashMap<>();
+            for (int count = in.readInt(); count > 0; count--) {
+                hashes.put(in.readUTF(), in.readUTF());
+            }
+            byte[] task = new byte[in.readInt()];
+            in.readFully(task);
+            return new Definition(hashes, task);
+        } catch (IOException | RuntimeException e) {
+            LogExt.e(getClass(), "Could not read task definition " + path, e);
+            return null;
+        }
+    }
+
+    private Task deserialize(byte[] data) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+            try {
+                return (Task) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LogExt.e(getClass(), "Could not read stored task", e);
+            return null;
+        }
+    }
+
+    private static byte[] serialize(Task task) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(task);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the content hash of the task, or null if it can't be serialized
+     */
+    private static String hash(Task task) {
+        try {
+            return FileUtils.sha1Hex(serialize(task));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class Definition {
+        /**
+         * Content hash by registration key, the stored task's own registration first
+         */
+        final Map<String, String> hashes;
+
+        final byte[] task;
+
+        Definition(Map<String, String> hashes, byte[] task) {
+            this.hashes = hashes;
+            this.task = task;
+        }
+
+        String getHash() {
+            return hashes.isEmpty() ? null : hashes.values().iterator().next();
+        }
+    }
+
+    /**
+     * Task ids can be any string, the file is named after their hash
+     */
+    private static String getPath(String taskId) {
+        return DIRECTORY + FileUtils.sha1Hex(taskId.getBytes(UTF_8));
+    }
+}
@@ -13,34 +13,80 @@ import android.view.inputmethod.InputMethodManager;
 import android.widget.Toast;
 
 import org.researchstack.backbone.R;
+import org.researchstack.backbone.StorageAccess;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.result.TaskResult;
 import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.storage.file.TaskResultJournal;
 import org.researchstack.backbone.task.Task;
+import org.researchstack.backbone.task.TaskRegistry;
 import org.researchstack.backbone.ui.callbacks.StepCallbacks;
 import org.researchstack.backbone.ui.step.layout.StepLayout;
 import org.researchstack.backbone.ui.views.StepSwitcher;
+import org.researchstack.backbone.utils.FileUtils;
+import org.researchstack.backbone.utils.LogExt;
+import org.researchstack.backbone.utils.ParcelUtils;
 
 import java.lang.reflect.Constructor;
+import java.nio.charset.Charset;
 import java.util.Date;
 
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+
 public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
+    /**
+     * The whole task, still read for intents that don't go through {@link #putTaskExtras}
+     */
     public static final String EXTRA_TASK = "ViewTaskActivity.ExtraTask";
+    public static final String EXTRA_TASK_ID = "ViewTaskActivity.ExtraTaskId";
+    /**
+     * The key the task was registered with in the {@link TaskRegistry}
+     */
+    public static final String EXTRA_TASK_KEY = "ViewTaskActivity.ExtraTaskKey";
     public static final String EXTRA_TASK_RESULT = "ViewTaskActivity.ExtraTaskResult";
+    /**
+     * @deprecated the current step is saved by its identifier, under {@link #EXTRA_STEP_ID}
+     */
+    @Deprecated
     public static final String EXTRA_STEP = "ViewTaskActivity.ExtraStep";
+    public static final String EXTRA_STEP_ID = "ViewTaskActivity.ExtraStepId";
 
     private StepSwitcher root;
 
     private Step currentStep;
     private Task task;
+    private String taskId;
+    private String taskKey;
+    /**
+     * The saved state to finish creating with, while the task is loaded in the background
+     */
+    private Bundle pendingState;
+    private Subscription taskSubscription;
+    private Subscription journalSubscription;
     private TaskResult taskResult;
+    private TaskResultJournal journal;
+    private boolean restoreJournal;
 
     public static Intent newIntent(Context context, Task task) {
         Intent intent = new Intent(context, ViewTaskActivity.class);
-        intent.putExtra(EXTRA_TASK, task);
+        putTaskExtras(context, intent, task);
         return intent;
     }
 
+    /**
+     * Registers the task with the {@link TaskRegistry} and puts its id and key into the intent, so
+     * the task itself doesn't have to be serialized into it.
+     *
+     * @param context the context
+     * @param intent  the intent starting a ViewTaskActivity or subclass
+     * @param task    the task to show
+     */
+    public static void putTaskExtras(Context context, Intent intent, Task task) {
+        intent.putExtra(EXTRA_TASK_ID, task.getIdentifier());
+        intent.putExtra(EXTRA_TASK_KEY, TaskRegistry.getInstance().register(context, task));
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -53,14 +99,31 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
 
         root = (StepSwitcher) findViewById(R.id.container);
 
+        task = findTask(savedInstanceState == null ? getIntent().getExtras() : savedInstanceState);
+        if (task != null) {
+            onTaskLoaded(savedInstanceState);
+        } else if (taskKey != null) {
+            // rebuilt from its stored definition once the data is ready, see onDataReady()
+            pendingState = savedInstanceState;
+        } else {
+            onTaskFailed(new TaskRegistry.TaskNotFoundException("No task passed to " +
+                    getClass().getSimpleName()));
+        }
+    }
+
+    /**
+     * Finishes creating the activity once the task is there.
+     */
+    private void onTaskLoaded(Bundle savedInstanceState) {
         if (savedInstanceState == null) {
-            task = (Task) getIntent().getSerializableExtra(EXTRA_TASK);
             taskResult = new TaskResult(task.getIdentifier());
             taskResult.setStartDate(new Date());
+            // files can only be read once the data is ready
+            restoreJournal = true;
         } else {
-            task = (Task) savedInstanceState.getSerializable(EXTRA_TASK);
             taskResult = (TaskResult) savedInstanceState.getSerializable(EXTRA_TASK_RESULT);
-            currentStep = (Step) savedInstanceState.getSerializable(EXTRA_STEP);
+            String stepId = savedInstanceState.getString(EXTRA_STEP_ID);
+            currentStep = stepId == null ? null : task.getStepWithIdentifier(stepId);
         }
 
         task.validateParameters();
@@ -68,6 +131,33 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
         task.onViewChange(Task.ViewChangeType.ActivityCreate, this, currentStep);
     }
 
+    private void onTaskFailed(Throwable error) {
+        LogExt.e(getClass(), "Task could not be found or rebuilt, finishing", error);
+        Toast.makeText(this, R.string.rsb_error_task_load_failed, Toast.LENGTH_LONG).show();
+        finish();
+    }
+
+    /**
+     * Reads the task id and key from the extras, and returns the task if it can be had without
+     * loading it.
+     */
+    private Task findTask(Bundle extras) {
+        if (extras == null) {
+            return null;
+        }
+
+        if (extras.containsKey(EXTRA_TASK)) {
+            Task task = (Task) extras.getSerializable(EXTRA_TASK);
+            taskId = task.getIdentifier();
+            taskKey = TaskRegistry.getInstance().register(this, task);
+            return task;
+        }
+
+        taskId = extras.getString(EXTRA_TASK_ID);
+        taskKey = extras.getString(EXTRA_TASK_KEY);
+        return taskKey == null ? null : TaskRegistry.getInstance().get(taskKey);
+    }
+
     /**
      * Returns the actual current step being shown.
      *
@@ -89,6 +179,7 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
     protected void showPreviousStep() {
         Step previousStep = task.getStepBeforeStep(currentStep, taskResult);
         if (previousStep == null) {
+            discardJournal();
             finish();
         } else {
             showStep(previousStep);
@@ -137,9 +228,10 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
     }
 
     private void saveAndFinish() {
+        discardJournal();
         taskResult.setEndDate(new Date());
         Intent resultIntent = new Intent();
-        resultIntent.putExtra(EXTRA_TASK_RESULT, taskResult);
+        ParcelUtils.putExtra(resultIntent, EXTRA_TASK_RESULT, taskResult);
         setResult(RESULT_OK, resultIntent);
         finish();
     }
@@ -149,19 +241,36 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
         hideKeyboard();
         super.onPause();
 
-        task.onViewChange(Task.ViewChangeType.ActivityPause, this, currentStep);
+        if (task != null) {
+            task.onViewChange(Task.ViewChangeType.ActivityPause, this, currentStep);
+        }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        task.onViewChange(Task.ViewChangeType.ActivityResume, this, currentStep);
+        if (task != null) {
+            task.onViewChange(Task.ViewChangeType.ActivityResume, this, currentStep);
+        }
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        task.onViewChange(Task.ViewChangeType.ActivityStop, this, currentStep);
+        if (task != null) {
+            task.onViewChange(Task.ViewChangeType.ActivityStop, this, currentStep);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (taskSubscription != null) {
+            taskSubscription.unsubscribe();
+        }
+        if (journalSubscription != null) {
+            journalSubscription.unsubscribe();
+        }
     }
 
     @Override
@@ -182,9 +291,15 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putSerializable(EXTRA_TASK, task);
-        outState.putSerializable(EXTRA_TASK_RESULT, taskResult);
-        outState.putSerializable(EXTRA_STEP, currentStep);
+        if (task == null && pendingState != null) {
+            // still loading, keep what we were created with
+            outState.putAll(pendingState);
+            return;
+        }
+        outState.putString(EXTRA_TASK_ID, taskId);
+        outState.putString(EXTRA_TASK_KEY, taskKey);
+        ParcelUtils.putObject(outState, EXTRA_TASK_RESULT, taskResult);
+        outState.putString(EXTRA_STEP_ID, currentStep == null ? null : currentStep.getIdentifier());
     }
 
     private void notifyStepOfBackPress() {
@@ -196,6 +311,49 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
     public void onDataReady() {
         super.onDataReady();
 
+        if (task == null) {
+            if (taskSubscription == null && taskKey != null) {
+                taskSubscription = TaskRegistry.getInstance()
+                        .load(this, taskId, taskKey)
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(loaded -> {
+                            task = loaded;
+                            onTaskLoaded(pendingState);
+                            pendingState = null;
+                            onDataReady();
+                        }, this::onTaskFailed);
+            }
+            return;
+        }
+
+        if (journalSubscription != null && !journalSubscription.isUnsubscribed()) {
+            // the step is shown once the journal was read
+            return;
+        }
+
+        if (restoreJournal && isJournalEnabled()) {
+            restoreJournal = false;
+            journalSubscription = getJournal().restore(this)
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(restored -> {
+                        if (restored != null) {
+                            LogExt.d(getClass(),
+                                    "Resuming task " + task.getIdentifier() + " from its journal");
+                            taskResult = restored;
+                            currentStep = getFirstUnansweredStep();
+                        }
+                        showCurrentStep();
+                    }, error -> {
+                        LogExt.e(getClass(), "Could not restore task journal", error);
+                        showCurrentStep();
+                    });
+            return;
+        }
+
+        showCurrentStep();
+    }
+
+    private void showCurrentStep() {
         if (currentStep == null) {
             currentStep = task.getStepAfterStep(null, taskResult);
         }
@@ -219,6 +377,53 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
 
     protected void onSaveStepResult(String id, StepResult result) {
         taskResult.setStepResultForStepIdentifier(id, result);
+        if (isJournalEnabled()) {
+            getJournal().append(this, taskResult, id, result);
+        }
+    }
+
+    /**
+     * Returns whether answers are autosaved to a {@link TaskResultJournal}, so the task can be
+     * resumed after the process was killed. Subclasses that show the task before file access is
+     * ready should return false.
+     *
+     * @return true if the journal is used
+     */
+    protected boolean isJournalEnabled() {
+        return true;
+    }
+
+    private TaskResultJournal getJournal() {
+        if (journal == null) {
+            // keyed by task id, so starting the same task again resumes it
+            journal = new TaskResultJournal(StorageAccess.getInstance().getFileAccess(),
+                    FileUtils.sha1Hex(taskId.getBytes(Charset.forName("UTF-8"))));
+        }
+        return journal;
+    }
+
+    private void discardJournal() {
+        // after a recreate the journal on disk was written by an earlier instance, so it is
+        // cleared even if nothing was appended or restored yet
+        if (isJournalEnabled()) {
+            getJournal().clear(this);
+        }
+    }
+
+    /**
+     * Walks the task from the start past every step that already has a result, to resume a
+     * restored task where it was left.
+     */
+    private Step getFirstUnansweredStep() {
+        Step step = task.getStepAfterStep(null, taskResult);
+        while (step != null && taskResult.getResults().containsKey(step.getIdentifier())) {
+            Step next = task.getStepAfterStep(step, taskResult);
+            if (next == null) {
+                break;
+            }
+            step = next;
+        }
+        return step;
     }
 
     protected void onExecuteStepAction(int action) {
@@ -247,7 +452,10 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
         AlertDialog alertDialog = new AlertDialog.Builder(this).setTitle(
                 "Are you sure you want to exit?")
                 .setMessage(R.string.lorem_medium)
-                .setPositiveButton("End Task", (dialog, which) -> finish())
+                .setPositiveButton("End Task", (dialog, which) -> {
+                    discardJournal();
+                    finish();
+                })
                 .setNegativeButton("Cancel", null)
                 .create();
         alertDialog.show();
@@ -255,6 +463,7 @@ public class ViewTaskActivity extends PinCodeActivity implements StepCallbacks {
 
     @Override
     public void onCancelStep() {
+        discardJournal();
         setResult(Activity.RESULT_CANCELED);
         finish();
     }
@@ -13,6 +13,7 @@ import android.widget.TextView;
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.answerformat.AnswerFormat;
 import org.researchstack.backbone.answerformat.DateAnswerFormat;
+import org.researchstack.backbone.result.LongStepResult;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
@@ -40,7 +41,7 @@ public class DateQuestionBody implements StepBody {
 
     public DateQuestionBody(Step step, StepResult result) {
         this.step = (QuestionStep) step;
-        this.result = result == null ? new StepResult<>(step) : result;
+        this.result = result == null ? new LongStepResult(step) : result;
         this.format = (DateAnswerFormat) this.step.getAnswerFormat();
         this.calendar = Calendar.getInstance();
 
@@ -13,6 +13,7 @@ import android.widget.TextView;
 
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.answerformat.DecimalAnswerFormat;
+import org.researchstack.backbone.result.FloatStepResult;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
@@ -35,7 +36,7 @@ public class DecimalQuestionBody implements StepBody {
 
     public DecimalQuestionBody(Step step, StepResult result) {
         this.step = (QuestionStep) step;
-        this.result = result == null ? new StepResult<>(step) : result;
+        this.result = result == null ? new FloatStepResult(step) : result;
         this.format = (DecimalAnswerFormat) this.step.getAnswerFormat();
     }
 
@@ -102,7 +103,12 @@ public class DecimalQuestionBody implements StepBody {
 
         editText.setInputType(EditorInfo.TYPE_CLASS_NUMBER | EditorInfo.TYPE_NUMBER_FLAG_DECIMAL);
 
-        if (result.getResult() != null) {
+        if (result instanceof FloatStepResult) {
+            FloatStepResult floatResult = (FloatStepResult) result;
+            if (floatResult.hasResult()) {
+                editText.setText(Float.toString(floatResult.getFloatResult()));
+            }
+        } else if (result.getResult() != null) {
             editText.setText(String.valueOf(result.getResult()));
         }
 
@@ -121,7 +127,12 @@ public class DecimalQuestionBody implements StepBody {
         } else {
             String numString = editText.getText().toString();
             if (!TextUtils.isEmpty(numString)) {
-                result.setResult(Float.valueOf(editText.getText().toString()));
+                float answer = Float.parseFloat(numString);
+                if (result instanceof FloatStepResult) {
+                    ((FloatStepResult) result).setFloatResult(answer);
+                } else {
+                    result.setResult(answer);
+                }
             }
         }
 
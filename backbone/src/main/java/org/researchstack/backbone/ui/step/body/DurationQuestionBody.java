@@ -10,6 +10,7 @@ import android.widget.Spinner;
 
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.answerformat.DurationAnswerFormat;
+import org.researchstack.backbone.result.IntStepResult;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
@@ -46,7 +47,7 @@ public class DurationQuestionBody implements StepBody {
 
     public DurationQuestionBody(Step step, StepResult result) {
         this.step = (QuestionStep) step;
-        this.result = result == null ? new StepResult<>(step) : result;
+        this.result = result == null ? new IntStepResult(step) : result;
         this.format = (DurationAnswerFormat) this.step.getAnswerFormat();
     }
 
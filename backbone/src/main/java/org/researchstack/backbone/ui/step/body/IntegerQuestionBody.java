@@ -13,6 +13,7 @@ import android.widget.TextView;
 
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.answerformat.IntegerAnswerFormat;
+import org.researchstack.backbone.result.IntStepResult;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
@@ -35,7 +36,7 @@ public class IntegerQuestionBody implements StepBody {
 
     public IntegerQuestionBody(Step step, StepResult result) {
         this.step = (QuestionStep) step;
-        this.result = result == null ? new StepResult<>(step) : result;
+        this.result = result == null ? new IntStepResult(step) : result;
         this.format = (IntegerAnswerFormat) this.step.getAnswerFormat();
     }
 
@@ -102,7 +103,12 @@ public class IntegerQuestionBody implements StepBody {
 
         editText.setInputType(EditorInfo.TYPE_CLASS_NUMBER);
 
-        if (result.getResult() != null) {
+        if (result instanceof IntStepResult) {
+            IntStepResult intResult = (IntStepResult) result;
+            if (intResult.hasResult()) {
+                editText.setText(Integer.toString(intResult.getIntResult()));
+            }
+        } else if (result.getResult() != null) {
             editText.setText(String.valueOf(result.getResult()));
         }
 
@@ -121,7 +127,12 @@ public class IntegerQuestionBody implements StepBody {
         } else {
             String numString = editText.getText().toString();
             if (!TextUtils.isEmpty(numString)) {
-                result.setResult(Integer.valueOf(editText.getText().toString()));
+                int answer = Integer.parseInt(numString);
+                if (result instanceof IntStepResult) {
+                    ((IntStepResult) result).setIntResult(answer);
+                } else {
+                    result.setResult(answer);
+                }
             }
         }
 
@@ -11,8 +11,10 @@ import android.widget.RadioGroup;
 import android.widget.TextView;
 
 import org.researchstack.backbone.R;
+import org.researchstack.backbone.answerformat.BooleanAnswerFormat;
 import org.researchstack.backbone.answerformat.ChoiceAnswerFormat;
 import org.researchstack.backbone.model.Choice;
+import org.researchstack.backbone.result.BooleanStepResult;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
@@ -27,10 +29,17 @@ public class SingleChoiceQuestionBody<T> implements StepBody {
     private Choice<T>[] choices;
     private T currentSelected;
 
+    @SuppressWarnings("unchecked")
     public SingleChoiceQuestionBody(Step step, StepResult result) {
         this.step = (QuestionStep) step;
-        this.result = result == null ? new StepResult<>(step) : result;
         this.format = (ChoiceAnswerFormat) this.step.getAnswerFormat();
+        if (result != null) {
+            this.result = result;
+        } else if (format instanceof BooleanAnswerFormat) {
+            this.result = (StepResult<T>) new BooleanStepResult(step);
+        } else {
+            this.result = new StepResult<>(step);
+        }
         this.choices = format.getChoices();
 
         // Restore results
@@ -114,6 +123,8 @@ public class SingleChoiceQuestionBody<T> implements StepBody {
     public StepResult getStepResult(boolean skipped) {
         if (skipped) {
             result.setResult(null);
+        } else if (result instanceof BooleanStepResult && currentSelected != null) {
+            ((BooleanStepResult) result).setBooleanResult((Boolean) currentSelected);
         } else {
             result.setResult(currentSelected);
         }
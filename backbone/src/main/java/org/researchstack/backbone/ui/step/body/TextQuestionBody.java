@@ -13,6 +13,7 @@ import com.jakewharton.rxbinding.widget.RxTextView;
 
 import org.researchstack.backbone.R;
 import org.researchstack.backbone.answerformat.TextAnswerFormat;
+import org.researchstack.backbone.result.StringStepResult;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.QuestionStep;
 import org.researchstack.backbone.step.Step;
@@ -33,7 +34,7 @@ public class TextQuestionBody implements StepBody {
 
     public TextQuestionBody(Step step, StepResult result) {
         this.step = (QuestionStep) step;
-        this.result = result == null ? new StepResult<>(step) : result;
+        this.result = result == null ? new StringStepResult(step) : result;
     }
 
     @Override
@@ -56,14 +57,20 @@ public class TextQuestionBody implements StepBody {
         }
 
         // Restore previous result
-        String stringResult = result.getResult();
+        String stringResult = result instanceof StringStepResult
+                ? ((StringStepResult) result).getStringResult()
+                : result.getResult();
         if (!TextUtils.isEmpty(stringResult)) {
             editText.setText(stringResult);
         }
 
         // Set result on text change
         RxTextView.textChanges(editText).subscribe(text -> {
-            result.setResult(text.toString());
+            if (result instanceof StringStepResult) {
+                ((StringStepResult) result).setStringResult(text.toString());
+            } else {
+                result.setResult(text.toString());
+            }
         });
 
         // Format EditText from TextAnswerFormat
@@ -2,6 +2,9 @@ package org.researchstack.backbone.ui.step.layout;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.annotation.WorkerThread;
 import android.util.AttributeSet;
 import android.util.Base64;
 import android.view.LayoutInflater;
@@ -13,14 +16,19 @@ import android.widget.Toast;
 import com.jakewharton.rxbinding.view.RxView;
 
 import org.researchstack.backbone.R;
+import org.researchstack.backbone.model.SignatureStrokes;
+import org.researchstack.backbone.StorageAccess;
 import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.step.ConsentSignatureStep;
 import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.storage.file.FileBlob;
 import org.researchstack.backbone.ui.callbacks.SignatureCallbacks;
 import org.researchstack.backbone.ui.callbacks.StepCallbacks;
 import org.researchstack.backbone.ui.views.SignatureView;
 import org.researchstack.backbone.ui.views.SubmitBar;
 import org.researchstack.backbone.utils.FormatHelper;
+import org.researchstack.backbone.utils.LogExt;
+import org.researchstack.backbone.utils.ObservableUtils;
 import org.researchstack.backbone.utils.TextUtils;
 
 import java.io.ByteArrayOutputStream;
@@ -28,14 +36,32 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import rx.Observable;
+import rx.Subscription;
+
 public class ConsentSignatureStepLayout extends RelativeLayout implements StepLayout {
+    /**
+     * The signature as a Base64 encoded PNG, only set if it was drawn before file access was ready,
+     * like when consenting before the pin code is created. Results saved once file access is ready
+     * only have {@link #KEY_SIGNATURE_BLOB}, so code that read the image from this key, like
+     * consent uploads, must use {@link #loadSignatureImage} to get it either way.
+     */
     public static final String KEY_SIGNATURE = "ConsentSignatureStep.Signature";
+    /**
+     * A {@link FileBlob} reference to the signature, see {@link FileBlob#fromString(String)}. The
+     * blob holds {@link SignatureStrokes}, or a PNG for results saved by older versions.
+     */
+    public static final String KEY_SIGNATURE_BLOB = "ConsentSignatureStep.Signature.Blob";
     public static final String KEY_SIGNATURE_DATE = "ConsentSignatureStep.Signature.Date";
 
+    private static final String SIGNATURE_DIRECTORY = "/signatures";
+    private static final String STROKES_EXTENSION = ".sig";
+
     private SignatureView signatureView;
     private StepCallbacks callbacks;
     private Step step;
     private StepResult<String> result;
+    private Subscription saveSubscription;
 
     public ConsentSignatureStepLayout(Context context) {
         super(context);
@@ -64,8 +90,7 @@ public class ConsentSignatureStepLayout extends RelativeLayout implements StepLa
 
     @Override
     public boolean isBackEventConsumed() {
-        setDataToResult();
-        callbacks.onSaveStep(StepCallbacks.ACTION_PREV, step, result);
+        saveResult(StepCallbacks.ACTION_PREV);
         return false;
     }
 
@@ -114,36 +139,131 @@ public class ConsentSignatureStepLayout extends RelativeLayout implements StepLa
         submitBar.getNegativeActionView().setVisibility(View.GONE);
         submitBar.setPositiveAction(v -> {
             if (signatureView.isSignatureDrawn()) {
-                setDataToResult();
-                callbacks.onSaveStep(StepCallbacks.ACTION_NEXT, step, result);
+                saveResult(StepCallbacks.ACTION_NEXT);
             } else {
                 Toast.makeText(getContext(), R.string.rsb_error_invalid_signature, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
-    private void setDataToResult() {
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (saveSubscription != null) {
+            saveSubscription.unsubscribe();
+        }
+    }
+
+    /**
+     * Sets the signature to the result and saves the step. The strokes are written in the
+     * background, so the step is only saved once they were.
+     */
+    private void saveResult(int action) {
+        if (saveSubscription != null && !saveSubscription.isUnsubscribed()) {
+            // still writing the signature
+            return;
+        }
+
         String format = ((ConsentSignatureStep) step).getSignatureDateFormat();
         DateFormat signatureDateFormat = !TextUtils.isEmpty(format)
                 ? new SimpleDateFormat(format)
                 : FormatHelper.getSignatureFormat();
-        String formattedSignDate = signatureDateFormat.format(new Date());
+        result.setResultForIdentifier(KEY_SIGNATURE_DATE, signatureDateFormat.format(new Date()));
+
+        SignatureStrokes strokes = signatureView.getSignatureStrokes();
+        if (strokes.isEmpty()) {
+            result.getResults().remove(KEY_SIGNATURE);
+            result.getResults().remove(KEY_SIGNATURE_BLOB);
+        } else if (!StorageAccess.getInstance().isFileAccessReady()) {
+            setImageToResult();
+        } else {
+            // the strokes keep changing while drawing, so they are encoded right away
+            byte[] encoded = strokes.encode();
+            Context appContext = getContext().getApplicationContext();
+            saveSubscription = Observable.fromCallable(() -> FileBlob.write(appContext,
+                    SIGNATURE_DIRECTORY,
+                    STROKES_EXTENSION,
+                    encoded)).compose(ObservableUtils.applyDefault()).subscribe(blob -> {
+                result.setResultForIdentifier(KEY_SIGNATURE_BLOB, blob.toString());
+                result.getResults().remove(KEY_SIGNATURE);
+                callbacks.onSaveStep(action, step, result);
+            }, error -> {
+                LogExt.e(getClass(), "Could not write signature, keeping it as an image", error);
+                setImageToResult();
+                callbacks.onSaveStep(action, step, result);
+            });
+            return;
+        }
+        callbacks.onSaveStep(action, step, result);
+    }
 
-        result.setResultForIdentifier(KEY_SIGNATURE, getBase64EncodedImage());
-        result.setResultForIdentifier(KEY_SIGNATURE_DATE, formattedSignDate);
+    private void setImageToResult() {
+        byte[] image = toPng(signatureView.createSignatureBitmap());
+        result.setResultForIdentifier(KEY_SIGNATURE, Base64.encodeToString(image, Base64.DEFAULT));
+        result.getResults().remove(KEY_SIGNATURE_BLOB);
     }
 
-    private String getBase64EncodedImage() {
-        Bitmap bitmap = signatureView.createSignatureBitmap();
+    private static byte[] toPng(Bitmap bitmap) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+        return stream.toByteArray();
+    }
 
-        if (bitmap != null) {
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
-            byte[] byteArray = stream.toByteArray();
-            return Base64.encodeToString(byteArray, Base64.DEFAULT);
-        } else {
+    /**
+     * Returns the blob holding the signature image of a result saved by this layout.
+     *
+     * @param result the signature step result
+     * @return the blob, or null if the signature was not stored as one
+     */
+    public static FileBlob getSignatureBlob(StepResult result) {
+        Object reference = result.getResultForIdentifier(KEY_SIGNATURE_BLOB);
+        return reference instanceof String ? FileBlob.fromString((String) reference) : null;
+    }
+
+    /**
+     * Loads the vector strokes of a result saved by this layout, to export them as SVG or rasterize
+     * them at a chosen size.
+     *
+     * @param context the context
+     * @param result  the signature step result
+     * @return the strokes in dp, or null if the signature was only saved as an image
+     */
+    @WorkerThread
+    public static SignatureStrokes loadSignatureStrokes(Context context, StepResult result) {
+        FileBlob blob = getSignatureBlob(result);
+        if (blob == null || !blob.getPath().endsWith(STROKES_EXTENSION)) {
             return null;
         }
+        return SignatureStrokes.decode(blob.read(context));
+    }
+
+    /**
+     * Loads the signature PNG of a result saved by this layout. Strokes are rasterized in black at
+     * one pixel per dp, older results are read from their PNG blob or Base64 encoded image.
+     *
+     * @param context the context
+     * @param result  the signature step result
+     * @return the PNG data, or null if there is no signature
+     */
+    @WorkerThread
+    public static byte[] loadSignatureImage(Context context, StepResult result) {
+        SignatureStrokes strokes = loadSignatureStrokes(context, result);
+        if (strokes != null) {
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setColor(Color.BLACK);
+            paint.setStrokeJoin(Paint.Join.ROUND);
+            paint.setStrokeCap(Paint.Cap.ROUND);
+            Bitmap bitmap = strokes.createBitmap(1, paint);
+            return bitmap == null ? null : toPng(bitmap);
+        }
+
+        FileBlob blob = getSignatureBlob(result);
+        if (blob != null) {
+            return blob.read(context);
+        }
+
+        Object encoded = result.getResultForIdentifier(KEY_SIGNATURE);
+        return encoded instanceof String ? Base64.decode((String) encoded, Base64.DEFAULT) : null;
     }
 
 }
\ No newline at end of file
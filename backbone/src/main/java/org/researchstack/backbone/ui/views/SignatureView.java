@@ -10,8 +10,6 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Point;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.drawable.shapes.PathShape;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.v4.view.ViewCompat;
@@ -20,27 +18,47 @@ import android.view.MotionEvent;
 import android.view.View;
 
 import org.researchstack.backbone.R;
+import org.researchstack.backbone.model.SignatureStrokes;
 import org.researchstack.backbone.ui.callbacks.SignatureCallbacks;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Note: For save-state to work, the view MUST have an ID
+ * <p>
+ * Finished strokes are rendered once into a bitmap the size of the view, each frame only draws
+ * that bitmap and the stroke that is being drawn, so drawing doesn't slow down as the signature
+ * grows.
  */
 public class SignatureView extends View {
 
     private static final boolean DEBUG = false;
     private static final String TAG = SignatureView.class.getSimpleName();
+    private static final float CORNER_RADIUS = 20;
+    private static final float DEFAULT_SIMPLIFY_TOLERANCE = 0.25f;
 
     private SignatureCallbacks callbacks;
 
     //-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=
     // Paint
     //-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=
-    private List<LinePathPoint> sigPoints = new ArrayList<>();
+    private SignatureStrokes strokes = new SignatureStrokes(false, false);
+    private float density;
+
+    /**
+     * Largest distance in dp a point may be from the simplified stroke, 0 to keep every point
+     */
+    private float simplifyTolerance = DEFAULT_SIMPLIFY_TOLERANCE;
+
+    private float lastX;
+    private float lastY;
+    private Rect dirty = new Rect();
 
-    private Path sigPath = new Path();
+    /**
+     * The stroke being drawn, finished strokes are in the {@link #strokeCache}
+     */
+    private Path livePath = new Path();
+    private boolean drawingStroke;
+    private Bitmap strokeCache;
+    private Canvas strokeCacheCanvas;
     private Paint sigPaint = new Paint();
     private Paint hintPaint = new Paint();
     private Rect drawBounds = new Rect();
@@ -109,12 +127,15 @@ public class SignatureView extends View {
 
         a.recycle();
 
+        density = getResources().getDisplayMetrics().density;
+        strokes.setStrokeWidth(signatureStroke / density);
+
         sigPaint.setAntiAlias(true);
         sigPaint.setColor(signatureColor);
         sigPaint.setStyle(Paint.Style.STROKE);
         sigPaint.setStrokeJoin(Paint.Join.ROUND);
         sigPaint.setStrokeCap(Paint.Cap.ROUND);
-        sigPaint.setPathEffect(new CornerPathEffect(20));
+        sigPaint.setPathEffect(new CornerPathEffect(CORNER_RADIUS));
         sigPaint.setStrokeWidth(signatureStroke);
 
         hintPaint.setAntiAlias(true);
@@ -125,43 +146,111 @@ public class SignatureView extends View {
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        int x = (int) event.getX();
-        int y = (int) event.getY();
+        float x = event.getX();
+        float y = event.getY();
 
-        switch (event.getAction()) {
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
-                sigPoints.add(new LinePathPoint(x, y, LinePathPoint.TYPE_LINE_START));
-
-                if (sigPath.isEmpty()) {
-                    callbacks.onSignatureStarted();
+                boolean wasEmpty = strokes.isEmpty();
+                strokes.startStroke(x / density, y / density, 1, 0);
+                drawingStroke = true;
+
+                livePath.rewind();
+                livePath.moveTo(x, y);
+                lastX = x;
+                lastY = y;
+
+                if (wasEmpty) {
+                    if (callbacks != null) {
+                        callbacks.onSignatureStarted();
+                    }
+                    // the hint text has to go
+                    invalidate();
                 }
-
-                sigPath.moveTo(x, y);
-
-                invalidate();
                 break;
             case MotionEvent.ACTION_MOVE:
             case MotionEvent.ACTION_UP:
+                if (!drawingStroke) {
+                    break;
+                }
+                dirty.set((int) lastX, (int) lastY, (int) lastX, (int) lastY);
 
+                // at high touch rates several samples are batched into one event
                 int hSize = event.getHistorySize();
-
                 for (int i = 0; i < hSize; i++) {
-                    int hX = (int) event.getHistoricalX(i);
-                    int hY = (int) event.getHistoricalY(i);
-                    sigPath.lineTo(hX, hY);
-                    sigPoints.add(new LinePathPoint(x, y, LinePathPoint.TYPE_LINE_POINT));
+                    addPoint(event.getHistoricalX(i), event.getHistoricalY(i));
+                }
+                addPoint(x, y);
+
+                if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+                    if (simplifyTolerance > 0) {
+                        strokes.simplifyLastStroke(simplifyTolerance);
+                    }
+                    finishStroke();
+                } else {
+                    invalidateDirty();
                 }
-
-                sigPath.lineTo(x, y);
-                sigPoints.add(new LinePathPoint(x, y, LinePathPoint.TYPE_LINE_POINT));
-
-                invalidate();
                 break;
         }
 
         return true;
     }
 
+    private void addPoint(float x, float y) {
+        strokes.addPoint(x / density, y / density, 1, 0);
+        livePath.lineTo(x, y);
+        dirty.union((int) x, (int) y);
+        lastX = x;
+        lastY = y;
+    }
+
+    /**
+     * Invalidates only the bounds of the points added since the last frame, grown by the stroke
+     * width and by the corner radius, since rounding the last corner also changes the segment
+     * before it
+     */
+    private void invalidateDirty() {
+        int inset = (int) Math.ceil(sigPaint.getStrokeWidth() / 2 + CORNER_RADIUS) + 1;
+        invalidate(dirty.left - inset,
+                dirty.top - inset,
+                dirty.right + inset,
+                dirty.bottom + inset);
+    }
+
+    /**
+     * Moves the stroke that was just finished, simplified if it was, into the cache
+     */
+    private void finishStroke() {
+        drawingStroke = false;
+        livePath.rewind();
+        if (strokeCacheCanvas != null) {
+            Path path = new Path();
+            strokes.addStrokeToPath(strokes.getStrokeCount() - 1, density, 0, 0, path);
+            strokeCacheCanvas.drawPath(path, sigPaint);
+        }
+        invalidate();
+    }
+
+    /**
+     * Renders every finished stroke into the cache again, after it was resized or the strokes
+     * were replaced
+     */
+    private void redrawCache() {
+        if (strokeCache == null) {
+            return;
+        }
+        strokeCache.eraseColor(Color.TRANSPARENT);
+
+        int finished = strokes.getStrokeCount() - (drawingStroke ? 1 : 0);
+        if (finished > 0) {
+            Path path = new Path();
+            for (int stroke = 0; stroke < finished; stroke++) {
+                strokes.addStrokeToPath(stroke, density, 0, 0, path);
+            }
+            strokeCacheCanvas.drawPath(path, sigPaint);
+        }
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
@@ -169,6 +258,18 @@ public class SignatureView extends View {
         drawBounds.top = getPaddingTop();
         drawBounds.right = w - getPaddingRight();
         drawBounds.bottom = h - getPaddingBottom();
+
+        if (strokeCache != null) {
+            strokeCache.recycle();
+        }
+        if (w > 0 && h > 0) {
+            strokeCache = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            strokeCacheCanvas = new Canvas(strokeCache);
+        } else {
+            strokeCache = null;
+            strokeCacheCanvas = null;
+        }
+        redrawCache();
     }
 
     @Override
@@ -188,12 +289,15 @@ public class SignatureView extends View {
         //-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=
         // Draw signature or hint text
         //-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=-=
-        if (sigPath.isEmpty()) {
+        if (strokes.isEmpty()) {
             hintPaint.setColor(hintTextColor);
             int baselineY = drawBounds.bottom - guidelineMargin - guidelineHeight;
             canvas.drawText(hintText, drawBounds.left, baselineY, hintPaint);
         } else {
-            canvas.drawPath(sigPath, sigPaint);
+            if (strokeCache != null) {
+                canvas.drawBitmap(strokeCache, 0, 0, null);
+            }
+            canvas.drawPath(livePath, sigPaint);
         }
     }
 
@@ -201,7 +305,7 @@ public class SignatureView extends View {
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SignatureSavedState ss = new SignatureSavedState(superState);
-        ss.points = sigPoints;
+        ss.strokes = strokes.isEmpty() ? null : strokes.encode();
         return ss;
     }
 
@@ -215,21 +319,21 @@ public class SignatureView extends View {
         SignatureSavedState ss = (SignatureSavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
 
-        sigPoints = ss.points;
-        sigPath.rewind();
-
-        for (LinePathPoint point : sigPoints) {
-            if (point.isStartPoint()) {
-                sigPath.moveTo(point.x, point.y);
-            } else {
-                sigPath.lineTo(point.x, point.y);
-            }
+        if (ss.strokes != null) {
+            float strokeWidth = strokes.getStrokeWidth();
+            strokes = SignatureStrokes.decode(ss.strokes);
+            strokes.setStrokeWidth(strokeWidth);
         }
+        drawingStroke = false;
+        livePath.rewind();
+        redrawCache();
     }
 
     public void clearSignature() {
-        sigPath.rewind();
-        sigPoints.clear();
+        drawingStroke = false;
+        livePath.rewind();
+        strokes.clear();
+        redrawCache();
 
         ViewCompat.postInvalidateOnAnimation(this);
 
@@ -239,7 +343,7 @@ public class SignatureView extends View {
     }
 
     public boolean isSignatureDrawn() {
-        return !sigPath.isEmpty();
+        return !strokes.isEmpty();
     }
 
     public void setCallbacks(SignatureCallbacks callbacks) {
@@ -247,47 +351,37 @@ public class SignatureView extends View {
     }
 
     /**
-     * 1. Iterating over the path points, saving them in an array ... not bueno. Try to use
-     * {@link android.graphics.PathMeasure} class and get minX and minY from that.
-     * <p>
-     * 2. Scale bitmap down. Currently drawing at density of device.
+     * Sets how far, in dp, a point may be from a finished stroke when it is simplified with the
+     * Ramer-Douglas-Peucker algorithm. The default of a quarter dp is invisible on screen.
+     *
+     * @param simplifyTolerance the tolerance in dp, 0 to keep every point
      */
-    public Bitmap createSignatureBitmap() {
+    public void setSimplifyTolerance(float simplifyTolerance) {
+        this.simplifyTolerance = simplifyTolerance;
+    }
+
+    /**
+     * Returns the signature as vector strokes in dp, which is much smaller to store or send than
+     * {@link #createSignatureBitmap()} and can be rasterized at any size later.
+     *
+     * @return the strokes drawn so far, owned by this view so copy them with {@link
+     * SignatureStrokes#encode()} if they need to outlive the next touch
+     */
+    public SignatureStrokes getSignatureStrokes() {
+        return strokes;
+    }
 
+    /**
+     * Rasterizes the signature in the print color, one pixel per dp and cropped to its bounds.
+     *
+     * @return the bitmap, or null if nothing was drawn
+     */
+    public Bitmap createSignatureBitmap() {
         Paint bitmapSigPaint = new Paint(sigPaint);
         bitmapSigPaint.setColor(sigPrintColor);
-
-        RectF sigBounds = new RectF();
-        sigPath.computeBounds(sigBounds, true);
-
-        if (sigBounds.width() != 0 && sigBounds.height() != 0) {
-            float density = getResources().getDisplayMetrics().density;
-            int dipWidth = (int) (sigBounds.width() / density);
-            int dipHeight = (int) (sigBounds.height() / density);
-
-            Bitmap returnedBitmap = Bitmap.createBitmap(dipWidth, dipHeight,
-                    Bitmap.Config.ARGB_4444);
-
-            float minX = Integer.MAX_VALUE;
-            float minY = Integer.MAX_VALUE;
-
-            for (LinePathPoint point : sigPoints) {
-                minX = Math.min(minX, point.x);
-                minY = Math.min(minY, point.y);
-            }
-
-            sigPath.offset(-minX, -minY);
-
-            PathShape pathShape = new PathShape(sigPath, sigBounds.width(), sigBounds.height());
-            pathShape.resize(dipWidth, dipHeight);
-
-            Canvas canvas = new Canvas(returnedBitmap);
-            pathShape.draw(canvas, bitmapSigPaint);
-
-            return returnedBitmap;
-        }
-
-        return null;
+        // the corner effect is sized for the screen, not dp
+        bitmapSigPaint.setPathEffect(new CornerPathEffect(CORNER_RADIUS / density));
+        return strokes.createBitmap(1, bitmapSigPaint);
     }
 
     private static class SignatureSavedState extends BaseSavedState {
@@ -302,7 +396,7 @@ public class SignatureView extends View {
                 return new SignatureSavedState[size];
             }
         };
-        List<LinePathPoint> points;
+        byte[] strokes;
 
         SignatureSavedState(Parcelable superState) {
             super(superState);
@@ -310,17 +404,20 @@ public class SignatureView extends View {
 
         private SignatureSavedState(Parcel in) {
             super(in);
-            this.points = new ArrayList<>();
-            in.readList(points, LinePathPoint.class.getClassLoader());
+            this.strokes = in.createByteArray();
         }
 
         @Override
         public void writeToParcel(Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeList(points);
+            out.writeByteArray(strokes);
         }
     }
 
+    /**
+     * @deprecated points are kept in {@link SignatureStrokes}, see {@link #getSignatureStrokes()}
+     */
+    @Deprecated
     public static class LinePathPoint extends Point {
 
         public static final int TYPE_LINE_START = 0;
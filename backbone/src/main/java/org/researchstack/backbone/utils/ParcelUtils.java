@@ -0,0 +1,319 @@
+package org.researchstack.backbone.utils;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for the hand written {@link Parcelable} implementations of tasks, steps, answer formats
+ * and results.
+ * <p>
+ * Those classes are also {@link Serializable}, and subclasses defined elsewhere, like in an app, may
+ * add fields without overriding {@link Parcelable#writeToParcel}. A subclass that doesn't declare
+ * its own CREATOR would be read back as its superclass, so objects are only parceled when their
+ * class declares one and are serialized otherwise.
+ */
+public class ParcelUtils {
+    private static final int OBJECT_NULL = 0;
+    private static final int OBJECT_PARCELABLE = 1;
+    private static final int OBJECT_SERIALIZABLE = 2;
+
+    private static final int VALUE_DATE = 1;
+    private static final int VALUE_OBJECT = 2;
+    private static final int VALUE_UTF_8 = 3;
+    private static final int VALUE_OTHER = 4;
+
+    /**
+     * Strings at least this long are written as UTF-8 instead of UTF-16, which halves the size of
+     * long ASCII answers like a Base64 encoded signature
+     */
+    private static final int UTF_8_MIN_LENGTH = 256;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private static final ClassLoader CLASS_LOADER = ParcelUtils.class.getClassLoader();
+
+    private static final Map<Class<?>, Boolean> OWN_CREATOR = new HashMap<>();
+
+    private ParcelUtils() {
+    }
+
+    /**
+     * Returns whether the object can be parceled without losing its class, that is whether it is
+     * {@link Parcelable} and its class declares a CREATOR itself rather than inheriting one.
+     *
+     * @param object the object to check
+     * @return true if the object is safe to parcel
+     */
+    public static boolean isParcelable(Object object) {
+        if (!(object instanceof Parcelable)) {
+            return false;
+        }
+
+        Class<?> cls = object.getClass();
+        synchronized (OWN_CREATOR) {
+            Boolean own = OWN_CREATOR.get(cls);
+            if (own == null) {
+                try {
+                    own = cls.getField("CREATOR").getDeclaringClass() == cls;
+                } catch (NoSuchFieldException e) {
+                    own = false;
+                }
+                OWN_CREATOR.put(cls, own);
+            }
+            return own;
+        }
+    }
+
+    /**
+     * Puts the object into the bundle as a Parcelable if {@link #isParcelable} allows, otherwise as
+     * a Serializable. Either way it can be read back with {@link Bundle#getSerializable}.
+     *
+     * @param bundle the bundle
+     * @param key    the key
+     * @param value  the object, may be null
+     */
+    public static void putObject(Bundle bundle, String key, Serializable value) {
+        if (isParcelable(value)) {
+            bundle.putParcelable(key, (Parcelable) value);
+        } else {
+            bundle.putSerializable(key, value);
+        }
+    }
+
+    /**
+     * Intent version of {@link #putObject(Bundle, String, Serializable)}, read it back with {@link
+     * Intent#getSerializableExtra}.
+     *
+     * @param intent the intent
+     * @param name   the name of the extra
+     * @param value  the object, may be null
+     */
+    public static void putExtra(Intent intent, String name, Serializable value) {
+        if (isParcelable(value)) {
+            intent.putExtra(name, (Parcelable) value);
+        } else {
+            intent.putExtra(name, value);
+        }
+    }
+
+    /**
+     * Writes a task, step, answer format or other object that is Parcelable, Serializable or both.
+     * Objects that are only Parcelable are always parceled.
+     *
+     * @param dest   the parcel
+     * @param object the object, may be null
+     * @param flags  the flags passed to writeToParcel
+     */
+    public static void writeObject(Parcel dest, Object object, int flags) {
+        if (object == null) {
+            dest.writeInt(OBJECT_NULL);
+        } else if (isParcelable(object) || !(object instanceof Serializable)) {
+            dest.writeInt(OBJECT_PARCELABLE);
+            dest.writeParcelable((Parcelable) object, flags);
+        } else {
+            dest.writeInt(OBJECT_SERIALIZABLE);
+            dest.writeSerializable((Serializable) object);
+        }
+    }
+
+    /**
+     * Reads an object written by {@link #writeObject}.
+     *
+     * @param in  the parcel
+     * @param <T> the type of the object
+     * @return the object, or null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T readObject(Parcel in) {
+        switch (in.readInt()) {
+            case OBJECT_PARCELABLE:
+                return (T) in.readParcelable(CLASS_LOADER);
+            case OBJECT_SERIALIZABLE:
+                return (T) in.readSerializable();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Writes an answer or other value of unknown type. Dates are written as their time, long
+     * strings as UTF-8, objects of this library with {@link #writeObject} and anything else, like a
+     * Uri or a Bundle, with {@link Parcel#writeValue}.
+     *
+     * @param dest  the parcel
+     * @param value the value, may be null
+     * @param flags the flags passed to writeToParcel
+     */
+    public static void writeValue(Parcel dest, Object value, int flags) {
+        if (value instanceof Date) {
+            dest.writeInt(VALUE_DATE);
+            dest.writeLong(((Date) value).getTime());
+        } else if (value instanceof String && ((String) value).length() >= UTF_8_MIN_LENGTH) {
+            dest.writeInt(VALUE_UTF_8);
+            dest.writeByteArray(((String) value).getBytes(UTF_8));
+        } else if (value instanceof Parcelable && value instanceof Serializable) {
+            // objects of this library are both, see isParcelable
+            dest.writeInt(VALUE_OBJECT);
+            writeObject(dest, value, flags);
+        } else {
+            dest.writeInt(VALUE_OTHER);
+            dest.writeValue(value);
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeValue}.
+     *
+     * @param in the parcel
+     * @return the value, or null
+     */
+    public static Object readValue(Parcel in) {
+        switch (in.readInt()) {
+            case VALUE_DATE:
+                return new Date(in.readLong());
+            case VALUE_OBJECT:
+                return readObject(in);
+            case VALUE_UTF_8:
+                return new String(in.createByteArray(), UTF_8);
+            default:
+                return in.readValue(CLASS_LOADER);
+        }
+    }
+
+    /**
+     * Writes a map with string keys, its values with {@link #writeValue}.
+     *
+     * @param dest  the parcel
+     * @param map   the map, may be null
+     * @param flags the flags passed to writeToParcel
+     */
+    public static void writeMap(Parcel dest, Map<String, ?> map, int flags) {
+        if (map == null) {
+            dest.writeInt(-1);
+            return;
+        }
+        dest.writeInt(map.size());
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            dest.writeString(entry.getKey());
+            writeValue(dest, entry.getValue(), flags);
+        }
+    }
+
+    /**
+     * Reads a map written by {@link #writeMap} into the given map.
+     *
+     * @param in  the parcel
+     * @param map the map to fill
+     * @param <T> the type of the values
+     * @param <M> the type of the map
+     * @return the filled map, or null if a null map was written
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, M extends Map<String, T>> M readMap(Parcel in, M map) {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        for (int i = 0; i < size; i++) {
+            map.put(in.readString(), (T) readValue(in));
+        }
+        return map;
+    }
+
+    /**
+     * Writes a list, its items with {@link #writeObject}.
+     *
+     * @param dest  the parcel
+     * @param list  the list, may be null
+     * @param flags the flags passed to writeToParcel
+     */
+    public static void writeList(Parcel dest, List<?> list, int flags) {
+        if (list == null) {
+            dest.writeInt(-1);
+            return;
+        }
+        dest.writeInt(list.size());
+        for (Object item : list) {
+            writeObject(dest, item, flags);
+        }
+    }
+
+    /**
+     * Reads a list written by {@link #writeList}.
+     *
+     * @param in  the parcel
+     * @param <T> the type of the items
+     * @return the list, or null
+     */
+    public static <T> List<T> readList(Parcel in) {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(ParcelUtils.<T>readObject(in));
+        }
+        return list;
+    }
+
+    public static void writeDate(Parcel dest, Date date) {
+        dest.writeLong(date == null ? NULL_DATE : date.getTime());
+    }
+
+    public static Date readDate(Parcel in) {
+        long time = in.readLong();
+        return time == NULL_DATE ? null : new Date(time);
+    }
+
+    public static void writeEnum(Parcel dest, Enum<?> value) {
+        dest.writeInt(value == null ? -1 : value.ordinal());
+    }
+
+    public static <E extends Enum<E>> E readEnum(Parcel in, Class<E> type) {
+        int ordinal = in.readInt();
+        return ordinal < 0 ? null : type.getEnumConstants()[ordinal];
+    }
+
+    public static void writeBoolean(Parcel dest, boolean value) {
+        dest.writeInt(value ? 1 : 0);
+    }
+
+    public static boolean readBoolean(Parcel in) {
+        return in.readInt() != 0;
+    }
+
+    /**
+     * Writes a class by name, like the layout class of a step.
+     *
+     * @param dest the parcel
+     * @param cls  the class, may be null
+     */
+    public static void writeClass(Parcel dest, Class<?> cls) {
+        dest.writeString(cls == null ? null : cls.getName());
+    }
+
+    public static Class<?> readClass(Parcel in) {
+        String name = in.readString();
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Class.forName(name, false, CLASS_LOADER);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
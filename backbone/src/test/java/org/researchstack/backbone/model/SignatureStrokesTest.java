@@ -0,0 +1,82 @@
+package org.researchstack.backbone.model;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class SignatureStrokesTest {
+    @Test
+    public void testEncodeDecode() throws Exception {
+        SignatureStrokes strokes = new SignatureStrokes(true, true);
+        strokes.setStrokeWidth(1.5f);
+        strokes.startStroke(10, 20, 0.5f, 1000);
+        strokes.addPoint(10.25f, 21, 0.75f, 1016);
+        strokes.addPoint(-3, 400.125f, 1, 1033);
+        strokes.startStroke(50, 50, 0, 2000);
+
+        SignatureStrokes copy = SignatureStrokes.decode(strokes.encode());
+        assertEquals(Integer.valueOf(2), Integer.valueOf(copy.getStrokeCount()));
+        assertEquals(Integer.valueOf(4), Integer.valueOf(copy.getPointCount()));
+        assertEquals(Integer.valueOf(3), Integer.valueOf(copy.getStrokeEnd(0)));
+        assertEquals(Integer.valueOf(4), Integer.valueOf(copy.getStrokeEnd(1)));
+        assertEquals(1.5f, copy.getStrokeWidth());
+        for (int i = 0; i < strokes.getPointCount(); i++) {
+            assertEquals(strokes.getX(i), copy.getX(i));
+            assertEquals(strokes.getY(i), copy.getY(i));
+            assertEquals(strokes.getPressure(i), copy.getPressure(i));
+            assertEquals(strokes.getTime(i), copy.getTime(i));
+        }
+        assertEquals(400.125f, copy.getY(2));
+        assertEquals(Integer.valueOf(1000), Integer.valueOf(copy.getTime(3)));
+    }
+
+    @Test
+    public void testEncodedSize() throws Exception {
+        // a wavy line sampled every few dp, like a fast signature
+        SignatureStrokes strokes = new SignatureStrokes(false, false);
+        strokes.startStroke(0, 50, 1, 0);
+        for (int i = 1; i < 1000; i++) {
+            strokes.addPoint(i * 0.3f, 50 + (float) Math.sin(i / 10.0) * 30, 1, 0);
+        }
+
+        byte[] encoded = strokes.encode();
+        // two bytes per point at most, a PNG of the same signature is tens of kilobytes
+        assertTrue(encoded.length < 2 * 1000 + 16);
+        assertEquals(strokes.getY(999), SignatureStrokes.decode(encoded).getY(999));
+    }
+
+    @Test
+    public void testSimplifyLastStroke() throws Exception {
+        SignatureStrokes strokes = new SignatureStrokes(false, true);
+        strokes.startStroke(0, 0, 1, 0);
+        strokes.addPoint(5, 5, 1, 0);
+        strokes.startStroke(0, 0, 1, 100);
+        for (int i = 1; i <= 10; i++) {
+            strokes.addPoint(i, i % 2 == 0 ? 0.1f : 0, 1, 100 + i);
+        }
+        strokes.addPoint(10, 10, 1, 120);
+
+        assertEquals(Integer.valueOf(9), Integer.valueOf(strokes.simplifyLastStroke(0.5f)));
+        assertEquals(Integer.valueOf(5), Integer.valueOf(strokes.getPointCount()));
+        // the first stroke is left alone
+        assertEquals(Integer.valueOf(2), Integer.valueOf(strokes.getStrokeEnd(0)));
+        assertEquals(10f, strokes.getX(3));
+        assertEquals(Integer.valueOf(110), Integer.valueOf(strokes.getTime(3)));
+        assertEquals(10f, strokes.getY(4));
+    }
+
+    @Test
+    public void testSvg() throws Exception {
+        SignatureStrokes strokes = new SignatureStrokes(false, false);
+        strokes.setStrokeWidth(1);
+        strokes.startStroke(1, 1, 1, 0);
+        strokes.addPoint(2, 3, 1, 0);
+        strokes.startStroke(4, 4, 1, 0);
+
+        String svg = strokes.toSvg("#000000");
+        assertTrue(svg, svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\""));
+        assertTrue(svg, svg.contains("viewBox=\"4 4 32 32\""));
+        assertTrue(svg, svg.contains("d=\"M8 8l8 16M32 32l0 0\""));
+    }
+}
@@ -0,0 +1,84 @@
+package org.researchstack.backbone.result;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+
+public class OrderedResultMapTest {
+
+    @Test
+    public void testKeepsInsertionOrder() throws Exception {
+        OrderedResultMap<Integer> map = new OrderedResultMap<>(2);
+        List<String> expected = new ArrayList<>();
+        for (int i = 100; i > 0; i--) {
+            map.put("step" + i, i);
+            expected.add("step" + i);
+        }
+        map.put("step50", -50);
+
+        assertEquals(expected, new ArrayList<>(map.keySet()));
+        assertEquals(Integer.valueOf(-50), map.get("step50"));
+        assertEquals(Integer.valueOf(1), map.get("step1"));
+        assertNull(map.get("step0"));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        OrderedResultMap<String> map = new OrderedResultMap<>();
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put(null, "3");
+        map.put("c", null);
+
+        assertEquals("2", map.remove("b"));
+        assertEquals(Arrays.asList("a", null, "c"), new ArrayList<>(map.keySet()));
+        assertEquals("3", map.get(null));
+        assertTrue(map.containsKey("c"));
+
+        Iterator<String> keys = map.keySet().iterator();
+        keys.next();
+        keys.remove();
+        assertEquals(null, keys.next());
+        assertEquals(Arrays.asList(null, "c"), new ArrayList<>(map.keySet()));
+        assertFalse(map.containsKey("a"));
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put(null, "3");
+        expected.put("c", null);
+        assertEquals(expected, map);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerializable() throws Exception {
+        OrderedResultMap<Integer> map = new OrderedResultMap<>();
+        map.put("z", 1);
+        map.put("a", 2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        Map<String, Integer> read = (Map<String, Integer>) new ObjectInputStream(new ByteArrayInputStream(
+                bytes.toByteArray())).readObject();
+
+        assertEquals(Arrays.asList("z", "a"), new ArrayList<>(read.keySet()));
+        assertEquals(Integer.valueOf(2), read.get("a"));
+    }
+}
@@ -0,0 +1,120 @@
+package org.researchstack.backbone.result;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.researchstack.backbone.answerformat.IntegerAnswerFormat;
+import org.researchstack.backbone.step.QuestionStep;
+import org.researchstack.backbone.step.Step;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+
+public class SingleValueStepResultTest {
+
+    @Test
+    public void testMapViewOfPrimitive() throws Exception {
+        IntStepResult result = new IntStepResult(new Step("age"));
+        assertTrue(result.getResults().isEmpty());
+        assertFalse(result.hasResult());
+
+        result.setIntResult(42);
+
+        assertEquals(42, result.getIntResult());
+        assertEquals(Integer.valueOf(42), result.getResult());
+        assertEquals(1, result.getResults().size());
+        assertEquals(Integer.valueOf(42), result.getResults().get(StepResult.DEFAULT_KEY));
+
+        result.getResults().put(StepResult.DEFAULT_KEY, 7);
+        assertEquals(7, result.getIntResult());
+    }
+
+    @Test
+    public void testNullIsKeptAsAKey() throws Exception {
+        LongStepResult result = new LongStepResult(new Step("date"));
+        result.setResult(null);
+
+        assertFalse(result.hasResult());
+        assertTrue(result.getResults().containsKey(StepResult.DEFAULT_KEY));
+        assertNull(result.getResult());
+    }
+
+    @Test
+    public void testOtherKeysSpillIntoMap() throws Exception {
+        FloatStepResult result = new FloatStepResult(new Step("weight"));
+        result.setFloatResult(71.5f);
+        result.setResultForIdentifier("unit", 1f);
+
+        assertEquals(2, result.getResults().size());
+        assertEquals(71.5f, result.getFloatResult());
+        assertEquals(Float.valueOf(1f), result.getResultForIdentifier("unit"));
+
+        result.setFloatResult(70f);
+        assertEquals(Float.valueOf(70f), result.getResults().get(StepResult.DEFAULT_KEY));
+    }
+
+    @Test
+    public void testJsonMatchesPlainStepResult() throws Exception {
+        Date date = new Date(1466000000000L);
+        BooleanStepResult specialized = new BooleanStepResult(new Step("smoker"));
+        specialized.setBooleanResult(true);
+        specialized.setStartDate(date);
+        specialized.setEndDate(date);
+
+        StepResult<Boolean> plain = new StepResult<>(new Step("smoker"));
+        plain.setResult(true);
+        plain.setStartDate(date);
+        plain.setEndDate(date);
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("child", specialized);
+        Map<String, Object> plainResults = new HashMap<>();
+        plainResults.put("child", plain);
+
+        Gson gson = new Gson();
+        assertEquals(gson.toJson(plainResults), gson.toJson(results));
+
+        BooleanStepResult read = gson.fromJson(gson.toJson(specialized), BooleanStepResult.class);
+        assertEquals("smoker", read.getIdentifier());
+        assertEquals(Boolean.TRUE, read.getResult());
+    }
+
+    @Test
+    public void testJsonReadsTypedAnswerWithoutAnswerFormat() throws Exception {
+        IntStepResult result = new IntStepResult(new QuestionStep("age",
+                "Age",
+                new IntegerAnswerFormat(0, 120)));
+        result.setIntResult(42);
+
+        Gson gson = new Gson();
+        String json = gson.toJson(result);
+        assertTrue(json.contains("\"maxValue\":120"));
+
+        IntStepResult read = gson.fromJson(json, IntStepResult.class);
+        assertEquals(42, read.getIntResult());
+        assertEquals(Integer.valueOf(42), read.getResult());
+        assertEquals(result.getEndDate().getTime() / 1000, read.getEndDate().getTime() / 1000);
+        // the answer format is written without its type and can't be read back
+        assertNull(read.getAnswerFormat());
+    }
+
+    @Test
+    public void testTypedGetterAfterSpill() throws Exception {
+        StringStepResult result = new StringStepResult(new Step("name"));
+        result.setStringResult("Ada");
+        result.setResultForIdentifier("nickname", "A");
+        result.getResults().put(StepResult.DEFAULT_KEY, "Grace");
+
+        assertEquals("Grace", result.getStringResult());
+
+        result.setStringResult(null);
+        assertNull(result.getStringResult());
+    }
+}
@@ -0,0 +1,64 @@
+package org.researchstack.backbone.result;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.researchstack.backbone.step.Step;
+
+import static junit.framework.Assert.assertTrue;
+
+
+/**
+ * Rough per-result heap footprint of a 200 question survey of integer answers, kept in plain
+ * {@link StepResult}s and in {@link IntStepResult}s.
+ */
+@Ignore("Benchmark, run by hand")
+public class StepResultMemoryBenchmark {
+    private static final int QUESTIONS = 200;
+    private static final int SURVEYS = 250;
+
+    @Test
+    public void testIntResultFootprint() throws Exception {
+        Step[] steps = new Step[QUESTIONS];
+        for (int i = 0; i < QUESTIONS; i++) {
+            steps[i] = new Step("question" + i);
+        }
+
+        double plain = bytesPerResult(steps, false);
+        double specialized = bytesPerResult(steps, true);
+
+        assertTrue(String.format("IntStepResult takes %.0f bytes, StepResult<Integer> %.0f bytes",
+                specialized,
+                plain), specialized < plain);
+    }
+
+    private static double bytesPerResult(Step[] steps, boolean specialized) {
+        Object[] results = new Object[QUESTIONS * SURVEYS];
+        long before = usedMemory();
+        for (int i = 0; i < results.length; i++) {
+            Step step = steps[i % QUESTIONS];
+            // answers over 127 so the plain results can't share cached Integers
+            if (specialized) {
+                IntStepResult result = new IntStepResult(step);
+                result.setIntResult(1000 + i);
+                results[i] = result;
+            } else {
+                StepResult<Integer> result = new StepResult<>(step);
+                result.setResult(1000 + i);
+                results[i] = result;
+            }
+        }
+        long after = usedMemory();
+
+        // keep the results reachable until measured
+        assertTrue(results[results.length - 1] != null);
+        return (double) (after - before) / results.length;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,76 @@
+package org.researchstack.backbone.storage.database;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static junit.framework.Assert.assertEquals;
+
+
+public class AnswerAggregateTest {
+
+    @Test
+    public void testMergeJoinsBucketsWithTheSameStart() throws Exception {
+        AnswerAggregate march = new AnswerAggregate(new long[] {100, 200},
+                new int[] {1, 2},
+                new double[] {5, 1},
+                new double[] {5, 3},
+                new double[] {5, 4},
+                new double[] {25, 10});
+        AnswerAggregate april = new AnswerAggregate(new long[] {200, 300},
+                new int[] {2, 1},
+                new double[] {0, 7},
+                new double[] {6, 7},
+                new double[] {6, 7},
+                new double[] {36, 49});
+
+        AnswerAggregate merged = AnswerAggregate.merge(Arrays.asList(march, april));
+
+        assertEquals(3, merged.size());
+        assertEquals(100, merged.getBucketStart(0));
+        assertEquals(200, merged.getBucketStart(1));
+        assertEquals(300, merged.getBucketStart(2));
+
+        assertEquals(4, merged.getCount(1));
+        assertEquals(0.0, merged.getMin(1));
+        assertEquals(6.0, merged.getMax(1));
+        assertEquals(10.0, merged.getSum(1));
+        assertEquals(46.0, merged.getSumOfSquares(1));
+        assertEquals(2.5, merged.getAverage(1));
+    }
+
+    @Test
+    public void testDayBucketsAcrossDaylightSavingChange() throws Exception {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            long from = localTime(2016, Calendar.MARCH, 12, 12, 0);
+            long to = localTime(2016, Calendar.MARCH, 15, 0, 0);
+            // half past midnight, after clocks went forward on the 13th
+            long afterChange = localTime(2016, Calendar.MARCH, 14, 0, 30);
+
+            AnswerAggregate.Bucket day = AnswerAggregate.Bucket.DAY;
+            long index = day.getIndex(afterChange, from);
+            assertEquals(day.getIndex(from, from) + 2, index);
+            assertEquals(localTime(2016, Calendar.MARCH, 14, 0, 0), day.getStart(index, from));
+
+            // 2am EST on the 13th
+            String sql = AnswerAggregate.Bucket.getOffsetSql("completed", from, to);
+            assertEquals("CASE WHEN completed < 1457852400000 THEN -18000000 ELSE -14400000 END",
+                    sql);
+            assertEquals("-18000000",
+                    AnswerAggregate.Bucket.getOffsetSql("completed", from, from + 1000));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private static long localTime(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,157 @@
+package org.researchstack.backbone.storage.database;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.step.Step;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+
+public class BinaryResultCodecTest {
+
+    private BinaryResultCodec codec;
+
+    @Before
+    public void setUp() throws Exception {
+        codec = new BinaryResultCodec();
+    }
+
+    @Test
+    public void testScalarTypesRoundTrip() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        results.put("int", -42);
+        results.put("long", 1466000000000L);
+        results.put("float", 3.5f);
+        results.put("double", 0.1d);
+        results.put("boolean", true);
+        results.put("string", "héllo");
+        results.put("null", null);
+
+        Map<String, Object> decoded = codec.decode(codec.encode(results));
+
+        assertEquals("Integer keeps its type", -42, decoded.get("int"));
+        assertEquals("Long keeps its type", 1466000000000L, decoded.get("long"));
+        assertEquals("Float keeps its type", 3.5f, decoded.get("float"));
+        assertEquals("Double keeps its type", 0.1d, decoded.get("double"));
+        assertEquals(Boolean.TRUE, decoded.get("boolean"));
+        assertEquals("héllo", decoded.get("string"));
+        assertTrue("Null values are kept", decoded.containsKey("null"));
+        assertNull(decoded.get("null"));
+    }
+
+    @Test
+    public void testSmallPrimitivesRoundTrip() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        results.put("short", (short) -300);
+        results.put("byte", (byte) -7);
+        results.put("char", 'é');
+
+        Map<String, Object> decoded = codec.decode(codec.encode(results));
+
+        assertEquals("Short keeps its type", (short) -300, decoded.get("short"));
+        assertEquals("Byte keeps its type", (byte) -7, decoded.get("byte"));
+        assertEquals("Character keeps its type", 'é', decoded.get("char"));
+    }
+
+    @Test
+    public void testPrimitiveArraysRoundTrip() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        results.put("int", new int[] {1, -2, Integer.MAX_VALUE});
+        results.put("long", new long[] {Long.MIN_VALUE, 3});
+        results.put("short", new short[] {-4, 5});
+        results.put("byte", new byte[] {6, -128});
+        results.put("char", new char[] {'a', 'é'});
+        results.put("float", new float[] {1.5f, -0.25f});
+        results.put("double", new double[] {0.1, Double.NaN});
+        results.put("boolean", new boolean[] {true, false, true});
+        results.put("empty", new int[0]);
+
+        Map<String, Object> decoded = codec.decode(new BinaryResultCodec(false).encode(results));
+
+        assertTrue(Arrays.equals(new int[] {1, -2, Integer.MAX_VALUE}, (int[]) decoded.get("int")));
+        assertTrue(Arrays.equals(new long[] {Long.MIN_VALUE, 3}, (long[]) decoded.get("long")));
+        assertTrue(Arrays.equals(new short[] {-4, 5}, (short[]) decoded.get("short")));
+        assertTrue(Arrays.equals(new byte[] {6, -128}, (byte[]) decoded.get("byte")));
+        assertTrue(Arrays.equals(new char[] {'a', 'é'}, (char[]) decoded.get("char")));
+        assertTrue(Arrays.equals(new float[] {1.5f, -0.25f}, (float[]) decoded.get("float")));
+        assertTrue(Arrays.equals(new double[] {0.1, Double.NaN}, (double[]) decoded.get("double")));
+        assertTrue(Arrays.equals(new boolean[] {true, false, true},
+                (boolean[]) decoded.get("boolean")));
+        assertEquals(0, ((int[]) decoded.get("empty")).length);
+    }
+
+    @Test
+    public void testOtherTypesFallBackToJson() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        results.put("set", new TreeSet<>(Arrays.asList(1, 2)));
+
+        Map<String, Object> decoded = codec.decode(codec.encode(results));
+
+        assertEquals("Collections come back as lists of doubles",
+                Arrays.asList(1.0, 2.0),
+                decoded.get("set"));
+    }
+
+    @Test
+    public void testArraysAndChildResultsRoundTrip() throws Exception {
+        StepResult<Integer> child = new StepResult<>(new Step("child"));
+        child.setResult(7);
+        child.setStartDate(new Date(1000));
+        child.setEndDate(new Date(2000));
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("choices", new Object[] {"a", 2});
+        results.put("list", Arrays.asList(1L, "b"));
+        results.put("child", child);
+
+        Map<String, Object> decoded = codec.decode(codec.encode(results));
+
+        Object[] choices = (Object[]) decoded.get("choices");
+        assertEquals("Arrays come back as arrays", 2, choices.length);
+        assertEquals(2, choices[1]);
+        assertEquals(Arrays.asList(1L, "b"), (List) decoded.get("list"));
+
+        StepResult decodedChild = (StepResult) decoded.get("child");
+        assertEquals("child", decodedChild.getIdentifier());
+        assertEquals(7, decodedChild.getResult());
+        assertEquals(1000, decodedChild.getStartDate().getTime());
+        assertEquals(2000, decodedChild.getEndDate().getTime());
+    }
+
+    @Test
+    public void testLargePayloadIsDeflated() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append("repetitive answer ");
+        }
+        results.put(StepResult.DEFAULT_KEY, text.toString());
+
+        byte[] deflated = codec.encode(results);
+        byte[] plain = new BinaryResultCodec(false).encode(results);
+
+        assertTrue("Deflated payload is smaller", deflated.length < plain.length);
+        assertEquals(text.toString(), codec.decode(deflated).get(StepResult.DEFAULT_KEY));
+        assertEquals(text.toString(), codec.decode(plain).get(StepResult.DEFAULT_KEY));
+    }
+
+    @Test
+    public void testSmallerThanJson() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        results.put(StepResult.DEFAULT_KEY, 1234);
+
+        int binary = codec.encode(results).length;
+        int json = new JsonResultCodec().encode(results).length;
+        assertTrue("Binary encoding is smaller than json", binary < json);
+    }
+}
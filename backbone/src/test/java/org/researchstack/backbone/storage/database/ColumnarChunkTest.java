@@ -0,0 +1,93 @@
+package org.researchstack.backbone.storage.database;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+
+public class ColumnarChunkTest {
+
+    @Test
+    public void testRowsRoundTrip() throws Exception {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("mood", 4);
+        first.put("note", "tired, \"ok\"");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("weight", 71.5);
+        second.put("smoker", false);
+        second.put("choices", Arrays.asList("a", "b"));
+        second.put("skipped", null);
+
+        ColumnarChunkWriter writer = new ColumnarChunkWriter();
+        writer.add(record(12, "daily", "mood", 1466000000000L, first));
+        writer.add(record(13, "daily", "body", null, second));
+        ColumnarChunk chunk = ColumnarChunk.decode(writer.finish());
+
+        assertEquals(6, chunk.getRowCount());
+
+        assertEquals(12, chunk.getTaskRecordId(0));
+        assertEquals("daily", chunk.getTaskId(0));
+        assertEquals("mood", chunk.getStepId(0));
+        assertEquals("mood", chunk.getResultKey(0));
+        assertTrue(chunk.hasCompleted(0));
+        assertEquals(1466000000000L, chunk.getCompleted(0));
+        assertEquals(ColumnarChunk.TYPE_LONG, chunk.getValueType(0));
+        assertEquals(4, chunk.getLong(0));
+
+        assertEquals(ColumnarChunk.TYPE_STRING, chunk.getValueType(1));
+        assertEquals("tired, \"ok\"", chunk.getString(1));
+
+        assertEquals(13, chunk.getTaskRecordId(2));
+        assertEquals("body", chunk.getStepId(2));
+        assertFalse(chunk.hasCompleted(2));
+        assertEquals(ColumnarChunk.TYPE_DOUBLE, chunk.getValueType(2));
+        assertEquals(71.5, chunk.getDouble(2));
+
+        assertEquals(ColumnarChunk.TYPE_BOOLEAN, chunk.getValueType(3));
+        assertFalse(chunk.getBoolean(3));
+
+        assertEquals(ColumnarChunk.TYPE_JSON, chunk.getValueType(4));
+        assertEquals("[\"a\",\"b\"]", chunk.getString(4));
+
+        assertEquals(ColumnarChunk.TYPE_NULL, chunk.getValueType(5));
+    }
+
+    @Test
+    public void testChunksDecodeIndependently() throws Exception {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("answer", 1);
+
+        ColumnarChunkWriter writer = new ColumnarChunkWriter(2);
+        writer.add(record(1, "task", "a", 1000L, results));
+        writer.add(record(2, "task", "a", 3000L, results));
+        assertTrue(writer.isFull());
+        writer.finish();
+
+        writer.add(record(3, "other", "b", 2000L, results));
+        ColumnarChunk second = ColumnarChunk.decode(writer.finish());
+
+        assertEquals(1, second.getRowCount());
+        assertEquals(3, second.getTaskRecordId(0));
+        assertEquals("other", second.getTaskId(0));
+        assertEquals(2000L, second.getCompleted(0));
+        assertNull(writer.finish());
+    }
+
+    private static StepRecord record(int taskRecordId, String taskId, String stepId, Long completed, Map<String, Object> results) {
+        StepRecord record = new StepRecord();
+        record.taskRecordId = taskRecordId;
+        record.taskId = taskId;
+        record.stepId = stepId;
+        record.completed = completed == null ? null : new Date(completed);
+        record.setResults(new BinaryResultCodec(), results);
+        return record;
+    }
+}
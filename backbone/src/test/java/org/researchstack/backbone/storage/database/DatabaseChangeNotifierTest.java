@@ -0,0 +1,58 @@
+package org.researchstack.backbone.storage.database;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rx.observers.TestSubscriber;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+
+public class DatabaseChangeNotifierTest {
+
+    @Test
+    public void testCoalescesBursts() throws Exception {
+        DatabaseChangeNotifier notifier = new DatabaseChangeNotifier(50, 1000);
+        TestSubscriber<List<DatabaseChange>> subscriber = new TestSubscriber<>();
+        notifier.changes().take(1).subscribe(subscriber);
+
+        notifier.publish(Arrays.asList(new DatabaseChange(DatabaseChange.Kind.SAVED, "a", 1),
+                new DatabaseChange(DatabaseChange.Kind.SAVED, "b", 2)));
+        notifier.publish(DatabaseChange.Kind.UPLOADED, Arrays.asList(1, 2));
+
+        subscriber.awaitTerminalEvent(2, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        List<DatabaseChange> burst = subscriber.getOnNextEvents().get(0);
+
+        assertEquals(4, burst.size());
+        assertEquals("b", burst.get(1).getTaskIdentifier());
+        assertEquals(DatabaseChange.Kind.UPLOADED, burst.get(3).getKind());
+        assertEquals(2, burst.get(3).getTaskRecordId());
+        assertNull(burst.get(3).getTaskIdentifier());
+    }
+
+    @Test
+    public void testEmitsDuringSteadyChanges() throws Exception {
+        DatabaseChangeNotifier notifier = new DatabaseChangeNotifier(50, 200);
+        TestSubscriber<List<DatabaseChange>> subscriber = new TestSubscriber<>();
+        notifier.changes().take(1).subscribe(subscriber);
+
+        // a change every 10ms never leaves the database quiet for 50ms
+        long end = System.currentTimeMillis() + 1000;
+        for (int id = 1; System.currentTimeMillis() < end && subscriber.getOnNextEvents()
+                .isEmpty(); id++) {
+            notifier.publish(DatabaseChange.Kind.SAVED, Arrays.asList(id));
+            Thread.sleep(10);
+        }
+
+        subscriber.awaitTerminalEvent(2, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        assertEquals(1, subscriber.getOnNextEvents().size());
+        assertTrue(System.currentTimeMillis() < end);
+    }
+}
@@ -0,0 +1,144 @@
+package org.researchstack.backbone.storage.database;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+
+
+public class LatestResultCacheTest {
+
+    private LatestResultCache cache;
+
+    private int loads;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new LatestResultCache(2);
+        loads = 0;
+    }
+
+    @Test
+    public void testMissLoadsOnceThenHits() throws Exception {
+        TaskResult result = result("task", 1000);
+
+        assertEquals(1000, cache.get("task", id -> load(result)).getEndDate().getTime());
+        assertEquals(1000, cache.get("task", id -> load(result)).getEndDate().getTime());
+
+        assertEquals(1, loads);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCachesTasksWithoutResults() throws Exception {
+        assertNull(cache.get("task", id -> load(null)));
+        assertNull(cache.get("task", id -> load(null)));
+
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void testSaveReplacesOnlyNewerResults() throws Exception {
+        TaskResult loaded = result("task", 2000);
+        cache.get("task", id -> load(loaded));
+
+        cache.onSaved(result("task", 1000));
+        assertEquals(2000, cache.get("task", id -> load(null)).getEndDate().getTime());
+
+        cache.onSaved(result("task", 3000));
+        assertEquals(3000, cache.get("task", id -> load(null)).getEndDate().getTime());
+
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void testSaveReplacesMissingResult() throws Exception {
+        cache.get("task", id -> load(null));
+
+        cache.onSaved(result("task", 1000));
+
+        assertEquals(1000, cache.get("task", id -> load(null)).getEndDate().getTime());
+    }
+
+    @Test
+    public void testReturnsCopies() throws Exception {
+        TaskResult loaded = result("task", 1000);
+        cache.get("task", id -> load(loaded));
+        loaded.setEndDate(new Date(5000));
+
+        TaskResult hit = cache.get("task", id -> load(null));
+        assertEquals(1000, hit.getEndDate().getTime());
+        hit.getEndDate().setTime(6000);
+        assertFalse(hit == cache.get("task", id -> load(null)));
+        assertEquals(1000, cache.get("task", id -> load(null)).getEndDate().getTime());
+
+        TaskResult saved = result("task", 2000);
+        cache.onSaved(saved);
+        saved.setEndDate(new Date(7000));
+        assertEquals(2000, cache.get("task", id -> load(null)).getEndDate().getTime());
+    }
+
+    @Test
+    public void testCopiesStepResults() throws Exception {
+        TaskResult loaded = result("task", 1000);
+        StepResult<Integer> stepResult = new StepResult<>(new Step("q"));
+        stepResult.setResult(7);
+        loaded.setStepResultForStepIdentifier("q", stepResult);
+        loaded.setStepResultForStepIdentifier("skipped", null);
+        cache.get("task", id -> load(loaded));
+        stepResult.setResult(8);
+
+        TaskResult hit = cache.get("task", id -> load(null));
+        assertEquals(Arrays.asList("q", "skipped"), new ArrayList<>(hit.getResults().keySet()));
+        assertEquals(Integer.valueOf(7), hit.getStepResult("q").getResult());
+        assertNull(hit.getStepResult("skipped"));
+        hit.getStepResult("q").setResult(9);
+        assertEquals(Integer.valueOf(7), cache.get("task", id -> load(null)).getStepResult("q")
+                .getResult());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        cache.get("a", id -> load(result(id, 1)));
+        cache.get("b", id -> load(result(id, 1)));
+        cache.get("a", id -> load(null));
+        cache.get("c", id -> load(result(id, 1)));
+
+        assertEquals(2, cache.size());
+        assertEquals(3, loads);
+
+        cache.get("b", id -> load(result(id, 1)));
+        assertEquals(4, loads);
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        cache.get("task", id -> load(result(id, 1)));
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        cache.get("task", id -> load(result(id, 1)));
+        assertEquals(2, loads);
+    }
+
+    private TaskResult load(TaskResult result) {
+        loads++;
+        return result;
+    }
+
+    private static TaskResult result(String identifier, long endDate) {
+        TaskResult result = new TaskResult(identifier);
+        result.setEndDate(new Date(endDate));
+        return result;
+    }
+}
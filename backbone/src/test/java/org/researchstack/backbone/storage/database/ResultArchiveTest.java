@@ -0,0 +1,89 @@
+package org.researchstack.backbone.storage.database;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.storage.file.MemoryFileAccess;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+
+public class ResultArchiveTest {
+
+    private static final String PATH = ResultArchive.getPath(new Date(1000));
+
+    private Context context;
+
+    private MemoryFileAccess fileAccess;
+
+    private ResultArchive archive;
+
+    @Before
+    public void setUp() throws Exception {
+        context = Mockito.mock(Context.class);
+        fileAccess = new MemoryFileAccess();
+        archive = new ResultArchive(context, fileAccess);
+    }
+
+    @Test
+    public void testAppendWritesSegments() throws Exception {
+        archive.append(PATH, Collections.singletonMap(1, result("a", 1000)));
+        byte[] first = fileAccess.files.get(PATH);
+        archive.append(PATH, Collections.singletonMap(2, result("b", 2000)));
+
+        assertEquals(2, fileAccess.files.size());
+        assertTrue(first == fileAccess.files.get(PATH));
+
+        List<TaskResult> results = archive.read(PATH);
+        assertEquals(2, results.size());
+        assertEquals("a", results.get(0).getIdentifier());
+        assertEquals("b", results.get(1).getIdentifier());
+        assertEquals(Integer.valueOf(2),
+                results.get(1).getStepResult("q").getResult());
+    }
+
+    @Test
+    public void testRepeatedRecordsAreReadOnce() throws Exception {
+        Map<Integer, TaskResult> batch = new LinkedHashMap<>();
+        batch.put(1, result("a", 1000));
+        batch.put(2, result("a", 2000));
+        archive.append(PATH, batch);
+        archive.append(PATH, batch);
+
+        assertEquals(2, archive.readTaskResults(Collections.singletonList(PATH), "a").size());
+    }
+
+    @Test
+    public void testFindsSegmentsOfEarlierRuns() throws Exception {
+        archive.append(PATH, Collections.singletonMap(1, result("a", 1000)));
+        archive.append(PATH, Collections.singletonMap(2, result("b", 2000)));
+
+        ResultArchive reopened = new ResultArchive(context, fileAccess);
+        reopened.append(PATH, Collections.singletonMap(3, result("c", 3000)));
+
+        assertEquals(3, fileAccess.files.size());
+        assertEquals(3, reopened.read(PATH).size());
+    }
+
+    private static TaskResult result(String identifier, long completed) {
+        TaskResult result = new TaskResult(identifier);
+        result.setStartDate(new Date(completed - 1000));
+        result.setEndDate(new Date(completed));
+        StepResult<Integer> stepResult = new StepResult<>(new Step("q"));
+        stepResult.setResult((int) (completed / 1000));
+        result.setStepResultForStepIdentifier("q", stepResult);
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import org.junit.Test;
+import org.researchstack.backbone.storage.database.SearchHit;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+
+public class SearchTableTest {
+
+    @Test
+    public void testTopHitsKeepsBestFirst() throws Exception {
+        SearchTable.TopHits hits = new SearchTable.TopHits(3);
+        double[] scores = {0.5, 2.0, 1.0, 0.1, 3.0, 1.0, 0.7};
+        for (int id = 0; id < scores.length; id++) {
+            if (hits.accepts(scores[id], id)) {
+                hits.add(new SearchHit(id, "task", "step", null, scores[id]));
+            }
+        }
+
+        List<SearchHit> top = hits.toList();
+        assertEquals(3, top.size());
+        assertEquals(4, top.get(0).getStepRecordId());
+        assertEquals(1, top.get(1).getStepRecordId());
+        // equal scores keep the lower id
+        assertEquals(2, top.get(2).getStepRecordId());
+        assertFalse(hits.accepts(1.0, 9));
+        assertTrue(hits.accepts(1.5, 9));
+    }
+
+    @Test
+    public void testTopHitsWithoutRoom() throws Exception {
+        SearchTable.TopHits hits = new SearchTable.TopHits(0);
+
+        assertFalse(hits.accepts(10, 1));
+        assertTrue(hits.toList().isEmpty());
+    }
+}
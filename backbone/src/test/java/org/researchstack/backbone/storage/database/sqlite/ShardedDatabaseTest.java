@@ -0,0 +1,53 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+
+public class ShardedDatabaseTest {
+
+    private static final int MARCH_2016 = 2016 * 12 + 2;
+
+    private static final int MAX_LOCAL_ID = (1 << 21) - 1;
+
+    @Test
+    public void testIdsRoundTrip() throws Exception {
+        int first = ShardedDatabase.encodeId(MARCH_2016, 1);
+        int last = ShardedDatabase.encodeId(MARCH_2016, MAX_LOCAL_ID);
+        int other = ShardedDatabase.encodeId(MARCH_2016 + 1, 1);
+
+        Map<Integer, List<Integer>> decoded = ShardedDatabase.decodeIds(Arrays.asList(first,
+                last,
+                other));
+        assertEquals(2, decoded.size());
+        assertEquals(Arrays.asList(1, MAX_LOCAL_ID), decoded.get(MARCH_2016));
+        assertEquals(Arrays.asList(1), decoded.get(MARCH_2016 + 1));
+    }
+
+    @Test
+    public void testLastMonthStaysPositive() throws Exception {
+        int lastMonth = 2085 * 12 + 3;
+        int id = ShardedDatabase.encodeId(lastMonth, MAX_LOCAL_ID);
+
+        assertTrue(id > 0);
+        assertEquals(Arrays.asList(MAX_LOCAL_ID),
+                ShardedDatabase.decodeIds(Arrays.asList(id)).get(lastMonth));
+        assertEquals(ShardedDatabase.NO_ID, ShardedDatabase.encodeId(lastMonth + 1, 1));
+    }
+
+    @Test
+    public void testLocalIdsPastTheLimitDontFit() throws Exception {
+        assertEquals(ShardedDatabase.NO_ID,
+                ShardedDatabase.encodeId(MARCH_2016, MAX_LOCAL_ID + 1));
+        assertEquals(ShardedDatabase.NO_ID, ShardedDatabase.encodeId(1999 * 12, 1));
+
+        // the id of the next month's first record isn't taken by an overflowing one
+        assertEquals(0, ShardedDatabase.decodeIds(Arrays.asList(ShardedDatabase.NO_ID)).size());
+    }
+}
@@ -0,0 +1,38 @@
+package org.researchstack.backbone.storage.database.sqlite;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+
+public class SummaryTableTest {
+
+    @Test
+    public void testCoversOnlyWholeLocalDays() throws Exception {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            long midnight = localTime(2016, Calendar.MARCH, 12, 0, 0);
+            // the 13th is only 23 hours long
+            long afterChange = localTime(2016, Calendar.MARCH, 15, 0, 0);
+            long noon = localTime(2016, Calendar.MARCH, 14, 12, 0);
+
+            assertTrue(SummaryTable.covers(midnight, afterChange));
+            assertFalse(SummaryTable.covers(midnight, noon));
+            assertFalse(SummaryTable.covers(noon, afterChange));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private static long localTime(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,83 @@
+package org.researchstack.backbone.storage.file;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.researchstack.backbone.BuildConfig;
+import org.researchstack.backbone.StorageAccess;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FileBlobTest {
+    private Context context;
+    private MemoryFileAccess fileAccess;
+
+    @Before
+    public void setUp() throws Exception {
+        context = Mockito.mock(Context.class);
+        fileAccess = new MemoryFileAccess();
+        StorageAccess.getInstance().init(null, null, fileAccess, null);
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        byte[] data = {1, 2, 3};
+        FileBlob blob = FileBlob.write(context, "/blobs", ".bin", data);
+
+        assertEquals("/blobs/7037807198c22a7d2b0807371d763779a84fdfcf.bin", blob.getPath());
+        assertEquals("7037807198c22a7d2b0807371d763779a84fdfcf", blob.getHash());
+        assertTrue(blob.exists(context));
+        assertTrue(Arrays.equals(data, blob.read(context)));
+
+        blob.delete(context);
+        assertFalse(blob.exists(context));
+    }
+
+    @Test
+    public void testSameContentIsWrittenOnce() throws Exception {
+        FileBlob blob = FileBlob.write(context, "/blobs", "", new byte[] {4, 5});
+        FileBlob again = FileBlob.write(context, "/blobs", "", new byte[] {4, 5});
+
+        assertEquals(blob, again);
+        assertEquals(Integer.valueOf(1), Integer.valueOf(fileAccess.writes));
+    }
+
+    @Test
+    public void testReadChecksHash() throws Exception {
+        FileBlob blob = FileBlob.write(context, "/blobs", "", new byte[] {6});
+        fileAccess.files.put(blob.getPath(), new byte[] {7});
+
+        try {
+            blob.read(context);
+            fail("Changed content was read");
+        } catch (StorageAccessException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReference() throws Exception {
+        FileBlob blob = new FileBlob("/signatures/abc.sig", "abc");
+
+        assertEquals("/signatures/abc.sig#abc", blob.toString());
+        assertEquals(blob, FileBlob.fromString(blob.toString()));
+        assertEquals("/a#b", FileBlob.fromString("/a#b#c").getPath());
+        assertNull(FileBlob.fromString(null));
+        assertNull(FileBlob.fromString("/no/hash"));
+        // a base64 image stored by older versions is not a reference
+        assertNull(FileBlob.fromString("iVBORw0KGgo#"));
+    }
+}
@@ -0,0 +1,51 @@
+package org.researchstack.backbone.storage.file;
+
+import android.content.Context;
+
+import org.researchstack.backbone.storage.file.aes.Encrypter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link FileAccess} for tests. Safe to use from background writer threads.
+ */
+public class MemoryFileAccess implements FileAccess {
+    public final Map<String, byte[]> files = Collections.synchronizedMap(new HashMap<>());
+
+    /**
+     * Number of calls to {@link #writeData}
+     */
+    public volatile int writes;
+
+    @Override
+    public synchronized void writeData(Context context, String path, byte[] data) {
+        writes++;
+        files.put(path, data);
+    }
+
+    @Override
+    public byte[] readData(Context context, String path) {
+        return files.get(path);
+    }
+
+    @Override
+    public synchronized void moveData(Context context, String fromPath, String toPath) {
+        files.put(toPath, files.remove(fromPath));
+    }
+
+    @Override
+    public boolean dataExists(Context context, String path) {
+        return files.containsKey(path);
+    }
+
+    @Override
+    public void clearData(Context context, String path) {
+        files.remove(path);
+    }
+
+    @Override
+    public void setEncrypter(Encrypter encrypter) {
+    }
+}
@@ -0,0 +1,122 @@
+package org.researchstack.backbone.storage.file;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+
+public class TaskResultJournalTest {
+    private Context context;
+    private MemoryFileAccess fileAccess;
+
+    @Before
+    public void setUp() throws Exception {
+        context = Mockito.mock(Context.class);
+        Mockito.when(context.getApplicationContext()).thenReturn(context);
+        fileAccess = new MemoryFileAccess();
+    }
+
+    @Test
+    public void testRestoreReplaysDeltas() throws Exception {
+        TaskResult result = new TaskResult("task");
+        result.setStartDate(new Date(1000));
+        TaskResultJournal journal = new TaskResultJournal(fileAccess, "hash");
+        answer(journal, result, "a", "1");
+        answer(journal, result, "b", "2");
+        answer(journal, result, "a", "3");
+        journal.append(context, result, "c", null);
+
+        TaskResult restored = new TaskResultJournal(fileAccess, "hash").restore(context).toBlocking().single();
+        assertEquals(new Date(1000), restored.getStartDate());
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(restored.getResults().keySet()));
+        assertEquals("3", restored.getStepResult("a").getResult());
+        assertNull(restored.getStepResult("c"));
+        assertNull(new TaskResultJournal(fileAccess, "other").restore(context).toBlocking().single());
+    }
+
+    @Test
+    public void testCompactKeepsAnswers() throws Exception {
+        TaskResult result = new TaskResult("task");
+        TaskResultJournal journal = new TaskResultJournal(fileAccess, "hash");
+        for (int i = 0; i < TaskResultJournal.MAX_DELTAS * 2 + 5; i++) {
+            answer(journal, result, "step" + i, String.valueOf(i));
+        }
+
+        TaskResultJournal restoredJournal = new TaskResultJournal(fileAccess, "hash");
+        TaskResult restored = restoredJournal.restore(context).toBlocking().single();
+        assertEquals(Integer.valueOf(result.getResults().size()),
+                Integer.valueOf(restored.getResults().size()));
+        assertEquals("68", restored.getStepResult("step68").getResult());
+        // one snapshot and the deltas written since
+        assertEquals(Integer.valueOf(3), Integer.valueOf(fileAccess.files.size()));
+
+        answer(restoredJournal, restored, "late", "x");
+        assertEquals("x", new TaskResultJournal(fileAccess, "hash").restore(context).toBlocking().single()
+                .getStepResult("late")
+                .getResult());
+
+        restoredJournal.clear(context);
+        assertNull(new TaskResultJournal(fileAccess, "hash").restore(context).toBlocking().single());
+        assertFalse(fileAccess.files.containsKey("/task_journal/hash/snapshot"));
+    }
+
+    @Test
+    public void testClearWithoutAppendDeletesEarlierJournal() throws Exception {
+        TaskResult result = new TaskResult("task");
+        TaskResultJournal journal = new TaskResultJournal(fileAccess, "hash");
+        answer(journal, result, "a", "1");
+        answer(journal, result, "b", "2");
+
+        // a recreated activity cancels before anything was appended or restored
+        TaskResultJournal recreated = new TaskResultJournal(fileAccess, "hash");
+        recreated.clear(context);
+
+        assertNull(recreated.restore(context).toBlocking().single());
+        assertFalse(fileAccess.files.containsKey("/task_journal/hash/snapshot"));
+    }
+
+    @Test
+    public void testIgnoresDeltasOfEarlierGeneration() throws Exception {
+        TaskResult result = new TaskResult("task");
+        TaskResultJournal journal = new TaskResultJournal(fileAccess, "hash");
+        answer(journal, result, "a", "1");
+        answer(journal, result, "b", "2");
+        answer(journal, result, "c", "3");
+        // restoring runs after the queued writes
+        new TaskResultJournal(fileAccess, "hash").restore(context).toBlocking().single();
+        // a clear interrupted after deleting the snapshot and the first delta
+        byte[] stale = fileAccess.readData(context, "/task_journal/hash/1");
+        journal.clear(context);
+        // restoring runs after the queued clear
+        assertNull(journal.restore(context).toBlocking().single());
+        fileAccess.writeData(context, "/task_journal/hash/1", stale);
+
+        TaskResult next = new TaskResult("task");
+        answer(journal, next, "x", "4");
+        answer(journal, next, "y", "5");
+
+        TaskResult restored = new TaskResultJournal(fileAccess, "hash").restore(context)
+                .toBlocking()
+                .single();
+        assertEquals(Arrays.asList("x", "y"), new ArrayList<>(restored.getResults().keySet()));
+    }
+
+    private void answer(TaskResultJournal journal, TaskResult result, String id, String answer) {
+        StepResult<String> stepResult = new StepResult<>(new Step(id));
+        stepResult.setResult(answer);
+        result.setStepResultForStepIdentifier(id, stepResult);
+        journal.append(context, result, id, stepResult);
+    }
+}
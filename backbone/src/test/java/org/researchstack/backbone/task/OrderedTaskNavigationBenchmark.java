@@ -0,0 +1,118 @@
+package org.researchstack.backbone.task;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Navigation time of a 1,000 step ordered task, walking it forward and back the way
+ * ViewTaskActivity does: the next or previous step, the progress of the current and new step, and
+ * a lookup by identifier. Compared against a linear scan of the steps, like navigation used to do.
+ */
+@Ignore("Benchmark, run by hand")
+public class OrderedTaskNavigationBenchmark {
+    private static final int STEPS = 1000;
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void testNavigationTime() throws Exception {
+        List<Step> steps = createSteps();
+        OrderedTask task = new OrderedTask("survey", steps);
+        TaskResult result = new TaskResult("survey");
+
+        // warm up both, then measure
+        walk(task, result);
+        scan(steps);
+
+        long start = System.nanoTime();
+        int indexed = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            indexed += walk(task, result);
+        }
+        long indexedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int scanned = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            scanned += scan(steps);
+        }
+        long scannedTime = System.nanoTime() - start;
+
+        assertEquals(Integer.valueOf(scanned), Integer.valueOf(indexed));
+        assertTrue(String.format("Indexed %.3fms, linear scan %.3fms per walk",
+                indexedTime / 1e6 / ROUNDS,
+                scannedTime / 1e6 / ROUNDS), indexedTime < scannedTime);
+    }
+
+    /**
+     * @return the sum of the positions seen, to compare with {@link #scan}
+     */
+    private static int walk(OrderedTask task, TaskResult result) {
+        int sum = 0;
+        Step current = null;
+        Step next = task.getStepAfterStep(null, result);
+        while (next != null) {
+            sum += task.getProgressOfCurrentStep(current, result).getCurrent();
+            sum += task.getProgressOfCurrentStep(next, result).getCurrent();
+            sum += task.getStepWithIdentifier(next.getIdentifier()) == next ? 1 : 0;
+            current = next;
+            next = task.getStepAfterStep(current, result);
+        }
+        Step previous = task.getStepBeforeStep(current, result);
+        while (previous != null) {
+            sum += task.getProgressOfCurrentStep(current, result).getCurrent();
+            sum += task.getProgressOfCurrentStep(previous, result).getCurrent();
+            current = previous;
+            previous = task.getStepBeforeStep(current, result);
+        }
+        return sum;
+    }
+
+    private static int scan(List<Step> steps) {
+        int sum = 0;
+        Step current = null;
+        Step next = steps.get(0);
+        while (next != null) {
+            sum += current == null ? -1 : steps.indexOf(current);
+            sum += steps.indexOf(next);
+            sum += findByIdentifier(steps, next.getIdentifier()) == next ? 1 : 0;
+            current = next;
+            int nextIndex = steps.indexOf(current) + 1;
+            next = nextIndex < steps.size() ? steps.get(nextIndex) : null;
+        }
+        int previousIndex = steps.indexOf(current) - 1;
+        Step previous = previousIndex >= 0 ? steps.get(previousIndex) : null;
+        while (previous != null) {
+            sum += steps.indexOf(current);
+            sum += steps.indexOf(previous);
+            current = previous;
+            previousIndex = steps.indexOf(current) - 1;
+            previous = previousIndex >= 0 ? steps.get(previousIndex) : null;
+        }
+        return sum;
+    }
+
+    private static Step findByIdentifier(List<Step> steps, String identifier) {
+        for (Step step : steps) {
+            if (identifier.equals(step.getIdentifier())) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private static List<Step> createSteps() {
+        List<Step> steps = new ArrayList<>(STEPS);
+        for (int i = 0; i < STEPS; i++) {
+            steps.add(new Step("step" + i, "Question " + i));
+        }
+        return steps;
+    }
+}
@@ -4,11 +4,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.researchstack.backbone.step.Step;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 
@@ -58,6 +63,24 @@ public class OrderedTaskTest {
         assertEquals("Total is accurate for task", 3, progress.getTotal());
     }
 
+    @Test
+    public void testNavigationAfterDeserialization() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(testTask);
+        out.close();
+        OrderedTask copy = (OrderedTask) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+                .readObject();
+
+        Step step = copy.getStepWithIdentifier("idTwo");
+        assertSame("Finds the deserialized step", copy.getSteps().get(1), step);
+        assertEquals("idThree", copy.getStepAfterStep(step, null).getIdentifier());
+        assertEquals("idOne", copy.getStepBeforeStep(step, null).getIdentifier());
+        assertEquals(1, copy.getProgressOfCurrentStep(step, null).getCurrent());
+        assertNull(copy.getStepAfterStep(copy.getStepWithIdentifier("idThree"), null));
+        assertNull(copy.getStepWithIdentifier("non-existent"));
+    }
+
     @Test(expected = Task.InvalidTaskException.class)
     public void testValidateParametersDuplicate() throws Exception {
         Task invalidTask = new OrderedTask("id", stepOne, stepTwo, stepOneDupe);
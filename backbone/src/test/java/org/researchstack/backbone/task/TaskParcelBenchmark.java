@@ -0,0 +1,187 @@
+package org.researchstack.backbone.task;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.researchstack.backbone.BuildConfig;
+import org.researchstack.backbone.answerformat.AnswerFormat;
+import org.researchstack.backbone.answerformat.BooleanAnswerFormat;
+import org.researchstack.backbone.answerformat.ChoiceAnswerFormat;
+import org.researchstack.backbone.answerformat.DateAnswerFormat;
+import org.researchstack.backbone.answerformat.IntegerAnswerFormat;
+import org.researchstack.backbone.answerformat.TextAnswerFormat;
+import org.researchstack.backbone.model.Choice;
+import org.researchstack.backbone.result.IntStepResult;
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.StringStepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.FormStep;
+import org.researchstack.backbone.step.InstructionStep;
+import org.researchstack.backbone.step.QuestionStep;
+import org.researchstack.backbone.step.Step;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static junit.framework.Assert.assertTrue;
+
+
+/**
+ * Marshal and unmarshal time and size of a 60 step survey and its result, with a signature sized
+ * answer, as a Parcelable and as a Serializable the way ViewTaskActivity used to pass them.
+ */
+@Ignore("Benchmark, run by hand")
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TaskParcelBenchmark {
+    private static final int QUESTIONS = 60;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void testMarshalTimeAndSize() throws Exception {
+        OrderedTask task = createTask();
+        TaskResult result = createResult(task);
+
+        int parcelSize = parcel(task).length + parcel(result).length;
+        int serializedSize = serialize(task).length + serialize(result).length;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            unparcel(parcel(task), OrderedTask.CREATOR);
+            unparcel(parcel(result), TaskResult.CREATOR);
+        }
+        long parcelTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            deserialize(serialize(task));
+            deserialize(serialize(result));
+        }
+        long serializedTime = System.nanoTime() - start;
+
+        String message = String.format(
+                "Parcelable %d bytes in %.3fms, Serializable %d bytes in %.3fms per round trip",
+                parcelSize,
+                parcelTime / 1e6 / ROUNDS,
+                serializedSize,
+                serializedTime / 1e6 / ROUNDS);
+        assertTrue(message, parcelSize < serializedSize);
+    }
+
+    private static OrderedTask createTask() {
+        List<Step> steps = new ArrayList<>();
+        steps.add(new InstructionStep("intro", "Daily survey", "A few questions about your day"));
+        for (int i = 0; i < QUESTIONS; i++) {
+            AnswerFormat format;
+            switch (i % 4) {
+                case 0:
+                    format = new IntegerAnswerFormat(0, 100);
+                    break;
+                case 1:
+                    format = new ChoiceAnswerFormat(AnswerFormat.ChoiceAnswerStyle.SingleChoice,
+                            new Choice<>("Never", 0),
+                            new Choice<>("Sometimes", 1),
+                            new Choice<>("Often", 2));
+                    break;
+                case 2:
+                    format = new DateAnswerFormat(AnswerFormat.DateAnswerStyle.Date,
+                            null,
+                            null,
+                            new Date());
+                    break;
+                default:
+                    format = new TextAnswerFormat(200);
+            }
+            steps.add(new QuestionStep("question" + i, "Question number " + i, format));
+        }
+
+        FormStep form = new FormStep("form", "About you", null);
+        form.setFormSteps(new QuestionStep("smoker",
+                        "Do you smoke?",
+                        new BooleanAnswerFormat("Yes", "No")),
+                new QuestionStep("age", "Age", new IntegerAnswerFormat(18, 99)));
+        steps.add(form);
+        return new OrderedTask("survey", steps);
+    }
+
+    private static TaskResult createResult(OrderedTask task) {
+        TaskResult result = new TaskResult(task.getIdentifier());
+        result.setStartDate(new Date());
+        for (Step step : task.getSteps()) {
+            if (step instanceof FormStep || !(step instanceof QuestionStep)) {
+                continue;
+            }
+            AnswerFormat format = ((QuestionStep) step).getAnswerFormat();
+            StepResult stepResult;
+            if (format instanceof IntegerAnswerFormat) {
+                IntStepResult intResult = new IntStepResult(step);
+                intResult.setIntResult(42);
+                stepResult = intResult;
+            } else if (format instanceof TextAnswerFormat) {
+                StringStepResult stringResult = new StringStepResult(step);
+                stringResult.setResult("Slept well, walked to work");
+                stepResult = stringResult;
+            } else {
+                StepResult<Object> plain = new StepResult<>(step);
+                plain.setResult(format instanceof DateAnswerFormat ? new Date().getTime() : 1);
+                stepResult = plain;
+            }
+            result.setStepResultForStepIdentifier(step.getIdentifier(), stepResult);
+        }
+
+        // about the size of a Base64 encoded signature image
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < 40 * 1024; i++) {
+            signature.append((char) ('A' + i % 26));
+        }
+        StepResult<String> signatureResult = new StepResult<>(new Step("signature"));
+        signatureResult.setResult(signature.toString());
+        result.setStepResultForStepIdentifier("signature", signatureResult);
+        return result;
+    }
+
+    private static byte[] parcel(Parcelable value) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            value.writeToParcel(parcel, 0);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static <T> T unparcel(byte[] data, Parcelable.Creator<T> creator) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            return creator.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(value);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(data)).readObject();
+    }
+}
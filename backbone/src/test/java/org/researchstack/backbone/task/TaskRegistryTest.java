@@ -0,0 +1,62 @@
+package org.researchstack.backbone.task;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.researchstack.backbone.BuildConfig;
+import org.researchstack.backbone.StorageAccess;
+import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.storage.file.MemoryFileAccess;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TaskRegistryTest {
+    private Context context;
+    private TaskRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        context = Mockito.mock(Context.class);
+        Mockito.when(context.getApplicationContext()).thenReturn(context);
+        StorageAccess.getInstance().init(null, null, new MemoryFileAccess(), null);
+        registry = new TaskRegistry();
+    }
+
+    @Test
+    public void testLoadsStoredDefinition() throws Exception {
+        String key = registry.register(context, new OrderedTask("task", new Step("a")));
+
+        // a new process, loading runs after the queued write
+        Task task = new TaskRegistry().load(context, "task", key).toBlocking().single();
+        assertEquals("a", task.getStepWithIdentifier("a").getIdentifier());
+    }
+
+    @Test
+    public void testVerifiesTaskSourceAgainstRegisteredContent() throws Exception {
+        String key = registry.register(context, new OrderedTask("task", new Step("a")));
+        // a later registration with other content replaces the stored definition
+        registry.register(context, new OrderedTask("task", new Step("b")));
+
+        TaskRegistry sameContent = new TaskRegistry();
+        sameContent.setTaskSource(taskId -> new OrderedTask(taskId, new Step("a")));
+        Task task = sameContent.load(context, "task", key).toBlocking().single();
+        assertEquals("a", task.getStepWithIdentifier("a").getIdentifier());
+
+        TaskRegistry changed = new TaskRegistry();
+        changed.setTaskSource(taskId -> new OrderedTask(taskId, new Step("c")));
+        try {
+            changed.load(context, "task", key).toBlocking().single();
+            fail("A changed task was loaded");
+        } catch (TaskRegistry.TaskNotFoundException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.researchstack.backbone.utils;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.researchstack.backbone.BuildConfig;
+import org.researchstack.backbone.answerformat.AnswerFormat;
+import org.researchstack.backbone.answerformat.BooleanAnswerFormat;
+import org.researchstack.backbone.answerformat.ChoiceAnswerFormat;
+import org.researchstack.backbone.answerformat.DateAnswerFormat;
+import org.researchstack.backbone.answerformat.IntegerAnswerFormat;
+import org.researchstack.backbone.answerformat.TextAnswerFormat;
+import org.researchstack.backbone.model.Choice;
+import org.researchstack.backbone.result.IntStepResult;
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.StringStepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.FormStep;
+import org.researchstack.backbone.step.InstructionStep;
+import org.researchstack.backbone.step.QuestionStep;
+import org.researchstack.backbone.step.Step;
+import org.researchstack.backbone.task.OrderedTask;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ParcelUtilsTest {
+
+    @Test
+    public void testUriResultRoundTrip() throws Exception {
+        Uri uri = Uri.parse("content://org.researchstack/recordings/1");
+        StepResult<Uri> result = new StepResult<>(new Step("recording"));
+        result.setResult(uri);
+
+        StepResult<Uri> copy = unparcel(result);
+
+        assertEquals("recording", copy.getIdentifier());
+        assertEquals(uri, copy.getResult());
+    }
+
+    @Test
+    public void testValuesRoundTrip() throws Exception {
+        Bundle bundle = new Bundle();
+        bundle.putString("key", "value");
+        Date date = new Date(1466000000000L);
+
+        Parcel parcel = Parcel.obtain();
+        try {
+            ParcelUtils.writeValue(parcel, bundle, 0);
+            ParcelUtils.writeValue(parcel, date, 0);
+            ParcelUtils.writeValue(parcel, null, 0);
+            parcel.setDataPosition(0);
+
+            assertEquals("value", ((Bundle) ParcelUtils.readValue(parcel)).getString("key"));
+            assertEquals(date, ParcelUtils.readValue(parcel));
+            assertNull(ParcelUtils.readValue(parcel));
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    @Test
+    public void testTaskRoundTrip() throws Exception {
+        FormStep form = new FormStep("form", "About you", null);
+        form.setFormSteps(new QuestionStep("smoker",
+                        "Do you smoke?",
+                        new BooleanAnswerFormat("Yes", "No")),
+                new QuestionStep("age", "Age", new IntegerAnswerFormat(18, 99)));
+        OrderedTask task = new OrderedTask("survey",
+                new InstructionStep("intro", "Daily survey", "A few questions about your day"),
+                new QuestionStep("often",
+                        "How often?",
+                        new ChoiceAnswerFormat(AnswerFormat.ChoiceAnswerStyle.SingleChoice,
+                                new Choice<>("Never", 0),
+                                new Choice<>("Sometimes", 1),
+                                new Choice<>("Often", 2))),
+                new QuestionStep("day",
+                        "Which day?",
+                        new DateAnswerFormat(AnswerFormat.DateAnswerStyle.Date,
+                                null,
+                                null,
+                                new Date())),
+                new QuestionStep("notes", "Notes", new TextAnswerFormat(200)),
+                form);
+
+        OrderedTask copy = unparcel(task, OrderedTask.CREATOR);
+
+        assertEquals(task.getSteps().size(), copy.getSteps().size());
+        for (int i = 0; i < task.getSteps().size(); i++) {
+            Step step = task.getSteps().get(i);
+            Step stepCopy = copy.getSteps().get(i);
+            assertEquals(step.getClass(), stepCopy.getClass());
+            assertEquals(step.getIdentifier(), stepCopy.getIdentifier());
+            assertEquals(step.getTitle(), stepCopy.getTitle());
+            assertEquals(step.getStepLayoutClass(), stepCopy.getStepLayoutClass());
+        }
+        FormStep formCopy = (FormStep) copy.getStepWithIdentifier("form");
+        assertEquals(2, formCopy.getFormSteps().size());
+        ChoiceAnswerFormat choices = (ChoiceAnswerFormat) ((QuestionStep) copy.getStepWithIdentifier(
+                "often")).getAnswerFormat();
+        assertEquals("Often", choices.getChoices()[2].getText());
+        assertEquals(2, choices.getChoices()[2].getValue());
+    }
+
+    @Test
+    public void testTaskResultRoundTrip() throws Exception {
+        TaskResult result = new TaskResult("survey");
+        result.setStartDate(new Date(1466000000000L));
+        IntStepResult age = new IntStepResult(new Step("age"));
+        age.setIntResult(42);
+        result.setStepResultForStepIdentifier("age", age);
+        StringStepResult notes = new StringStepResult(new Step("notes"));
+        notes.setResult("Slept well, walked to work");
+        result.setStepResultForStepIdentifier("notes", notes);
+        StepResult<Integer> often = new StepResult<>(new Step("often"));
+        often.setResult(2);
+        result.setStepResultForStepIdentifier("often", often);
+
+        TaskResult copy = unparcel(result, TaskResult.CREATOR);
+
+        assertEquals(new ArrayList<>(result.getResults().keySet()),
+                new ArrayList<>(copy.getResults().keySet()));
+        assertEquals(result.getStartDate(), copy.getStartDate());
+        for (String identifier : result.getResults().keySet()) {
+            StepResult stepResult = result.getStepResult(identifier);
+            StepResult stepResultCopy = copy.getStepResult(identifier);
+            assertEquals(stepResult.getClass(), stepResultCopy.getClass());
+            assertEquals(stepResult.getResults(), stepResultCopy.getResults());
+        }
+    }
+
+    private static <T> T unparcel(Parcelable value, Parcelable.Creator<T> creator) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            value.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return creator.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> StepResult<T> unparcel(StepResult<T> result) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeParcelable(result, 0);
+            parcel.setDataPosition(0);
+            return parcel.readParcelable(StepResult.class.getClassLoader());
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.content.Context;
 import org.researchstack.backbone.result.TaskResult;
 import org.researchstack.backbone.storage.file.FileAccess;
 import org.researchstack.backbone.task.Task;
+import org.researchstack.backbone.ui.step.layout.ConsentSignatureStepLayout;
 import org.researchstack.skin.model.SchedulesAndTasksModel;
 import org.researchstack.skin.model.User;
 import org.researchstack.skin.ui.EmailVerificationActivity;
@@ -140,6 +141,11 @@ public abstract class DataProvider {
     /**
      * This method is responsible in uploading the user consent information (e.g. Name, Birthdate,
      * Signature) to the backend
+     * <p>
+     * The signature image is only in the {@link ConsentSignatureStepLayout#KEY_SIGNATURE} answer if
+     * it was drawn before file access was ready, otherwise the result only references a stored
+     * blob. Read it with {@link ConsentSignatureStepLayout#loadSignatureImage} on a background
+     * thread, which handles both.
      *
      * @param context android context
      */
@@ -150,6 +156,9 @@ public abstract class DataProvider {
      * Signature) locally.
      * <p>
      * Please use {@link FileAccess} class to encrypt user information when saving.
+     * <p>
+     * Like {@link #uploadConsent}, use {@link ConsentSignatureStepLayout#loadSignatureImage} to get
+     * the signature image instead of reading {@link ConsentSignatureStepLayout#KEY_SIGNATURE}.
      *
      * @param context android context
      */
@@ -3,12 +3,13 @@ package org.researchstack.skin;
 import android.app.Application;
 
 import org.researchstack.backbone.task.Task;
+import org.researchstack.backbone.task.TaskRegistry;
 
 /**
  * TaskProvider is used as a way for the Framework to get Tasks needed throughout the onboarding
  * process. This allows you to implement your own Tasks if needed.
  */
-public abstract class TaskProvider {
+public abstract class TaskProvider implements TaskRegistry.TaskSource {
     /**
      * Task ID used by the framework for looking up the "initial" task
      */
@@ -40,6 +41,7 @@ public abstract class TaskProvider {
      */
     public static void init(TaskProvider manager) {
         TaskProvider.instance = manager;
+        TaskRegistry.getInstance().setTaskSource(manager);
     }
 
     /**
@@ -72,4 +74,17 @@ public abstract class TaskProvider {
      */
     public abstract void put(String id, Task task);
 
+    /**
+     * Used by the {@link TaskRegistry} on a background thread to rebuild a task after process death
+     * when its stored definition is gone. Defaults to {@link #get(String)}, so only tasks stored
+     * under their own identifier are found.
+     *
+     * @param taskId the task identifier
+     * @return the task, or null
+     */
+    @Override
+    public Task loadTask(String taskId) {
+        return get(taskId);
+    }
+
 }
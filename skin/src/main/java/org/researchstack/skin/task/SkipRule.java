@@ -0,0 +1,212 @@
+package org.researchstack.skin.task;
+
+import org.researchstack.backbone.utils.LogExt;
+import org.researchstack.skin.model.TaskModel;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A skip rule of a {@link SmartSurveyTask}, compiled from its {@link TaskModel.RuleModel} so the
+ * operator and value are parsed once instead of on every navigation.
+ */
+abstract class SkipRule implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final String OPERATOR_SKIP = "de";
+    static final String OPERATOR_EQUAL = "eq";
+    static final String OPERATOR_NOT_EQUAL = "ne";
+    static final String OPERATOR_LESS_THAN = "lt";
+    static final String OPERATOR_GREATER_THAN = "gt";
+    static final String OPERATOR_LESS_THAN_EQUAL = "le";
+    static final String OPERATOR_GREATER_THAN_EQUAL = "ge";
+    static final String OPERATOR_OTHER_THAN = "ot";
+
+    final String skipTo;
+
+    SkipRule(String skipTo) {
+        this.skipTo = skipTo;
+    }
+
+    /**
+     * @param answer the result of the step the rule belongs to, may be null
+     * @return true if the survey should skip to {@link #skipTo}
+     */
+    abstract boolean matches(Object answer);
+
+    /**
+     * Compiles a list of rules, dropping the ones without a step to skip to or with an operator
+     * that can never match.
+     *
+     * @param rules the rules from the json, may be null
+     * @return the compiled rules in the same order, or null if there are none
+     */
+    static SkipRule[] compile(List<TaskModel.RuleModel> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return null;
+        }
+
+        SkipRule[] compiled = new SkipRule[rules.size()];
+        int count = 0;
+        for (TaskModel.RuleModel rule : rules) {
+            SkipRule skipRule = rule.skipTo == null ? null : compile(rule);
+            if (skipRule != null) {
+                compiled[count++] = skipRule;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        } else if (count < compiled.length) {
+            SkipRule[] trimmed = new SkipRule[count];
+            System.arraycopy(compiled, 0, trimmed, 0, count);
+            return trimmed;
+        }
+        return compiled;
+    }
+
+    static SkipRule compile(TaskModel.RuleModel rule) {
+        switch (rule.operator) {
+            case OPERATOR_SKIP:
+                return new UnansweredRule(rule.skipTo);
+            case OPERATOR_EQUAL:
+                return new ComparisonRule(rule.skipTo, ComparisonRule.EQUAL, rule.value);
+            case OPERATOR_NOT_EQUAL:
+                return new ComparisonRule(rule.skipTo, ComparisonRule.NOT_EQUAL, rule.value);
+            case OPERATOR_LESS_THAN:
+                return new ComparisonRule(rule.skipTo, ComparisonRule.LESS_THAN, rule.value);
+            case OPERATOR_GREATER_THAN:
+                return new ComparisonRule(rule.skipTo, ComparisonRule.GREATER_THAN, rule.value);
+            case OPERATOR_LESS_THAN_EQUAL:
+                return new ComparisonRule(rule.skipTo,
+                        ComparisonRule.LESS_THAN_EQUAL,
+                        rule.value);
+            case OPERATOR_GREATER_THAN_EQUAL:
+                return new ComparisonRule(rule.skipTo,
+                        ComparisonRule.GREATER_THAN_EQUAL,
+                        rule.value);
+            default:
+                // "ot" and unknown operators never matched an answer
+                LogExt.w(SkipRule.class, "Ignoring skip rule with operator " + rule.operator);
+                return null;
+        }
+    }
+
+    /**
+     * Skips if the step was not answered.
+     */
+    static class UnansweredRule extends SkipRule {
+        private static final long serialVersionUID = 1L;
+
+        UnansweredRule(String skipTo) {
+            super(skipTo);
+        }
+
+        @Override
+        boolean matches(Object answer) {
+            return answer == null;
+        }
+    }
+
+    /**
+     * Compares the answer to the rule's value. Numbers support all comparisons, booleans and
+     * strings only equal and not equal.
+     */
+    static class ComparisonRule extends SkipRule {
+        private static final long serialVersionUID = 1L;
+
+        static final int EQUAL = 0;
+        static final int NOT_EQUAL = 1;
+        static final int LESS_THAN = 2;
+        static final int GREATER_THAN = 3;
+        static final int LESS_THAN_EQUAL = 4;
+        static final int GREATER_THAN_EQUAL = 5;
+
+        private final int operator;
+        private final Object value;
+        private final boolean isNumber;
+        private final int intValue;
+        private final double doubleValue;
+        private final Boolean booleanValue;
+
+        ComparisonRule(String skipTo, int operator, Object value) {
+            super(skipTo);
+            this.operator = operator;
+            this.value = value;
+            isNumber = value instanceof Number;
+            intValue = isNumber ? ((Number) value).intValue() : 0;
+            doubleValue = isNumber ? ((Number) value).doubleValue() : 0;
+
+            if (value instanceof Boolean) {
+                booleanValue = (Boolean) value;
+            } else if (isNumber) {
+                booleanValue = intValue == 0 ? Boolean.FALSE : Boolean.TRUE;
+            } else if (value instanceof String) {
+                booleanValue = Boolean.valueOf((String) value);
+            } else {
+                booleanValue = null;
+            }
+        }
+
+        @Override
+        boolean matches(Object answer) {
+            if (answer instanceof Integer) {
+                checkNumber(answer);
+                int intAnswer = (Integer) answer;
+                int compare = intAnswer < intValue ? -1 : (intAnswer == intValue ? 0 : 1);
+                return matchesComparison(compare);
+            } else if (answer instanceof Number) {
+                checkNumber(answer);
+                return matchesComparison(Double.compare(((Number) answer).doubleValue(),
+                        doubleValue));
+            } else if (answer instanceof Boolean) {
+                if (booleanValue == null) {
+                    throw new RuntimeException("Invalid value for Boolean skip rule");
+                }
+                return matchesEquals(booleanValue.equals(answer));
+            } else if (answer instanceof String) {
+                return matchesEquals(value != null && value.equals(answer));
+            } else if (answer != null) {
+                LogExt.e(getClass(), "Unsupported answer type for smart survey rules");
+            }
+            return false;
+        }
+
+        private void checkNumber(Object answer) {
+            if (!isNumber) {
+                throw new RuntimeException("Invalid value for " + answer.getClass().getSimpleName() +
+                        " skip rule");
+            }
+        }
+
+        private boolean matchesEquals(boolean equal) {
+            switch (operator) {
+                case EQUAL:
+                    return equal;
+                case NOT_EQUAL:
+                    return !equal;
+                default:
+                    return false;
+            }
+        }
+
+        private boolean matchesComparison(int compare) {
+            switch (operator) {
+                case EQUAL:
+                    return compare == 0;
+                case NOT_EQUAL:
+                    return compare != 0;
+                case LESS_THAN:
+                    return compare < 0;
+                case GREATER_THAN:
+                    return compare > 0;
+                case LESS_THAN_EQUAL:
+                    return compare <= 0;
+                case GREATER_THAN_EQUAL:
+                    return compare >= 0;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.researchstack.backbone.answerformat.IntegerAnswerFormat;
 import org.researchstack.backbone.answerformat.TextAnswerFormat;
 import org.researchstack.backbone.answerformat.UnknownAnswerFormat;
 import org.researchstack.backbone.model.Choice;
+import org.researchstack.backbone.result.StepResult;
 import org.researchstack.backbone.result.TaskResult;
 import org.researchstack.backbone.step.InstructionStep;
 import org.researchstack.backbone.step.QuestionStep;
@@ -36,19 +37,22 @@ public class SmartSurveyTask extends Task implements Serializable {
 
     // use this as the 'skipTo' identifier to end the survey instead of going to a question
     public static final String END_OF_SURVEY_MARKER = "END_OF_SURVEY";
-    private static final String OPERATOR_SKIP = "de";
-    private static final String OPERATOR_EQUAL = "eq";
-    private static final String OPERATOR_NOT_EQUAL = "ne";
-    private static final String OPERATOR_LESS_THAN = "lt";
-    private static final String OPERATOR_GREATER_THAN = "gt";
-    private static final String OPERATOR_LESS_THAN_EQUAL = "le";
-    private static final String OPERATOR_GREATER_THAN_EQUAL = "ge";
-    private static final String OPERATOR_OTHER_THAN = "ot";
     private HashMap<String, Step> steps;
-    private HashMap<String, List<TaskModel.RuleModel>> rules;
 
     private List<String> staticStepIdentifiers;
-    private List<String> dynamicStepIdentifiers;
+    private HashMap<String, Integer> staticStepIndexes;
+    private SkipRule[][] rules;
+
+    /*
+    The dynamic order of the steps is the path taken so far followed by the static steps from
+    tailStart on, both as indexes into staticStepIdentifiers and always in increasing order. It is
+    updated in place so navigating doesn't allocate.
+     */
+    private int[] path;
+    private int pathLength;
+    private int tailStart;
+    // position of each static step in path, only valid if path points back to the same step
+    private int[] pathPositions;
 
     /**
      * Creates a SmartSurveyTask from a {@link TaskModel} object
@@ -58,9 +62,11 @@ public class SmartSurveyTask extends Task implements Serializable {
      */
     public SmartSurveyTask(Context context, TaskModel taskModel) {
         super(taskModel.identifier);
-        steps = new HashMap<>(taskModel.elements.size());
-        rules = new HashMap<>();
-        staticStepIdentifiers = new ArrayList<>(taskModel.elements.size());
+        int size = taskModel.elements.size();
+        steps = new HashMap<>(size);
+        staticStepIdentifiers = new ArrayList<>(size);
+        staticStepIndexes = new HashMap<>(size);
+        rules = new SkipRule[size][];
         for (TaskModel.StepModel stepModel : taskModel.elements) {
             if (stepModel.type.equals("SurveyQuestion")) {
                 AnswerFormat answerFormat = from(context, stepModel.constraints);
@@ -71,8 +77,9 @@ public class SmartSurveyTask extends Task implements Serializable {
                 questionStep.setText(stepModel.promptDetail);
                 questionStep.setOptional(stepModel.optional);
                 steps.put(stepModel.identifier, questionStep);
+                rules[staticStepIdentifiers.size()] = SkipRule.compile(stepModel.constraints.rules);
+                staticStepIndexes.put(stepModel.identifier, staticStepIdentifiers.size());
                 staticStepIdentifiers.add(stepModel.identifier);
-                rules.put(stepModel.identifier, stepModel.constraints.rules);
             }
             /*
             In a survey JSON file, if you want to define a step that has text but no question,
@@ -81,6 +88,7 @@ public class SmartSurveyTask extends Task implements Serializable {
             else if (stepModel.type.equals("SurveyTextOnly")) {
                 InstructionStep instructionStep = new InstructionStep(stepModel.identifier, stepModel.prompt, stepModel.promptDetail);
                 steps.put(stepModel.identifier, instructionStep);
+                staticStepIndexes.put(stepModel.identifier, staticStepIdentifiers.size());
                 staticStepIdentifiers.add(stepModel.identifier);
 
             } else {
@@ -88,7 +96,8 @@ public class SmartSurveyTask extends Task implements Serializable {
             }
         }
 
-        dynamicStepIdentifiers = new ArrayList<>(staticStepIdentifiers);
+        path = new int[size];
+        pathPositions = new int[size];
     }
 
     private AnswerFormat from(Context context, TaskModel.ConstraintsModel constraints) {
@@ -144,8 +153,8 @@ public class SmartSurveyTask extends Task implements Serializable {
     /**
      * Returns the next step in the task based on current answers, or null if at the end.
      * <p>
-     * This method rebuilds the order of the steps based on the current results and returns the next
-     * one.
+     * This method updates the order of the remaining steps based on the current results and
+     * returns the next one.
      *
      * @param step   The reference step. Pass null to specify the first step.
      * @param result A snapshot of the current set of results.
@@ -153,37 +162,31 @@ public class SmartSurveyTask extends Task implements Serializable {
      */
     @Override
     public Step getStepAfterStep(Step step, TaskResult result) {
-        String currentIdentifier = step == null ? null : step.getIdentifier();
-        refillDynamicStepIdentifiers(currentIdentifier);
-
-        String skipToStep = null;
+        int currentIndex = step == null ? -1 : indexOfStep(step.getIdentifier());
+        refillDynamicSteps(currentIndex);
 
-        List<TaskModel.RuleModel> stepRules = rules.get(currentIdentifier);
-        if (stepRules != null && !stepRules.isEmpty()) {
-            LogExt.d(getClass(), "Rules exist for this step");
-            Object answer = result.getStepResult(currentIdentifier).getResult();
-            skipToStep = processRules(stepRules, answer);
+        SkipRule[] stepRules = currentIndex == -1 ? null : rules[currentIndex];
+        if (stepRules != null) {
+            StepResult stepResult = result.getStepResult(step.getIdentifier());
+            Object answer = stepResult == null ? null : stepResult.getResult();
+            String skipToStep = processRules(stepRules, answer);
 
             if (skipToStep != null && skipToStep.equals(END_OF_SURVEY_MARKER)) {
                 return null;
             }
 
             if (skipToStep != null) {
-                adjustDynamicStepIdentifiers(skipToStep, currentIdentifier);
+                adjustDynamicSteps(indexOfStep(skipToStep), currentIndex);
             }
-        } else {
-            LogExt.d(getClass(), "No rules for this step");
         }
 
-        String nextStepIdentifier = nextStepIdentifier(true, currentIdentifier);
-
-        return nextStepIdentifier == null ? null : steps.get(nextStepIdentifier);
+        return stepAt(nextStepIndex(true, currentIndex));
     }
 
     /**
      * Returns the step that should be before the current step based on current results.
      * <p>
-     * This method rebuilds the order of the remaining steps based on the current results and
+     * This method updates the order of the remaining steps based on the current results and
      * returns the previous one to the current step.
      *
      * @param step   The reference step. Pass null to specify the last step.
@@ -192,10 +195,9 @@ public class SmartSurveyTask extends Task implements Serializable {
      */
     @Override
     public Step getStepBeforeStep(Step step, TaskResult result) {
-        String currentIdentifier = step == null ? null : step.getIdentifier();
-        refillDynamicStepIdentifiers(currentIdentifier);
-        String previousStepIdentifier = nextStepIdentifier(false, currentIdentifier);
-        return previousStepIdentifier == null ? null : steps.get(previousStepIdentifier);
+        int currentIndex = step == null ? -1 : indexOfStep(step.getIdentifier());
+        refillDynamicSteps(currentIndex);
+        return stepAt(nextStepIndex(false, currentIndex));
     }
 
     @Override
@@ -214,7 +216,7 @@ public class SmartSurveyTask extends Task implements Serializable {
      */
     @Override
     public String getTitleForStep(Context context, Step step) {
-        int currentIndex = staticStepIdentifiers.indexOf(step.getIdentifier()) + 1;
+        int currentIndex = indexOfStep(step.getIdentifier()) + 1;
         return context.getString(R.string.rsb_format_step_title,
                 currentIndex,
                 staticStepIdentifiers.size());
@@ -222,7 +224,7 @@ public class SmartSurveyTask extends Task implements Serializable {
 
     @Override
     public TaskProgress getProgressOfCurrentStep(Step step, TaskResult result) {
-        int current = staticStepIdentifiers.indexOf(step == null ? -1 : step.getIdentifier());
+        int current = step == null ? -1 : indexOfStep(step.getIdentifier());
         return new TaskProgress(current, staticStepIdentifiers.size());
     }
 
@@ -231,132 +233,88 @@ public class SmartSurveyTask extends Task implements Serializable {
         // Construction validates most issues, add some validation here if needed
     }
 
-    private String nextStepIdentifier(boolean after, String currentIdentifier) {
-        if (currentIdentifier == null && after) {
-            return !dynamicStepIdentifiers.isEmpty() ? dynamicStepIdentifiers.get(0) : null;
-        }
-
-        int currentIndex = dynamicStepIdentifiers.indexOf(currentIdentifier);
-        int newIndex = -1;
-
-        if (after) {
-            if (currentIndex + 1 < dynamicStepIdentifiers.size()) {
-                newIndex = currentIndex + 1;
-            }
-        } else {
-            if (currentIndex >= 1) {
-                newIndex = currentIndex - 1;
-            }
-        }
-
-        return newIndex != -1 ? dynamicStepIdentifiers.get(newIndex) : null;
+    private int indexOfStep(String identifier) {
+        Integer index = staticStepIndexes.get(identifier);
+        return index == null ? -1 : index;
     }
 
-    private void refillDynamicStepIdentifiers(String currentIdentifier) {
-        //Remove till end in dynamic
-        int currentIndexInDynamic = dynamicStepIdentifiers.indexOf(currentIdentifier);
-        currentIndexInDynamic = currentIndexInDynamic == -1 ? 0 : currentIndexInDynamic;
-        dynamicStepIdentifiers = new ArrayList<>(dynamicStepIdentifiers.subList(0, currentIndexInDynamic));
-
-        //Add array from static
-        int currentIndexInStatic = staticStepIdentifiers.indexOf(currentIdentifier);
-        currentIndexInStatic = currentIndexInStatic == -1 ? 0 : currentIndexInStatic;
+    private Step stepAt(int staticIndex) {
+        return staticIndex == -1 ? null : steps.get(staticStepIdentifiers.get(staticIndex));
+    }
 
-        dynamicStepIdentifiers.addAll(staticStepIdentifiers.subList(currentIndexInStatic,
-                staticStepIdentifiers.size()));
+    private int dynamicSize() {
+        return pathLength + staticStepIdentifiers.size() - tailStart;
     }
 
-    private void adjustDynamicStepIdentifiers(String skipToIdentifier, String currentIdentifier) {
-        int currentIndex = dynamicStepIdentifiers.indexOf(currentIdentifier);
-        int skipToIndex = dynamicStepIdentifiers.indexOf(skipToIdentifier);
+    private int dynamicStepAt(int position) {
+        return position < pathLength ? path[position] : tailStart + position - pathLength;
+    }
 
-        if (currentIndex == -1 || skipToIndex == -1) {
-            return;
+    private int dynamicPositionOf(int staticIndex) {
+        if (staticIndex == -1) {
+            return -1;
+        } else if (staticIndex >= tailStart) {
+            return pathLength + staticIndex - tailStart;
         }
 
-        if (skipToIndex > currentIndex) {
-            while (!dynamicStepIdentifiers.get(currentIndex + 1).equals(skipToIdentifier)) {
-                dynamicStepIdentifiers.remove(currentIndex + 1);
-            }
-        }
+        int position = pathPositions[staticIndex];
+        return position < pathLength && path[position] == staticIndex ? position : -1;
     }
 
-    private String processRules(List<TaskModel.RuleModel> stepRules, Object answer) {
-        String skipToIdentifier = null;
+    private int nextStepIndex(boolean after, int currentIndex) {
+        int currentPosition = dynamicPositionOf(currentIndex);
+        int newPosition = -1;
 
-        for (TaskModel.RuleModel stepRule : stepRules) {
-            skipToIdentifier = checkRule(stepRule, answer);
-            if (skipToIdentifier != null) {
-                break;
+        if (after) {
+            if (currentPosition + 1 < dynamicSize()) {
+                newPosition = currentPosition + 1;
+            }
+        } else {
+            if (currentPosition >= 1) {
+                newPosition = currentPosition - 1;
             }
         }
 
-        return skipToIdentifier;
+        return newPosition != -1 ? dynamicStepAt(newPosition) : -1;
     }
 
-    private String checkRule(TaskModel.RuleModel stepRule, Object answer) {
-        String operator = stepRule.operator;
-        String skipTo = stepRule.skipTo;
-        Object value = stepRule.value;
-
-        if (operator.equals(OPERATOR_SKIP)) {
-            return answer == null ? skipTo : null;
-        } else if (answer instanceof Integer) {
-            return checkNumberRule(operator, skipTo, ((Number) value).intValue(), (Integer) answer);
-        } else if (answer instanceof Double) {
-            return checkNumberRule(operator, skipTo, ((Number) value).doubleValue(), (Double) answer);
-        } else if (answer instanceof Boolean) {
-            Boolean booleanValue;
-
-            if (value instanceof Boolean) {
-                booleanValue = (Boolean) value;
-            } else if (value instanceof Number) {
-                booleanValue = ((Number) value).intValue() == 0 ? Boolean.FALSE : Boolean.TRUE;
-            } else if (value instanceof String) {
-                booleanValue = Boolean.valueOf((String) value);
-            } else {
-                throw new RuntimeException("Invalid value for Boolean skip rule");
-            }
-
-            return checkEqualsRule(operator, skipTo, booleanValue, answer);
-        } else if (answer instanceof String) {
-            return checkEqualsRule(operator, skipTo, value, answer);
-        } else {
-            LogExt.e(getClass(), "Unsupported answer type for smart survey rules");
+    /**
+     * Keeps the dynamic steps before the current one and puts the static steps from the current one
+     * on after them, dropping any skips decided after it.
+     */
+    private void refillDynamicSteps(int currentIndex) {
+        int currentPosition = dynamicPositionOf(currentIndex);
+        if (currentPosition == -1) {
+            pathLength = 0;
+            tailStart = currentIndex == -1 ? 0 : currentIndex;
+        } else if (currentPosition < pathLength) {
+            pathLength = currentPosition;
+            tailStart = currentIndex;
         }
-
-        return null;
+        // otherwise the current step is already in the static tail and nothing changes
     }
 
-    private <T> String checkEqualsRule(String operator, String skipTo, T value, T answer) {
-        switch (operator) {
-            case OPERATOR_EQUAL:
-                return value.equals(answer) ? skipTo : null;
-            case OPERATOR_NOT_EQUAL:
-                return !value.equals(answer) ? skipTo : null;
+    private void adjustDynamicSteps(int skipToIndex, int currentIndex) {
+        if (currentIndex == -1 || skipToIndex <= currentIndex) {
+            return;
         }
-        return null;
-    }
 
-    private <T extends Comparable<T>> String checkNumberRule(String operator, String skipTo, T value, T answer) {
-        int compare = answer.compareTo(value);
-
-        switch (operator) {
-            case OPERATOR_EQUAL:
-                return compare == 0 ? skipTo : null;
-            case OPERATOR_NOT_EQUAL:
-                return compare != 0 ? skipTo : null;
-            case OPERATOR_GREATER_THAN:
-                return compare > 0 ? skipTo : null;
-            case OPERATOR_GREATER_THAN_EQUAL:
-                return compare >= 0 ? skipTo : null;
-            case OPERATOR_LESS_THAN:
-                return compare < 0 ? skipTo : null;
-            case OPERATOR_LESS_THAN_EQUAL:
-                return compare <= 0 ? skipTo : null;
+        // the current step is in the tail after a refill, move it and the ones before it to the
+        // path so the tail can continue from the skip target
+        for (int i = tailStart; i <= currentIndex; i++) {
+            path[pathLength] = i;
+            pathPositions[i] = pathLength;
+            pathLength++;
         }
+        tailStart = skipToIndex;
+    }
 
+    private String processRules(SkipRule[] stepRules, Object answer) {
+        for (SkipRule stepRule : stepRules) {
+            if (stepRule.matches(answer)) {
+                return stepRule.skipTo;
+            }
+        }
         return null;
-
     }
 }
@@ -10,10 +10,16 @@ import org.researchstack.backbone.ui.ViewTaskActivity;
 public class ConsentTaskActivity extends ViewTaskActivity {
     public static Intent newIntent(Context context, Task task) {
         Intent intent = new Intent(context, ConsentTaskActivity.class);
-        intent.putExtra(EXTRA_TASK, task);
+        putTaskExtras(context, intent, task);
         return intent;
     }
 
+    @Override
+    protected boolean isJournalEnabled() {
+        // shown before there is a pin code to encrypt the journal with
+        return false;
+    }
+
     @Override
     public void onDataAuth() {
         if (StorageAccess.getInstance().hasPinCode(this)) {
@@ -111,8 +111,8 @@ public class EmailVerificationActivity extends PinCodeActivity {
         signUpStep.setStepLayoutClass(SignUpStepLayout.class);
         signUpStep.setTitle(getString(R.string.rss_change_email));
 
-        Intent intent = new Intent(this, ViewTaskActivity.class);
-        intent.putExtra(ViewTaskActivity.EXTRA_TASK, new OrderedTask(CHANGE_EMAIL_ID, signUpStep));
+        Intent intent = ViewTaskActivity.newIntent(this,
+                new OrderedTask(CHANGE_EMAIL_ID, signUpStep));
         startActivityForResult(intent, REQUEST_CHANGE_EMAIL);
     }
 
@@ -29,10 +29,16 @@ public class SignUpTaskActivity extends ViewTaskActivity implements ActivityCall
 
     public static Intent newIntent(Context context, Task task) {
         Intent intent = new Intent(context, SignUpTaskActivity.class);
-        intent.putExtra(EXTRA_TASK, task);
+        putTaskExtras(context, intent, task);
         return intent;
     }
 
+    @Override
+    protected boolean isJournalEnabled() {
+        // shown before there is a pin code to encrypt the journal with
+        return false;
+    }
+
     @Override
     public void onDataAuth() {
         if (StorageAccess.getInstance().hasPinCode(this)) {
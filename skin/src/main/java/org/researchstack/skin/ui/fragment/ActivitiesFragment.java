@@ -20,6 +20,9 @@ import android.widget.Toast;
 
 import org.researchstack.backbone.StorageAccess;
 import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.storage.database.AppDatabase;
+import org.researchstack.backbone.storage.database.DatabaseChange;
+import org.researchstack.backbone.storage.database.QueryableAppDatabase;
 import org.researchstack.backbone.storage.file.StorageAccessListener;
 import org.researchstack.backbone.task.Task;
 import org.researchstack.backbone.ui.ViewTaskActivity;
@@ -37,13 +40,16 @@ import java.util.List;
 import rx.Observable;
 import rx.Subscription;
 import rx.subjects.PublishSubject;
+import rx.subscriptions.CompositeSubscription;
 
 
 public class ActivitiesFragment extends Fragment implements StorageAccessListener {
     private static final int REQUEST_TASK = 1492;
     private TaskAdapter adapter;
     private RecyclerView recyclerView;
-    private Subscription subscription;
+    private final CompositeSubscription subscriptions = new CompositeSubscription();
+    private Subscription adapterSubscription;
+    private boolean observingChanges;
 
     @Nullable
     @Override
@@ -55,56 +61,92 @@ public class ActivitiesFragment extends Fragment implements StorageAccessListene
     public void onViewCreated(View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         recyclerView = (RecyclerView) view.findViewById(R.id.recycler_view);
+        recyclerView.setLayoutManager(new LinearLayoutManager(recyclerView.getContext()));
+        recyclerView.addItemDecoration(new DividerItemDecoration(recyclerView.getContext(),
+                DividerItemDecoration.VERTICAL_LIST,
+                0,
+                false));
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
 
-        unsubscribe();
+        subscriptions.clear();
+        adapterSubscription = null;
+        observingChanges = false;
+        adapter = null;
     }
 
-    private void unsubscribe() {
-        if (subscription != null) {
-            subscription.unsubscribe();
-        }
-    }
-
-    private void setUpAdapter() {
-        unsubscribe();
-
-        recyclerView.setLayoutManager(new LinearLayoutManager(recyclerView.getContext()));
-        recyclerView.addItemDecoration(new DividerItemDecoration(recyclerView.getContext(),
-                DividerItemDecoration.VERTICAL_LIST,
-                0,
-                false));
-
-        Observable.create(subscriber -> {
+    private Observable<SchedulesAndTasksModel> loadModel() {
+        return Observable.create(subscriber -> {
             SchedulesAndTasksModel model = DataProvider.getInstance()
                     .loadTasksAndSchedules(getActivity());
             subscriber.onNext(model);
         })
                 .compose(ObservableUtils.applyDefault())
-                .map(o -> (SchedulesAndTasksModel) o)
+                .map(o -> (SchedulesAndTasksModel) o);
+    }
+
+    /**
+     * Reloads the tasks and schedules when a task got a new or archived result, saved here or
+     * anywhere else, so completion times and schedules are never shown from a stale model. Only
+     * databases that publish their changes can be observed, with others the list is reloaded after
+     * a task was saved here.
+     */
+    private void observeChanges() {
+        AppDatabase database = StorageAccess.getInstance().getAppDatabase();
+        if (observingChanges || !(database instanceof QueryableAppDatabase)) {
+            return;
+        }
+        observingChanges = true;
+
+        subscriptions.add(((QueryableAppDatabase) database).changes()
+                .filter(changes -> {
+                    for (DatabaseChange change : changes) {
+                        if (change.getKind() == DatabaseChange.Kind.SAVED ||
+                                change.getKind() == DatabaseChange.Kind.ARCHIVED) {
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                // a newer burst replaces a reload that is still running
+                .switchMap(changes -> loadModel())
                 .subscribe(model -> {
-                    adapter = new TaskAdapter(model);
-                    recyclerView.setAdapter(adapter);
+                    if (adapter != null) {
+                        adapter.update(model);
+                    }
+                }));
+    }
 
-                    subscription = adapter.getPublishSubject().subscribe(task -> {
+    private void setUpAdapter() {
+        observeChanges();
 
-                        Task newTask = DataProvider.getInstance().loadTask(getContext(), task);
+        subscriptions.add(loadModel().subscribe(model -> {
+            if (adapterSubscription != null) {
+                subscriptions.remove(adapterSubscription);
+            }
 
-                        if (newTask == null) {
-                            Toast.makeText(getActivity(),
-                                    R.string.rss_local_error_load_task,
-                                    Toast.LENGTH_SHORT).show();
-                            return;
-                        }
+            adapter = new TaskAdapter(model);
+            recyclerView.setAdapter(adapter);
+
+            adapterSubscription = adapter.getPublishSubject().subscribe(task -> {
+
+                Task newTask = DataProvider.getInstance().loadTask(getContext(), task);
 
-                        startActivityForResult(ViewTaskActivity.newIntent(getContext(), newTask),
-                                REQUEST_TASK);
-                    });
-                });
+                if (newTask == null) {
+                    Toast.makeText(getActivity(),
+                            R.string.rss_local_error_load_task,
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                startActivityForResult(ViewTaskActivity.newIntent(getContext(), newTask),
+                        REQUEST_TASK);
+            });
+            subscriptions.add(adapterSubscription);
+        }));
     }
 
     @Override
@@ -115,8 +157,9 @@ public class ActivitiesFragment extends Fragment implements StorageAccessListene
             TaskResult taskResult = (TaskResult) data.getSerializableExtra(ViewTaskActivity.EXTRA_TASK_RESULT);
             StorageAccess.getInstance().getAppDatabase().saveTaskResult(taskResult);
             DataProvider.getInstance().uploadTaskResult(getActivity(), taskResult);
-
-            setUpAdapter();
+            if (!observingChanges) {
+                setUpAdapter();
+            }
         } else {
             super.onActivityResult(requestCode, resultCode, data);
         }
@@ -150,7 +193,22 @@ public class ActivitiesFragment extends Fragment implements StorageAccessListene
 
             tasks = new ArrayList<>();
             taskScheduleType = new HashMap<>();
+            setModel(model);
+        }
+
+        /**
+         * Replaces the tasks and schedules with a reloaded model and rebinds the list.
+         *
+         * @param model the reloaded tasks and schedules
+         */
+        public void update(SchedulesAndTasksModel model) {
+            tasks.clear();
+            taskScheduleType.clear();
+            setModel(model);
+            notifyDataSetChanged();
+        }
 
+        private void setModel(SchedulesAndTasksModel model) {
             for (SchedulesAndTasksModel.ScheduleModel schedule : model.schedules) {
                 for (SchedulesAndTasksModel.TaskScheduleModel task : schedule.tasks) {
                     taskScheduleType.put(task.taskID, schedule.scheduleType.equals("once"));
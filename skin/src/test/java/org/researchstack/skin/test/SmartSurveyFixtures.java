@@ -0,0 +1,53 @@
+package org.researchstack.skin.test;
+
+import org.researchstack.backbone.result.StepResult;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
+import org.researchstack.skin.model.TaskModel;
+
+import java.util.ArrayList;
+
+/**
+ * Task models, rules and answers shared by the {@link
+ * org.researchstack.skin.task.SmartSurveyTask} tests
+ */
+class SmartSurveyFixtures {
+    private SmartSurveyFixtures() {
+    }
+
+    static void answer(TaskResult result, Step step, Object answer) {
+        StepResult<Object> stepResult = new StepResult<>(step);
+        stepResult.setResult(answer);
+        result.setStepResultForStepIdentifier(step.getIdentifier(), stepResult);
+    }
+
+    /**
+     * Creates a task of integer questions identified "q0" to "q[size - 1]", without rules
+     */
+    static TaskModel createTaskModel(int size) {
+        TaskModel taskModel = new TaskModel();
+        taskModel.identifier = "survey";
+        taskModel.elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TaskModel.StepModel stepModel = new TaskModel.StepModel();
+            stepModel.identifier = "q" + i;
+            stepModel.type = "SurveyQuestion";
+            stepModel.prompt = "Question " + i;
+            stepModel.constraints = new TaskModel.ConstraintsModel();
+            stepModel.constraints.type = "IntegerConstraints";
+            stepModel.constraints.maxValue = 10;
+            stepModel.constraints.rules = new ArrayList<>();
+            taskModel.elements.add(stepModel);
+        }
+        return taskModel;
+    }
+
+    static TaskModel.RuleModel createRule(String operator, Object value, String skipTo) {
+        TaskModel.RuleModel rule = new TaskModel.RuleModel();
+        rule.operator = operator;
+        // gson reads numbers in rules as doubles
+        rule.value = value instanceof Integer ? ((Integer) value).doubleValue() : value;
+        rule.skipTo = skipTo;
+        return rule;
+    }
+}
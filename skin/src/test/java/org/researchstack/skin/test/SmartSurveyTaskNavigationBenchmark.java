@@ -0,0 +1,102 @@
+package org.researchstack.skin.test;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
+import org.researchstack.skin.model.TaskModel;
+import org.researchstack.skin.task.SmartSurveyTask;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.researchstack.skin.test.SmartSurveyFixtures.answer;
+import static org.researchstack.skin.test.SmartSurveyFixtures.createRule;
+import static org.researchstack.skin.test.SmartSurveyFixtures.createTaskModel;
+
+/**
+ * Navigation time of a survey with hundreds of skip rules, walking it forward and back the way
+ * ViewTaskActivity does. Rebuilding the path on every step took about 4.5ms per walk.
+ */
+@Ignore("Benchmark, run by hand")
+public class SmartSurveyTaskNavigationBenchmark {
+    private static final int STEPS = 500;
+    private static final int ROUNDS = 200;
+    private static final double MAX_MILLIS_PER_WALK = 2;
+
+    private Context context;
+    private int expectedSteps;
+
+    @Before
+    public void setUp() throws Exception {
+        context = Mockito.mock(Context.class);
+    }
+
+    @Test
+    public void testNavigationTime() throws Exception {
+        TaskModel taskModel = createTaskModel(STEPS);
+        for (int i = 0; i < STEPS; i++) {
+            List<TaskModel.RuleModel> rules = taskModel.elements.get(i).constraints.rules;
+            rules.add(createRule("de", null, SmartSurveyTask.END_OF_SURVEY_MARKER));
+            rules.add(createRule("lt", 0, SmartSurveyTask.END_OF_SURVEY_MARKER));
+            rules.add(createRule("gt", 10, SmartSurveyTask.END_OF_SURVEY_MARKER));
+            rules.add(createRule("eq", 3, "q" + (i + 2)));
+        }
+        SmartSurveyTask task = new SmartSurveyTask(context, taskModel);
+        TaskResult result = new TaskResult("survey");
+        for (TaskModel.StepModel stepModel : taskModel.elements) {
+            answer(result, task.getStepWithIdentifier(stepModel.identifier),
+                    Integer.parseInt(stepModel.identifier.substring(1)) % 4);
+        }
+
+        // a step answered with 3 skips the one after it
+        expectedSteps = 0;
+        for (int i = 0; i < STEPS; i += i % 4 == 3 ? 2 : 1) {
+            expectedSteps++;
+        }
+
+        // warm up, then measure
+        Step last = walk(task, result);
+        assertEquals("q" + (STEPS - 1), last.getIdentifier());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            walk(task, result);
+        }
+        double millisPerWalk = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+        assertTrue(String.format("%.3fms per walk of %d steps", millisPerWalk, STEPS),
+                millisPerWalk < MAX_MILLIS_PER_WALK);
+    }
+
+    /**
+     * Walks to the end and back to the start, checking both ways take the same number of steps.
+     *
+     * @return the last step
+     */
+    private Step walk(SmartSurveyTask task, TaskResult result) {
+        int forward = 0;
+        Step current = null;
+        Step next = task.getStepAfterStep(null, result);
+        while (next != null) {
+            forward++;
+            current = next;
+            next = task.getStepAfterStep(current, result);
+        }
+
+        Step last = current;
+        int back = 0;
+        while (current != null) {
+            back++;
+            current = task.getStepBeforeStep(current, result);
+        }
+        assertEquals(Integer.valueOf(expectedSteps), Integer.valueOf(forward));
+        assertEquals(Integer.valueOf(expectedSteps), Integer.valueOf(back));
+        return last;
+    }
+}
@@ -8,13 +8,20 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.researchstack.backbone.result.TaskResult;
+import org.researchstack.backbone.step.Step;
 import org.researchstack.skin.model.TaskModel;
 import org.researchstack.skin.task.SmartSurveyTask;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.researchstack.skin.test.SmartSurveyFixtures.answer;
+import static org.researchstack.skin.test.SmartSurveyFixtures.createRule;
+import static org.researchstack.skin.test.SmartSurveyFixtures.createTaskModel;
 
 /*
 Tests whether step type "SurveyTextOnly" works in addition to "SurveyQuestion"
@@ -56,6 +63,47 @@ public class SmartSurveyTaskTest {
 
     }
 
-}
+    @Test
+    public void testSkipRules() throws Exception {
+        TaskModel rulesModel = createTaskModel(4);
+        rulesModel.elements.get(0).constraints.rules.add(createRule("eq", 1, "q2"));
+        rulesModel.elements.get(0).constraints.rules.add(createRule("gt", 5,
+                SmartSurveyTask.END_OF_SURVEY_MARKER));
+        rulesModel.elements.get(1).constraints.rules.add(createRule("de", null, "q3"));
+        SmartSurveyTask task = new SmartSurveyTask(mockContext, rulesModel);
+        TaskResult result = new TaskResult("survey");
+        Step first = task.getStepAfterStep(null, result);
+
+        answer(result, first, 1);
+        Step skipped = task.getStepAfterStep(first, result);
+        assertEquals("q2", skipped.getIdentifier());
+        assertEquals("q0", task.getStepBeforeStep(skipped, result).getIdentifier());
+
+        answer(result, first, 2);
+        Step next = task.getStepAfterStep(first, result);
+        assertEquals("q1", next.getIdentifier());
+        // q1 isn't answered
+        Step last = task.getStepAfterStep(next, result);
+        assertEquals("q3", last.getIdentifier());
+        assertEquals("q1", task.getStepBeforeStep(last, result).getIdentifier());
+        assertNull(task.getStepAfterStep(last, result));
+
+        answer(result, first, 6);
+        assertNull(task.getStepAfterStep(first, result));
+    }
+
+    @Test
+    public void testSkipRulesWithFloatAnswer() throws Exception {
+        TaskModel rulesModel = createTaskModel(3);
+        rulesModel.elements.get(0).constraints.rules.add(createRule("gt", 2, "q2"));
+        SmartSurveyTask task = new SmartSurveyTask(mockContext, rulesModel);
+        TaskResult result = new TaskResult("survey");
+        Step first = task.getStepAfterStep(null, result);
 
+        answer(result, first, 2.5f);
+        assertEquals("q2", task.getStepAfterStep(first, result).getIdentifier());
 
+        answer(result, first, 1.5f);
+        assertEquals("q1", task.getStepAfterStep(first, result).getIdentifier());
+    }
+}